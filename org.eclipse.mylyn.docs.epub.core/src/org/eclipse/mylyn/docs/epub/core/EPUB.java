@@ -18,6 +18,7 @@ import java.io.InputStream;
 import java.text.MessageFormat;
 import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.zip.ZipEntry;
@@ -324,26 +325,29 @@ public class EPUB {
 	}
 
 	/**
-	 * Assembles the EPUB file using a temporary working folder. The folder will be deleted as soon as the assembly has
-	 * completed.
+	 * Assembles the EPUB file using a temporary working folder. The content items of the publications are written
+	 * directly from their source files into the EPUB, so only the generated files such as the OPF and the table of
+	 * contents are written to the working folder. The folder will be deleted as soon as the assembly has completed.
 	 *
 	 * @param epubFile
 	 *            the target EPUB file
 	 * @throws Exception
+	 * @see #pack(File, File)
 	 */
 	public File pack(File epubFile) throws Exception {
 		File workingFolder = File.createTempFile("epub_", null); //$NON-NLS-1$
 		if (workingFolder.delete() && workingFolder.mkdirs()) {
-			pack(epubFile, workingFolder);
+			pack(epubFile, workingFolder, false);
 		}
 		deleteFolder(workingFolder);
 		return workingFolder;
 	}
 
 	/**
-	 * Assembles the EPUB file using the specified working folder. The contents of the working folder will <b>not</b> be
-	 * removed when the operation has completed. If the temporary data is not interesting, use {@link #pack(File)}
-	 * instead.
+	 * Assembles the EPUB file using the specified working folder. All the contents of the EPUB, including copies of
+	 * the content items, are written to the working folder before it is compressed into the EPUB. The contents of the
+	 * working folder will <b>not</b> be removed when the operation has completed, which is useful for inspecting the
+	 * EPUB. If the temporary data is not interesting, use {@link #pack(File)} instead.
 	 *
 	 * @param epubFile
 	 *            the target EPUB file
@@ -353,6 +357,21 @@ public class EPUB {
 	 * @see {@link #pack(File)}
 	 */
 	public void pack(File epubFile, File rootFolder) throws Exception {
+		pack(epubFile, rootFolder, true);
+	}
+
+	/**
+	 * Assembles the EPUB file using the specified working folder.
+	 *
+	 * @param epubFile
+	 *            the target EPUB file
+	 * @param rootFolder
+	 *            the root folder holding the EPUB contents
+	 * @param copyContent
+	 *            whether to copy the content items into the working folder, or write them directly into the EPUB
+	 * @throws Exception
+	 */
+	private void pack(File epubFile, File rootFolder, boolean copyContent) throws Exception {
 		if (ocfContainer.getRootfiles().getRootfiles().isEmpty()) {
 			throw new ValidationException("EPUB does not contain any publications"); //$NON-NLS-1$
 		}
@@ -361,20 +380,30 @@ public class EPUB {
 			writeOCF(rootFolder);
 			EList<RootFile> publications = ocfContainer.getRootfiles().getRootfiles();
 			log(MessageFormat.format(Messages.getString("EPUB.2"), epubFile.getAbsolutePath()), Severity.INFO); //$NON-NLS-1$
+			Map<String, File> content = new LinkedHashMap<String, File>();
 			for (RootFile rootFile : publications) {
 				Object publication = rootFile.getPublication();
 				File root = new File(rootFolder.getAbsolutePath() + File.separator + rootFile.getFullPath());
+				String path = rootFile.getFullPath().replace(File.separatorChar, '/');
 				if (publication instanceof Publication) {
-					((Publication) publication).pack(root);
+					((Publication) publication).pack(root, copyContent);
+					if (!copyContent) {
+						content.putAll(((Publication) publication).getContent(path.substring(0,
+								path.lastIndexOf('/') + 1)));
+					}
 				} else {
 					if (rootFile.getPublication() instanceof File) {
-						EPUBFileUtil.copy((File) rootFile.getPublication(), root);
+						if (copyContent) {
+							EPUBFileUtil.copy((File) rootFile.getPublication(), root);
+						} else {
+							content.put(path, (File) rootFile.getPublication());
+						}
 					} else {
 						throw new IllegalArgumentException("Unknown publication type in root file"); //$NON-NLS-1$
 					}
 				}
 			}
-			EPUBFileUtil.zip(epubFile, rootFolder);
+			EPUBFileUtil.zip(epubFile, rootFolder, content);
 			log(MessageFormat.format(Messages.getString("EPUB.3"), //$NON-NLS-1$
 					publications.size()), Severity.INFO);
 		} else {
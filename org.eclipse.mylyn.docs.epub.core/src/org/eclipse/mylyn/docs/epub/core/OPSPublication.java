@@ -20,6 +20,7 @@ import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.Callable;
 
 import javax.xml.parsers.ParserConfigurationException;
 
@@ -51,6 +52,7 @@ import org.eclipse.mylyn.docs.epub.opf.OPFFactory;
 import org.eclipse.mylyn.docs.epub.opf.Spine;
 import org.eclipse.mylyn.internal.docs.epub.core.EPUBXMLHelperImp;
 import org.eclipse.mylyn.internal.docs.epub.core.OPSValidator;
+import org.eclipse.mylyn.internal.docs.epub.core.ParallelScanner;
 import org.eclipse.mylyn.internal.docs.epub.core.TOCGenerator;
 import org.xml.sax.InputSource;
 import org.xml.sax.SAXException;
@@ -117,28 +119,39 @@ public class OPSPublication extends Publication {
 		meta.setName("dtb:uid"); //$NON-NLS-1$
 		meta.setContent(getIdentifier().getMixed().getValue(0).toString());
 		ncxTOC.getHead().getMetas().add(meta);
-		int playOrder = 0;
-		// Iterate over the spine
-		EList<Itemref> spineItems = getSpine().getSpineItems();
+		// Index the manifest so that spine items can be looked up by identifier
 		EList<Item> manifestItems = opfPackage.getManifest().getItems();
-		for (Itemref itemref : spineItems) {
-			Item referencedItem = null;
-			String id = itemref.getIdref();
-			// Find the manifest item that is referenced
-			for (Item item : manifestItems) {
-				if (item.getId().equals(id)) {
-					referencedItem = item;
-					break;
-				}
+		Map<String, Item> itemsById = new HashMap<String, Item>();
+		for (Item item : manifestItems) {
+			if (!itemsById.containsKey(item.getId())) {
+				itemsById.put(item.getId(), item);
 			}
+		}
+		// Iterate over the spine, parsing each chapter in parallel
+		EList<Itemref> spineItems = getSpine().getSpineItems();
+		List<Callable<Ncx>> chapters = new ArrayList<Callable<Ncx>>();
+		for (Itemref itemref : spineItems) {
+			final Item referencedItem = itemsById.get(itemref.getIdref());
 			if (referencedItem != null && !referencedItem.isNoToc()
 					&& referencedItem.getMedia_type().equals(MIMETYPE_XHTML)) {
-				File file = new File(referencedItem.getFile());
-				FileInputStream fis = new FileInputStream(file);
 				log(MessageFormat.format(Messages.getString("OPS2Publication.1"), referencedItem.getHref()), Severity.VERBOSE, indent); //$NON-NLS-1$
-				playOrder = TOCGenerator.parse(new InputSource(fis), referencedItem.getHref(), ncxTOC, playOrder);
+				chapters.add(new Callable<Ncx>() {
+					public Ncx call() throws Exception {
+						FileInputStream fis = new FileInputStream(new File(referencedItem.getFile()));
+						try {
+							return TOCGenerator.parse(new InputSource(fis), referencedItem.getHref());
+						} finally {
+							fis.close();
+						}
+					}
+				});
 			}
 		}
+		// Merge the chapters in reading order
+		int playOrder = 0;
+		for (Ncx chapter : ParallelScanner.invokeAll(chapters)) {
+			playOrder = TOCGenerator.append(chapter, ncxTOC, playOrder);
+		}
 		indent--;
 	}
 
@@ -19,11 +19,15 @@ import java.text.MessageFormat;
 import java.text.SimpleDateFormat;
 import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Locale;
 import java.util.Map;
+import java.util.Set;
 import java.util.TimeZone;
 import java.util.UUID;
+import java.util.concurrent.Callable;
 
 import javax.xml.parsers.ParserConfigurationException;
 
@@ -72,6 +76,7 @@ import org.eclipse.mylyn.docs.epub.opf.util.OPFResourceImpl;
 import org.eclipse.mylyn.docs.epub.opf.util.OPFValidator;
 import org.eclipse.mylyn.internal.docs.epub.core.EPUBFileUtil;
 import org.eclipse.mylyn.internal.docs.epub.core.EPUBXMLHelperImp;
+import org.eclipse.mylyn.internal.docs.epub.core.ParallelScanner;
 import org.eclipse.mylyn.internal.docs.epub.core.ReferenceScanner;
 import org.xml.sax.SAXException;
 
@@ -1017,27 +1022,41 @@ public abstract class Publication {
 	private void includeReferencedResources() throws ParserConfigurationException, SAXException, IOException {
 		log(Messages.getString("OPSPublication.23"), Severity.INFO, indent++); //$NON-NLS-1$
 		EList<Item> manifestItems = opfPackage.getManifest().getItems();
-		// Compose a list of file references
-		HashMap<File, List<File>> references = new HashMap<File, List<File>>();
-		for (Item item : manifestItems) {
+		// Compose a list of file references, scanning the files in parallel
+		List<File> sources = new ArrayList<File>();
+		List<Callable<List<File>>> scanners = new ArrayList<Callable<List<File>>>();
+		for (final Item item : manifestItems) {
 			// Only parse XHTML-files and files that are not generated
 			if (item.getMedia_type().equals(MIMETYPE_XHTML) && !item.isGenerated()) {
 				File source = null;
 				if (item.getSourcePath() != null) {
 					source = new File(item.getSourcePath());
 					log(MessageFormat.format(Messages.getString("OPSPublication.24"), source), Severity.VERBOSE, indent); //$NON-NLS-1$
-					references.put(source, ReferenceScanner.parse(item));
 				} else {
 					source = new File(item.getFile());
 					log(MessageFormat.format(Messages.getString("OPSPublication.25"), source), Severity.VERBOSE, indent); //$NON-NLS-1$
 				}
-				references.put(source, ReferenceScanner.parse(item));
+				sources.add(source);
+				scanners.add(new Callable<List<File>>() {
+					public List<File> call() throws Exception {
+						return ReferenceScanner.parse(item);
+					}
+				});
 			} else {
 				log(MessageFormat.format(Messages.getString("OPSPublication.26"), item.getFile()), Severity.DEBUG, indent); //$NON-NLS-1$
 			}
 		}
+		List<List<File>> scanned = ParallelScanner.invokeAll(scanners);
+		Map<File, List<File>> references = new LinkedHashMap<File, List<File>>();
+		for (int i = 0; i < sources.size(); i++) {
+			references.put(sources.get(i), scanned.get(i));
+		}
 		indent--;
 		// Add all referenced items to the manifest
+		Set<String> manifestFiles = new HashSet<String>();
+		for (Item item : manifestItems) {
+			manifestFiles.add(item.getFile());
+		}
 		for (File root : references.keySet()) {
 			List<File> files = references.get(root);
 			for (File file : files) {
@@ -1049,16 +1068,10 @@ public abstract class Publication {
 					relativePath = new File(EMPTY_STRING);
 				}
 				// Add those files that does not already exist in the manifest
-				boolean add = true;
-				EList<Item> items = getPackage().getManifest().getItems();
-				for (Item item : items) {
-					if (item.getFile().equals(file.getAbsolutePath())) {
-						add = false;
-					}
-				}
-				if (add) {
+				if (!manifestFiles.contains(file.getAbsolutePath())) {
 					try {
-						addItem(null, null, file, relativePath.getParent(), null, false, false, false);
+						Item item = addItem(null, null, file, relativePath.getParent(), null, false, false, false);
+						manifestFiles.add(item.getFile());
 					} catch (Exception e) {
 						throw new RuntimeException(String.format("Could not add file referenced from \"%1$s\"", root), //$NON-NLS-1$
 								e);
@@ -1108,6 +1121,28 @@ public abstract class Publication {
 	 *             when the SAX parser cannot configured
 	 */
 	void pack(File rootFile) throws IOException, ValidationException, ParserConfigurationException, SAXException {
+		pack(rootFile, true);
+	}
+
+	/**
+	 * Assembles the OPS publication in a location relative to the root file as {@link #pack(File)} does, optionally
+	 * leaving out the content items. When the content items are not copied, only the generated files such as the OPF
+	 * and the table of contents are written, and the items must be obtained using {@link #getContent(String)}.
+	 *
+	 * @param rootFile
+	 *            the root file
+	 * @param copyContent
+	 *            whether to copy the content items into the folder of the root file
+	 * @throws ValidationException
+	 *             when the EPUB contains errors
+	 * @throws SAXException
+	 *             when content cannot be read
+	 * @throws ParserConfigurationException
+	 *             when the SAX parser cannot configured
+	 * @see #getContent(String)
+	 */
+	void pack(File rootFile, boolean copyContent) throws IOException, ValidationException,
+			ParserConfigurationException, SAXException {
 		if (opfPackage.getSpine().getSpineItems().isEmpty()) {
 			throw new ValidationException("Spine does not contain any items"); //$NON-NLS-1$
 		}
@@ -1149,7 +1184,9 @@ public abstract class Publication {
 			if (opfPackage.isGenerateCoverHTML()) {
 				writeCoverHTML(rootFolder);
 			}
-			writeContent(rootFolder);
+			if (copyContent) {
+				writeContent(rootFolder);
+			}
 			writeTableOfContents(rootFolder);
 			writeOPF(rootFile);
 		} else {
@@ -1386,6 +1423,26 @@ public abstract class Publication {
 		}
 	}
 
+	/**
+	 * Returns the source files of all items part of the publication that are not generated, by their path in the EPUB.
+	 * This is used to write the items directly into the EPUB when the publication has been
+	 * {@link #pack(File, boolean) packed} without copying them.
+	 *
+	 * @param folder
+	 *            the path of the folder holding the root file in the EPUB, including a trailing '/' unless empty
+	 * @return the source files by path in the EPUB, in manifest order
+	 */
+	Map<String, File> getContent(String folder) {
+		Map<String, File> content = new LinkedHashMap<String, File>();
+		EList<Item> items = opfPackage.getManifest().getItems();
+		for (Item item : items) {
+			if (!item.isGenerated()) {
+				content.put(folder + item.getHref(), new File(item.getFile()));
+			}
+		}
+		return content;
+	}
+
 	/**
 	 * Writes a XHTML-file for the cover image. This is added to the publication and all required references set.
 	 *
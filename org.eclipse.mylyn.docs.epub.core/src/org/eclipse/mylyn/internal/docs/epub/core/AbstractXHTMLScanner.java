@@ -11,6 +11,10 @@
  *******************************************************************************/
 package org.eclipse.mylyn.internal.docs.epub.core;
 
+import javax.xml.parsers.ParserConfigurationException;
+import javax.xml.parsers.SAXParser;
+import javax.xml.parsers.SAXParserFactory;
+
 import org.xml.sax.Attributes;
 import org.xml.sax.SAXException;
 import org.xml.sax.ext.DefaultHandler2;
@@ -22,6 +26,9 @@ import org.xml.sax.ext.DefaultHandler2;
  */
 public abstract class AbstractXHTMLScanner extends DefaultHandler2 {
 
+	/** Parsers that have been created, one for each thread that scans content */
+	private static final ThreadLocal<SAXParser> parsers = new ThreadLocal<SAXParser>();
+
 	/** Buffer holding element text */
 	protected StringBuilder buffer = null;
 
@@ -40,6 +47,28 @@ public abstract class AbstractXHTMLScanner extends DefaultHandler2 {
 		buffer = new StringBuilder();
 	}
 
+	/**
+	 * Returns a non-validating SAX parser that does not load external DTDs. The parser is created the first time that
+	 * it is requested by the current thread, and is reused by subsequent requests made by the same thread.
+	 * 
+	 * @return the parser, which must not be used once another parser has been requested by the current thread
+	 * @throws ParserConfigurationException
+	 * @throws SAXException
+	 */
+	protected static SAXParser getParser() throws ParserConfigurationException, SAXException {
+		SAXParser parser = parsers.get();
+		if (parser == null) {
+			SAXParserFactory factory = SAXParserFactory.newInstance();
+			factory.setFeature("http://xml.org/sax/features/validation", false); //$NON-NLS-1$
+			factory.setFeature("http://apache.org/xml/features/nonvalidating/load-external-dtd", false); //$NON-NLS-1$
+			parser = factory.newSAXParser();
+			parsers.set(parser);
+		} else {
+			parser.reset();
+		}
+		return parser;
+	}
+
 	/**
 	 * Determines whether or not the given element name represents a HTML header.
 	 * 
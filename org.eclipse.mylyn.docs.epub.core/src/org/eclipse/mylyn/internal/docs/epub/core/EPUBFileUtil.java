@@ -16,7 +16,17 @@ import java.io.FileInputStream;
 import java.io.FileNotFoundException;
 import java.io.FileOutputStream;
 import java.io.IOException;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 import java.util.zip.CRC32;
 import java.util.zip.ZipEntry;
 import java.util.zip.ZipException;
@@ -40,7 +50,63 @@ public class EPUBFileUtil {
 
 	static final int BUFFERSIZE = 2048;
 
-	private static TikaConfig tika;
+	/**
+	 * The maximum number of detected MIME-types to remember.
+	 */
+	private static final int DETECTED_TYPES_LIMIT = 10000;
+
+	/**
+	 * MIME-types of well-known file extensions, which are used without looking at the contents of the file. Note that
+	 * <code>.html</code> and <code>.xml</code> files are not included as their contents may indicate XHTML.
+	 */
+	private static final Map<String, String> MIMETYPES;
+
+	static {
+		Map<String, String> types = new HashMap<String, String>();
+		types.put("xhtml", "application/xhtml+xml"); //$NON-NLS-1$ //$NON-NLS-2$
+		types.put("css", "text/css"); //$NON-NLS-1$ //$NON-NLS-2$
+		types.put("gif", "image/gif"); //$NON-NLS-1$ //$NON-NLS-2$
+		types.put("jpg", "image/jpeg"); //$NON-NLS-1$ //$NON-NLS-2$
+		types.put("jpeg", "image/jpeg"); //$NON-NLS-1$ //$NON-NLS-2$
+		types.put("png", "image/png"); //$NON-NLS-1$ //$NON-NLS-2$
+		types.put("svg", "image/svg+xml"); //$NON-NLS-1$ //$NON-NLS-2$
+		MIMETYPES = Collections.unmodifiableMap(types);
+	}
+
+	private static final ConcurrentMap<String, DetectedType> detectedTypes = new ConcurrentHashMap<String, DetectedType>();
+
+	/**
+	 * A MIME-type detected from the contents of a file, and the time the file was last modified when it was detected.
+	 */
+	private static class DetectedType {
+
+		final String type;
+
+		final long lastModified;
+
+		DetectedType(String type, long lastModified) {
+			this.type = type;
+			this.lastModified = lastModified;
+		}
+	}
+
+	/**
+	 * Holds the Tika configuration, which is created when first needed.
+	 */
+	private static class TikaHolder {
+
+		static final TikaConfig tika;
+
+		static {
+			try {
+				tika = new TikaConfig();
+			} catch (TikaException e) {
+				throw new RuntimeException(e);
+			} catch (IOException e) {
+				throw new RuntimeException(e);
+			}
+		}
+	}
 
 	/**
 	 * Copies the contents of <i>source</i> to the new <i>destination</i> file.
@@ -58,12 +124,7 @@ public class EPUBFileUtil {
 		try {
 			from = new FileInputStream(source);
 			to = new FileOutputStream(destination);
-			byte[] buffer = new byte[4096];
-			int bytesRead;
-
-			while ((bytesRead = from.read(buffer)) != -1) {
-				to.write(buffer, 0, bytesRead);
-			}
+			transfer(from.getChannel(), to.getChannel());
 		} finally {
 			if (from != null) {
 				try {
@@ -81,25 +142,76 @@ public class EPUBFileUtil {
 	}
 
 	/**
-	 * Attempts to figure out the MIME-type for the file.
+	 * Transfers the remaining contents of the source channel to the destination channel. The transfer is done by the
+	 * operating system when the destination is also a file channel.
+	 *
+	 * @param source
+	 *            the source channel
+	 * @param destination
+	 *            the destination channel
+	 * @throws IOException
+	 */
+	private static void transfer(FileChannel source, WritableByteChannel destination) throws IOException {
+		long position = source.position();
+		long size = source.size();
+		while (position < size) {
+			position += source.transferTo(position, size - position, destination);
+		}
+	}
+
+	/**
+	 * Attempts to figure out the MIME-type for the file. Files having a well-known extension of EPUB content are
+	 * assumed to be of the corresponding core media type, while the MIME-type of other files is detected from their
+	 * name and contents. Detected MIME-types are remembered until the file is modified. This method may be called from
+	 * multiple threads.
 	 *
 	 * @param file
 	 *            the file to determine MIME-type for
 	 * @return the MIME-type or <code>application/octet-stream</code>
 	 */
 	public static String getMimeType(File file) {
-		try {
-			if (tika == null) {
-				tika = new TikaConfig();
+		String name = file.getName();
+		int dot = name.lastIndexOf('.');
+		if (dot != -1) {
+			String type = MIMETYPES.get(name.substring(dot + 1).toLowerCase(Locale.ENGLISH));
+			if (type != null) {
+				return type;
 			}
+		}
+		String path = file.getAbsolutePath();
+		long lastModified = file.lastModified();
+		DetectedType detected = detectedTypes.get(path);
+		if (detected != null && detected.lastModified == lastModified) {
+			return detected.type;
+		}
+		String type = detectMimeType(file);
+		if (detectedTypes.size() >= DETECTED_TYPES_LIMIT) {
+			detectedTypes.clear();
+		}
+		detectedTypes.put(path, new DetectedType(type, lastModified));
+		return type;
+	}
+
+	/**
+	 * Detects the MIME-type of the file from its name and contents.
+	 *
+	 * @param file
+	 *            the file to determine MIME-type for
+	 * @return the MIME-type or <code>application/octet-stream</code>
+	 */
+	private static String detectMimeType(File file) {
+		try {
 			Metadata metadata = new Metadata();
 			metadata.set(TikaMetadataKeys.RESOURCE_NAME_KEY, file.getName());
-			MediaType detect = tika.getDetector().detect(TikaInputStream.get(file), metadata);
-			return detect.toString();
+			TikaInputStream in = TikaInputStream.get(file);
+			try {
+				MediaType detect = TikaHolder.tika.getDetector().detect(in, metadata);
+				return detect.toString();
+			} finally {
+				in.close();
+			}
 		} catch (IOException e) {
 			throw new RuntimeException(e);
-		} catch (TikaException e) {
-			throw new RuntimeException(e);
 		}
 	}
 
@@ -242,19 +354,47 @@ public class EPUBFileUtil {
 	 *            the destination file
 	 * @param folder
 	 *            the source folder
-	 * @param uncompressed
-	 *            a list of files to keep uncompressed
 	 * @throws ZipException
 	 * @throws IOException
 	 */
 	public static void zip(File destination, File folder) throws ZipException, IOException {
+		zip(destination, folder, Collections.<String, File> emptyMap());
+	}
+
+	/**
+	 * Recursively compresses contents of the given folder into a zip-file, followed by the given files. This allows
+	 * adding large files to the zip-file without first copying them into the folder. A file is not added if the folder
+	 * already holds a file at the same path. If a file already exists in the given location an exception will be
+	 * thrown.
+	 *
+	 * @param destination
+	 *            the destination file
+	 * @param folder
+	 *            the source folder
+	 * @param files
+	 *            the files to add, by their path in the zip-file using '/' as directory separator
+	 * @throws ZipException
+	 * @throws IOException
+	 */
+	public static void zip(File destination, File folder, Map<String, File> files) throws ZipException,
+			IOException {
 		if (destination.exists()) {
 			throw new IOException("A file already exists at " + destination.getAbsolutePath()); //$NON-NLS-1$
 		}
 		ZipOutputStream out = new ZipOutputStream(new FileOutputStream(destination));
-		writeEPUBHeader(out);
-		zip(folder, folder, out);
-		out.close();
+		try {
+			writeEPUBHeader(out);
+			zip(folder, folder, out);
+			WritableByteChannel channel = Channels.newChannel(out);
+			for (Entry<String, File> file : files.entrySet()) {
+				String path = file.getKey();
+				if (!new File(folder, path).exists()) {
+					zip(path, file.getValue(), out, channel);
+				}
+			}
+		} finally {
+			out.close();
+		}
 	}
 
 	/**
@@ -274,18 +414,9 @@ public class EPUBFileUtil {
 				return !pathname.isDirectory();
 			}
 		});
-		byte[] tmpBuf = new byte[BUFFERSIZE];
-
+		WritableByteChannel channel = Channels.newChannel(out);
 		for (File file : files) {
-			FileInputStream in = new FileInputStream(file.getAbsolutePath());
-			ZipEntry zipEntry = new ZipEntry(getRelativePath(root, file));
-			out.putNextEntry(zipEntry);
-			int len;
-			while ((len = in.read(tmpBuf)) > 0) {
-				out.write(tmpBuf, 0, len);
-			}
-			out.closeEntry();
-			in.close();
+			zip(getRelativePath(root, file), file, out, channel);
 		}
 		File[] dirs = folder.listFiles(new java.io.FileFilter() {
 			public boolean accept(File pathname) {
@@ -298,4 +429,29 @@ public class EPUBFileUtil {
 		}
 	}
 
+	/**
+	 * Adds a file to the output stream.
+	 *
+	 * @param path
+	 *            the path of the file in the zip-file
+	 * @param file
+	 *            the file to add
+	 * @param out
+	 *            the output stream
+	 * @param channel
+	 *            a channel writing to the output stream
+	 * @throws IOException
+	 */
+	private static void zip(String path, File file, ZipOutputStream out, WritableByteChannel channel)
+			throws IOException {
+		FileInputStream in = new FileInputStream(file);
+		try {
+			out.putNextEntry(new ZipEntry(path));
+			transfer(in.getChannel(), channel);
+			out.closeEntry();
+		} finally {
+			in.close();
+		}
+	}
+
 }
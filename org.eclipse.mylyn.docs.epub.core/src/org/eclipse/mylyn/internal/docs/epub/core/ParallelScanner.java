@@ -0,0 +1,96 @@
+/*******************************************************************************
+ * Copyright (c) 2014 Tasktop Technologies and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     David Green - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.mylyn.internal.docs.epub.core;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import javax.xml.parsers.ParserConfigurationException;
+
+import org.xml.sax.SAXException;
+
+/**
+ * Runs tasks that scan publication content, such as the {@link ReferenceScanner} and the {@link TOCGenerator}, using a
+ * thread for each available processor. Tasks must not modify the publication, which may only be updated with the
+ * results once all tasks have completed.
+ *
+ * @author David Green
+ */
+public class ParallelScanner {
+
+	/**
+	 * Runs the given tasks and waits for all of them to complete.
+	 *
+	 * @param tasks
+	 *            the tasks to run
+	 * @return the results of the tasks, in the same order as the tasks
+	 * @throws ParserConfigurationException
+	 *             when a task fails to configure a parser
+	 * @throws SAXException
+	 *             when a task fails to read content
+	 * @throws IOException
+	 *             when a task fails to read content, or if interrupted while waiting for the tasks to complete
+	 */
+	public static <T> List<T> invokeAll(List<? extends Callable<T>> tasks) throws ParserConfigurationException,
+			SAXException, IOException {
+		List<T> results = new ArrayList<T>(tasks.size());
+		int threads = Math.min(tasks.size(), Runtime.getRuntime().availableProcessors());
+		if (threads <= 1) {
+			for (Callable<T> task : tasks) {
+				try {
+					results.add(task.call());
+				} catch (Exception e) {
+					throw rethrow(e);
+				}
+			}
+			return results;
+		}
+		ExecutorService executor = Executors.newFixedThreadPool(threads);
+		try {
+			for (Future<T> future : executor.invokeAll(tasks)) {
+				try {
+					results.add(future.get());
+				} catch (ExecutionException e) {
+					throw rethrow(e.getCause());
+				}
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new InterruptedIOException();
+		} finally {
+			executor.shutdownNow();
+		}
+		return results;
+	}
+
+	private static RuntimeException rethrow(Throwable t) throws ParserConfigurationException, SAXException,
+			IOException {
+		if (t instanceof ParserConfigurationException) {
+			throw (ParserConfigurationException) t;
+		} else if (t instanceof SAXException) {
+			throw (SAXException) t;
+		} else if (t instanceof IOException) {
+			throw (IOException) t;
+		} else if (t instanceof RuntimeException) {
+			throw (RuntimeException) t;
+		} else if (t instanceof Error) {
+			throw (Error) t;
+		}
+		throw new RuntimeException(t);
+	}
+}
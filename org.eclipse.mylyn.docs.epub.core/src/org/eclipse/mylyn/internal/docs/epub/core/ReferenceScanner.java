@@ -19,7 +19,6 @@ import java.util.List;
 
 import javax.xml.parsers.ParserConfigurationException;
 import javax.xml.parsers.SAXParser;
-import javax.xml.parsers.SAXParserFactory;
 
 import org.eclipse.mylyn.docs.epub.opf.Item;
 import org.xml.sax.Attributes;
@@ -36,21 +35,22 @@ public class ReferenceScanner extends AbstractXHTMLScanner {
 
 	public static List<File> parse(Item item) throws ParserConfigurationException, SAXException, IOException {
 		FileReader fr = new FileReader(item.getFile());
-		InputSource file = new InputSource(fr);
-		SAXParserFactory factory = SAXParserFactory.newInstance();
-		factory.setFeature("http://xml.org/sax/features/validation", false); //$NON-NLS-1$
-		factory.setFeature("http://apache.org/xml/features/nonvalidating/load-external-dtd", false); //$NON-NLS-1$
-		SAXParser parser = factory.newSAXParser();
-		String href = item.getHref();
-		ReferenceScanner scanner = new ReferenceScanner(item);
 		try {
-			parser.parse(file, scanner);
-			return scanner.files;
-		} catch (SAXException e) {
-			System.err.println("Could not parse " + href); //$NON-NLS-1$
-			e.printStackTrace();
+			InputSource file = new InputSource(fr);
+			SAXParser parser = getParser();
+			String href = item.getHref();
+			ReferenceScanner scanner = new ReferenceScanner(item);
+			try {
+				parser.parse(file, scanner);
+				return scanner.files;
+			} catch (SAXException e) {
+				System.err.println("Could not parse " + href); //$NON-NLS-1$
+				e.printStackTrace();
+			}
+			return null;
+		} finally {
+			fr.close();
 		}
-		return null;
 	}
 
 	Item currentItem;
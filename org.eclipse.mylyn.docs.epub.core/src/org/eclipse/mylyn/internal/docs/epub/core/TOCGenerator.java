@@ -12,11 +12,13 @@
 package org.eclipse.mylyn.internal.docs.epub.core;
 
 import java.io.IOException;
+import java.util.ArrayList;
 
 import javax.xml.parsers.ParserConfigurationException;
 import javax.xml.parsers.SAXParser;
-import javax.xml.parsers.SAXParserFactory;
 
+import org.eclipse.emf.common.util.TreeIterator;
+import org.eclipse.emf.ecore.EObject;
 import org.eclipse.emf.ecore.util.FeatureMapUtil;
 import org.eclipse.mylyn.docs.epub.ncx.Content;
 import org.eclipse.mylyn.docs.epub.ncx.NCXFactory;
@@ -129,10 +131,7 @@ public class TOCGenerator extends AbstractXHTMLScanner {
 	 */
 	public static int parse(InputSource file, String href, Ncx ncx, int playOrder) throws ParserConfigurationException,
 			SAXException, IOException {
-		SAXParserFactory factory = SAXParserFactory.newInstance();
-		factory.setFeature("http://xml.org/sax/features/validation", false); //$NON-NLS-1$
-		factory.setFeature("http://apache.org/xml/features/nonvalidating/load-external-dtd", false); //$NON-NLS-1$
-		SAXParser parser = factory.newSAXParser();
+		SAXParser parser = getParser();
 		TOCGenerator tocGenerator = new TOCGenerator(href, ncx, playOrder);
 		try {
 			parser.parse(file, tocGenerator);
@@ -143,4 +142,54 @@ public class TOCGenerator extends AbstractXHTMLScanner {
 		return tocGenerator.getPlayOrder();
 	}
 
+	/**
+	 * Parses an XHTML file, representing a publication chapter, and generates a table of contents for this chapter
+	 * only. This allows chapters to be parsed independently of each other, and their tables of contents to be
+	 * {@link #append(Ncx, Ncx, int) appended} to the table of contents of the publication in reading order.
+	 * 
+	 * @param file
+	 *            the XHTML file to parse
+	 * @param href
+	 *            the XHTML file referencing this file
+	 * @return an NCX holding the headers of the chapter, numbered from the play order 1
+	 * @throws ParserConfigurationException
+	 * @throws SAXException
+	 * @throws IOException
+	 */
+	public static Ncx parse(InputSource file, String href) throws ParserConfigurationException, SAXException,
+			IOException {
+		Ncx chapter = NCXFactory.eINSTANCE.createNcx();
+		chapter.setNavMap(NCXFactory.eINSTANCE.createNavMap());
+		parse(file, href, chapter, 0);
+		return chapter;
+	}
+
+	/**
+	 * Moves the headers of a chapter that was {@link #parse(InputSource, String) parsed independently} to the given
+	 * NCX. The headers are renumbered to follow the given play order, so that the result is the same as when the
+	 * chapter is parsed into the NCX using {@link #parse(InputSource, String, Ncx, int)}.
+	 * 
+	 * @param chapter
+	 *            the table of contents of the chapter
+	 * @param ncx
+	 *            the NCX to add headers to
+	 * @param playOrder
+	 *            the play order of the last header of the NCX
+	 * @return the play order of the last header of the NCX after adding the headers of the chapter
+	 */
+	public static int append(Ncx chapter, Ncx ncx, int playOrder) {
+		int count = 0;
+		for (TreeIterator<EObject> contents = chapter.getNavMap().eAllContents(); contents.hasNext();) {
+			EObject object = contents.next();
+			if (object instanceof NavPoint) {
+				NavPoint np = (NavPoint) object;
+				np.setPlayOrder(np.getPlayOrder() + playOrder);
+				np.setId("navpoint" + np.getPlayOrder()); //$NON-NLS-1$
+				count++;
+			}
+		}
+		ncx.getNavMap().getNavPoints().addAll(new ArrayList<NavPoint>(chapter.getNavMap().getNavPoints()));
+		return playOrder + count;
+	}
+
 }
\ No newline at end of file
@@ -13,8 +13,14 @@ package org.eclipse.mylyn.docs.epub.tests.api;
 
 import java.io.BufferedReader;
 import java.io.File;
+import java.io.FileInputStream;
 import java.io.FileReader;
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
 
 import org.eclipse.emf.common.util.EList;
 import org.eclipse.mylyn.docs.epub.core.EPUB;
@@ -159,6 +165,59 @@ public class TestEPUB extends AbstractTest {
 		assertEquals(false, tempFolder.exists());
 	}
 
+	/**
+	 * Test method for {@link org.eclipse.mylyn.docs.epub.core.EPUB#pack(java.io.File)}.
+	 * <ul>
+	 * <li>The EPUB shall start with the mimetype entry.</li>
+	 * <li>The EPUB shall hold the same files as when packed using a working folder.</li>
+	 * </ul>
+	 * 
+	 * @throws Exception
+	 */
+	@Test
+	public final void testPackFileContent() throws Exception {
+		createPublication().pack(epubFile);
+		List<String> entries = getFileEntries(epubFile);
+		assertEquals("mimetype", entries.get(0));
+		assertEquals(true, entries.contains("OEBPS/plain-page.xhtml"));
+		assertEquals(true, entries.contains("OEBPS/content.opf"));
+		assertEquals(true, entries.contains("SVG+XML/drawing.svg"));
+
+		File folderEpubFile = new File(epubFile.getParentFile(), "folder.epub");
+		folderEpubFile.delete();
+		createPublication().pack(folderEpubFile, epubFolder);
+		List<String> folderEntries = getFileEntries(folderEpubFile);
+		folderEpubFile.delete();
+		Collections.sort(entries);
+		Collections.sort(folderEntries);
+		assertEquals(folderEntries, entries);
+	}
+
+	private EPUB createPublication() {
+		EPUB epub = new EPUB();
+		Publication oebps = new OPSPublication();
+		oebps.addItem(new File("testdata/plain-page.xhtml"));
+		epub.add(oebps);
+		epub.add(new File("testdata/drawing.svg"), "image/svg+xml");
+		return epub;
+	}
+
+	private List<String> getFileEntries(File zipFile) throws IOException {
+		List<String> entries = new ArrayList<String>();
+		ZipInputStream in = new ZipInputStream(new FileInputStream(zipFile));
+		try {
+			ZipEntry entry;
+			while ((entry = in.getNextEntry()) != null) {
+				if (!entry.isDirectory()) {
+					entries.add(entry.getName());
+				}
+			}
+		} finally {
+			in.close();
+		}
+		return entries;
+	}
+
 	/**
 	 * Test method for {@link org.eclipse.mylyn.docs.epub.core.EPUB#pack(java.io.File, java.io.File)} .
 	 * <ul>
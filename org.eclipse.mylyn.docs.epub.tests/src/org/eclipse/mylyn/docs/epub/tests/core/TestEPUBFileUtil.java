@@ -12,6 +12,7 @@
 package org.eclipse.mylyn.docs.epub.tests.core;
 
 import java.io.File;
+import java.io.IOException;
 
 import junit.framework.TestCase;
 
@@ -91,4 +92,20 @@ public class TestEPUBFileUtil extends TestCase {
 		File file = new File("testdata/content-detection/basic_2.epub");
 		assertEquals("application/epub+zip", EPUBFileUtil.getMimeType(file));
 	}
+
+	@Test
+	public void testGetMimeTypeModified() throws IOException {
+		File file = File.createTempFile("content", ".xxx");
+		try {
+			EPUBFileUtil.copy(new File("testdata/content-detection/picture.xxx"), file);
+			assertEquals("image/jpeg", EPUBFileUtil.getMimeType(file));
+			assertEquals("image/jpeg", EPUBFileUtil.getMimeType(file));
+			// The type must be detected again when the file is modified
+			EPUBFileUtil.copy(new File("testdata/content-detection/content.xxx"), file);
+			file.setLastModified(file.lastModified() + 60000);
+			assertEquals("application/xhtml+xml", EPUBFileUtil.getMimeType(file));
+		} finally {
+			file.delete();
+		}
+	}
 }
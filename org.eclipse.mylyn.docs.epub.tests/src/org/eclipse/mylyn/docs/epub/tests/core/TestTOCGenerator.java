@@ -89,6 +89,43 @@ public class TestTOCGenerator extends TestCase {
 		assertEquals(1, points.get(0).getNavPoints().size());
 	}
 
+	/**
+	 * Chapters parsed independently and appended in reading order must produce the same table of contents as chapters
+	 * parsed into the same NCX.
+	 * 
+	 * @throws ParserConfigurationException
+	 * @throws SAXException
+	 * @throws IOException
+	 */
+	@Test
+	public void testAppend() throws ParserConfigurationException, SAXException, IOException {
+		String chapter1 = "<body>" + "<h1 id='h1-1'>test</h1>" + "<h2 id='h2-1'>test</h2>" + "<h3 id='h3-1'>test</h3>"
+				+ "</body>";
+		String chapter2 = "<body>" + "<h2 id='h2-2'>test</h2>" + "<h1 id='h1-2'>test</h1>" + "<h2 id='h2-3'>test</h2>"
+				+ "</body>";
+		Ncx expected = createNcx();
+		int playOrder = TOCGenerator.parse(new InputSource(new StringReader(chapter1)), "chapter1.html", expected, 0);
+		playOrder = TOCGenerator.parse(new InputSource(new StringReader(chapter2)), "chapter2.html", expected,
+				playOrder);
+
+		Ncx ncx = createNcx();
+		Ncx toc1 = TOCGenerator.parse(new InputSource(new StringReader(chapter1)), "chapter1.html");
+		Ncx toc2 = TOCGenerator.parse(new InputSource(new StringReader(chapter2)), "chapter2.html");
+		assertEquals(3, TOCGenerator.append(toc1, ncx, 0));
+		assertEquals(playOrder, TOCGenerator.append(toc2, ncx, 3));
+		assertEquals(toString(expected.getNavMap().getNavPoints()), toString(ncx.getNavMap().getNavPoints()));
+		assertEquals(3, ncx.getNavMap().getNavPoints().size());
+	}
+
+	private String toString(EList<NavPoint> points) {
+		StringBuilder sb = new StringBuilder();
+		for (NavPoint np : points) {
+			sb.append('(').append(np.getId()).append(' ').append(np.getPlayOrder()).append(' ')
+					.append(np.getContent().getSrc()).append(toString(np.getNavPoints())).append(')');
+		}
+		return sb.toString();
+	}
+
 	private Ncx createNcx() {
 		Ncx ncx = NCXFactory.eINSTANCE.createNcx();
 		NavMap navMap = NCXFactory.eINSTANCE.createNavMap();
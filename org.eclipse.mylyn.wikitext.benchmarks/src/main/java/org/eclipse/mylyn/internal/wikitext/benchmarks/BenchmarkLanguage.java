@@ -0,0 +1,186 @@
+/*******************************************************************************
+ * Copyright (c) 2014 Tasktop Technologies and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     David Green - initial API and implementation
+ *******************************************************************************/
+
+package org.eclipse.mylyn.internal.wikitext.benchmarks;
+
+import org.eclipse.mylyn.wikitext.confluence.core.ConfluenceLanguage;
+import org.eclipse.mylyn.wikitext.core.parser.markup.MarkupLanguage;
+import org.eclipse.mylyn.wikitext.creole.core.CreoleLanguage;
+import org.eclipse.mylyn.wikitext.markdown.core.MarkdownLanguage;
+import org.eclipse.mylyn.wikitext.mediawiki.core.MediaWikiLanguage;
+import org.eclipse.mylyn.wikitext.textile.core.TextileLanguage;
+import org.eclipse.mylyn.wikitext.tracwiki.core.TracWikiLanguage;
+import org.eclipse.mylyn.wikitext.twiki.core.TWikiLanguage;
+
+/**
+ * The markup languages that are benchmarked, each with a representative section of markup that is repeated to create
+ * a {@link SyntheticCorpus synthetic corpus}. Each section exercises headings, phrase modifiers, replacement tokens,
+ * links, nested lists, tables and preformatted blocks. The section number is substituted for {@code $n}.
+ *
+ * @author David Green
+ */
+public enum BenchmarkLanguage {
+	TEXTILE("h1. Section $n\n\n" //$NON-NLS-1$
+			+ "Some *bold* text, some _emphasis_ and @code@ with a \"link\":http://example.com/$n, " //$NON-NLS-1$
+			+ "an ACRONYM(Some Definition) and a footnote[1]. Symbols such as (c) and (tm) -- and \"quotes\".\n" //$NON-NLS-1$
+			+ "A second line of the same paragraph with ??citation?? and ^super^ text.\n\n" //$NON-NLS-1$
+			+ "* first item with -deleted- and +inserted+\n" //$NON-NLS-1$
+			+ "* second item\n" //$NON-NLS-1$
+			+ "** nested item $n\n\n" //$NON-NLS-1$
+			+ "|_. Name |_. Value |\n" //$NON-NLS-1$
+			+ "| alpha | $n |\n" //$NON-NLS-1$
+			+ "| beta | *two* |\n\n" //$NON-NLS-1$
+			+ "bc. public void section$n() {\n\treturn;\n}\n\n" //$NON-NLS-1$
+			+ "fn1. The footnote text.\n\n") { //$NON-NLS-1$
+		@Override
+		public MarkupLanguage newLanguage() {
+			return new TextileLanguage();
+		}
+	},
+	MARKDOWN("# Section $n\n\n" //$NON-NLS-1$
+			+ "Some **bold** text, some *emphasis* and `code` with a [link](http://example.com/$n \"Title\"), " //$NON-NLS-1$
+			+ "an automatic link <http://example.com/auto/$n> and <em>inline html</em>.\n" //$NON-NLS-1$
+			+ "A second line of the same paragraph with a [reference link][ref$n] and an escaped \\*star\\*.\n\n" //$NON-NLS-1$
+			+ "* first item\n" //$NON-NLS-1$
+			+ "* second item with __strong__ text\n" //$NON-NLS-1$
+			+ "    * nested item $n\n\n" //$NON-NLS-1$
+			+ "> a quoted paragraph\n" //$NON-NLS-1$
+			+ "> spanning two lines\n\n" //$NON-NLS-1$
+			+ "    public void section$n() {\n" //$NON-NLS-1$
+			+ "        return;\n" //$NON-NLS-1$
+			+ "    }\n\n" //$NON-NLS-1$
+			+ "Underlined Heading $n\n" //$NON-NLS-1$
+			+ "--------------------\n\n" //$NON-NLS-1$
+			+ "[ref$n]: http://example.com/ref/$n\n\n") { //$NON-NLS-1$
+		@Override
+		public MarkupLanguage newLanguage() {
+			return new MarkdownLanguage();
+		}
+	},
+	MEDIAWIKI("== Section $n ==\n\n" //$NON-NLS-1$
+			+ "Some '''bold''' text, some ''italic'' and <code>code</code> with a [http://example.com/$n link] " //$NON-NLS-1$
+			+ "and an [[Internal Page $n|internal link]].\n" //$NON-NLS-1$
+			+ "A second line of the same paragraph with <nowiki>'''literal'''</nowiki> text.\n\n" //$NON-NLS-1$
+			+ "* first item\n" //$NON-NLS-1$
+			+ "** nested item $n\n" //$NON-NLS-1$
+			+ "# numbered item\n\n" //$NON-NLS-1$
+			+ "{|\n" //$NON-NLS-1$
+			+ "! Name !! Value\n" //$NON-NLS-1$
+			+ "|-\n" //$NON-NLS-1$
+			+ "| alpha || $n\n" //$NON-NLS-1$
+			+ "|-\n" //$NON-NLS-1$
+			+ "| beta || '''two'''\n" //$NON-NLS-1$
+			+ "|}\n\n" //$NON-NLS-1$
+			+ " public void section$n() {\n" //$NON-NLS-1$
+			+ "   return;\n" //$NON-NLS-1$
+			+ " }\n\n") { //$NON-NLS-1$
+		@Override
+		public MarkupLanguage newLanguage() {
+			return new MediaWikiLanguage();
+		}
+	},
+	CONFLUENCE("h1. Section $n\n\n" //$NON-NLS-1$
+			+ "Some *bold* text, some _emphasis_ and {{code}} with a [link|http://example.com/$n] " //$NON-NLS-1$
+			+ "and -deleted- and +inserted+ text.\n" //$NON-NLS-1$
+			+ "A second line of the same paragraph with ??citation?? and ^super^ text.\n\n" //$NON-NLS-1$
+			+ "* first item\n" //$NON-NLS-1$
+			+ "** nested item $n\n" //$NON-NLS-1$
+			+ "# numbered item\n\n" //$NON-NLS-1$
+			+ "||Name||Value||\n" //$NON-NLS-1$
+			+ "|alpha|$n|\n" //$NON-NLS-1$
+			+ "|beta|[two|http://example.com/two]|\n\n" //$NON-NLS-1$
+			+ "{code}\n" //$NON-NLS-1$
+			+ "public void section$n() {\n" //$NON-NLS-1$
+			+ "\treturn;\n" //$NON-NLS-1$
+			+ "}\n" //$NON-NLS-1$
+			+ "{code}\n\n" //$NON-NLS-1$
+			+ "{note}A note about section $n{note}\n\n") { //$NON-NLS-1$
+		@Override
+		public MarkupLanguage newLanguage() {
+			return new ConfluenceLanguage();
+		}
+	},
+	TRACWIKI("= Section $n =\n\n" //$NON-NLS-1$
+			+ "Some '''bold''' text, some ''italic'' and `code` with a [http://example.com/$n link] " //$NON-NLS-1$
+			+ "and a WikiWord.\n" //$NON-NLS-1$
+			+ "A second line of the same paragraph with ~~deleted~~ and ^super^ text.\n\n" //$NON-NLS-1$
+			+ " * first item\n" //$NON-NLS-1$
+			+ "   * nested item $n\n" //$NON-NLS-1$
+			+ " 1. numbered item\n\n" //$NON-NLS-1$
+			+ "||Name||Value||\n" //$NON-NLS-1$
+			+ "||alpha||$n||\n\n" //$NON-NLS-1$
+			+ "{{{\n" //$NON-NLS-1$
+			+ "public void section$n() {\n" //$NON-NLS-1$
+			+ "}\n" //$NON-NLS-1$
+			+ "}}}\n\n") { //$NON-NLS-1$
+		@Override
+		public MarkupLanguage newLanguage() {
+			return new TracWikiLanguage();
+		}
+	},
+	TWIKI("---+ Section $n\n\n" //$NON-NLS-1$
+			+ "Some *bold* text, some _italic_ and =code= with a [[http://example.com/$n][link]] " //$NON-NLS-1$
+			+ "and a WikiWord.\n" //$NON-NLS-1$
+			+ "A second line of the same paragraph with __bold italic__ text.\n\n" //$NON-NLS-1$
+			+ "   * first item\n" //$NON-NLS-1$
+			+ "      * nested item $n\n" //$NON-NLS-1$
+			+ "   1. numbered item\n\n" //$NON-NLS-1$
+			+ "| *Name* | *Value* |\n" //$NON-NLS-1$
+			+ "| alpha | $n |\n\n" //$NON-NLS-1$
+			+ "<verbatim>\n" //$NON-NLS-1$
+			+ "public void section$n() {\n" //$NON-NLS-1$
+			+ "}\n" //$NON-NLS-1$
+			+ "</verbatim>\n\n") { //$NON-NLS-1$
+		@Override
+		public MarkupLanguage newLanguage() {
+			return new TWikiLanguage();
+		}
+	},
+	CREOLE("= Section $n =\n\n" //$NON-NLS-1$
+			+ "Some **bold** text, some //italic// and {{{code}}} with a [[http://example.com/$n|link]].\n" //$NON-NLS-1$
+			+ "A second line of the same paragraph with a\\\\line break.\n\n" //$NON-NLS-1$
+			+ "* first item\n" //$NON-NLS-1$
+			+ "** nested item $n\n" //$NON-NLS-1$
+			+ "# numbered item\n\n" //$NON-NLS-1$
+			+ "|=Name|=Value|\n" //$NON-NLS-1$
+			+ "|alpha|$n|\n\n" //$NON-NLS-1$
+			+ "{{{\n" //$NON-NLS-1$
+			+ "public void section$n() {\n" //$NON-NLS-1$
+			+ "}\n" //$NON-NLS-1$
+			+ "}}}\n\n") { //$NON-NLS-1$
+		@Override
+		public MarkupLanguage newLanguage() {
+			return new CreoleLanguage();
+		}
+	};
+
+	private final String sectionTemplate;
+
+	private BenchmarkLanguage(String sectionTemplate) {
+		this.sectionTemplate = sectionTemplate;
+	}
+
+	/**
+	 * Creates a new, unconfigured instance of the markup language.
+	 */
+	public abstract MarkupLanguage newLanguage();
+
+	/**
+	 * Provides the markup of a single section of the corpus.
+	 *
+	 * @param sectionNumber
+	 *            the 1-based section number, which is used to make headings and links unique
+	 * @return the markup
+	 */
+	public String section(int sectionNumber) {
+		return sectionTemplate.replace("$n", Integer.toString(sectionNumber)); //$NON-NLS-1$
+	}
+}
@@ -0,0 +1,46 @@
+/*******************************************************************************
+ * Copyright (c) 2014 Tasktop Technologies and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     David Green - initial API and implementation
+ *******************************************************************************/
+
+package org.eclipse.mylyn.internal.wikitext.benchmarks;
+
+/**
+ * The approximate sizes of the synthetic corpora that are benchmarked.
+ *
+ * @author David Green
+ * @see SyntheticCorpus
+ */
+public enum CorpusSize {
+	/**
+	 * a short page, such as a task comment
+	 */
+	SMALL(2 * 1024),
+	/**
+	 * a typical wiki page or help topic
+	 */
+	MEDIUM(64 * 1024),
+	/**
+	 * a multi-megabyte document, such as a user guide or wiki export
+	 */
+	LARGE(4 * 1024 * 1024);
+
+	private final int minimumLength;
+
+	private CorpusSize(int minimumLength) {
+		this.minimumLength = minimumLength;
+	}
+
+	/**
+	 * the minimum number of characters in a corpus of this size
+	 */
+	public int getMinimumLength() {
+		return minimumLength;
+	}
+}
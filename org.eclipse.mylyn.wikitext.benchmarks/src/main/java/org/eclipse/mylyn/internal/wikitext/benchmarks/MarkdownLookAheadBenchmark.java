@@ -0,0 +1,70 @@
+/*******************************************************************************
+ * Copyright (c) 2014 Tasktop Technologies and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     David Green - initial API and implementation
+ *******************************************************************************/
+
+package org.eclipse.mylyn.internal.wikitext.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.eclipse.mylyn.wikitext.core.parser.MarkupParser;
+import org.eclipse.mylyn.wikitext.core.parser.builder.NoOpDocumentBuilder;
+import org.eclipse.mylyn.wikitext.markdown.core.MarkdownLanguage;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures parsing of Markdown documents consisting of many short paragraphs and underlined headings, each of which
+ * requires the parser to look ahead at the following line. The time per document should grow linearly with the number
+ * of lines. Results are reported as average time per document.
+ *
+ * @author David Green
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1, timeUnit = TimeUnit.SECONDS)
+@Measurement(iterations = 5, time = 1, timeUnit = TimeUnit.SECONDS)
+@Fork(1)
+public class MarkdownLookAheadBenchmark {
+
+	@Param({ "1000", "10000", "100000" })
+	public int lines;
+
+	private String markup;
+
+	@Setup
+	public void setup() {
+		StringBuilder buf = new StringBuilder(lines * 12);
+		for (int line = 0; line < lines; line += 6) {
+			buf.append("Heading ").append(line).append('\n');
+			buf.append("=======\n");
+			buf.append('\n');
+			buf.append("paragraph\n");
+			buf.append('\n');
+			buf.append("paragraph\n");
+		}
+		markup = buf.toString();
+	}
+
+	@Benchmark
+	public void parse() {
+		MarkupParser parser = new MarkupParser(new MarkdownLanguage(), new NoOpDocumentBuilder());
+		parser.parse(markup);
+	}
+}
@@ -0,0 +1,72 @@
+/*******************************************************************************
+ * Copyright (c) 2014 Tasktop Technologies and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     David Green - initial API and implementation
+ *******************************************************************************/
+
+package org.eclipse.mylyn.internal.wikitext.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.eclipse.mylyn.wikitext.core.parser.MarkupParser;
+import org.eclipse.mylyn.wikitext.core.parser.markup.MarkupLanguage;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures end-to-end conversion throughput of {@link MarkupParser#parse(String)} for every combination of
+ * {@link BenchmarkLanguage markup language}, {@link BenchmarkBuilder document builder} and {@link CorpusSize corpus
+ * size}. Throughput is reported in operations per second where an operation is the conversion of one document; the
+ * characters per second of a combination is the score multiplied by the corpus length.
+ *
+ * @author David Green
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1, timeUnit = TimeUnit.SECONDS)
+@Measurement(iterations = 5, time = 1, timeUnit = TimeUnit.SECONDS)
+@Fork(1)
+public class MarkupParserBenchmark {
+
+	@Param
+	public BenchmarkLanguage language;
+
+	@Param
+	public BenchmarkBuilder builder;
+
+	@Param
+	public CorpusSize size;
+
+	private String markup;
+
+	private MarkupLanguage markupLanguage;
+
+	@Setup
+	public void setup() {
+		markup = SyntheticCorpus.generate(language, size);
+		markupLanguage = language.newLanguage();
+	}
+
+	@Benchmark
+	public long parse() {
+		NullWriter out = new NullWriter();
+		MarkupParser parser = new MarkupParser(markupLanguage, builder.newDocumentBuilder(out));
+		parser.parse(markup);
+		return out.getLength();
+	}
+}
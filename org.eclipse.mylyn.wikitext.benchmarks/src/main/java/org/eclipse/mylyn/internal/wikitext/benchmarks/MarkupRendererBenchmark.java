@@ -0,0 +1,90 @@
+/*******************************************************************************
+ * Copyright (c) 2014 Tasktop Technologies and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     David Green - initial API and implementation
+ *******************************************************************************/
+
+package org.eclipse.mylyn.internal.wikitext.benchmarks;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import org.eclipse.mylyn.wikitext.core.parser.MarkupParser;
+import org.eclipse.mylyn.wikitext.core.parser.builder.HtmlDocumentBuilder;
+import org.eclipse.mylyn.wikitext.core.parser.markup.MarkupLanguage;
+import org.eclipse.mylyn.wikitext.core.parser.util.MarkupRenderer;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures the throughput of rendering markup as HTML from many threads at once, as done by a web service. The
+ * {@code sharedRenderer} benchmark uses a single {@link MarkupRenderer} shared by all threads, and the
+ * {@code cloneLanguagePerRender} benchmark is the hand-rolled alternative where each render clones a shared prototype
+ * markup language and creates a new parser and builder. Throughput is reported in operations per second across all
+ * threads, where an operation is the rendering of one document.
+ *
+ * @author David Green
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1, timeUnit = TimeUnit.SECONDS)
+@Measurement(iterations = 5, time = 1, timeUnit = TimeUnit.SECONDS)
+@Threads(Threads.MAX)
+@Fork(1)
+public class MarkupRendererBenchmark {
+
+	@Param
+	public BenchmarkLanguage language;
+
+	@Param({ "SMALL", "MEDIUM" })
+	public CorpusSize size;
+
+	private String markup;
+
+	private MarkupLanguage prototype;
+
+	private MarkupRenderer renderer;
+
+	@Setup
+	public void setup() {
+		markup = SyntheticCorpus.generate(language, size);
+		prototype = language.newLanguage();
+		renderer = new MarkupRenderer(prototype);
+	}
+
+	@Benchmark
+	public long sharedRenderer() throws IOException {
+		NullWriter out = new NullWriter();
+		renderer.render(markup, out);
+		return out.getLength();
+	}
+
+	@Benchmark
+	public long cloneLanguagePerRender() {
+		MarkupLanguage markupLanguage;
+		synchronized (prototype) {
+			markupLanguage = prototype.clone();
+		}
+		NullWriter out = new NullWriter();
+		HtmlDocumentBuilder builder = new HtmlDocumentBuilder(out);
+		builder.setEmitAsDocument(false);
+		new MarkupParser(markupLanguage, builder).parse(markup);
+		return out.getLength();
+	}
+}
@@ -0,0 +1,57 @@
+/*******************************************************************************
+ * Copyright (c) 2014 Tasktop Technologies and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     David Green - initial API and implementation
+ *******************************************************************************/
+
+package org.eclipse.mylyn.internal.wikitext.benchmarks;
+
+import java.io.Writer;
+
+/**
+ * A writer that discards its output, counting the number of characters written. Used so that benchmarks measure the
+ * cost of producing output without the cost of buffering it.
+ *
+ * @author David Green
+ */
+public class NullWriter extends Writer {
+
+	private long length;
+
+	@Override
+	public void write(int c) {
+		++length;
+	}
+
+	@Override
+	public void write(char[] cbuf, int off, int len) {
+		length += len;
+	}
+
+	@Override
+	public void write(String str, int off, int len) {
+		length += len;
+	}
+
+	@Override
+	public void flush() {
+		// nothing to do
+	}
+
+	@Override
+	public void close() {
+		// nothing to do
+	}
+
+	/**
+	 * the number of characters written to this writer
+	 */
+	public long getLength() {
+		return length;
+	}
+}
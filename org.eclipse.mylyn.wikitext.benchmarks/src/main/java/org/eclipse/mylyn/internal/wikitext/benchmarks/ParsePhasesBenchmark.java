@@ -0,0 +1,111 @@
+/*******************************************************************************
+ * Copyright (c) 2014 Tasktop Technologies and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     David Green - initial API and implementation
+ *******************************************************************************/
+
+package org.eclipse.mylyn.internal.wikitext.benchmarks;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.concurrent.TimeUnit;
+
+import org.eclipse.mylyn.wikitext.core.parser.MarkupParser;
+import org.eclipse.mylyn.wikitext.core.parser.builder.EventDocumentBuilder;
+import org.eclipse.mylyn.wikitext.core.parser.builder.NoOpDocumentBuilder;
+import org.eclipse.mylyn.wikitext.core.parser.builder.event.DocumentBuilderEvents;
+import org.eclipse.mylyn.wikitext.core.parser.markup.MarkupLanguage;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Breaks the cost of a conversion down into its phases so that a regression in {@link MarkupParserBenchmark} can be
+ * attributed:
+ * <ul>
+ * <li>{@link #setupLanguage()}: creating a markup language and initializing its syntax</li>
+ * <li>{@link #parseFromReader()}: parsing markup supplied as a {@link java.io.Reader}, including reading it</li>
+ * <li>{@link #parse()}: parsing markup supplied as a string, without producing output</li>
+ * <li>{@link #render(Rendering)}: emitting output from a previously recorded parse, without parsing</li>
+ * </ul>
+ * Results are reported as average time per operation.
+ *
+ * @author David Green
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1, timeUnit = TimeUnit.SECONDS)
+@Measurement(iterations = 5, time = 1, timeUnit = TimeUnit.SECONDS)
+@Fork(1)
+public class ParsePhasesBenchmark {
+
+	/**
+	 * the builders used by {@link ParsePhasesBenchmark#render(Rendering)}, in a separate state so that the other phases
+	 * are not repeated for each builder
+	 */
+	@State(Scope.Thread)
+	public static class Rendering {
+		@Param({ "HTML", "DOCBOOK", "XSLFO" })
+		public BenchmarkBuilder builder;
+	}
+
+	@Param
+	public BenchmarkLanguage language;
+
+	@Param({ "SMALL", "MEDIUM" })
+	public CorpusSize size;
+
+	private String markup;
+
+	private MarkupLanguage markupLanguage;
+
+	private DocumentBuilderEvents events;
+
+	@Setup
+	public void setup() {
+		markup = SyntheticCorpus.generate(language, size);
+		markupLanguage = language.newLanguage();
+
+		EventDocumentBuilder eventBuilder = new EventDocumentBuilder();
+		new MarkupParser(markupLanguage, eventBuilder).parse(markup);
+		events = eventBuilder.getDocumentBuilderEvents();
+	}
+
+	@Benchmark
+	public MarkupLanguage setupLanguage() {
+		MarkupLanguage newLanguage = language.newLanguage();
+		new MarkupParser(newLanguage, new NoOpDocumentBuilder()).parse(""); //$NON-NLS-1$
+		return newLanguage;
+	}
+
+	@Benchmark
+	public void parseFromReader() throws IOException {
+		new MarkupParser(markupLanguage, new NoOpDocumentBuilder()).parse(new StringReader(markup));
+	}
+
+	@Benchmark
+	public void parse() {
+		new MarkupParser(markupLanguage, new NoOpDocumentBuilder()).parse(markup);
+	}
+
+	@Benchmark
+	public long render(Rendering rendering) {
+		NullWriter out = new NullWriter();
+		events.applyTo(rendering.builder.newDocumentBuilder(out));
+		return out.getLength();
+	}
+}
@@ -0,0 +1,66 @@
+/*******************************************************************************
+ * Copyright (c) 2014 Tasktop Technologies and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     David Green - initial API and implementation
+ *******************************************************************************/
+
+package org.eclipse.mylyn.internal.wikitext.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.eclipse.mylyn.wikitext.core.parser.markup.MarkupLanguage;
+import org.eclipse.mylyn.wikitext.core.util.ServiceLocator;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures the cost of looking up a markup language by name with {@link ServiceLocator#getMarkupLanguage(String)}, as
+ * done once per conversion by the Ant tasks and other clients. When {@code cached} is false the discovery cache is
+ * {@link ServiceLocator#clearCache() cleared} before each lookup, which measures the cost of discovering markup
+ * languages from service resources. Results are reported as average time per operation.
+ *
+ * @author David Green
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1, timeUnit = TimeUnit.SECONDS)
+@Measurement(iterations = 5, time = 1, timeUnit = TimeUnit.SECONDS)
+@Fork(1)
+public class ServiceLocatorBenchmark {
+
+	@Param({ "TEXTILE", "MARKDOWN" })
+	public BenchmarkLanguage language;
+
+	@Param({ "true", "false" })
+	public boolean cached;
+
+	private String languageName;
+
+	@Setup
+	public void setup() {
+		languageName = language.newLanguage().getName();
+	}
+
+	@Benchmark
+	public MarkupLanguage getMarkupLanguage() {
+		if (!cached) {
+			ServiceLocator.clearCache();
+		}
+		return ServiceLocator.getInstance().getMarkupLanguage(languageName);
+	}
+}
@@ -0,0 +1,47 @@
+/*******************************************************************************
+ * Copyright (c) 2014 Tasktop Technologies and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     David Green - initial API and implementation
+ *******************************************************************************/
+
+package org.eclipse.mylyn.internal.wikitext.benchmarks;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * Generates deterministic markup for benchmarks by concatenating numbered {@link BenchmarkLanguage#section(int)
+ * sections} until the {@link CorpusSize requested size} is reached.
+ *
+ * @author David Green
+ */
+public class SyntheticCorpus {
+
+	private SyntheticCorpus() {
+		// prevent instantiation
+	}
+
+	/**
+	 * Generates markup in the given language of at least the given size.
+	 *
+	 * @param language
+	 *            the markup language of the corpus
+	 * @param size
+	 *            the size of the corpus
+	 * @return the markup
+	 */
+	public static String generate(BenchmarkLanguage language, CorpusSize size) {
+		checkNotNull(language);
+		checkNotNull(size);
+		StringBuilder markup = new StringBuilder(size.getMinimumLength() + 1024);
+		int sectionNumber = 0;
+		while (markup.length() < size.getMinimumLength()) {
+			markup.append(language.section(++sectionNumber));
+		}
+		return markup.toString();
+	}
+}
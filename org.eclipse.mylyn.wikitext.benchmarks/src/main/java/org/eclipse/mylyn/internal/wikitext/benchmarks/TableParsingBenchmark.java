@@ -0,0 +1,117 @@
+/*******************************************************************************
+ * Copyright (c) 2014 Tasktop Technologies and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     David Green - initial API and implementation
+ *******************************************************************************/
+
+package org.eclipse.mylyn.internal.wikitext.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.eclipse.mylyn.wikitext.confluence.core.ConfluenceLanguage;
+import org.eclipse.mylyn.wikitext.core.parser.MarkupParser;
+import org.eclipse.mylyn.wikitext.core.parser.builder.NoOpDocumentBuilder;
+import org.eclipse.mylyn.wikitext.core.parser.markup.MarkupLanguage;
+import org.eclipse.mylyn.wikitext.mediawiki.core.MediaWikiLanguage;
+import org.eclipse.mylyn.wikitext.textile.core.TextileLanguage;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures parsing of tables having a single long row of pathological markup, such as unclosed links and long runs of
+ * whitespace between cells, which cause excessive backtracking when rows are split into cells with regular
+ * expressions. Results are reported as average time per document. Parsing is linear when the time divided by the
+ * number of {@code kilobytes} of markup is about the same for each size.
+ *
+ * @author David Green
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1, timeUnit = TimeUnit.SECONDS)
+@Measurement(iterations = 5, time = 1, timeUnit = TimeUnit.SECONDS)
+@Fork(1)
+public class TableParsingBenchmark {
+
+	/**
+	 * the table markup of each language, where the row content is repeated to reach the size of the document
+	 */
+	public enum TableLanguage {
+		CONFLUENCE("|", "a [b | [link|http://example.com] ||", "|\n") { //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+			@Override
+			MarkupLanguage newLanguage() {
+				return new ConfluenceLanguage();
+			}
+		},
+		MEDIAWIKI("{|\n|", "a                     || b\t\t\t\t\t\t !! ", "c\n|}\n") { //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+			@Override
+			MarkupLanguage newLanguage() {
+				return new MediaWikiLanguage();
+			}
+		},
+		TEXTILE("|", "a *b* |{color:red}. c | ", "|\n") { //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+			@Override
+			MarkupLanguage newLanguage() {
+				return new TextileLanguage();
+			}
+		};
+
+		private final String prefix;
+
+		private final String rowContent;
+
+		private final String suffix;
+
+		private TableLanguage(String prefix, String rowContent, String suffix) {
+			this.prefix = prefix;
+			this.rowContent = rowContent;
+			this.suffix = suffix;
+		}
+
+		abstract MarkupLanguage newLanguage();
+
+		String createMarkup(int kilobytes) {
+			int size = kilobytes * 1024;
+			StringBuilder buf = new StringBuilder(size + rowContent.length() + prefix.length() + suffix.length());
+			buf.append(prefix);
+			while (buf.length() < size) {
+				buf.append(rowContent);
+			}
+			buf.append(suffix);
+			return buf.toString();
+		}
+	}
+
+	@Param
+	public TableLanguage language;
+
+	@Param({ "1", "16", "256" })
+	public int kilobytes;
+
+	private String markup;
+
+	@Setup
+	public void setup() {
+		markup = language.createMarkup(kilobytes);
+	}
+
+	@Benchmark
+	public void parse() {
+		MarkupParser parser = new MarkupParser(language.newLanguage(), new NoOpDocumentBuilder());
+		parser.parse(markup);
+	}
+}
@@ -0,0 +1,87 @@
+/*******************************************************************************
+ * Copyright (c) 2014 Tasktop Technologies and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     David Green - initial API and implementation
+ *******************************************************************************/
+
+package org.eclipse.mylyn.internal.wikitext.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.eclipse.mylyn.internal.wikitext.mediawiki.core.TemplateProcessor;
+import org.eclipse.mylyn.wikitext.core.parser.MarkupParser;
+import org.eclipse.mylyn.wikitext.core.parser.builder.NoOpDocumentBuilder;
+import org.eclipse.mylyn.wikitext.mediawiki.core.MediaWikiLanguage;
+import org.eclipse.mylyn.wikitext.mediawiki.core.Template;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures MediaWiki template expansion of a page that invokes templates which are nested to the given
+ * {@code depth}, where most invocations are repeated. The {@code parsePages} benchmark parses several pages with clones
+ * of a single language, as done by a conversion run, so that templates are resolved once for all pages. Results are
+ * reported as average time per operation.
+ *
+ * @author David Green
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1, timeUnit = TimeUnit.SECONDS)
+@Measurement(iterations = 5, time = 1, timeUnit = TimeUnit.SECONDS)
+@Fork(1)
+public class TemplateExpansionBenchmark {
+
+	private static final int INVOCATIONS = 500;
+
+	private static final int DISTINCT_PARAMETERS = 10;
+
+	private static final int PAGES = 4;
+
+	@Param({ "1", "4", "8" })
+	public int depth;
+
+	private MediaWikiLanguage markupLanguage;
+
+	private String markup;
+
+	@Setup
+	public void setup() {
+		markupLanguage = new MediaWikiLanguage();
+		for (int level = 0; level < depth; ++level) {
+			String content = level == depth - 1 ? "''{{{1}}}''" : "[{{level" + (level + 1) + "|{{{1}}}}}]"; //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$ //$NON-NLS-4$
+			markupLanguage.getTemplates().add(new Template("level" + level, content)); //$NON-NLS-1$
+		}
+		StringBuilder buf = new StringBuilder();
+		for (int x = 0; x < INVOCATIONS; ++x) {
+			buf.append("some text {{level0|item").append(x % DISTINCT_PARAMETERS).append("}} more text\n\n"); //$NON-NLS-1$ //$NON-NLS-2$
+		}
+		markup = buf.toString();
+	}
+
+	@Benchmark
+	public String expandTemplates() {
+		return new TemplateProcessor(markupLanguage).processTemplates(markup);
+	}
+
+	@Benchmark
+	public void parsePages() {
+		for (int x = 0; x < PAGES; ++x) {
+			new MarkupParser(markupLanguage.clone(), new NoOpDocumentBuilder()).parse(markup);
+		}
+	}
+}
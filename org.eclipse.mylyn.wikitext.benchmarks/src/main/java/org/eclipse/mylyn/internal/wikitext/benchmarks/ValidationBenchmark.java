@@ -0,0 +1,154 @@
+/*******************************************************************************
+ * Copyright (c) 2014 Tasktop Technologies and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     David Green - initial API and implementation
+ *******************************************************************************/
+
+package org.eclipse.mylyn.internal.wikitext.benchmarks;
+
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import org.eclipse.mylyn.internal.wikitext.confluence.validation.ConfluenceReferenceValidationRule;
+import org.eclipse.mylyn.internal.wikitext.creole.core.validation.CreoleReferenceValidationRule;
+import org.eclipse.mylyn.internal.wikitext.markdown.core.validation.LinkDefinitionValidationRule;
+import org.eclipse.mylyn.internal.wikitext.markdown.core.validation.MarkdownReferenceValidationRule;
+import org.eclipse.mylyn.internal.wikitext.mediawiki.core.validation.CommentValidationRule;
+import org.eclipse.mylyn.internal.wikitext.mediawiki.core.validation.MediaWikiReferenceValidationRule;
+import org.eclipse.mylyn.internal.wikitext.textile.core.validation.BlockWhitespaceRule;
+import org.eclipse.mylyn.internal.wikitext.textile.core.validation.TextileReferenceValidationRule;
+import org.eclipse.mylyn.internal.wikitext.tracwiki.core.validation.TracWikiReferenceValidationRule;
+import org.eclipse.mylyn.internal.wikitext.twiki.core.validation.ListWhitespaceValidationRule;
+import org.eclipse.mylyn.internal.wikitext.twiki.core.validation.TWikiReferenceValidationRule;
+import org.eclipse.mylyn.wikitext.core.parser.MarkupParser;
+import org.eclipse.mylyn.wikitext.core.parser.builder.HtmlDocumentBuilder;
+import org.eclipse.mylyn.wikitext.core.parser.builder.MultiplexingDocumentBuilder;
+import org.eclipse.mylyn.wikitext.core.parser.markup.MarkupLanguage;
+import org.eclipse.mylyn.wikitext.core.validation.MarkupValidator;
+import org.eclipse.mylyn.wikitext.core.validation.ValidationPass;
+import org.eclipse.mylyn.wikitext.core.validation.ValidationProblem;
+import org.eclipse.mylyn.wikitext.core.validation.ValidationRule;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Compares validating documents with each rule on its own, as done by {@link MarkupValidator#validate(String)}, with
+ * validating them in a single {@link ValidationPass}. The {@code validateThenRender} and {@code renderWithValidation}
+ * benchmarks measure a documentation build that validates each document and renders it as HTML, where the latter
+ * shares the parse that renders the HTML with the validation rules and runs rules that scan the markup in parallel.
+ * The rules of each language are those that are registered for the language. Results are reported as average time per
+ * document.
+ *
+ * @author David Green
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1, timeUnit = TimeUnit.SECONDS)
+@Measurement(iterations = 5, time = 1, timeUnit = TimeUnit.SECONDS)
+@Fork(1)
+public class ValidationBenchmark {
+
+	@Param
+	public BenchmarkLanguage language;
+
+	@Param({ "MEDIUM" })
+	public CorpusSize size;
+
+	private String markup;
+
+	private MarkupLanguage markupLanguage;
+
+	private MarkupValidator validator;
+
+	private ExecutorService executorService;
+
+	@Setup
+	public void setup() {
+		markup = SyntheticCorpus.generate(language, size);
+		markupLanguage = language.newLanguage();
+		validator = new MarkupValidator();
+		addRules(validator.getRules());
+		executorService = Executors.newCachedThreadPool();
+	}
+
+	@TearDown
+	public void tearDown() {
+		executorService.shutdown();
+	}
+
+	@Benchmark
+	public List<ValidationProblem> validateEachRule() {
+		return validator.validate(markup);
+	}
+
+	@Benchmark
+	public List<ValidationProblem> validateSingleParse() {
+		return validator.createValidationPass(markupLanguage, markup).validate(null);
+	}
+
+	@Benchmark
+	public long validateThenRender() {
+		List<ValidationProblem> problems = validator.validate(markup);
+		NullWriter out = new NullWriter();
+		new MarkupParser(markupLanguage, new HtmlDocumentBuilder(out)).parse(markup);
+		return out.getLength() + problems.size();
+	}
+
+	@Benchmark
+	public long renderWithValidation() {
+		ValidationPass pass = validator.createValidationPass(markupLanguage, markup);
+		pass.start(executorService);
+		NullWriter out = new NullWriter();
+		new MarkupParser(markupLanguage, new MultiplexingDocumentBuilder(new HtmlDocumentBuilder(out),
+				pass.getDocumentBuilder())).parse(markup);
+		return out.getLength() + pass.getProblems().size();
+	}
+
+	private void addRules(List<ValidationRule> rules) {
+		switch (language) {
+		case TEXTILE:
+			rules.add(new BlockWhitespaceRule());
+			rules.add(new TextileReferenceValidationRule());
+			break;
+		case MARKDOWN:
+			rules.add(new MarkdownReferenceValidationRule());
+			rules.add(new LinkDefinitionValidationRule());
+			break;
+		case MEDIAWIKI:
+			rules.add(new MediaWikiReferenceValidationRule());
+			rules.add(new CommentValidationRule());
+			break;
+		case CONFLUENCE:
+			rules.add(new ConfluenceReferenceValidationRule());
+			break;
+		case TRACWIKI:
+			rules.add(new TracWikiReferenceValidationRule());
+			break;
+		case TWIKI:
+			rules.add(new TWikiReferenceValidationRule());
+			rules.add(new ListWhitespaceValidationRule());
+			break;
+		case CREOLE:
+			rules.add(new CreoleReferenceValidationRule());
+			break;
+		}
+	}
+}
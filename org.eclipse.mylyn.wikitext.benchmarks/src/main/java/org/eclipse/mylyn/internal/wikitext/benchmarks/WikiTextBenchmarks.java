@@ -0,0 +1,44 @@
+/*******************************************************************************
+ * Copyright (c) 2014 Tasktop Technologies and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     David Green - initial API and implementation
+ *******************************************************************************/
+
+package org.eclipse.mylyn.internal.wikitext.benchmarks;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.ChainedOptionsBuilder;
+import org.openjdk.jmh.runner.options.CommandLineOptionException;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Runs the WikiText benchmarks with the {@link GCProfiler GC profiler} enabled, so that allocation rates are reported
+ * alongside throughput. Results are also written as JSON to {@code wikitext-benchmarks.json} so that releases can be
+ * compared. Accepts the standard JMH command-line options, for example a benchmark name pattern or
+ * {@code -p language=MARKDOWN} to restrict the parameter space.
+ *
+ * @author David Green
+ */
+public class WikiTextBenchmarks {
+
+	public static void main(String[] args) throws RunnerException, CommandLineOptionException {
+		CommandLineOptions commandLineOptions = new CommandLineOptions(args);
+		ChainedOptionsBuilder options = new OptionsBuilder().parent(commandLineOptions).addProfiler(GCProfiler.class);
+		if (!commandLineOptions.getResult().hasValue()) {
+			options.resultFormat(ResultFormatType.JSON).result("wikitext-benchmarks.json"); //$NON-NLS-1$
+		}
+		if (commandLineOptions.getIncludes().isEmpty()) {
+			options.include(WikiTextBenchmarks.class.getPackage().getName() + ".*"); //$NON-NLS-1$
+		}
+		new Runner(options.build()).run();
+	}
+}
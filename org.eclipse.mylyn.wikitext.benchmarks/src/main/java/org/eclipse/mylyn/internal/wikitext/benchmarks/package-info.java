@@ -0,0 +1,16 @@
+/*******************************************************************************
+ * Copyright (c) 2014 Tasktop Technologies and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     David Green - initial API and implementation
+ *******************************************************************************/
+/**
+ * JMH benchmarks for WikiText. Build the module with {@code mvn package} and run
+ * {@code java -jar target/benchmarks.jar}, optionally passing JMH options such as a benchmark name pattern or
+ * {@code -p language=TEXTILE -p size=LARGE}.
+ */
+package org.eclipse.mylyn.internal.wikitext.benchmarks;
@@ -26,9 +26,6 @@ public class TableBlock extends Block {
 
 	static final Pattern startPattern = Pattern.compile("(\\|(.*)?(\\|\\s*$))"); //$NON-NLS-1$
 
-	static final Pattern TABLE_ROW_PATTERN = Pattern.compile("\\|(\\|)?" + "((?:(?:[^\\|\\[]*)(?:\\[[^\\]]*\\])?)*)" //$NON-NLS-1$ //$NON-NLS-2$
-			+ "(\\|\\|?\\s*$)?"); //$NON-NLS-1$
-
 	private int blockLineCount = 0;
 
 	private Matcher matcher;
@@ -52,25 +49,28 @@ public class TableBlock extends Block {
 		}
 
 		String textileLine = offset == 0 ? line : line.substring(offset);
-		Matcher rowMatcher = TABLE_ROW_PATTERN.matcher(textileLine);
-		if (!rowMatcher.find()) {
+		int cellStart = textileLine.indexOf('|');
+		if (cellStart == -1) {
 			setClosed(true);
 			return 0;
 		}
 
 		builder.beginBlock(BlockType.TABLE_ROW, new Attributes());
 
+		// cells are found with a linear scan since a regular expression that handles links containing '|' requires
+		// nested quantifiers, which cause excessive backtracking and stack overflows with long rows
+		int length = textileLine.length();
+		int lastLinkEnd = textileLine.lastIndexOf(']');
 		do {
-			int start = rowMatcher.start();
-			if (start == textileLine.length() - 1) {
+			if (cellStart == length - 1) {
 				break;
 			}
 
-			String headerIndicator = rowMatcher.group(1);
-			String text = rowMatcher.group(2);
-			int lineOffset = offset + rowMatcher.start(2);
-
-			boolean header = headerIndicator != null && "|".equals(headerIndicator); //$NON-NLS-1$
+			boolean header = textileLine.charAt(cellStart + 1) == '|';
+			int textStart = header ? cellStart + 2 : cellStart + 1;
+			int textEnd = findCellTextEnd(textileLine, textStart, lastLinkEnd);
+			String text = textileLine.substring(textStart, textEnd);
+			int lineOffset = offset + textStart;
 
 			Attributes attributes = new Attributes();
 			builder.beginBlock(header ? BlockType.TABLE_CELL_HEADER : BlockType.TABLE_CELL_NORMAL, attributes);
@@ -78,13 +78,81 @@ public class TableBlock extends Block {
 			markupLanguage.emitMarkupLine(getParser(), state, lineOffset, text, 0);
 
 			builder.endBlock(); // table cell
-		} while (rowMatcher.find());
+
+			cellStart = isRowEnd(textileLine, textEnd) ? -1 : textileLine.indexOf('|', textEnd);
+		} while (cellStart != -1);
 
 		builder.endBlock(); // table row
 
 		return -1;
 	}
 
+	/**
+	 * Finds the end of the text of a cell, which ends at the next '|' that is not within a link. The text also ends at
+	 * a '[' that is not closed by a ']', in which case the remainder of the cell is not part of the text.
+	 * 
+	 * @param line
+	 *            the line
+	 * @param textStart
+	 *            the index of the start of the text of the cell
+	 * @param lastLinkEnd
+	 *            the index of the last ']' in the line, or -1 if there is none
+	 * @return the index of the end of the text
+	 */
+	static int findCellTextEnd(String line, int textStart, int lastLinkEnd) {
+		int length = line.length();
+		int index = textStart;
+		while (index < length) {
+			char c = line.charAt(index);
+			if (c == '|') {
+				break;
+			} else if (c == '[') {
+				if (index > lastLinkEnd) {
+					break;
+				}
+				index = line.indexOf(']', index + 1) + 1;
+			} else {
+				++index;
+			}
+		}
+		return index;
+	}
+
+	/**
+	 * Indicates if the cell text ending at the given index is followed by a final delimiter, which is one or two '|'
+	 * characters followed only by whitespace.
+	 */
+	static boolean isRowEnd(String line, int textEnd) {
+		int length = line.length();
+		int index = textEnd;
+		if (index == length || line.charAt(index) != '|') {
+			return false;
+		}
+		++index;
+		if (index < length && line.charAt(index) == '|') {
+			++index;
+		}
+		while (index < length && isWhitespace(line.charAt(index))) {
+			++index;
+		}
+		return index == length || (index == length - 1 && isLineTerminator(line.charAt(index)));
+	}
+
+	/**
+	 * Indicates if the character matches the <code>\s</code> regular expression character class.
+	 */
+	private static boolean isWhitespace(char c) {
+		return c == ' ' || c == '\t' || c == '\n' || c == '\u000B' || c == '\f' || c == '\r';
+	}
+
+	/**
+	 * Indicates if the character is a line terminator that is not {@link #isWhitespace(char) whitespace}, such that it
+	 * may precede the end of the input that is matched by <code>$</code>.
+	 */
+	private static boolean isLineTerminator(char c) {
+		return c == '\u0085' || c == '\u2028' || c == '\u2029';
+	}
+
 	@Override
 	public boolean canStart(String line, int lineOffset) {
 		blockLineCount = 0;
@@ -13,11 +13,9 @@ package org.eclipse.mylyn.internal.wikitext.confluence.core.block;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
-import org.eclipse.mylyn.wikitext.confluence.core.ConfluenceLanguage;
 import org.eclipse.mylyn.wikitext.core.parser.Attributes;
 import org.eclipse.mylyn.wikitext.core.parser.DocumentBuilder.BlockType;
 import org.eclipse.mylyn.wikitext.core.parser.outline.OutlineItem;
-import org.eclipse.mylyn.wikitext.core.parser.outline.OutlineParser;
 
 /**
  * @author David Green
@@ -45,8 +43,7 @@ public class TableOfContentsBlock extends ParameterizedBlock {
 			String options = matcher.group(1);
 			setOptions(options);
 
-			OutlineParser outlineParser = new OutlineParser(new ConfluenceLanguage());
-			OutlineItem rootItem = outlineParser.parse(state.getMarkupContent());
+			OutlineItem rootItem = state.getOutline(getMarkupLanguage());
 			emitToc(rootItem);
 		}
 		setClosed(true);
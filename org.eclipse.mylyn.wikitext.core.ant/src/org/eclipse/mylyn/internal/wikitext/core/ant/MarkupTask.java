@@ -18,16 +18,28 @@ import java.io.InputStream;
 import java.io.InputStreamReader;
 import java.io.Reader;
 import java.text.MessageFormat;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import org.apache.tools.ant.BuildException;
 import org.apache.tools.ant.Project;
 import org.apache.tools.ant.Task;
+import org.eclipse.mylyn.internal.wikitext.core.util.BuildCache;
 import org.eclipse.mylyn.internal.wikitext.core.validation.StandaloneMarkupValidator;
 import org.eclipse.mylyn.wikitext.core.parser.markup.AbstractMarkupLanguage;
 import org.eclipse.mylyn.wikitext.core.parser.markup.MarkupLanguage;
 import org.eclipse.mylyn.wikitext.core.parser.markup.MarkupLanguageConfiguration;
 import org.eclipse.mylyn.wikitext.core.util.ServiceLocator;
+import org.eclipse.mylyn.wikitext.core.validation.ValidationPass;
 import org.eclipse.mylyn.wikitext.core.validation.ValidationProblem;
 import org.eclipse.mylyn.wikitext.core.validation.ValidationProblem.Severity;
 
@@ -48,10 +60,88 @@ public abstract class MarkupTask extends Task {
 
 	private boolean failOnValidationWarning = false;
 
+	private boolean singleParseValidation = false;
+
+	private volatile ExecutorService validationExecutorService;
+
 	private MarkupLanguageConfiguration markupLanguageConfiguration;
 
 	private String sourceEncoding;
 
+	private int threadCount = Runtime.getRuntime().availableProcessors();
+
+	private final ThreadLocal<BufferedLog> bufferedLog = new ThreadLocal<BufferedLog>();
+
+	/**
+	 * A source file that is to be processed.
+	 * 
+	 * @since 2.1
+	 */
+	protected static class SourceFile {
+
+		private final File baseDir;
+
+		private final File file;
+
+		private final String failureMessage;
+
+		/**
+		 * @param baseDir
+		 *            the base directory of the file set that contains the file
+		 * @param file
+		 *            the file to process
+		 * @param failureMessage
+		 *            the {@link MessageFormat message pattern} used to report failures, with the file as the first
+		 *            argument and the failure message as the second argument
+		 */
+		public SourceFile(File baseDir, File file, String failureMessage) {
+			this.baseDir = baseDir;
+			this.file = file;
+			this.failureMessage = failureMessage;
+		}
+
+		public File getBaseDir() {
+			return baseDir;
+		}
+
+		public File getFile() {
+			return file;
+		}
+	}
+
+	/**
+	 * Processes a single source file. Implementations are invoked concurrently for different files when the
+	 * {@link MarkupTask#getThreadCount() thread count} is greater than one, and must not modify the state of the task.
+	 * 
+	 * @since 2.1
+	 */
+	protected interface SourceFileProcessor {
+
+		/**
+		 * @param markupLanguage
+		 *            the markup language to use, which is not used concurrently by any other invocation
+		 * @param baseDir
+		 *            the base directory of the file set that contains the source
+		 * @param source
+		 *            the file to process
+		 */
+		public void process(MarkupLanguage markupLanguage, File baseDir, File source) throws Exception;
+	}
+
+	private static class BufferedLog {
+
+		private final List<String> messages = new ArrayList<String>();
+
+		private final List<Integer> levels = new ArrayList<Integer>();
+
+		private BuildException failure;
+
+		void add(String message, int level) {
+			messages.add(message);
+			levels.add(level);
+		}
+	}
+
 	/**
 	 * The markup language to use. Should correspond to a {@link MarkupLanguage#getName() markup language name}.
 	 */
@@ -129,6 +219,214 @@ public abstract class MarkupTask extends Task {
 		return internalLinkPattern;
 	}
 
+	/**
+	 * The number of threads used to process source files. The default is the number of available processors.
+	 * 
+	 * @since 2.1
+	 */
+	public int getThreadCount() {
+		return threadCount;
+	}
+
+	/**
+	 * The number of threads used to process source files. A value of 1 causes source files to be processed
+	 * sequentially on the thread that executes the task.
+	 * 
+	 * @param threadCount
+	 *            the number of threads, which must be at least 1
+	 * @since 2.1
+	 */
+	public void setThreadCount(int threadCount) {
+		if (threadCount < 1) {
+			throw new BuildException(MessageFormat.format(Messages.getString("MarkupTask.invalidThreadCount"), //$NON-NLS-1$
+					threadCount));
+		}
+		this.threadCount = threadCount;
+	}
+
+	/**
+	 * Process the given source files in order. If the {@link #getThreadCount() thread count} is greater than one then
+	 * files are processed concurrently, each thread using its own {@link MarkupLanguage#clone() clone} of the markup
+	 * language. Messages {@link #log(String, int) logged} while processing a file are emitted in the order of the
+	 * source files, and if processing fails the failure of the first file in that order is reported.
+	 * 
+	 * @param markupLanguage
+	 *            the markup language
+	 * @param sourceFiles
+	 *            the files to process
+	 * @param processor
+	 *            the processor that processes each file
+	 * @throws BuildException
+	 *             if a file cannot be processed
+	 * @since 2.1
+	 */
+	protected void processSourceFiles(MarkupLanguage markupLanguage, List<SourceFile> sourceFiles,
+			SourceFileProcessor processor) throws BuildException {
+		processSourceFiles(markupLanguage, sourceFiles, processor, threadCount);
+	}
+
+	/**
+	 * Process the given source files in order, as with {@link #processSourceFiles(MarkupLanguage, List,
+	 * SourceFileProcessor)}, using at most the given number of threads. Subclasses pass a maximum of one to process
+	 * source files sequentially, for example when processing them concurrently would write to the same output files.
+	 * 
+	 * @param markupLanguage
+	 *            the markup language
+	 * @param sourceFiles
+	 *            the files to process
+	 * @param processor
+	 *            the processor that processes each file
+	 * @param maxThreads
+	 *            the maximum number of threads with which to process the files
+	 * @throws BuildException
+	 *             if a file cannot be processed
+	 * @since 2.1
+	 */
+	protected void processSourceFiles(MarkupLanguage markupLanguage, List<SourceFile> sourceFiles,
+			SourceFileProcessor processor, int maxThreads) throws BuildException {
+		startValidation();
+		try {
+			int threads = Math.min(Math.min(threadCount, maxThreads), sourceFiles.size());
+			if (threads <= 1) {
+				for (SourceFile sourceFile : sourceFiles) {
+					BuildException failure = processSourceFile(processor, markupLanguage, sourceFile);
+					if (failure != null) {
+						throw failure;
+					}
+				}
+			} else {
+				processSourceFilesConcurrently(markupLanguage, sourceFiles, processor, threads);
+			}
+		} finally {
+			finishValidation();
+		}
+	}
+
+	/**
+	 * Prepares to validate source files: if {@link #isValidate() validation} and {@link #isSingleParseValidation()
+	 * single parse validation} are enabled, creates the executor with which validation rules that scan the markup run
+	 * in parallel with the parse. Source files that are {@link #processSourceFiles(MarkupLanguage, List,
+	 * SourceFileProcessor) processed} are prepared automatically; subclasses that validate markup in other ways must
+	 * call {@link #finishValidation()} once validation is complete.
+	 * 
+	 * @since 2.1
+	 */
+	protected void startValidation() {
+		if (validate && singleParseValidation && validationExecutorService == null) {
+			validationExecutorService = Executors.newFixedThreadPool(threadCount, new WorkerThreadFactory());
+		}
+	}
+
+	/**
+	 * Releases the resources created by {@link #startValidation()}.
+	 * 
+	 * @since 2.1
+	 */
+	protected void finishValidation() {
+		ExecutorService executorService = validationExecutorService;
+		if (executorService != null) {
+			validationExecutorService = null;
+			executorService.shutdownNow();
+		}
+	}
+
+	private void processSourceFilesConcurrently(final MarkupLanguage markupLanguage, List<SourceFile> sourceFiles,
+			final SourceFileProcessor processor, int threads) {
+		final Queue<MarkupLanguage> markupLanguages = new ConcurrentLinkedQueue<MarkupLanguage>();
+		ExecutorService executorService = Executors.newFixedThreadPool(threads, new WorkerThreadFactory());
+		try {
+			List<Future<BufferedLog>> results = new ArrayList<Future<BufferedLog>>(sourceFiles.size());
+			for (final SourceFile sourceFile : sourceFiles) {
+				results.add(executorService.submit(new Callable<BufferedLog>() {
+
+					public BufferedLog call() {
+						MarkupLanguage language = markupLanguages.poll();
+						if (language == null) {
+							language = markupLanguage.clone();
+						}
+						BufferedLog log = new BufferedLog();
+						bufferedLog.set(log);
+						try {
+							log.failure = processSourceFile(processor, language, sourceFile);
+						} finally {
+							bufferedLog.remove();
+							markupLanguages.add(language);
+						}
+						return log;
+					}
+				}));
+			}
+			for (Future<BufferedLog> result : results) {
+				BufferedLog log = getResult(result);
+				for (int x = 0; x < log.messages.size(); ++x) {
+					super.log(log.messages.get(x), log.levels.get(x));
+				}
+				if (log.failure != null) {
+					throw log.failure;
+				}
+			}
+		} finally {
+			executorService.shutdownNow();
+		}
+	}
+
+	private BufferedLog getResult(Future<BufferedLog> result) {
+		try {
+			return result.get();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new BuildException(e.getMessage(), e);
+		} catch (ExecutionException e) {
+			Throwable cause = e.getCause();
+			if (cause instanceof Error) {
+				throw (Error) cause;
+			}
+			throw new BuildException(cause.getMessage(), cause);
+		}
+	}
+
+	private BuildException processSourceFile(SourceFileProcessor processor, MarkupLanguage markupLanguage,
+			SourceFile sourceFile) {
+		try {
+			processor.process(markupLanguage, sourceFile.baseDir, sourceFile.file);
+			return null;
+		} catch (BuildException e) {
+			return e;
+		} catch (Exception e) {
+			return new BuildException(MessageFormat.format(sourceFile.failureMessage, sourceFile.file,
+					e.getMessage()), e);
+		}
+	}
+
+	/**
+	 * Messages logged while processing source files {@link #processSourceFiles(MarkupLanguage, List, SourceFileProcessor)
+	 * concurrently} are buffered and emitted in the order of the source files.
+	 */
+	@Override
+	public void log(String msg, int msgLevel) {
+		BufferedLog log = bufferedLog.get();
+		if (log != null) {
+			log.add(msg, msgLevel);
+		} else {
+			super.log(msg, msgLevel);
+		}
+	}
+
+	private class WorkerThreadFactory implements ThreadFactory {
+
+		private final AtomicInteger threadNumber = new AtomicInteger();
+
+		private final ClassLoader contextClassLoader = Thread.currentThread().getContextClassLoader();
+
+		public Thread newThread(Runnable runnable) {
+			Thread thread = new Thread(runnable, String.format(
+					"%s-%s", MarkupTask.this.getClass().getSimpleName(), threadNumber.incrementAndGet())); //$NON-NLS-1$
+			thread.setDaemon(true);
+			thread.setContextClassLoader(contextClassLoader);
+			return thread;
+		}
+	}
+
 	/**
 	 * Indicate if WikiText markup should be validated. The default is true.
 	 */
@@ -171,6 +469,30 @@ public abstract class MarkupTask extends Task {
 		this.failOnValidationWarning = failOnValidationWarning;
 	}
 
+	/**
+	 * Indicate if validation rules that observe a parse of the markup should share a single parse of each source file
+	 * rather than each parsing it on its own, with the remaining rules running in parallel with the parse. Where
+	 * possible the parse that generates the output is shared. The default is false.
+	 * 
+	 * @since 2.1
+	 * @see ValidationPass
+	 */
+	public boolean isSingleParseValidation() {
+		return singleParseValidation;
+	}
+
+	/**
+	 * Indicate if validation rules that observe a parse of the markup should share a single parse of each source file
+	 * rather than each parsing it on its own, with the remaining rules running in parallel with the parse. Where
+	 * possible the parse that generates the output is shared. The default is false.
+	 * 
+	 * @since 2.1
+	 * @see ValidationPass
+	 */
+	public void setSingleParseValidation(boolean singleParseValidation) {
+		this.singleParseValidation = singleParseValidation;
+	}
+
 	/**
 	 * The source encoding.
 	 * 
@@ -195,18 +517,106 @@ public abstract class MarkupTask extends Task {
 	}
 
 	protected void performValidation(File source, String markupContent) {
+		performValidation(null, source, markupContent);
+	}
+
+	/**
+	 * Validates the given markup if {@link #isValidate() validation} is enabled.
+	 * 
+	 * @param markupLanguage
+	 *            the markup language used to process the source, or null if it is not known
+	 * @param source
+	 *            the source file
+	 * @param markupContent
+	 *            the content of the source file
+	 * @throws BuildException
+	 *             if validation problems should cause the build to fail
+	 * @since 2.1
+	 */
+	protected void performValidation(MarkupLanguage markupLanguage, File source, String markupContent) {
 		if (!validate) {
 			return;
 		}
-		if (markupLanguage == null) {
+		if (this.markupLanguage == null) {
 			throw new IllegalStateException();
 		}
 		log(MessageFormat.format(Messages.getString("MarkupTask.1"), source), Project.MSG_VERBOSE); //$NON-NLS-1$
 
-		StandaloneMarkupValidator markupValidator = StandaloneMarkupValidator.getValidator(markupLanguage);
+		StandaloneMarkupValidator markupValidator = StandaloneMarkupValidator.getValidator(this.markupLanguage);
+		reportValidationProblems(source, findValidationProblems(markupValidator, markupLanguage, markupContent));
+	}
 
-		List<ValidationProblem> problems = markupValidator.validate(markupContent);
+	/**
+	 * Validates the given markup. If {@link #isSingleParseValidation() single parse validation} is enabled the markup is
+	 * parsed once for all rules that observe a parse, and once {@link #startValidation() validation is started} the
+	 * rules that scan the markup run in parallel with that parse.
+	 * 
+	 * @param markupValidator
+	 *            the validator with which to validate the markup
+	 * @param markupLanguage
+	 *            the markup language used to process the markup, or null if it is not known
+	 * @param markupContent
+	 *            the markup to validate
+	 * @return the problems found
+	 * @since 2.1
+	 */
+	protected List<ValidationProblem> findValidationProblems(StandaloneMarkupValidator markupValidator,
+			MarkupLanguage markupLanguage, String markupContent) {
+		if (!singleParseValidation) {
+			return markupValidator.validate(markupContent);
+		}
+		ValidationPass validationPass = markupValidator.createValidationPass(markupLanguage == null
+				? createMarkupLanguage()
+				: markupLanguage, markupContent);
+		return validationPass.validate(validationExecutorService);
+	}
 
+	/**
+	 * Creates a pass that validates the given markup with a single parse if {@link #isValidate() validation} and
+	 * {@link #isSingleParseValidation() single parse validation} are enabled. Rules that scan the markup are started, so
+	 * that they run in parallel with the parse. The caller must parse the markup with the
+	 * {@link ValidationPass#getDocumentBuilder() builder of the pass} and then
+	 * {@link #reportValidationProblems(File, List) report} the {@link ValidationPass#getProblems() problems}.
+	 * 
+	 * @param markupLanguage
+	 *            the markup language with which the markup is parsed
+	 * @param source
+	 *            the source file
+	 * @param markupContent
+	 *            the content of the source file
+	 * @return the validation pass, or null if single parse validation is not enabled
+	 * @since 2.1
+	 */
+	protected ValidationPass createValidationPass(MarkupLanguage markupLanguage, File source, String markupContent) {
+		if (!validate || !singleParseValidation) {
+			return null;
+		}
+		if (this.markupLanguage == null) {
+			throw new IllegalStateException();
+		}
+		log(MessageFormat.format(Messages.getString("MarkupTask.1"), source), Project.MSG_VERBOSE); //$NON-NLS-1$
+
+		StandaloneMarkupValidator markupValidator = StandaloneMarkupValidator.getValidator(this.markupLanguage);
+		ValidationPass validationPass = markupValidator.createValidationPass(markupLanguage, markupContent);
+		ExecutorService executorService = validationExecutorService;
+		if (executorService != null) {
+			validationPass.start(executorService);
+		}
+		return validationPass;
+	}
+
+	/**
+	 * Logs the given validation problems.
+	 * 
+	 * @param source
+	 *            the source file in which the problems were found
+	 * @param problems
+	 *            the problems
+	 * @throws BuildException
+	 *             if the problems should cause the build to fail
+	 * @since 2.1
+	 */
+	protected void reportValidationProblems(File source, List<ValidationProblem> problems) {
 		int errorCount = 0;
 		int warningCount = 0;
 		for (ValidationProblem problem : problems) {
@@ -226,6 +636,40 @@ public abstract class MarkupTask extends Task {
 		}
 	}
 
+	/**
+	 * The values of the settings of this task that affect the output generated from a source file, used to compute
+	 * {@link BuildCache build cache} keys. Subclasses that add such settings should override this method and add their
+	 * values to the returned list.
+	 * 
+	 * @since 2.1
+	 */
+	protected List<String> getBuildConfiguration() {
+		List<String> configuration = new ArrayList<String>();
+		configuration.add(markupLanguage);
+		configuration.add(internalLinkPattern);
+		configuration.add(sourceEncoding);
+		if (markupLanguageConfiguration != null) {
+			MarkupLanguageConfiguration config = markupLanguageConfiguration;
+			configuration.add(config.getClass().getName());
+			configuration.add(String.valueOf(config.isEscapingHtmlAndXml()));
+			configuration.add(String.valueOf(config.isEnableUnwrappedParagraphs()));
+			configuration.add(String.valueOf(config.isNewlinesMustCauseLineBreak()));
+			configuration.add(String.valueOf(config.isOptimizeForRepositoryUsage()));
+			configuration.add(String.valueOf(config.isWikiWordLinking()));
+			configuration.add(String.valueOf(config.getLocale()));
+			for (Object extension : config.getBlocks()) {
+				configuration.add(extension.getClass().getName());
+			}
+			for (Object extension : config.getPhraseModifiers()) {
+				configuration.add(extension.getClass().getName());
+			}
+			for (Object extension : config.getTokens()) {
+				configuration.add(extension.getClass().getName());
+			}
+		}
+		return configuration;
+	}
+
 	/**
 	 * Support a nested markup language configuration.
 	 * 
@@ -18,7 +18,9 @@ import java.io.OutputStreamWriter;
 import java.io.Writer;
 import java.text.MessageFormat;
 import java.util.ArrayList;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
 
 import org.apache.tools.ant.BuildException;
 import org.apache.tools.ant.DirectoryScanner;
@@ -113,6 +115,7 @@ public class MarkupToDitaTask extends MarkupTask {
 
 		MarkupLanguage markupLanguage = createMarkupLanguage();
 
+		List<SourceFile> sourceFiles = new ArrayList<SourceFile>();
 		for (FileSet fileset : filesets) {
 
 			File filesetBaseDir = fileset.getDir(getProject());
@@ -123,29 +126,62 @@ public class MarkupToDitaTask extends MarkupTask {
 				File baseDir = ds.getBasedir();
 				for (String file : files) {
 					File inputFile = new File(baseDir, file);
-					try {
-						processFile(markupLanguage, filesetBaseDir, inputFile);
-					} catch (BuildException e) {
-						throw e;
-					} catch (Exception e) {
-						throw new BuildException(MessageFormat.format(
-								Messages.getString("MarkupToDitaTask.6"), inputFile, //$NON-NLS-1$
-								e.getMessage()), e);
-					}
+					sourceFiles.add(new SourceFile(filesetBaseDir, inputFile,
+							Messages.getString("MarkupToDitaTask.6"))); //$NON-NLS-1$
 				}
 			}
 		}
-
 		if (file != null) {
-			try {
-				processFile(markupLanguage, file.getParentFile(), file);
-			} catch (BuildException e) {
-				throw e;
-			} catch (Exception e) {
-				throw new BuildException(MessageFormat.format(
-						Messages.getString("MarkupToDitaTask.7"), file, e.getMessage()), e); //$NON-NLS-1$
+			sourceFiles.add(new SourceFile(file.getParentFile(), file,
+					Messages.getString("MarkupToDitaTask.7"))); //$NON-NLS-1$
+		}
+		// files that write to the same output files are converted in order, as concurrent conversion would race
+		int maxThreads = hasOutputConflict(sourceFiles) ? 1 : getThreadCount();
+		processSourceFiles(markupLanguage, sourceFiles, new SourceFileProcessor() {
+			public void process(MarkupLanguage markupLanguage, File baseDir, File source) {
+				processFile(markupLanguage, baseDir, source);
+			}
+		}, maxThreads);
+	}
+
+	/**
+	 * Indicate if converting the given source files may write the same output file more than once. Topic file names
+	 * are only known once a source file is parsed, so source files that write topics to the same topic folder are
+	 * considered to conflict.
+	 */
+	private boolean hasOutputConflict(List<SourceFile> sourceFiles) {
+		Set<File> outputFiles = new HashSet<File>();
+		Set<File> topicFolders = new HashSet<File>();
+		for (SourceFile sourceFile : sourceFiles) {
+			File outputFile = computeOutputFile(sourceFile.getFile()).getAbsoluteFile();
+			if (!outputFiles.add(outputFile)) {
+				log(MessageFormat.format(Messages.getString("MarkupToDitaTask.13"), outputFile), Project.MSG_VERBOSE); //$NON-NLS-1$
+				return true;
+			}
+			if (topicStrategy != BreakStrategy.NONE) {
+				File folder = outputFile.getParentFile();
+				if (topicFolder != null) {
+					folder = new File(folder, topicFolder);
+				}
+				if (!topicFolders.add(folder)) {
+					log(MessageFormat.format(Messages.getString("MarkupToDitaTask.13"), folder), Project.MSG_VERBOSE); //$NON-NLS-1$
+					return true;
+				}
 			}
 		}
+		return false;
+	}
+
+	private String computeName(File source) {
+		String name = source.getName();
+		if (name.lastIndexOf('.') != -1) {
+			name = name.substring(0, name.lastIndexOf('.'));
+		}
+		return name;
+	}
+
+	private File computeOutputFile(File source) {
+		return new File(source.getParentFile(), filenameFormat.replace("$1", computeName(source))); //$NON-NLS-1$
 	}
 
 	private void processFile(MarkupLanguage markupLanguage, final File baseDir, final File source)
@@ -155,16 +191,13 @@ public class MarkupToDitaTask extends MarkupTask {
 
 		String markupContent = null;
 
-		String name = source.getName();
-		if (name.lastIndexOf('.') != -1) {
-			name = name.substring(0, name.lastIndexOf('.'));
-		}
-		File outputFile = new File(source.getParentFile(), filenameFormat.replace("$1", name)); //$NON-NLS-1$
+		String name = computeName(source);
+		File outputFile = computeOutputFile(source);
 		if (!outputFile.exists() || overwrite || outputFile.lastModified() < source.lastModified()) {
 			if (markupContent == null) {
 				markupContent = readFully(source);
 			}
-			performValidation(source, markupContent);
+			performValidation(markupLanguage, source, markupContent);
 
 			OutlineItem outline = new OutlineParser(markupLanguage).parse(markupContent);
 
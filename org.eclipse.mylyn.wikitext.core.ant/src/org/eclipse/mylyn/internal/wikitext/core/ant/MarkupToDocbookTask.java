@@ -75,6 +75,7 @@ public class MarkupToDocbookTask extends MarkupTask {
 
 		MarkupLanguage markupLanguage = createMarkupLanguage();
 
+		List<SourceFile> sourceFiles = new ArrayList<SourceFile>();
 		for (FileSet fileset : filesets) {
 
 			File filesetBaseDir = fileset.getDir(getProject());
@@ -85,29 +86,20 @@ public class MarkupToDocbookTask extends MarkupTask {
 				File baseDir = ds.getBasedir();
 				for (String file : files) {
 					File inputFile = new File(baseDir, file);
-					try {
-						processFile(markupLanguage, filesetBaseDir, inputFile);
-					} catch (BuildException e) {
-						throw e;
-					} catch (Exception e) {
-						throw new BuildException(MessageFormat.format(
-								Messages.getString("MarkupToDocbookTask.6"), inputFile, //$NON-NLS-1$
-								e.getMessage()), e);
-					}
+					sourceFiles.add(new SourceFile(filesetBaseDir, inputFile,
+							Messages.getString("MarkupToDocbookTask.6"))); //$NON-NLS-1$
 				}
 			}
 		}
-
 		if (file != null) {
-			try {
-				processFile(markupLanguage, file.getParentFile(), file);
-			} catch (BuildException e) {
-				throw e;
-			} catch (Exception e) {
-				throw new BuildException(MessageFormat.format(
-						Messages.getString("MarkupToDocbookTask.7"), file, e.getMessage()), e); //$NON-NLS-1$
-			}
+			sourceFiles.add(new SourceFile(file.getParentFile(), file,
+					Messages.getString("MarkupToDocbookTask.7"))); //$NON-NLS-1$
 		}
+		processSourceFiles(markupLanguage, sourceFiles, new SourceFileProcessor() {
+			public void process(MarkupLanguage markupLanguage, File baseDir, File source) {
+				processFile(markupLanguage, baseDir, source);
+			}
+		});
 	}
 
 	private void processFile(MarkupLanguage markupLanguage, final File baseDir, final File source)
@@ -128,7 +120,7 @@ public class MarkupToDocbookTask extends MarkupTask {
 			if (markupContent == null) {
 				markupContent = readFully(source);
 			}
-			performValidation(source, markupContent);
+			performValidation(markupLanguage, source, markupContent);
 
 			Writer writer;
 			try {
@@ -15,8 +15,10 @@ import java.io.File;
 import java.io.FileOutputStream;
 import java.io.OutputStreamWriter;
 import java.io.Writer;
+import java.util.List;
 
 import org.apache.tools.ant.BuildException;
+import org.apache.tools.ant.Project;
 import org.eclipse.mylyn.internal.wikitext.core.parser.builder.SplitOutlineItem;
 import org.eclipse.mylyn.internal.wikitext.core.parser.builder.SplittingMarkupToEclipseToc;
 import org.eclipse.mylyn.wikitext.core.parser.util.MarkupToEclipseToc;
@@ -45,7 +47,8 @@ public class MarkupToEclipseHelpTask extends MarkupToHtmlTask {
 		}
 
 		File tocOutputFile = computeTocFile(source, name);
-		if (!tocOutputFile.exists() || overwrite || tocOutputFile.lastModified() < source.lastModified()) {
+		if (isBuildCache() || !tocOutputFile.exists() || overwrite
+				|| tocOutputFile.lastModified() < source.lastModified()) {
 			File htmlOutputFile = computeHtmlFile(source, name);
 
 			Writer writer;
@@ -61,7 +64,7 @@ public class MarkupToEclipseHelpTask extends MarkupToHtmlTask {
 
 				toEclipseToc.setHelpPrefix(helpPrefix);
 				toEclipseToc.setAnchorLevel(tocAnchorLevel);
-				System.out.println("Help: " + baseDir + " " + htmlOutputFile); //$NON-NLS-1$//$NON-NLS-2$
+				log("Help: " + baseDir + " " + htmlOutputFile, Project.MSG_VERBOSE); //$NON-NLS-1$//$NON-NLS-2$
 				toEclipseToc.setBookTitle(title == null ? name : title);
 				toEclipseToc.setCopyrightNotice(getCopyrightNotice());
 
@@ -98,6 +101,20 @@ public class MarkupToEclipseHelpTask extends MarkupToHtmlTask {
 		}
 	}
 
+	@Override
+	boolean isOutputPresent(File source, String name) {
+		return super.isOutputPresent(source, name) && computeTocFile(source, name).exists();
+	}
+
+	@Override
+	protected List<String> getBuildConfiguration() {
+		List<String> configuration = super.getBuildConfiguration();
+		configuration.add(xmlFilenameFormat);
+		configuration.add(helpPrefix);
+		configuration.add(String.valueOf(tocAnchorLevel));
+		return configuration;
+	}
+
 	private File computeTocFile(File source, String name) {
 		return new File(source.getParentFile(), xmlFilenameFormat.replace("$1", name)); //$NON-NLS-1$
 	}
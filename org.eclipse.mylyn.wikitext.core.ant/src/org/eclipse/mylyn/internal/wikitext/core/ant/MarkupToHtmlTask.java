@@ -15,15 +15,19 @@ package org.eclipse.mylyn.internal.wikitext.core.ant;
 import java.io.BufferedOutputStream;
 import java.io.File;
 import java.io.FileOutputStream;
+import java.io.IOException;
 import java.io.OutputStreamWriter;
 import java.io.Writer;
 import java.text.MessageFormat;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.TreeMap;
 
 import org.apache.tools.ant.BuildException;
 import org.apache.tools.ant.DirectoryScanner;
@@ -35,9 +39,13 @@ import org.eclipse.mylyn.internal.wikitext.core.parser.builder.SplitOutlineItem;
 import org.eclipse.mylyn.internal.wikitext.core.parser.builder.SplittingHtmlDocumentBuilder;
 import org.eclipse.mylyn.internal.wikitext.core.parser.builder.SplittingOutlineParser;
 import org.eclipse.mylyn.internal.wikitext.core.parser.builder.SplittingStrategy;
-import org.eclipse.mylyn.wikitext.core.parser.MarkupParser;
+import org.eclipse.mylyn.internal.wikitext.core.util.BuildCache;
+import org.eclipse.mylyn.wikitext.core.parser.builder.EventDocumentBuilder;
 import org.eclipse.mylyn.wikitext.core.parser.builder.HtmlDocumentBuilder;
+import org.eclipse.mylyn.wikitext.core.parser.builder.MultiplexingDocumentBuilder;
+import org.eclipse.mylyn.wikitext.core.parser.builder.StylesheetCache;
 import org.eclipse.mylyn.wikitext.core.parser.markup.MarkupLanguage;
+import org.eclipse.mylyn.wikitext.core.validation.ValidationPass;
 
 /**
  * An Ant task for converting lightweight markup to HTML format.
@@ -83,6 +91,14 @@ public class MarkupToHtmlTask extends MarkupTask {
 
 	private String copyrightNotice = null;
 
+	private boolean buildCache = false;
+
+	private Map<File, BuildCache> buildCaches = Collections.emptyMap();
+
+	private List<String> buildConfiguration;
+
+	private StylesheetCache stylesheetCache;
+
 	@Override
 	public void execute() throws BuildException {
 		if (file == null && filesets.isEmpty()) {
@@ -125,6 +141,7 @@ public class MarkupToHtmlTask extends MarkupTask {
 
 		Set<File> outputFolders = new HashSet<File>();
 
+		List<SourceFile> sourceFiles = new ArrayList<SourceFile>();
 		for (FileSet fileset : filesets) {
 
 			File filesetBaseDir = fileset.getDir(getProject());
@@ -136,29 +153,107 @@ public class MarkupToHtmlTask extends MarkupTask {
 				for (String file : files) {
 					File inputFile = new File(baseDir, file);
 					testForOutputFolderConflict(outputFolders, inputFile);
-					try {
-						processFile(markupLanguage, filesetBaseDir, inputFile);
-					} catch (BuildException e) {
-						throw e;
-					} catch (Exception e) {
-						throw new BuildException(MessageFormat.format(
-								Messages.getString("MarkupToHtmlTask.11"), inputFile, //$NON-NLS-1$
-								e.getMessage()), e);
-					}
+					sourceFiles.add(new SourceFile(filesetBaseDir, inputFile,
+							Messages.getString("MarkupToHtmlTask.11"))); //$NON-NLS-1$
 				}
 			}
 		}
 		if (file != null) {
 			testForOutputFolderConflict(outputFolders, file);
-			try {
-				processFile(markupLanguage, file.getParentFile(), file);
-			} catch (BuildException e) {
-				throw e;
-			} catch (Exception e) {
-				throw new BuildException(MessageFormat.format(
-						Messages.getString("MarkupToHtmlTask.12"), file, e.getMessage()), e); //$NON-NLS-1$
+			sourceFiles.add(new SourceFile(file.getParentFile(), file,
+					Messages.getString("MarkupToHtmlTask.12"))); //$NON-NLS-1$
+		}
+		if (buildCache) {
+			buildConfiguration = getBuildConfiguration();
+			buildCaches = loadBuildCaches(sourceFiles);
+		}
+		stylesheetCache = new StylesheetCache();
+		try {
+			processSourceFiles(markupLanguage, sourceFiles, new SourceFileProcessor() {
+				public void process(MarkupLanguage markupLanguage, File baseDir, File source) {
+					processFile(markupLanguage, baseDir, source);
+				}
+			});
+		} finally {
+			stylesheetCache = null;
+			saveBuildCaches();
+		}
+	}
+
+	private Map<File, BuildCache> loadBuildCaches(List<SourceFile> sourceFiles) {
+		Map<File, BuildCache> caches = new HashMap<File, BuildCache>();
+		for (SourceFile sourceFile : sourceFiles) {
+			File outputFolder = computeHtmlFile(sourceFile.getFile()).getAbsoluteFile().getParentFile();
+			if (!caches.containsKey(outputFolder)) {
+				BuildCache cache = BuildCache.forFolder(outputFolder);
+				try {
+					cache.load();
+				} catch (IOException e) {
+					throw new BuildException(MessageFormat.format(
+							Messages.getString("MarkupToHtmlTask.cannotReadBuildCache"), cache.getFile(), //$NON-NLS-1$
+							e.getMessage()), e);
+				}
+				caches.put(outputFolder, cache);
+			}
+		}
+		return caches;
+	}
+
+	private void saveBuildCaches() {
+		if (buildCaches.isEmpty()) {
+			return;
+		}
+		int hitCount = 0;
+		int missCount = 0;
+		try {
+			for (BuildCache cache : buildCaches.values()) {
+				hitCount += cache.getHitCount();
+				missCount += cache.getMissCount();
+				try {
+					cache.save();
+				} catch (IOException e) {
+					throw new BuildException(MessageFormat.format(
+							Messages.getString("MarkupToHtmlTask.cannotWriteBuildCache"), cache.getFile(), //$NON-NLS-1$
+							e.getMessage()), e);
+				}
+			}
+		} finally {
+			buildCaches = Collections.emptyMap();
+		}
+		int lookupCount = hitCount + missCount;
+		log(MessageFormat.format(Messages.getString("MarkupToHtmlTask.buildCacheReport"), hitCount, lookupCount, //$NON-NLS-1$
+				lookupCount == 0 ? 0D : ((double) hitCount) / lookupCount), Project.MSG_INFO);
+	}
+
+	/**
+	 * Provides the values of the settings that affect the generated HTML, including the content of stylesheet files.
+	 */
+	@Override
+	protected List<String> getBuildConfiguration() {
+		List<String> configuration = super.getBuildConfiguration();
+		configuration.add(htmlFilenameFormat);
+		configuration.add(title);
+		configuration.add(linkRel);
+		configuration.add(String.valueOf(multipleOutputFiles));
+		configuration.add(String.valueOf(formatOutput));
+		configuration.add(String.valueOf(navigationImages));
+		configuration.add(prependImagePrefix);
+		configuration.add(String.valueOf(useInlineCssStyles));
+		configuration.add(String.valueOf(suppressBuiltInCssStyles));
+		configuration.add(defaultAbsoluteLinkTarget);
+		configuration.add(String.valueOf(xhtmlStrict));
+		configuration.add(String.valueOf(emitDoctype));
+		configuration.add(htmlDoctype);
+		configuration.add(copyrightNotice);
+		for (Stylesheet stylesheet : stylesheets) {
+			configuration.add(stylesheet.url);
+			if (stylesheet.file != null) {
+				configuration.add(stylesheet.file.getName());
+				configuration.add(readFully(stylesheet.file));
 			}
+			configuration.add(new TreeMap<String, String>(stylesheet.attributes).toString());
 		}
+		return configuration;
 	}
 
 	private void testForOutputFolderConflict(Set<File> outputFolders, File inputFile) {
@@ -191,13 +286,47 @@ public class MarkupToHtmlTask extends MarkupTask {
 		}
 
 		File htmlOutputFile = computeHtmlFile(source, name);
-		if (!htmlOutputFile.exists() || overwrite || htmlOutputFile.lastModified() < source.lastModified()) {
+		BuildCache cache = buildCaches.get(htmlOutputFile.getAbsoluteFile().getParentFile());
+		String cacheKey = null;
+		if (cache != null) {
+			markupContent = readFully(source);
+			cacheKey = BuildCache.computeKey(markupContent, buildConfiguration);
+			if (!isOutputPresent(source, name)) {
+				cache.remove(htmlOutputFile.getName());
+			}
+			if (cache.isCurrent(htmlOutputFile.getName(), cacheKey)) {
+				log(MessageFormat.format(Messages.getString("MarkupToHtmlTask.upToDate"), source), Project.MSG_VERBOSE); //$NON-NLS-1$
+				return null;
+			}
+		}
+		if (cache != null || !htmlOutputFile.exists() || overwrite
+				|| htmlOutputFile.lastModified() < source.lastModified()) {
 
 			if (markupContent == null) {
 				markupContent = readFully(source);
 			}
 
-			performValidation(source, markupContent);
+			SplittingStrategy splittingStrategy = multipleOutputFiles
+					? new DefaultSplittingStrategy()
+					: new NoSplittingStrategy();
+			SplittingOutlineParser outlineParser = new SplittingOutlineParser();
+			outlineParser.setMarkupLanguage(markupLanguage.clone());
+			outlineParser.setSplittingStrategy(splittingStrategy);
+
+			// parse once, recording the document until the outline is known
+			EventDocumentBuilder eventBuilder = new EventDocumentBuilder();
+			SplitOutlineItem item;
+			ValidationPass validationPass = createValidationPass(markupLanguage, source, markupContent);
+			if (validationPass == null) {
+				performValidation(markupLanguage, source, markupContent);
+				item = outlineParser.parse(markupContent, eventBuilder);
+			} else {
+				// validate with the same parse, before any output is written
+				item = outlineParser.parse(markupContent, new MultiplexingDocumentBuilder(eventBuilder,
+						validationPass.getDocumentBuilder()));
+				reportValidationProblems(source, validationPass.getProblems());
+			}
+			item.setSplitTarget(htmlOutputFile.getName());
 
 			Writer writer;
 			try {
@@ -208,6 +337,7 @@ public class MarkupToHtmlTask extends MarkupTask {
 			}
 			try {
 				HtmlDocumentBuilder builder = new HtmlDocumentBuilder(writer, formatOutput);
+				builder.setStylesheetCache(stylesheetCache);
 				for (Stylesheet stylesheet : stylesheets) {
 					HtmlDocumentBuilder.Stylesheet builderStylesheet;
 
@@ -239,14 +369,6 @@ public class MarkupToHtmlTask extends MarkupTask {
 				builder.setCopyrightNotice(copyrightNotice);
 				builder.setHtmlFilenameFormat(htmlFilenameFormat);
 
-				SplittingStrategy splittingStrategy = multipleOutputFiles
-						? new DefaultSplittingStrategy()
-						: new NoSplittingStrategy();
-				SplittingOutlineParser outlineParser = new SplittingOutlineParser();
-				outlineParser.setMarkupLanguage(markupLanguage.clone());
-				outlineParser.setSplittingStrategy(splittingStrategy);
-				SplitOutlineItem item = outlineParser.parse(markupContent);
-				item.setSplitTarget(htmlOutputFile.getName());
 				SplittingHtmlDocumentBuilder splittingBuilder = new SplittingHtmlDocumentBuilder();
 				splittingBuilder.setRootBuilder(builder);
 				splittingBuilder.setOutline(item);
@@ -254,11 +376,7 @@ public class MarkupToHtmlTask extends MarkupTask {
 				splittingBuilder.setNavigationImages(navigationImages);
 				splittingBuilder.setFormatting(formatOutput);
 
-				MarkupParser parser = new MarkupParser();
-				parser.setMarkupLanguage(markupLanguage);
-				parser.setBuilder(splittingBuilder);
-
-				parser.parse(markupContent);
+				eventBuilder.getDocumentBuilderEvents().applyTo(splittingBuilder);
 
 				processed(markupContent, item, baseDir, source);
 			} finally {
@@ -270,6 +388,10 @@ public class MarkupToHtmlTask extends MarkupTask {
 							e.getMessage()), e);
 				}
 			}
+			if (cache != null) {
+				cache.put(htmlOutputFile.getName(), cacheKey);
+				cache.putOutputs(htmlOutputFile.getName(), computeSplitTargets(item, htmlOutputFile));
+			}
 		}
 		return markupContent;
 	}
@@ -277,10 +399,49 @@ public class MarkupToHtmlTask extends MarkupTask {
 	void processed(String markupContent, SplitOutlineItem item, final File baseDir, final File source) {
 	}
 
+	/**
+	 * indicate if the outputs generated for the given source exist, including the pages of the document if it was
+	 * split into {@link #setMultipleOutputFiles(boolean) multiple output files}
+	 */
+	boolean isOutputPresent(File source, String name) {
+		File htmlOutputFile = computeHtmlFile(source, name);
+		if (!htmlOutputFile.exists()) {
+			return false;
+		}
+		BuildCache cache = buildCaches.get(htmlOutputFile.getAbsoluteFile().getParentFile());
+		if (cache != null) {
+			for (String output : cache.getOutputs(htmlOutputFile.getName())) {
+				if (!new File(htmlOutputFile.getParentFile(), output).exists()) {
+					return false;
+				}
+			}
+		}
+		return true;
+	}
+
+	private Set<String> computeSplitTargets(SplitOutlineItem item, File htmlOutputFile) {
+		Set<String> splitTargets = new LinkedHashSet<String>();
+		for (SplitOutlineItem page : item.getPageOrder()) {
+			String splitTarget = page.getSplitTarget();
+			if (splitTarget != null && !splitTarget.equals(htmlOutputFile.getName())) {
+				splitTargets.add(splitTarget);
+			}
+		}
+		return splitTargets;
+	}
+
 	protected File computeHtmlFile(final File source, String name) {
 		return new File(source.getParentFile(), htmlFilenameFormat.replace("$1", name)); //$NON-NLS-1$
 	}
 
+	private File computeHtmlFile(File source) {
+		String name = source.getName();
+		if (name.lastIndexOf('.') != -1) {
+			name = name.substring(0, name.lastIndexOf('.'));
+		}
+		return computeHtmlFile(source, name);
+	}
+
 	/**
 	 * @see #setHtmlFilenameFormat(String)
 	 */
@@ -607,4 +768,28 @@ public class MarkupToHtmlTask extends MarkupTask {
 		this.copyrightNotice = copyrightNotice;
 	}
 
+	/**
+	 * indicate if a build cache should be used to skip source files whose outputs are up to date. The default is false.
+	 * 
+	 * @see #setBuildCache(boolean)
+	 * @since 2.1
+	 */
+	public boolean isBuildCache() {
+		return buildCache;
+	}
+
+	/**
+	 * indicate if a build cache should be used to skip source files whose outputs are up to date. When enabled, a cache
+	 * stored in each output folder records a hash of the content of each source file, the markup language and the
+	 * configuration of this task, including the content of stylesheet files. A source file is processed only if its
+	 * hash differs from the one recorded when its outputs were last generated or if its outputs are missing, regardless
+	 * of {@link #isOverwrite() overwrite} and file timestamps. The cache hit rate is reported when the task completes.
+	 * The default is false.
+	 * 
+	 * @since 2.1
+	 */
+	public void setBuildCache(boolean buildCache) {
+		this.buildCache = buildCache;
+	}
+
 }
@@ -69,6 +69,7 @@ public class MarkupToXslfoTask extends MarkupTask {
 
 		MarkupLanguage markupLanguage = createMarkupLanguage();
 
+		List<SourceFile> sourceFiles = new ArrayList<SourceFile>();
 		for (FileSet fileset : filesets) {
 
 			File filesetBaseDir = fileset.getDir(getProject());
@@ -79,28 +80,20 @@ public class MarkupToXslfoTask extends MarkupTask {
 				File baseDir = ds.getBasedir();
 				for (String file : files) {
 					File inputFile = new File(baseDir, file);
-					try {
-						processFile(markupLanguage, filesetBaseDir, inputFile);
-					} catch (BuildException e) {
-						throw e;
-					} catch (Exception e) {
-						throw new BuildException(MessageFormat.format(
-								Messages.getString("MarkupToXslfoTask.5"), inputFile, //$NON-NLS-1$
-								e.getMessage()), e);
-					}
+					sourceFiles.add(new SourceFile(filesetBaseDir, inputFile,
+							Messages.getString("MarkupToXslfoTask.5"))); //$NON-NLS-1$
 				}
 			}
 		}
 		if (file != null) {
-			try {
-				processFile(markupLanguage, file.getParentFile(), file);
-			} catch (BuildException e) {
-				throw e;
-			} catch (Exception e) {
-				throw new BuildException(MessageFormat.format(
-						Messages.getString("MarkupToXslfoTask.6"), file, e.getMessage()), e); //$NON-NLS-1$
-			}
+			sourceFiles.add(new SourceFile(file.getParentFile(), file,
+					Messages.getString("MarkupToXslfoTask.6"))); //$NON-NLS-1$
 		}
+		processSourceFiles(markupLanguage, sourceFiles, new SourceFileProcessor() {
+			public void process(MarkupLanguage markupLanguage, File baseDir, File source) {
+				processFile(markupLanguage, baseDir, source);
+			}
+		});
 	}
 
 	/**
@@ -134,7 +127,7 @@ public class MarkupToXslfoTask extends MarkupTask {
 				markupContent = readFully(source);
 			}
 
-			performValidation(source, markupContent);
+			performValidation(markupLanguage, source, markupContent);
 
 			Writer out;
 			try {
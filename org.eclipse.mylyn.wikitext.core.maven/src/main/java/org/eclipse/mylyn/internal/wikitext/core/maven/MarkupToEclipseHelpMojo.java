@@ -34,7 +34,8 @@ import org.eclipse.mylyn.internal.wikitext.core.parser.builder.SplittingHtmlDocu
 import org.eclipse.mylyn.internal.wikitext.core.parser.builder.SplittingMarkupToEclipseToc;
 import org.eclipse.mylyn.internal.wikitext.core.parser.builder.SplittingOutlineParser;
 import org.eclipse.mylyn.internal.wikitext.core.parser.builder.SplittingStrategy;
-import org.eclipse.mylyn.wikitext.core.parser.MarkupParser;
+import org.eclipse.mylyn.internal.wikitext.core.util.BuildCache;
+import org.eclipse.mylyn.wikitext.core.parser.builder.EventDocumentBuilder;
 import org.eclipse.mylyn.wikitext.core.parser.builder.HtmlDocumentBuilder;
 import org.eclipse.mylyn.wikitext.core.parser.markup.MarkupLanguage;
 import org.eclipse.mylyn.wikitext.core.parser.util.MarkupToEclipseToc;
@@ -205,6 +206,18 @@ public class MarkupToEclipseHelpMojo extends AbstractMojo {
 	 */
 	protected int tocAnchorLevel = 0;
 
+	/**
+	 * Indicate if a build cache should be used to skip markup files whose outputs are up to date (true/false). When
+	 * enabled, a cache stored in the {@link #outputFolder} records a hash of the content of each markup file, its
+	 * markup language and the configuration of this goal. A markup file is processed only if its hash differs from the
+	 * one recorded when its outputs were last generated or if its outputs are missing. Default is false.
+	 * 
+	 * @parameter
+	 */
+	protected boolean buildCache = false;
+
+	private BuildCache cache;
+
 	public void execute() throws MojoExecutionException, MojoFailureException {
 		try {
 			ensureOutputFolderExists();
@@ -222,15 +235,22 @@ public class MarkupToEclipseHelpMojo extends AbstractMojo {
 			final FileToMarkupLanguage fileToMarkupLanguage = new FileToMarkupLanguage(markupLanguages);
 			SourceFileTraversal fileTraversal = new SourceFileTraversal(sourceFolder);
 
+			if (buildCache) {
+				cache = loadBuildCache();
+			}
 			final AtomicInteger fileCount = new AtomicInteger();
-			fileTraversal.traverse(new Visitor() {
-				@Override
-				public void accept(String relativePath, File sourceFile) {
-					fileCount.incrementAndGet();
-
-					process(sourceFile, relativePath, fileToMarkupLanguage.get(sourceFile));
-				}
-			});
+			try {
+				fileTraversal.traverse(new Visitor() {
+					@Override
+					public void accept(String relativePath, File sourceFile) {
+						fileCount.incrementAndGet();
+
+						process(sourceFile, relativePath, fileToMarkupLanguage.get(sourceFile));
+					}
+				});
+			} finally {
+				saveBuildCache();
+			}
 			getLog().info(format("Processed {0} files", fileCount.get()));
 		} catch (BuildFailureException e) {
 			getLog().error(e.getMessage(), e);
@@ -238,6 +258,65 @@ public class MarkupToEclipseHelpMojo extends AbstractMojo {
 		}
 	}
 
+	private BuildCache loadBuildCache() {
+		BuildCache result = BuildCache.forFolder(outputFolder);
+		try {
+			result.load();
+		} catch (IOException e) {
+			throw new BuildFailureException(format("Cannot read build cache {0}: {1}", result.getFile(),
+					e.getMessage()), e);
+		}
+		return result;
+	}
+
+	private void saveBuildCache() {
+		if (cache == null) {
+			return;
+		}
+		BuildCache usedCache = cache;
+		cache = null;
+		try {
+			usedCache.save();
+		} catch (IOException e) {
+			throw new BuildFailureException(format("Cannot write build cache {0}: {1}", usedCache.getFile(),
+					e.getMessage()), e);
+		}
+		int lookupCount = usedCache.getHitCount() + usedCache.getMissCount();
+		getLog().info(
+				format("Build cache: {0} of {1} markup files up to date ({2,number,percent} hit rate)",
+						usedCache.getHitCount(), lookupCount, lookupCount == 0 ? 0D
+								: ((double) usedCache.getHitCount()) / lookupCount));
+	}
+
+	/**
+	 * Provides the values of the settings that affect the output generated for a markup file, used to compute build
+	 * cache keys.
+	 */
+	protected List<String> getBuildConfiguration(MarkupLanguage markupLanguage) {
+		List<String> configuration = Lists.newArrayList();
+		configuration.add(markupLanguage.getName());
+		configuration.add(sourceEncoding);
+		configuration.add(htmlFilenameFormat);
+		configuration.add(xmlFilenameFormat);
+		configuration.add(title);
+		configuration.add(linkRel);
+		configuration.add(String.valueOf(multipleOutputFiles));
+		configuration.add(String.valueOf(formatOutput));
+		configuration.add(String.valueOf(navigationImages));
+		configuration.add(prependImagePrefix);
+		configuration.add(String.valueOf(useInlineCssStyles));
+		configuration.add(String.valueOf(suppressBuiltInCssStyles));
+		configuration.add(defaultAbsoluteLinkTarget);
+		configuration.add(String.valueOf(xhtmlStrict));
+		configuration.add(String.valueOf(emitDoctype));
+		configuration.add(htmlDoctype);
+		configuration.add(copyrightNotice);
+		configuration.addAll(stylesheetUrls);
+		configuration.add(helpPrefix);
+		configuration.add(String.valueOf(tocAnchorLevel));
+		return configuration;
+	}
+
 	protected void process(File sourceFile, String relativePath, MarkupLanguage markupLanguage) {
 		if (markupLanguage == null) {
 			copy(sourceFile, relativePath);
@@ -266,8 +345,25 @@ public class MarkupToEclipseHelpMojo extends AbstractMojo {
 			name = name.substring(0, name.lastIndexOf('.'));
 		}
 		File htmlOutputFile = computeHtmlFile(relativePath, name);
-		if (!htmlOutputFile.exists() || htmlOutputFile.lastModified() < sourceFile.lastModified()) {
-			String markupContent = readFully(sourceFile);
+		String markupContent = null;
+		String cachePath = null;
+		String cacheKey = null;
+		if (cache != null) {
+			markupContent = readFully(sourceFile);
+			cachePath = computeCachePath(relativePath, htmlOutputFile);
+			cacheKey = BuildCache.computeKey(markupContent, getBuildConfiguration(markupLanguage));
+			if (!htmlOutputFile.exists() || !computeTocFile(htmlOutputFile, name).exists()) {
+				cache.remove(cachePath);
+			}
+			if (cache.isCurrent(cachePath, cacheKey)) {
+				getLog().debug(format("Markup file is up to date: {0}", sourceFile));
+				return;
+			}
+		}
+		if (cache != null || !htmlOutputFile.exists() || htmlOutputFile.lastModified() < sourceFile.lastModified()) {
+			if (markupContent == null) {
+				markupContent = readFully(sourceFile);
+			}
 
 			if (!htmlOutputFile.getParentFile().exists()) {
 				if (!htmlOutputFile.getParentFile().mkdirs()) {
@@ -282,25 +378,34 @@ public class MarkupToEclipseHelpMojo extends AbstractMojo {
 				SplittingStrategy splittingStrategy = createSplittingStrategy();
 				SplittingOutlineParser outlineParser = createOutlineParser(markupLanguage, splittingStrategy);
 
-				SplitOutlineItem rootTocItem = outlineParser.parse(markupContent);
+				// parse once, recording the document until the outline is known
+				EventDocumentBuilder eventBuilder = new EventDocumentBuilder();
+				SplitOutlineItem rootTocItem = outlineParser.parse(markupContent, eventBuilder);
 				rootTocItem.setSplitTarget(htmlOutputFile.getName());
 
 				SplittingHtmlDocumentBuilder splittingBuilder = createSplittingBuilder(builder, rootTocItem,
 						htmlOutputFile, relativePath);
 
-				MarkupParser parser = new MarkupParser();
-				parser.setMarkupLanguage(markupLanguage);
-				parser.setBuilder(splittingBuilder);
-
-				parser.parse(markupContent);
+				eventBuilder.getDocumentBuilderEvents().applyTo(splittingBuilder);
 
 				createEclipseHelpToc(rootTocItem, sourceFile, relativePath, htmlOutputFile, name);
 			} finally {
 				close(writer, htmlOutputFile);
 			}
+			if (cache != null) {
+				cache.put(cachePath, cacheKey);
+			}
 		}
 	}
 
+	private String computeCachePath(String relativePath, File htmlOutputFile) {
+		String path = htmlOutputFile.getName();
+		if (relativePath.length() > 0) {
+			path = relativePath.replace('\\', '/') + '/' + path;
+		}
+		return path;
+	}
+
 	private void close(Writer writer, File file) {
 		try {
 			writer.close();
@@ -312,7 +417,7 @@ public class MarkupToEclipseHelpMojo extends AbstractMojo {
 	private void createEclipseHelpToc(SplitOutlineItem rootTocItem, File sourceFile, String relativePath,
 			File htmlOutputFile, String name) {
 		File tocOutputFile = computeTocFile(htmlOutputFile, name);
-		if (!tocOutputFile.exists() || tocOutputFile.lastModified() < sourceFile.lastModified()) {
+		if (cache != null || !tocOutputFile.exists() || tocOutputFile.lastModified() < sourceFile.lastModified()) {
 			Writer writer = createWriter(tocOutputFile);
 			try {
 				MarkupToEclipseToc toEclipseToc = createMarkupToEclipseToc(relativePath, htmlOutputFile, name);
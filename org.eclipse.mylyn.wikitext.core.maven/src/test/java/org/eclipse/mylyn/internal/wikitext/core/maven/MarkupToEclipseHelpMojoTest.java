@@ -144,6 +144,25 @@ public class MarkupToEclipseHelpMojoTest {
 		assertHasContent("Top-Level-Heading-3.html", "<h1 id=\"TopLevelHeading3\">Top Level Heading 3</h1>");
 	}
 
+	@Test
+	public void executeWithBuildCache() throws MojoExecutionException, MojoFailureException, IOException {
+		markupToEclipseHelp.buildCache = true;
+		markupToEclipseHelp.execute();
+		assertTrue(computeOutputFile(".wikitext-build-cache").exists());
+
+		Files.write("unchanged", computeOutputFile("test.html"), Charsets.UTF_8);
+		markupToEclipseHelp.execute();
+		assertHasContent("test.html", "unchanged");
+
+		markupToEclipseHelp.title = "Changed Title";
+		markupToEclipseHelp.execute();
+		assertHasContent("test.html", "<title>Changed Title</title>");
+
+		assertTrue(computeOutputFile("test-toc.xml").delete());
+		markupToEclipseHelp.execute();
+		assertHasContent("test-toc.xml", "<toc topic=\"test.html\" label=\"Changed Title\">");
+	}
+
 	@Test
 	public void configureStylesheetUrls() {
 		markupToEclipseHelp.stylesheetUrls = Lists.newArrayList("test/foo.css", "bar.css");
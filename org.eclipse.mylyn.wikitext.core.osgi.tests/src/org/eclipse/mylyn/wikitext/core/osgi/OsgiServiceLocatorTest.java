@@ -18,19 +18,25 @@ import static org.junit.Assert.fail;
 import static org.mockito.Matchers.eq;
 import static org.mockito.Mockito.doReturn;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
 
 import java.net.URL;
 import java.util.Collections;
 import java.util.List;
 import java.util.Set;
 
+import org.eclipse.mylyn.internal.wikitext.core.osgi.WikiTextCoreOsgiActivator;
 import org.eclipse.mylyn.wikitext.core.parser.markup.MarkupLanguage;
 import org.eclipse.mylyn.wikitext.core.util.ServiceLocator;
+import org.junit.Before;
 import org.junit.Rule;
 import org.junit.Test;
 import org.junit.rules.ExpectedException;
+import org.mockito.ArgumentCaptor;
 import org.osgi.framework.Bundle;
 import org.osgi.framework.BundleContext;
+import org.osgi.framework.BundleEvent;
+import org.osgi.framework.BundleListener;
 
 import com.google.common.base.Throwables;
 import com.google.common.collect.Lists;
@@ -39,6 +45,11 @@ public class OsgiServiceLocatorTest {
 	@Rule
 	public ExpectedException thrown = ExpectedException.none();
 
+	@Before
+	public void clearCache() {
+		ServiceLocator.clearCache();
+	}
+
 	@Test
 	public void create() {
 		assertNotNull(new OsgiServiceLocator());
@@ -89,6 +100,29 @@ public class OsgiServiceLocatorTest {
 		assertLoadsMarkupLanguageFromServicesPath("bin/services");
 	}
 
+	@Test
+	public void discoversMarkupLanguagesOfInstalledBundle() throws Exception {
+		Bundle bundle = createBundleWithLanguage(MockMarkupLanguage.class);
+		BundleContext context = mock(BundleContext.class);
+		doReturn(new Bundle[0]).doReturn(new Bundle[] { bundle }).when(context).getBundles();
+
+		WikiTextCoreOsgiActivator activator = new WikiTextCoreOsgiActivator();
+		activator.start(context);
+		ArgumentCaptor<BundleListener> bundleListener = ArgumentCaptor.forClass(BundleListener.class);
+		verify(context).addBundleListener(bundleListener.capture());
+
+		OsgiServiceLocator serviceLocator = createOsgiServiceLocator(context);
+		assertTrue(serviceLocator.getAllMarkupLanguages().isEmpty());
+		// discovered markup languages are cached until bundles change
+		assertTrue(serviceLocator.getAllMarkupLanguages().isEmpty());
+
+		bundleListener.getValue().bundleChanged(new BundleEvent(BundleEvent.INSTALLED, bundle));
+		assertMarkupLanguagePresent("MockMarkupLanguage", serviceLocator.getAllMarkupLanguages());
+
+		activator.stop(context);
+		verify(context).removeBundleListener(bundleListener.getValue());
+	}
+
 	void assertLoadsMarkupLanguageFromServicesPath(String servicesFolder) {
 		OsgiServiceLocator serviceLocator = createOsgiServiceLocator(createBundleWithLanguage(servicesFolder,
 				MockMarkupLanguage.class));
@@ -116,8 +150,12 @@ public class OsgiServiceLocatorTest {
 	}
 
 	private OsgiServiceLocator createOsgiServiceLocator(Bundle... bundles) {
-		final BundleContext context = mock(BundleContext.class);
+		BundleContext context = mock(BundleContext.class);
 		doReturn(bundles).when(context).getBundles();
+		return createOsgiServiceLocator(context);
+	}
+
+	private OsgiServiceLocator createOsgiServiceLocator(final BundleContext context) {
 		return new OsgiServiceLocator() {
 			@Override
 			BundleContext getContext() {
@@ -0,0 +1,50 @@
+/*******************************************************************************
+ * Copyright (c) 2014 Tasktop Technologies and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     David Green - initial API and implementation
+ *******************************************************************************/
+
+package org.eclipse.mylyn.internal.wikitext.core.osgi;
+
+import org.eclipse.mylyn.wikitext.core.util.ServiceLocator;
+import org.osgi.framework.BundleActivator;
+import org.osgi.framework.BundleContext;
+import org.osgi.framework.BundleEvent;
+import org.osgi.framework.SynchronousBundleListener;
+
+/**
+ * Clears the {@link ServiceLocator#clearCache() cache of discovered markup languages} whenever bundles, which may
+ * provide markup languages, are installed, updated, unresolved or uninstalled. The bundle is activated by
+ * {@link org.eclipse.mylyn.wikitext.core.osgi.OsgiServiceLocator} before it discovers markup languages.
+ * 
+ * @author David Green
+ */
+public class WikiTextCoreOsgiActivator implements BundleActivator {
+
+	private static final int BUNDLES_CHANGED = BundleEvent.INSTALLED | BundleEvent.UPDATED | BundleEvent.UNRESOLVED
+			| BundleEvent.UNINSTALLED;
+
+	private final SynchronousBundleListener bundleListener = new SynchronousBundleListener() {
+		public void bundleChanged(BundleEvent event) {
+			if ((event.getType() & BUNDLES_CHANGED) != 0) {
+				ServiceLocator.clearCache();
+			}
+		}
+	};
+
+	public void start(BundleContext context) throws Exception {
+		context.addBundleListener(bundleListener);
+		// bundles may have changed while the listener was not registered
+		ServiceLocator.clearCache();
+	}
+
+	public void stop(BundleContext context) throws Exception {
+		context.removeBundleListener(bundleListener);
+		ServiceLocator.clearCache();
+	}
+}
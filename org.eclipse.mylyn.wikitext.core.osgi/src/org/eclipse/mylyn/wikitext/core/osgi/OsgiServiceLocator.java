@@ -35,7 +35,8 @@ import com.google.common.collect.Sets;
 /**
  * A {@link ServiceLocator} for use in an OSGi runtime environment. Uses OSGI {@link Bundle bundles} to load markup
  * languages using the {@link ServiceLoader Java service} defined by bundle resources defined by service files at the
- * path: {@code "META-INF/services/org.eclipse.mylyn.wikitext.core.parser.markup.MarkupLanguage"} .
+ * path: {@code "META-INF/services/org.eclipse.mylyn.wikitext.core.parser.markup.MarkupLanguage"} . Discovered markup
+ * languages are cached until bundles are installed, updated, unresolved or uninstalled.
  * 
  * @author david.green
  * @since 2.0
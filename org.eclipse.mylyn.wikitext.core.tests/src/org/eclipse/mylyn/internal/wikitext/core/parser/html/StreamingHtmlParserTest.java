@@ -0,0 +1,150 @@
+/*******************************************************************************
+ * Copyright (c) 2014 Tasktop Technologies and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     David Green - initial API and implementation
+ *******************************************************************************/
+
+package org.eclipse.mylyn.internal.wikitext.core.parser.html;
+
+import static org.junit.Assert.assertEquals;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.io.StringWriter;
+
+import org.eclipse.mylyn.wikitext.core.parser.DocumentBuilder;
+import org.eclipse.mylyn.wikitext.core.parser.builder.HtmlDocumentBuilder;
+import org.junit.Test;
+import org.xml.sax.InputSource;
+import org.xml.sax.SAXException;
+
+import com.google.common.base.Throwables;
+
+public class StreamingHtmlParserTest extends HtmlParserTest {
+
+	@Override
+	protected AbstractSaxHtmlParser createParser() {
+		return new StreamingHtmlParser();
+	}
+
+	@Test
+	public void impliedEndTags() {
+		assertParse("<p>one</p><p>two</p><ul><li>a</li><li>b<ul><li>c</li></ul></li></ul>",
+				"<p>one<p>two<ul><li>a<li>b<ul><li>c</ul></ul>");
+	}
+
+	@Test
+	public void impliedTableElements() {
+		assertParse("<table><tr><td>a</td><td>b</td></tr><tr><td>c</td></tr></table>",
+				"<table><td>a<td>b<tr><td>c</table>");
+	}
+
+	@Test
+	public void unclosedElements() {
+		assertParse("<p><b>bold <i>both</i></b></p>", "<p><b>bold <i>both");
+	}
+
+	@Test
+	public void misnestedFormattingElements() {
+		assertParse("<p><b>bold <i>both</i></b><i> italic</i></p>", "<p><b>bold <i>both</b> italic</i></p>");
+	}
+
+	@Test
+	public void unmatchedEndTagsIgnored() {
+		assertParse("<div>ab</div>", "<div>a</span>b</div></em>");
+	}
+
+	@Test
+	public void entities() {
+		assertParse("<p>a &amp; b &lt; c © d © A &amp;bogus;</p>",
+				"<p>a &amp; b &lt; c &copy d &#169; &#x41; &bogus;</p>");
+	}
+
+	@Test
+	public void attributes() {
+		assertParse("<a href=\"x?a=1&amp;b=2\" title=\"q\">link</a>",
+				"<A HREF=\"x?a=1&amp;b=2\" title='q' href=ignored>link</a>");
+	}
+
+	@Test
+	public void headIsIgnored() {
+		assertParse("<p>body</p>",
+				"<!DOCTYPE html><html><head><title>T</title><style>p{}</style><script>if (a<b) x();</script></head>\n<body><!-- comment --><p>body</p></body></html>");
+	}
+
+	@Test
+	public void leadingNewlineOfPreformattedTextPreserved() {
+		// as with the jsoup parser
+		assertParse("<pre>\nint x;\n</pre>", "<pre>\nint x;\n</pre>");
+	}
+
+	@Test
+	public void textWithoutBody() {
+		assertParse("text", "  text");
+	}
+
+	@Test
+	public void cleanupEquivalentToDocumentProcessors() {
+		String[] inputs = { "<p>foo <span style=\"color:blue;\"> <br/>bar</span></p>",
+				"<p>foo <span style=\"color:blue;\"><br/>bar<br/> </span></p>", "<p>foo <font color=\"red\"> </font>bar</p>",
+				"<p>foo <font color=\"black\"> bar</font></p>", "<p>foo<span> </span>bar</p>",
+				"<p>foo <span class=\"test\">bar</span></p>",
+				"<p>foo <span style=\"font-style: italic;font-weight: bold; color: blue; bogus: bad\"> bar</span></p>",
+				"<p><span style=\"color: A1B2C3 !important\">foo bar</span></p>",
+				"<html>\n<body>\ntext\n</body>\n</html>",
+				"<body><ol><li>item 0</li> <li>item 1</li>\t\n   <li>item 2</li></ol></body>",
+				"<table><tr><th>a</th> <th>b</th>\t\n</tr> <tr><td>c</td> <td>d</td></tr></table>",
+				"<p>  lots   of\n\n   whitespace  </p>", "<pre> \none\r\ntwo\n</pre>", "<pre>\nint x;\n</pre>",
+				"<p>a<span style=\"color:red\"><b> </b></span>b</p>", "<b><b></b></b>",
+				"<p><b><span class=\"test\"><i> </i><br/></span>a</b></p>", "<p>a<span> <br/>b</span></p>" };
+		for (String input : inputs) {
+			HtmlParser htmlParser = new HtmlParser();
+			new HtmlCleaner().configure(htmlParser);
+			StreamingHtmlParser streamingParser = new StreamingHtmlParser();
+			new HtmlCleaner().configure(streamingParser);
+
+			assertEquals(input, parseToHtml(htmlParser, input), parseToHtml(streamingParser, input));
+		}
+	}
+
+	@Test
+	public void processorWithoutFilter() {
+		StreamingHtmlParser streamingParser = new StreamingHtmlParser();
+		streamingParser.getProcessors().add(new DocumentProcessor() {
+
+			@Override
+			public void process(org.jsoup.nodes.Document document) {
+				for (org.jsoup.nodes.Element element : document.body().getElementsByTag("b")) {
+					element.tagName("i");
+				}
+			}
+		});
+		new HtmlCleaner().configure(streamingParser);
+		assertEquals("<p><i>bold</i> text</p><pre> one\n two</pre>",
+				parseToHtml(streamingParser, "<p><b>bold</b>  text <span> </span></p><pre> one\n two</pre>"));
+	}
+
+	private void assertParse(String expected, String content) {
+		StringWriter out = new StringWriter();
+		DocumentBuilder builder = new HtmlDocumentBuilder(out);
+		parse(content, builder);
+		assertEquals(expected, out.toString());
+	}
+
+	private String parseToHtml(AbstractSaxHtmlParser parser, String content) {
+		StringWriter out = new StringWriter();
+		try {
+			parser.parse(new InputSource(new StringReader(content)), new HtmlDocumentBuilder(out), false);
+		} catch (IOException e) {
+			throw Throwables.propagate(e);
+		} catch (SAXException e) {
+			throw Throwables.propagate(e);
+		}
+		return out.toString();
+	}
+}
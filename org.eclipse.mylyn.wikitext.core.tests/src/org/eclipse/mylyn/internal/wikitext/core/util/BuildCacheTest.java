@@ -0,0 +1,104 @@
+/*******************************************************************************
+ * Copyright (c) 2014 Tasktop Technologies and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     David Green - initial API and implementation
+ *******************************************************************************/
+
+package org.eclipse.mylyn.internal.wikitext.core.util;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class BuildCacheTest {
+
+	@Rule
+	public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+	@Test
+	public void computeKey() {
+		List<String> configuration = Arrays.asList("textile", null, "title");
+		String key = BuildCache.computeKey("h1. Heading", configuration);
+		assertEquals(40, key.length());
+		assertEquals(key, BuildCache.computeKey("h1. Heading", Arrays.asList("textile", null, "title")));
+		assertFalse(key.equals(BuildCache.computeKey("h1. Heading2", configuration)));
+		assertFalse(key.equals(BuildCache.computeKey("h1. Heading", Arrays.asList("textile", "", "title"))));
+		assertFalse(key.equals(BuildCache.computeKey("h1. Heading", Arrays.asList("textile", null, "title2"))));
+		assertFalse(BuildCache.computeKey("", Arrays.asList("ab", "c")).equals(
+				BuildCache.computeKey("", Arrays.asList("a", "bc"))));
+	}
+
+	@Test
+	public void isCurrent() {
+		BuildCache cache = BuildCache.forFolder(temporaryFolder.getRoot());
+		String key = BuildCache.computeKey("content", Collections.<String> emptyList());
+		assertFalse(cache.isCurrent("one.html", key));
+		cache.put("one.html", key);
+		assertTrue(cache.isCurrent("one.html", key));
+		assertFalse(cache.isCurrent("one.html", "other"));
+		assertFalse(cache.isCurrent("two.html", key));
+		cache.remove("one.html");
+		assertFalse(cache.isCurrent("one.html", key));
+		assertEquals(1, cache.getHitCount());
+		assertEquals(4, cache.getMissCount());
+	}
+
+	@Test
+	public void saveAndLoad() throws IOException {
+		File folder = temporaryFolder.getRoot();
+		BuildCache cache = BuildCache.forFolder(folder);
+		cache.load();
+		cache.put("one.html", "a");
+		cache.put("sub/two.html", "b");
+		cache.save();
+		assertTrue(new File(folder, BuildCache.FILENAME).isFile());
+
+		BuildCache loaded = BuildCache.forFolder(folder);
+		loaded.load();
+		assertTrue(loaded.isCurrent("one.html", "a"));
+		assertTrue(loaded.isCurrent("sub/two.html", "b"));
+		assertFalse(loaded.isCurrent("three.html", "c"));
+	}
+
+	@Test
+	public void outputs() throws IOException {
+		File folder = temporaryFolder.getRoot();
+		BuildCache cache = BuildCache.forFolder(folder);
+		cache.load();
+		assertEquals(Collections.emptyList(), cache.getOutputs("one.html"));
+		cache.put("one.html", "a");
+		cache.putOutputs("one.html", Arrays.asList("Two.html", "Three.html"));
+		cache.save();
+
+		BuildCache loaded = BuildCache.forFolder(folder);
+		loaded.load();
+		assertEquals(Arrays.asList("Two.html", "Three.html"), loaded.getOutputs("one.html"));
+		assertTrue(loaded.isCurrent("one.html", "a"));
+
+		loaded.remove("one.html");
+		assertEquals(Collections.emptyList(), loaded.getOutputs("one.html"));
+	}
+
+	@Test
+	public void saveUnmodified() throws IOException {
+		BuildCache cache = BuildCache.forFolder(temporaryFolder.getRoot());
+		cache.load();
+		cache.save();
+		assertFalse(cache.getFile().exists());
+	}
+}
@@ -0,0 +1,112 @@
+/*******************************************************************************
+ * Copyright (c) 2014 Tasktop Technologies and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     David Green - initial API and implementation
+ *******************************************************************************/
+
+package org.eclipse.mylyn.wikitext.core.parser;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+
+import org.eclipse.mylyn.wikitext.core.parser.markup.DefaultIdGenerationStrategy;
+import org.junit.Test;
+
+public class IdGeneratorTest {
+
+	private final IdGenerator generator = new IdGenerator();
+
+	@Test
+	public void newId() {
+		assertEquals("Heading", generator.newId("h1", "Heading"));
+		assertEquals("Heading2", generator.newId("h1", "Heading"));
+		assertEquals("Heading3", generator.newId("h2", " Heading "));
+		assertEquals("h1-3", generator.newId("h1", "!"));
+		assertEquals("h2-2", generator.newId("h2", null));
+		assertEquals("-1", generator.newId(null, null));
+	}
+
+	@Test
+	public void newIdSkipsReservedIds() {
+		assertTrue(generator.reserveId("Heading2"));
+		assertTrue(generator.reserveId("Heading4"));
+
+		assertEquals("Heading", generator.newId("h1", "Heading"));
+		assertEquals("Heading3", generator.newId("h1", "Heading"));
+		assertEquals("Heading5", generator.newId("h1", "Heading"));
+		assertFalse(generator.reserveId("Heading5"));
+	}
+
+	@Test
+	public void newIdSkipsIdsGeneratedFromOtherTemplates() {
+		assertEquals("a1", generator.newId("h1", "1"));
+		assertEquals("a12", generator.newId("h1", "1"));
+		assertEquals("a13", generator.newId("h1", "1"));
+		assertEquals("a122", generator.newId("h1", "12"));
+		assertEquals("a14", generator.newId("h1", "1"));
+	}
+
+	@Test
+	public void newIdManyDuplicates() {
+		for (int x = 1; x <= 10000; ++x) {
+			assertEquals(x == 1 ? "Fixed" : "Fixed" + x, generator.newId("h2", "Fixed"));
+		}
+	}
+
+	@Test
+	public void newIdMatchesExhaustiveSearch() {
+		String[] texts = { "A", "A2", "A22", "2", "a2", "A.2", "", null };
+		ExhaustiveIdGenerator expected = new ExhaustiveIdGenerator();
+		Random random = new Random(3);
+		for (int x = 0; x < 5000; ++x) {
+			String text = texts[random.nextInt(texts.length)];
+			if (random.nextInt(10) == 0) {
+				String id = text + random.nextInt(30);
+				assertEquals(expected.anchorNames.add(id), generator.reserveId(id));
+			} else {
+				String type = random.nextBoolean() ? "h1" : "h2";
+				assertEquals(expected.newId(type, text), generator.newId(type, text));
+			}
+		}
+		assertEquals(expected.anchorNames, generator.getAnchorNames());
+	}
+
+	/**
+	 * generates ids by searching for an unused suffix starting from the lowest suffix every time
+	 */
+	private static class ExhaustiveIdGenerator {
+
+		private final Map<String, Integer> idGenerators = new HashMap<String, Integer>();
+
+		private final Set<String> anchorNames = new HashSet<String>();
+
+		public String newId(String type, String text) {
+			Integer current = idGenerators.get(type);
+			current = current == null ? 1 : current + 1;
+			idGenerators.put(type, current);
+
+			String id = text == null ? "" : new DefaultIdGenerationStrategy().generateId(text.trim());
+			if (id.length() == 0) {
+				id = type + '-' + current;
+			}
+			String template = id;
+			int suffix = 1;
+			while (!anchorNames.add(id)) {
+				id = template + (++suffix);
+			}
+			return id;
+		}
+	}
+}
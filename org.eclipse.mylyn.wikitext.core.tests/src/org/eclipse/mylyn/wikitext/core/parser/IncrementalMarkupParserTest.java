@@ -0,0 +1,269 @@
+/*******************************************************************************
+ * Copyright (c) 2014 Tasktop Technologies and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     David Green - initial API and implementation
+ *******************************************************************************/
+
+package org.eclipse.mylyn.wikitext.core.parser;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.List;
+import java.util.Random;
+
+import org.eclipse.mylyn.wikitext.core.parser.DocumentBuilder.BlockType;
+import org.eclipse.mylyn.wikitext.core.parser.markup.AbstractMarkupLanguage;
+import org.eclipse.mylyn.wikitext.core.parser.markup.Block;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.ExpectedException;
+
+import com.google.common.base.Strings;
+
+public class IncrementalMarkupParserTest {
+
+	/**
+	 * A markup language having headings starting with <code>=</code>, code blocks delimited by <code>{{{</code> and
+	 * <code>}}}</code>, which may be followed by other content on the same line, and paragraphs ending at a blank line.
+	 */
+	public static class TestMarkupLanguage extends AbstractMarkupLanguage {
+
+		@Override
+		protected void addStandardTokens(PatternBasedSyntax tokenSyntax) {
+		}
+
+		@Override
+		protected void addStandardPhraseModifiers(PatternBasedSyntax phraseModifierSyntax) {
+		}
+
+		@Override
+		protected void addStandardBlocks(List<Block> blocks, List<Block> paragraphBreakingBlocks) {
+			blocks.add(new HeadingBlock());
+			blocks.add(new CodeBlock());
+			paragraphBreakingBlocks.add(new HeadingBlock());
+			paragraphBreakingBlocks.add(new CodeBlock());
+		}
+
+		@Override
+		protected Block createParagraphBlock() {
+			return new ParagraphBlock();
+		}
+	}
+
+	private static class HeadingBlock extends Block {
+
+		@Override
+		public boolean canStart(String line, int lineOffset) {
+			return lineOffset == 0 && line.startsWith("=");
+		}
+
+		@Override
+		protected int processLineContent(String line, int offset) {
+			int level = 1;
+			while (level < line.length() && line.charAt(level) == '=') {
+				++level;
+			}
+			builder.beginHeading(level, new Attributes());
+			builder.characters(line.substring(level));
+			builder.endHeading();
+			setClosed(true);
+			return -1;
+		}
+	}
+
+	private static class CodeBlock extends Block {
+
+		private int blockLineCount;
+
+		@Override
+		public boolean canStart(String line, int lineOffset) {
+			blockLineCount = 0;
+			return line.startsWith("{{{", lineOffset);
+		}
+
+		@Override
+		protected int processLineContent(String line, int offset) {
+			if (blockLineCount++ == 0) {
+				builder.beginBlock(BlockType.CODE, new Attributes());
+				offset += 3;
+			}
+			int closeOffset = line.indexOf("}}}", offset);
+			if (closeOffset != -1) {
+				builder.characters(line.substring(offset, closeOffset));
+				setClosed(true);
+				return closeOffset + 3;
+			}
+			builder.characters(line.substring(offset));
+			return -1;
+		}
+
+		@Override
+		public void setClosed(boolean closed) {
+			if (closed && !isClosed()) {
+				builder.endBlock();
+			}
+			super.setClosed(closed);
+		}
+	}
+
+	private static class ParagraphBlock extends Block {
+
+		private int blockLineCount;
+
+		@Override
+		public boolean canStart(String line, int lineOffset) {
+			blockLineCount = 0;
+			return true;
+		}
+
+		@Override
+		protected int processLineContent(String line, int offset) {
+			if (markupLanguage.isEmptyLine(line.substring(offset))) {
+				setClosed(true);
+				return blockLineCount == 0 ? -1 : 0;
+			}
+			if (blockLineCount++ == 0) {
+				builder.beginBlock(BlockType.PARAGRAPH, new Attributes());
+			} else {
+				for (Block block : markupLanguage.getParagraphBreakingBlocks()) {
+					if (block.canStart(line, offset)) {
+						setClosed(true);
+						return offset;
+					}
+				}
+			}
+			builder.characters(line.substring(offset));
+			return -1;
+		}
+
+		@Override
+		public void setClosed(boolean closed) {
+			if (closed && !isClosed() && blockLineCount > 0) {
+				builder.endBlock();
+			}
+			super.setClosed(closed);
+		}
+	}
+
+	private static final String MARKUP = "=Title\n\nfirst paragraph\ncontinued\n\n{{{\ncode\n}}}\n\n==Section\n\nsecond\n\nthird\n";
+
+	@Rule
+	public ExpectedException thrown = ExpectedException.none();
+
+	private final IncrementalMarkupParser parser = new IncrementalMarkupParser(new TestMarkupLanguage());
+
+	@Test
+	public void parse() {
+		BlockStructure structure = parser.parse(MARKUP);
+
+		assertEquals(MARKUP, structure.getMarkupContent());
+		assertEquals(0, structure.getChangedOffset());
+		assertEquals(MARKUP.length(), structure.getChangedLength());
+
+		List<BlockRegion> blocks = structure.getBlocks();
+		assertEquals(6, blocks.size());
+		assertRegion(blocks.get(0), 0, 8);
+		assertTrue(blocks.get(0).isHeading());
+		assertEquals(1, blocks.get(0).getHeadingLevel());
+		assertNull(blocks.get(0).getType());
+		assertRegion(blocks.get(1), 8, 27);
+		assertEquals(BlockType.PARAGRAPH, blocks.get(1).getType());
+		assertEquals(0, blocks.get(1).getHeadingLevel());
+		assertRegion(blocks.get(2), 35, 14);
+		assertEquals(BlockType.CODE, blocks.get(2).getType());
+		assertRegion(blocks.get(3), 49, 11);
+		assertEquals(2, blocks.get(3).getHeadingLevel());
+		assertRegion(blocks.get(4), 60, 8);
+		assertRegion(blocks.get(5), 68, 6);
+	}
+
+	@Test
+	public void parseEmpty() {
+		BlockStructure structure = parser.parse("");
+
+		assertTrue(structure.getBlocks().isEmpty());
+		assertEquals(0, structure.getChangedLength());
+	}
+
+	@Test
+	public void editWithinParagraph() {
+		BlockStructure structure = parser.parse(parser.parse(MARKUP), MARKUP.indexOf("second"), 0, "the ");
+
+		assertEquals(parser.parse(structure.getMarkupContent()).getBlocks(), structure.getBlocks());
+		assertEquals(MARKUP.indexOf("==Section"), structure.getChangedOffset());
+		assertEquals(MARKUP.indexOf("third") + 4 - MARKUP.indexOf("==Section"), structure.getChangedLength());
+	}
+
+	@Test
+	public void editJoiningParagraphs() {
+		int offset = MARKUP.indexOf("\nthird");
+		BlockStructure structure = parser.parse(parser.parse(MARKUP), offset, 1, "");
+
+		assertEquals("second\nthird\n", structure.getMarkupContent().substring(offset - 7));
+		assertEquals(parser.parse(structure.getMarkupContent()).getBlocks(), structure.getBlocks());
+		assertEquals(5, structure.getBlocks().size());
+	}
+
+	@Test
+	public void editOpeningCodeBlock() {
+		BlockStructure structure = parser.parse(parser.parse(MARKUP), MARKUP.indexOf("second"), 0, "{{{");
+
+		assertEquals(parser.parse(structure.getMarkupContent()).getBlocks(), structure.getBlocks());
+		assertEquals(structure.getMarkupContent().length(),
+				structure.getChangedOffset() + structure.getChangedLength());
+	}
+
+	@Test
+	public void editClosingCodeBlockOnLine() {
+		String markup = "{{{\ncode\n\nnot code\n\nmore\n";
+		BlockStructure structure = parser.parse(parser.parse(markup), markup.indexOf("\n\nnot"), 0, "}}}");
+
+		assertEquals(parser.parse(structure.getMarkupContent()).getBlocks(), structure.getBlocks());
+		assertEquals(3, structure.getBlocks().size());
+		assertEquals(BlockType.PARAGRAPH, structure.getBlocks().get(1).getType());
+	}
+
+	@Test
+	public void editBeforeBlockStartingAfterCodeOnSameLine() {
+		String markup = "{{{code}}}text\n\n{{{more}}}tail\n";
+		BlockStructure structure = parser.parse(parser.parse(markup), markup.indexOf("}}}text"), 3, "");
+
+		assertEquals(parser.parse(structure.getMarkupContent()).getBlocks(), structure.getBlocks());
+	}
+
+	@Test
+	public void editsMatchFullParse() {
+		String[] replacements = { "", "\n", "\n\n", "=", "==Heading\n", "{{{", "}}}", "text", "\n{{{\n", "}}}\n\n" };
+		String markup = Strings.repeat(MARKUP + "{{{x}}}after code\n\n", 10);
+		BlockStructure structure = parser.parse(markup);
+		Random random = new Random(5);
+		for (int x = 0; x < 500; ++x) {
+			String content = structure.getMarkupContent();
+			int offset = random.nextInt(content.length() + 1);
+			int length = Math.min(content.length() - offset, random.nextInt(4) == 0 ? random.nextInt(20) : 0);
+			String replacement = replacements[random.nextInt(replacements.length)];
+
+			structure = parser.parse(structure, offset, length, replacement);
+
+			assertEquals("edit " + x, parser.parse(structure.getMarkupContent()).getBlocks(), structure.getBlocks());
+		}
+	}
+
+	@Test
+	public void editOutsideDocument() {
+		thrown.expect(IllegalArgumentException.class);
+		parser.parse(parser.parse(MARKUP), MARKUP.length(), 1, "");
+	}
+
+	private void assertRegion(BlockRegion block, int offset, int length) {
+		assertEquals(offset, block.getOffset());
+		assertEquals(length, block.getLength());
+	}
+}
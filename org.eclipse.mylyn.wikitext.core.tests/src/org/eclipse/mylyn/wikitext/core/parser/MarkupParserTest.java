@@ -0,0 +1,69 @@
+/*******************************************************************************
+ * Copyright (c) 2014 Tasktop Technologies and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     David Green - initial API and implementation
+ *******************************************************************************/
+
+package org.eclipse.mylyn.wikitext.core.parser;
+
+import static org.junit.Assert.assertEquals;
+
+import java.io.IOException;
+import java.io.StringReader;
+
+import org.eclipse.mylyn.internal.wikitext.MockMarkupLanguage;
+import org.eclipse.mylyn.wikitext.core.parser.builder.NoOpDocumentBuilder;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.ExpectedException;
+
+import com.google.common.base.Strings;
+
+public class MarkupParserTest {
+
+	private static class RecordingMarkupLanguage extends MockMarkupLanguage {
+
+		private String markupContent;
+
+		private boolean asDocument;
+
+		@Override
+		public void processContent(MarkupParser parser, String markupContent, boolean asDocument) {
+			this.markupContent = markupContent;
+			this.asDocument = asDocument;
+		}
+	}
+
+	@Rule
+	public ExpectedException thrown = ExpectedException.none();
+
+	@Test
+	public void parseReaderReadsFully() throws IOException {
+		RecordingMarkupLanguage language = new RecordingMarkupLanguage();
+		String content = Strings.repeat("some content\n", 1000);
+
+		new MarkupParser(language, new NoOpDocumentBuilder()).parse(new StringReader(content), false);
+
+		assertEquals(content, language.markupContent);
+		assertEquals(false, language.asDocument);
+	}
+
+	@Test
+	public void parseReaderWithoutMarkupLanguage() throws IOException {
+		thrown.expect(IllegalStateException.class);
+		thrown.expectMessage("markup language is not set");
+		new MarkupParser(null, new NoOpDocumentBuilder()).parse(new StringReader("content"));
+	}
+
+	@Test
+	public void parseReaderWithoutBuilder() throws IOException {
+		thrown.expect(IllegalStateException.class);
+		thrown.expectMessage("builder is not set");
+		new MarkupParser(new RecordingMarkupLanguage()).parse(new StringReader("content"));
+	}
+}
@@ -0,0 +1,230 @@
+/*******************************************************************************
+ * Copyright (c) 2014 Tasktop Technologies and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     David Green - initial API and implementation
+ *******************************************************************************/
+
+package org.eclipse.mylyn.wikitext.core.parser.builder;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.StringWriter;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.eclipse.mylyn.wikitext.core.parser.Attributes;
+import org.eclipse.mylyn.wikitext.core.parser.DocumentBuilder;
+import org.eclipse.mylyn.wikitext.core.parser.DocumentBuilder.BlockType;
+import org.eclipse.mylyn.wikitext.core.parser.DocumentBuilder.SpanType;
+import org.eclipse.mylyn.wikitext.core.parser.HeadingAttributes;
+import org.eclipse.mylyn.wikitext.core.parser.ImageAttributes;
+import org.eclipse.mylyn.wikitext.core.parser.ImageAttributes.Align;
+import org.eclipse.mylyn.wikitext.core.parser.LinkAttributes;
+import org.eclipse.mylyn.wikitext.core.parser.ListAttributes;
+import org.eclipse.mylyn.wikitext.core.parser.TableAttributes;
+import org.eclipse.mylyn.wikitext.core.parser.TableCellAttributes;
+import org.junit.Test;
+
+public class BinaryRecordingDocumentBuilderTest {
+
+	private final BinaryRecordingDocumentBuilder builder = new BinaryRecordingDocumentBuilder();
+
+	@Test
+	public void empty() {
+		EventDocumentBuilder eventBuilder = new EventDocumentBuilder();
+		builder.getRecording().applyTo(eventBuilder);
+		assertTrue(eventBuilder.getDocumentBuilderEvents().getEvents().isEmpty());
+	}
+
+	@Test
+	public void replaysAllEvents() {
+		EventDocumentBuilder expected = new EventDocumentBuilder();
+		buildDocument(expected);
+		buildDocument(builder);
+
+		EventDocumentBuilder actual = new EventDocumentBuilder();
+		builder.getRecording().applyTo(actual);
+
+		assertEquals(expected.getDocumentBuilderEvents().getEvents(), actual.getDocumentBuilderEvents().getEvents());
+	}
+
+	@Test
+	public void replayedOutputMatchesOriginal() {
+		buildDocument(builder);
+
+		assertEquals(toHtml(null), toHtml(builder.getRecording()));
+	}
+
+	@Test
+	public void attributesPreserved() {
+		ImageAttributes imageAttributes = new ImageAttributes();
+		imageAttributes.setId("img");
+		imageAttributes.setAlt("alt text");
+		imageAttributes.setAlign(Align.Right);
+		imageAttributes.setWidth(50);
+		imageAttributes.setWidthPercentage(true);
+		builder.image(imageAttributes, "image.png");
+
+		final List<Attributes> replayedAttributes = new ArrayList<Attributes>();
+		builder.getRecording().applyTo(new NoOpDocumentBuilder() {
+			@Override
+			public void image(Attributes attributes, String url) {
+				replayedAttributes.add(attributes);
+			}
+		});
+		assertEquals(1, replayedAttributes.size());
+		ImageAttributes replayed = (ImageAttributes) replayedAttributes.get(0);
+		assertNotSame(imageAttributes, replayed);
+		assertEquals("img", replayed.getId());
+		assertEquals("alt text", replayed.getAlt());
+		assertEquals(Align.Right, replayed.getAlign());
+		assertEquals(50, replayed.getWidth());
+		assertTrue(replayed.isWidthPercentage());
+		assertEquals(-1, replayed.getHeight());
+	}
+
+	@Test
+	public void attributesCopiedOnReplay() {
+		builder.beginSpan(SpanType.SPAN, new Attributes(null, "a", null, null));
+		builder.endSpan();
+		builder.beginSpan(SpanType.SPAN, new Attributes(null, "a", null, null));
+		builder.endSpan();
+
+		final List<Attributes> replayedAttributes = new ArrayList<Attributes>();
+		builder.getRecording().applyTo(new NoOpDocumentBuilder() {
+			@Override
+			public void beginSpan(SpanType type, Attributes attributes) {
+				replayedAttributes.add(attributes);
+				attributes.setCssClass("modified");
+			}
+		});
+		assertEquals(2, replayedAttributes.size());
+		assertNotSame(replayedAttributes.get(0), replayedAttributes.get(1));
+		assertEquals("modified", replayedAttributes.get(1).getCssClass());
+
+		StringWriter out = new StringWriter();
+		builder.getRecording().applyTo(new HtmlDocumentBuilder(out));
+		assertEquals("<span class=\"a\"></span><span class=\"a\"></span>", out.toString());
+	}
+
+	@Test
+	public void nullValues() {
+		builder.beginBlock(BlockType.PARAGRAPH, null);
+		builder.characters(null);
+		builder.endBlock();
+
+		final List<Object> values = new ArrayList<Object>();
+		builder.getRecording().applyTo(new NoOpDocumentBuilder() {
+			@Override
+			public void beginBlock(BlockType type, Attributes attributes) {
+				values.add(type);
+				values.add(attributes);
+			}
+
+			@Override
+			public void characters(String text) {
+				values.add(text);
+			}
+		});
+		assertEquals(3, values.size());
+		assertEquals(BlockType.PARAGRAPH, values.get(0));
+		assertEquals(null, values.get(1));
+		assertEquals(null, values.get(2));
+	}
+
+	@Test
+	public void writeAndRead() throws IOException {
+		buildDocument(builder);
+		DocumentBuilderRecording recording = builder.getRecording();
+
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		recording.writeTo(out);
+		DocumentBuilderRecording readRecording = DocumentBuilderRecording.readFrom(new ByteArrayInputStream(
+				out.toByteArray()));
+
+		assertEquals(toHtml(null), toHtml(readRecording));
+	}
+
+	@Test(expected = IOException.class)
+	public void readUnsupportedFormat() throws IOException {
+		DocumentBuilderRecording.readFrom(new ByteArrayInputStream(new byte[] { 0, 0, 0, 99 }));
+	}
+
+	@Test
+	public void compactEncoding() {
+		for (int x = 0; x < 1000; ++x) {
+			builder.beginBlock(BlockType.PARAGRAPH, new Attributes());
+			builder.characters("repeated text");
+			builder.endBlock();
+		}
+		DocumentBuilderRecording recording = builder.getRecording();
+		assertEquals(1000 * 6, recording.getEventDataLength());
+	}
+
+	private String toHtml(DocumentBuilderRecording recording) {
+		StringWriter out = new StringWriter();
+		HtmlDocumentBuilder htmlBuilder = new HtmlDocumentBuilder(out);
+		if (recording == null) {
+			buildDocument(htmlBuilder);
+		} else {
+			recording.applyTo(htmlBuilder);
+		}
+		return out.toString();
+	}
+
+	private void buildDocument(DocumentBuilder documentBuilder) {
+		documentBuilder.beginDocument();
+		HeadingAttributes headingAttributes = new HeadingAttributes();
+		headingAttributes.setId("heading");
+		documentBuilder.beginHeading(1, headingAttributes);
+		documentBuilder.characters("Heading");
+		documentBuilder.endHeading();
+
+		documentBuilder.beginBlock(BlockType.PARAGRAPH, new Attributes("p1", "para", "color: red;", "en"));
+		documentBuilder.characters("text ");
+		documentBuilder.beginSpan(SpanType.BOLD, new Attributes());
+		documentBuilder.characters("bold");
+		documentBuilder.endSpan();
+		documentBuilder.entityReference("amp");
+		documentBuilder.lineBreak();
+		LinkAttributes linkAttributes = new LinkAttributes();
+		linkAttributes.setTarget("_blank");
+		documentBuilder.link(linkAttributes, "http://example.com", "link");
+		documentBuilder.image(new ImageAttributes(), "image.png");
+		documentBuilder.imageLink(new LinkAttributes(), new ImageAttributes(), "http://example.com", "image.png");
+		documentBuilder.acronym("ABC", "Alphabet");
+		documentBuilder.charactersUnescaped("<!-- comment -->");
+		documentBuilder.endBlock();
+
+		ListAttributes listAttributes = new ListAttributes();
+		listAttributes.setStart("3");
+		documentBuilder.beginBlock(BlockType.NUMERIC_LIST, listAttributes);
+		documentBuilder.beginBlock(BlockType.LIST_ITEM, new Attributes());
+		documentBuilder.characters("item");
+		documentBuilder.endBlock();
+		documentBuilder.endBlock();
+
+		TableAttributes tableAttributes = new TableAttributes();
+		tableAttributes.setBorder("1");
+		documentBuilder.beginBlock(BlockType.TABLE, tableAttributes);
+		documentBuilder.beginBlock(BlockType.TABLE_ROW, new Attributes());
+		TableCellAttributes cellAttributes = new TableCellAttributes();
+		cellAttributes.setColspan("2");
+		documentBuilder.beginBlock(BlockType.TABLE_CELL_NORMAL, cellAttributes);
+		documentBuilder.characters("cell");
+		documentBuilder.endBlock();
+		documentBuilder.endBlock();
+		documentBuilder.endBlock();
+		documentBuilder.endDocument();
+	}
+}
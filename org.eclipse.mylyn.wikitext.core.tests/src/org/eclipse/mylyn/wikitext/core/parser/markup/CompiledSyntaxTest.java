@@ -0,0 +1,52 @@
+/*******************************************************************************
+ * Copyright (c) 2014 Tasktop Technologies and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     David Green - initial API and implementation
+ *******************************************************************************/
+
+package org.eclipse.mylyn.wikitext.core.parser.markup;
+
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.regex.PatternSyntaxException;
+
+import org.eclipse.mylyn.wikitext.core.parser.markup.AbstractMarkupLanguage.PatternBasedSyntax;
+import org.eclipse.mylyn.wikitext.core.parser.markup.token.EntityReferenceReplacementToken;
+import org.eclipse.mylyn.wikitext.core.parser.markup.token.PatternLiteralReplacementToken;
+import org.junit.Test;
+
+public class CompiledSyntaxTest {
+
+	@Test
+	public void sameRegexSharesCompiledSyntax() {
+		CompiledSyntax syntax = CompiledSyntax.get("(a)|(b)", Arrays.asList("a", "b"));
+		assertSame(syntax, CompiledSyntax.get("(a)|(b)", Arrays.asList("a", "b")));
+		assertNotSame(syntax, CompiledSyntax.get("(a)|(b)", Arrays.asList("(a)", "b")));
+		assertNotSame(syntax, CompiledSyntax.get("(a)|(c)", Arrays.asList("a", "c")));
+	}
+
+	@Test
+	public void syntaxInstancesSharePattern() {
+		assertSame(createSyntax().getPattern(), createSyntax().getPattern());
+	}
+
+	@Test(expected = PatternSyntaxException.class)
+	public void invalidRegex() {
+		CompiledSyntax.get("(a", Collections.<String> emptyList());
+	}
+
+	private PatternBasedSyntax createSyntax() {
+		PatternBasedSyntax syntax = new PatternBasedSyntax();
+		syntax.add(new EntityReferenceReplacementToken("(tm)", "#8482"));
+		syntax.add(new PatternLiteralReplacementToken("(?:(?<=\\w\\s)(x)(?=\\s\\w))", "&#215;"));
+		return syntax;
+	}
+}
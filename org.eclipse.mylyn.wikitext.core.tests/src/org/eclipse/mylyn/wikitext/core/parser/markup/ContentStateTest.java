@@ -0,0 +1,86 @@
+/*******************************************************************************
+ * Copyright (c) 2014 Tasktop Technologies and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     David Green - initial API and implementation
+ *******************************************************************************/
+
+package org.eclipse.mylyn.wikitext.core.parser.markup;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.io.StringReader;
+
+import org.eclipse.mylyn.internal.wikitext.MockMarkupLanguage;
+import org.eclipse.mylyn.wikitext.core.parser.outline.OutlineItem;
+import org.eclipse.mylyn.wikitext.core.util.LocationTrackingReader;
+import org.junit.Test;
+
+public class ContentStateTest {
+
+	private final ContentState state = new ContentState();
+
+	@Test
+	public void getLineNoContent() {
+		assertNull(state.getLine(1));
+	}
+
+	@Test
+	public void getLineEmptyContent() {
+		state.setMarkupContent("");
+		assertNull(state.getLine(1));
+	}
+
+	@Test
+	public void getLine() {
+		state.setMarkupContent("one\ntwo\r\nthree\rfour");
+		assertNull(state.getLine(0));
+		assertEquals("one", state.getLine(1));
+		assertEquals("two", state.getLine(2));
+		assertEquals("three", state.getLine(3));
+		assertEquals("four", state.getLine(4));
+		assertNull(state.getLine(5));
+	}
+
+	@Test
+	public void getLineAfterMarkupContentChanged() {
+		state.setMarkupContent("one\ntwo");
+		assertEquals("two", state.getLine(2));
+		state.setMarkupContent("three\nfour");
+		assertEquals("four", state.getLine(2));
+	}
+
+	@Test
+	public void getLineMatchesLocationTrackingReader() throws IOException {
+		String[] contents = { "\n", "\r", "\r\n", "\n\n", "\r\r", "\r\n\r\n", "\n\r", "a\n", "a\r", "a\r\n", "\na",
+				"\ra", "a\r\n\rb\n\r\nc\r", "\n \r\n \r \n" };
+		for (String content : contents) {
+			state.setMarkupContent(content);
+			LocationTrackingReader reader = new LocationTrackingReader(new StringReader(content));
+			for (int lineNumber = 1;; ++lineNumber) {
+				String line = reader.readLine();
+				assertEquals(content.replace("\r", "\\r").replace("\n", "\\n") + " line " + lineNumber, line,
+						state.getLine(lineNumber));
+				if (line == null) {
+					break;
+				}
+			}
+		}
+	}
+
+	@Test
+	public void getOutlineNoContent() {
+		OutlineItem outline = state.getOutline(new MockMarkupLanguage());
+		assertTrue(outline.getChildren().isEmpty());
+		assertEquals(0, outline.getLength());
+		assertSame(outline, state.getOutline(new MockMarkupLanguage()));
+	}
+}
@@ -0,0 +1,64 @@
+/*******************************************************************************
+ * Copyright (c) 2014 Tasktop Technologies and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     David Green - initial API and implementation
+ *******************************************************************************/
+
+package org.eclipse.mylyn.wikitext.core.parser.markup;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+
+import java.util.Random;
+
+import org.junit.Test;
+
+public class DefaultIdGenerationStrategyTest {
+
+	private final DefaultIdGenerationStrategy strategy = new DefaultIdGenerationStrategy();
+
+	@Test
+	public void generateId() {
+		assertEquals("", strategy.generateId(""));
+		assertEquals("", strategy.generateId(" !? "));
+		assertEquals("Heading", strategy.generateId("Heading"));
+		assertEquals("Version1.2notes", strategy.generateId("Version 1.2 (notes)"));
+		assertEquals("a12Monkeys", strategy.generateId("12 Monkeys"));
+		assertEquals("a12Monkeys", strategy.generateId("12Monkeys"));
+		assertEquals("a3", strategy.generateId("é 3"));
+		assertEquals(".a", strategy.generateId(".a"));
+	}
+
+	@Test
+	public void generateIdUnchanged() {
+		String text = "Heading.1";
+		assertSame(text, strategy.generateId(text));
+	}
+
+	@Test
+	public void generateIdMatchesRegularExpression() {
+		char[] characters = { 'a', 'z', 'A', 'Z', '0', '9', '.', ' ', '-', '_', 'é', '٣', '\t' };
+		Random random = new Random(7);
+		for (int x = 0; x < 5000; ++x) {
+			char[] text = new char[random.nextInt(8)];
+			for (int y = 0; y < text.length; ++y) {
+				text[y] = characters[random.nextInt(characters.length)];
+			}
+			String headingText = new String(text);
+			assertEquals(headingText, generateIdWithRegularExpression(headingText), strategy.generateId(headingText));
+		}
+	}
+
+	private String generateIdWithRegularExpression(String headingText) {
+		String anchor = headingText.replaceAll("[^a-zA-Z0-9.]", "");
+		if (anchor.length() > 0 && Character.isDigit(anchor.charAt(0))) {
+			anchor = 'a' + anchor;
+		}
+		return anchor;
+	}
+}
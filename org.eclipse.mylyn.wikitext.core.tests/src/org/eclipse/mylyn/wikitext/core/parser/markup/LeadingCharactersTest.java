@@ -0,0 +1,131 @@
+/*******************************************************************************
+ * Copyright (c) 2014 Tasktop Technologies and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     David Green - initial API and implementation
+ *******************************************************************************/
+
+package org.eclipse.mylyn.wikitext.core.parser.markup;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+public class LeadingCharactersTest {
+
+	@Test
+	public void literal() {
+		assertCharacters("abc", "a");
+	}
+
+	@Test
+	public void alternation() {
+		assertCharacters("abc|def|(?:g|h)", "adgh");
+	}
+
+	@Test
+	public void optionalPrefix() {
+		assertCharacters("a?b*c", "abc");
+		assertCharacters("a{0,2}b", "ab");
+		assertCharacters("a{1,2}b", "a");
+	}
+
+	@Test
+	public void characterClass() {
+		assertCharacters("[a-c_]x", "abc_");
+		assertCharacters("[\\*\\-]", "*-");
+		assertCharacters("[]]", "]");
+		assertCharacters("\\dx", "0123456789");
+	}
+
+	@Test
+	public void negatedCharacterClass() {
+		assertIndeterminate("[^a]");
+		assertIndeterminate("\\Sa");
+		assertIndeterminate(".a");
+	}
+
+	@Test
+	public void escapes() {
+		assertCharacters("\\*\\*", "*");
+		assertCharacters("\\Q*+\\E", "*");
+		assertCharacters("\\x41|\\u0042|\\t", "AB\t");
+	}
+
+	@Test
+	public void caseInsensitive() {
+		assertCharacters("(?i)a", "aA");
+		assertCharacters("(?i:a)b", "aA");
+		assertCharacters("(?i:x)|a", "xXa");
+	}
+
+	@Test
+	public void unsupportedFlags() {
+		assertIndeterminate("(?x)a");
+		assertIndeterminate("(?iu)a");
+	}
+
+	@Test
+	public void nullable() {
+		LeadingCharacters characters = LeadingCharacters.analyze("a*");
+		assertTrue(characters.isNullable());
+		assertFalse(characters.isDeterminate());
+	}
+
+	@Test
+	public void lookAround() {
+		assertCharacters("(?<=\\s)(?=\\S)(\\*)", "*");
+		assertEquals(1, LeadingCharacters.analyze("(?<=\\s)a").getMaximumLookBehind());
+		assertEquals(3, LeadingCharacters.analyze("(?<!ab|abc)a").getMaximumLookBehind());
+		assertEquals(0, LeadingCharacters.analyze("(?=a)a").getMaximumLookBehind());
+	}
+
+	@Test
+	public void anchors() {
+		assertCharacters("^a$", "a");
+		assertCharacters("\\ba", "a");
+		assertEquals(1, LeadingCharacters.analyze("\\ba").getMaximumLookBehind());
+		assertEquals(1, LeadingCharacters.analyze("(?m)^a").getMaximumLookBehind());
+		assertEquals(LeadingCharacters.UNBOUNDED, LeadingCharacters.analyze("\\Ga").getMaximumLookBehind());
+	}
+
+	@Test
+	public void backReference() {
+		assertIndeterminate("(a*)\\1");
+		assertCharacters("(a)\\1", "a");
+	}
+
+	@Test
+	public void unclosedGroup() {
+		assertCharacters("(?:(?<=\\W)|^)(?:(\\*)", "*");
+	}
+
+	@Test
+	public void unbalancedGroup() {
+		assertCharacters("a)(?=\\W)", "a");
+	}
+
+	@Test
+	public void malformed() {
+		assertIndeterminate("[a");
+		assertIndeterminate("a{");
+	}
+
+	private void assertCharacters(String regex, String expected) {
+		LeadingCharacters characters = LeadingCharacters.analyze(regex);
+		assertTrue(regex, characters.isDeterminate());
+		for (char c = 0; c < 256; ++c) {
+			assertEquals(regex + " " + (int) c, expected.indexOf(c) != -1, characters.contains(c));
+		}
+	}
+
+	private void assertIndeterminate(String regex) {
+		assertFalse(regex, LeadingCharacters.analyze(regex).isDeterminate());
+	}
+}
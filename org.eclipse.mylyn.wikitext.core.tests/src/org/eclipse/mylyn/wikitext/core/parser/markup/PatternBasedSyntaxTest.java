@@ -0,0 +1,197 @@
+/*******************************************************************************
+ * Copyright (c) 2014 Tasktop Technologies and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     David Green - initial API and implementation
+ *******************************************************************************/
+
+package org.eclipse.mylyn.wikitext.core.parser.markup;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+
+import java.util.Random;
+import java.util.regex.Matcher;
+
+import org.eclipse.mylyn.wikitext.core.parser.markup.AbstractMarkupLanguage.PatternBasedSyntax;
+import org.eclipse.mylyn.wikitext.core.parser.markup.token.AcronymReplacementToken;
+import org.eclipse.mylyn.wikitext.core.parser.markup.token.EntityReferenceReplacementToken;
+import org.eclipse.mylyn.wikitext.core.parser.markup.token.EntityWrappingReplacementToken;
+import org.eclipse.mylyn.wikitext.core.parser.markup.token.ImpliedHyperlinkReplacementToken;
+import org.eclipse.mylyn.wikitext.core.parser.markup.token.PatternLiteralReplacementToken;
+import org.junit.Test;
+
+public class PatternBasedSyntaxTest {
+
+	private static class TestElement extends PatternBasedElement {
+
+		private final String pattern;
+
+		private final int groupCount;
+
+		TestElement(String pattern, int groupCount) {
+			this.pattern = pattern;
+			this.groupCount = groupCount;
+		}
+
+		@Override
+		protected String getPattern(int groupOffset) {
+			return pattern.replace("$1", "\\" + (groupOffset + 1));
+		}
+
+		@Override
+		protected int getPatternGroupCount() {
+			return groupCount;
+		}
+
+		@Override
+		protected PatternBasedElementProcessor newProcessor() {
+			return new TestElementProcessor(this);
+		}
+	}
+
+	private static class TestElementProcessor extends PatternBasedElementProcessor {
+
+		private final TestElement element;
+
+		TestElementProcessor(TestElement element) {
+			this.element = element;
+		}
+
+		@Override
+		public void emit() {
+		}
+	}
+
+	private static final String ALPHABET = "ab *_-'\"()(c)ABC<>&#;:/.\té中http://x.y";
+
+	@Test
+	public void noMatch() {
+		PatternBasedSyntax syntax = createPhraseSyntax();
+		assertNull(syntax.findPatternBasedElement("no markup here", 0));
+		assertNull(syntax.findPatternBasedElement("*bold* no markup here", 6));
+	}
+
+	@Test
+	public void findsLeftmostElement() {
+		PatternBasedSyntax syntax = createPhraseSyntax();
+		PatternBasedElementProcessor processor = syntax.findPatternBasedElement("some _emphasis_ and *bold*", 0);
+		assertNotNull(processor);
+		assertEquals(5, processor.getLineStartOffset());
+		assertEquals(15, processor.getLineEndOffset());
+		assertEquals("emphasis", processor.group(1));
+		assertEquals(6, processor.start(1));
+	}
+
+	@Test
+	public void lookBehindObservesOffset() {
+		PatternBasedSyntax syntax = createPhraseSyntax();
+		// the region starts at the offset, so the look-behind cannot see the preceding character
+		PatternBasedElementProcessor processor = syntax.findPatternBasedElement("x*bold*", 1);
+		assertNotNull(processor);
+		assertEquals(1, processor.getLineStartOffset());
+	}
+
+	@Test
+	public void equivalentToSequentialMatching() {
+		assertEquivalent(createPhraseSyntax());
+		assertEquivalent(createTokenSyntax());
+	}
+
+	@Test
+	public void equivalentToSequentialMatchingWithIndeterminateElement() {
+		PatternBasedSyntax syntax = createPhraseSyntax();
+		syntax.add(new TestElement("[^\\w\\s]{3}", 0));
+		assertEquivalent(syntax);
+	}
+
+	@Test
+	public void clear() {
+		PatternBasedSyntax syntax = createPhraseSyntax();
+		assertNotNull(syntax.findPatternBasedElement("*bold*", 0));
+		syntax.clear();
+		syntax.add(new TestElement("(b)", 1));
+		PatternBasedElementProcessor processor = syntax.findPatternBasedElement("*bold*", 0);
+		assertNotNull(processor);
+		assertEquals(1, processor.getLineStartOffset());
+	}
+
+	private PatternBasedSyntax createPhraseSyntax() {
+		PatternBasedSyntax syntax = new PatternBasedSyntax();
+		syntax.add(new TestElement("\\^(\\S+)\\^", 1));
+		syntax.beginGroup("(?:(?<=[\\s\\.,\\\"'?!;:\\)\\(\\{\\}\\[\\]])|^)(?:", 0);
+		syntax.add(new TestElement("\\*(\\S(?:.*?\\S)?)\\*", 1));
+		syntax.add(new TestElement("_(\\S(?:.*?\\S)?)_", 1));
+		syntax.add(new TestElement("(?i:ab)c", 0));
+		syntax.endGroup(")(?=\\W|$)", 0);
+		syntax.beginGroup("(?:\\(", 0);
+		syntax.add(new TestElement("(c)", 1));
+		syntax.endGroup("\\))", 0);
+		syntax.add(new TestElement("(['\"])\\w+$1", 1));
+		syntax.add(new TestElement("\\b-\\b", 0));
+		return syntax;
+	}
+
+	private PatternBasedSyntax createTokenSyntax() {
+		PatternBasedSyntax syntax = new PatternBasedSyntax();
+		syntax.add(new EntityReferenceReplacementToken("(tm)", "#8482"));
+		syntax.add(new EntityReferenceReplacementToken("(c)", "#169"));
+		syntax.add(new EntityWrappingReplacementToken("\"", "#8220", "#8221"));
+		syntax.add(new PatternLiteralReplacementToken("(?:(?<=\\w\\s)(-)(?=\\s\\w))", "-"));
+		syntax.add(new AcronymReplacementToken());
+		syntax.add(new ImpliedHyperlinkReplacementToken());
+		return syntax;
+	}
+
+	private void assertEquivalent(PatternBasedSyntax syntax) {
+		Random random = new Random(42);
+		for (int x = 0; x < 2000; ++x) {
+			StringBuilder text = new StringBuilder();
+			int length = random.nextInt(30);
+			for (int y = 0; y < length; ++y) {
+				text.append(ALPHABET.charAt(random.nextInt(ALPHABET.length())));
+			}
+			String lineText = text.toString();
+			for (int offset = 0; offset <= lineText.length(); ++offset) {
+				assertEquivalent(syntax, lineText, offset);
+			}
+		}
+	}
+
+	private void assertEquivalent(PatternBasedSyntax syntax, String lineText, int offset) {
+		String message = lineText + " @" + offset;
+		PatternBasedElementProcessor processor = syntax.findPatternBasedElement(lineText, offset);
+
+		Matcher matcher = syntax.getPattern().matcher(lineText);
+		if (offset > 0) {
+			matcher.region(offset, lineText.length());
+		}
+		if (!matcher.find()) {
+			assertNull(message, processor);
+			return;
+		}
+		assertNotNull(message, processor);
+		assertEquals(message, matcher.start(), processor.getLineStartOffset());
+		assertEquals(message, matcher.end(), processor.getLineEndOffset());
+		for (int x = 0; x < syntax.elementGroup.size(); ++x) {
+			int group = syntax.elementGroup.get(x);
+			if (matcher.group(group) != null) {
+				PatternBasedElement element = syntax.elements.get(x);
+				assertEquals(message, element.newProcessor().getClass(), processor.getClass());
+				if (processor instanceof TestElementProcessor) {
+					assertEquals(message, element, ((TestElementProcessor) processor).element);
+				}
+				for (int y = 0; y < element.getPatternGroupCount(); ++y) {
+					assertEquals(message, matcher.group(group + y + 1), processor.group(y + 1));
+					assertEquals(message, matcher.start(group + y + 1), processor.start(y + 1));
+				}
+				return;
+			}
+		}
+	}
+}
@@ -0,0 +1,64 @@
+/*******************************************************************************
+ * Copyright (c) 2014 Tasktop Technologies and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     David Green - initial API and implementation
+ *******************************************************************************/
+
+package org.eclipse.mylyn.wikitext.core.util;
+
+import static org.junit.Assert.assertEquals;
+
+import java.io.StringWriter;
+
+import org.junit.Test;
+
+public class DefaultXmlStreamWriterTest {
+
+	private final StringWriter out = new StringWriter();
+
+	private final DefaultXmlStreamWriter writer = new DefaultXmlStreamWriter(out);
+
+	@Test
+	public void writeCharacters() {
+		writer.writeCharacters("plain text");
+		assertEquals("plain text", out.toString());
+	}
+
+	@Test
+	public void writeCharactersEscaped() {
+		writer.writeCharacters("<a href=\"#\">one & 'two'</a>");
+		assertEquals("&lt;a href=\"#\"&gt;one &amp; 'two'&lt;/a&gt;", out.toString());
+	}
+
+	@Test
+	public void writeCharactersControlCharacters() {
+		writer.writeCharacters("a\tb\nc\rd\u0001e\u007f");
+		assertEquals("a\tb\nc&#xd;d&#x1;e&#x7f;", out.toString());
+	}
+
+	@Test
+	public void writeCharactersNonAscii() {
+		writer.writeCharacters("caf\u00e9 \u00a0\u00f7\u0085\u2028\u20ac");
+		assertEquals("caf\u00e9 &#xa0;&#xf7;&#x85;&#x2028;\u20ac", out.toString());
+	}
+
+	@Test
+	public void writeCharactersArray() {
+		char[] text = "xx<one>&two yy".toCharArray();
+		writer.writeCharacters(text, 2, text.length - 5);
+		assertEquals("&lt;one&gt;&amp;two", out.toString());
+	}
+
+	@Test
+	public void writeAttributeEscaped() {
+		writer.writeEmptyElement("a");
+		writer.writeAttribute("title", "<\"one\" & 'two'>");
+		writer.close();
+		assertEquals("<a title=\"&lt;&quot;one&quot; &amp; 'two'&gt;\"/>", out.toString());
+	}
+}
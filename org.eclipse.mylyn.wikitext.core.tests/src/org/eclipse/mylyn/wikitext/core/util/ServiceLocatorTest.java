@@ -12,6 +12,7 @@ package org.eclipse.mylyn.wikitext.core.util;
 
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNotSame;
 import static org.junit.Assert.assertTrue;
 import static org.mockito.Matchers.any;
 import static org.mockito.Matchers.eq;
@@ -28,6 +29,7 @@ import java.util.Enumeration;
 import java.util.List;
 import java.util.Set;
 import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import org.eclipse.mylyn.internal.wikitext.MockMarkupLanguage;
 import org.eclipse.mylyn.internal.wikitext.MockMarkupLanguageProvider;
@@ -111,6 +113,58 @@ public class ServiceLocatorTest {
 		assertTrue(languages.isEmpty());
 	}
 
+	@Test
+	public void discoveryIsCached() {
+		ClassLoader classLoader = mock(ClassLoader.class);
+		AtomicInteger discoveryCount = new AtomicInteger();
+		locator = createCountingServiceLocator(classLoader, discoveryCount);
+
+		MarkupLanguage first = locator.getMarkupLanguage(MockMarkupLanguage.class.getSimpleName());
+		MarkupLanguage second = locator.getMarkupLanguage(MockMarkupLanguage.class.getSimpleName());
+		assertEquals(1, locator.getAllMarkupLanguages().size());
+		assertEquals(1, createCountingServiceLocator(classLoader, discoveryCount).getAllMarkupLanguages().size());
+
+		assertEquals(1, discoveryCount.get());
+		assertNotSame(first, second);
+		assertEquals(first.getName(), second.getName());
+	}
+
+	@Test
+	public void clearCache() {
+		AtomicInteger discoveryCount = new AtomicInteger();
+		locator = createCountingServiceLocator(mock(ClassLoader.class), discoveryCount);
+
+		locator.getMarkupLanguage(MockMarkupLanguage.class.getSimpleName());
+		ServiceLocator.clearCache();
+		locator.getMarkupLanguage(MockMarkupLanguage.class.getSimpleName());
+
+		assertEquals(2, discoveryCount.get());
+	}
+
+	private ServiceLocator createCountingServiceLocator(ClassLoader classLoader, final AtomicInteger discoveryCount) {
+		return new ServiceLocator(classLoader) {
+			@Override
+			protected Class<?> loadClass(ResourceDescriptor resource, String className) throws ClassNotFoundException {
+				return MockMarkupLanguage.class;
+			}
+
+			@Override
+			protected List<ResourceDescriptor> discoverServiceResources() {
+				discoveryCount.incrementAndGet();
+				try {
+					return Lists.newArrayList(new ResourceDescriptor(new URL("file://example")));
+				} catch (MalformedURLException e) {
+					throw Throwables.propagate(e);
+				}
+			}
+
+			@Override
+			protected List<String> readServiceClassNames(URL url) {
+				return Lists.newArrayList(MockMarkupLanguage.class.getName());
+			}
+		};
+	}
+
 	protected void assertKnownMarkupLanguage() {
 		MarkupLanguage markupLanguage = locator.getMarkupLanguage(MockMarkupLanguage.class.getSimpleName());
 		assertNotNull(markupLanguage);
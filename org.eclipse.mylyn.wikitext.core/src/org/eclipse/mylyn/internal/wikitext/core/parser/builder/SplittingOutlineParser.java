@@ -10,6 +10,18 @@
  *******************************************************************************/
 package org.eclipse.mylyn.internal.wikitext.core.parser.builder;
 
+import java.util.ArrayList;
+import java.util.List;
+
+import org.eclipse.mylyn.wikitext.core.parser.Attributes;
+import org.eclipse.mylyn.wikitext.core.parser.DocumentBuilder;
+import org.eclipse.mylyn.wikitext.core.parser.Locator;
+import org.eclipse.mylyn.wikitext.core.parser.MarkupParser;
+import org.eclipse.mylyn.wikitext.core.parser.builder.MultiplexingDocumentBuilder;
+import org.eclipse.mylyn.wikitext.core.parser.builder.NoOpDocumentBuilder;
+import org.eclipse.mylyn.wikitext.core.parser.markup.AbstractMarkupLanguage;
+import org.eclipse.mylyn.wikitext.core.parser.markup.ContentState;
+import org.eclipse.mylyn.wikitext.core.parser.markup.MarkupLanguage;
 import org.eclipse.mylyn.wikitext.core.parser.outline.OutlineItem;
 import org.eclipse.mylyn.wikitext.core.parser.outline.OutlineParser;
 
@@ -47,6 +59,45 @@ public class SplittingOutlineParser extends OutlineParser {
 	@Override
 	public SplitOutlineItem parse(String markup) {
 		SplitOutlineItem rootItem = (SplitOutlineItem) super.parse(markup);
+		updateRootLabel(rootItem);
+		return rootItem;
+	}
+
+	/**
+	 * Parses the given markup to create an outline, passing the complete document to the given builder in the same
+	 * pass. This avoids parsing the markup a second time when the outline is needed together with the document, for
+	 * example by recording the document with an {@link org.eclipse.mylyn.wikitext.core.parser.builder.EventDocumentBuilder}
+	 * and replaying it to a {@link SplittingHtmlDocumentBuilder} once the outline is known.
+	 * <p>
+	 * The outline is the same as the one created by {@link #parse(String)}: the label of each heading is taken from
+	 * the markup of the heading as if it were parsed {@link #isBlocksOnly() blocks only}, so labels and the split
+	 * targets derived from them do not depend on phrase modifiers or entity references in the heading.
+	 * </p>
+	 * 
+	 * @param markup
+	 *            the markup to parse
+	 * @param builder
+	 *            the builder that receives the document
+	 * @return the root item of the outline
+	 */
+	public SplitOutlineItem parse(String markup, DocumentBuilder builder) {
+		MarkupLanguage markupLanguage = getMarkupLanguage();
+		if (markupLanguage == null) {
+			throw new IllegalStateException();
+		}
+		SplitOutlineItem rootItem = (SplitOutlineItem) createOutlineItem(null, 0, "<root>", 0, //$NON-NLS-1$
+				markup == null ? 0 : markup.length(), "<root>"); //$NON-NLS-1$
+
+		SplitOutlineBuilder outlineBuilder = new SplitOutlineBuilder(rootItem, getLabelMaxLength(), markupLanguage);
+		MarkupParser markupParser = new MarkupParser(markupLanguage, new MultiplexingDocumentBuilder(outlineBuilder,
+				builder));
+		markupParser.parse(markup);
+
+		updateRootLabel(rootItem);
+		return rootItem;
+	}
+
+	private void updateRootLabel(SplitOutlineItem rootItem) {
 		if (!rootItem.getChildren().isEmpty()) {
 			SplitOutlineItem firstChild = (SplitOutlineItem) rootItem.getChildren().get(0);
 			if (firstChild.getSplitTarget() == null || firstChild.getSplitTarget().equals(rootItem.getSplitTarget())) {
@@ -55,6 +106,139 @@ public class SplittingOutlineParser extends OutlineParser {
 				rootItem.setLabel(""); //$NON-NLS-1$
 			}
 		}
-		return rootItem;
+	}
+
+	/**
+	 * An outline builder that observes a full parse of the document, creating the label of each heading by parsing the
+	 * markup of the heading blocks only.
+	 */
+	private class SplitOutlineBuilder extends OutlineBuilder {
+
+		private final MarkupParser headingParser;
+
+		private final HeadingTextBuilder headingTextBuilder;
+
+		private final List<String> headingText = new ArrayList<String>();
+
+		private int headingOffset = -1;
+
+		public SplitOutlineBuilder(OutlineItem root, int labelMaxLength, MarkupLanguage markupLanguage) {
+			super(root, labelMaxLength);
+			idGenerator.setGenerationStrategy(markupLanguage.getIdGenerationStrategy());
+			if (markupLanguage instanceof AbstractMarkupLanguage) {
+				AbstractMarkupLanguage headingLanguage = (AbstractMarkupLanguage) markupLanguage.clone();
+				headingLanguage.setFilterGenerativeContents(true);
+				headingLanguage.setBlocksOnly(isBlocksOnly());
+				// macros are already expanded in the markup of the heading
+				headingLanguage.setEnableMacros(false);
+				headingTextBuilder = new HeadingTextBuilder();
+				headingParser = new MarkupParser(headingLanguage, headingTextBuilder);
+			} else {
+				// outlines of other markup languages are created from a full parse
+				headingTextBuilder = null;
+				headingParser = null;
+			}
+		}
+
+		@Override
+		public void beginHeading(int level, Attributes attributes) {
+			super.beginHeading(level, attributes);
+			headingOffset = getLocator().getDocumentOffset();
+			headingText.clear();
+		}
+
+		@Override
+		public void characters(String text) {
+			if (headingOffset != -1) {
+				headingText.add(text);
+			}
+			if (headingParser == null) {
+				super.characters(text);
+			}
+		}
+
+		@Override
+		public void link(Attributes attributes, String hrefOrHashName, String text) {
+			if (headingOffset != -1 && text != null) {
+				headingText.add(text);
+			}
+			super.link(attributes, hrefOrHashName, headingParser == null ? text : ""); //$NON-NLS-1$
+		}
+
+		@Override
+		public void endHeading() {
+			if (headingParser != null) {
+				List<String> text = computeHeadingText();
+				for (String segment : text == null ? headingText : text) {
+					super.characters(segment);
+				}
+			}
+			headingOffset = -1;
+			headingText.clear();
+			super.endHeading();
+		}
+
+		/**
+		 * Parses the markup of the current heading blocks only.
+		 * 
+		 * @return the text of the heading, or null if it cannot be determined from the markup
+		 */
+		private List<String> computeHeadingText() {
+			Locator locator = getLocator();
+			if (!(locator instanceof ContentState)) {
+				return null;
+			}
+			String markupContent = ((ContentState) locator).getMarkupContent();
+			if (markupContent == null) {
+				return null;
+			}
+			int endOffset = Math.min(markupContent.length(),
+					locator.getLineDocumentOffset() + locator.getLineLength());
+			if (headingOffset < 0 || headingOffset >= endOffset) {
+				return null;
+			}
+			headingTextBuilder.reset();
+			headingParser.parse(markupContent.substring(headingOffset, endOffset), false);
+			return headingTextBuilder.getText();
+		}
+	}
+
+	/**
+	 * A builder that collects the text of the first heading of a document.
+	 */
+	private static class HeadingTextBuilder extends NoOpDocumentBuilder {
+
+		private List<String> text;
+
+		private boolean inHeading;
+
+		@Override
+		public void beginHeading(int level, Attributes attributes) {
+			inHeading = text == null;
+			if (inHeading) {
+				text = new ArrayList<String>();
+			}
+		}
+
+		@Override
+		public void characters(String text) {
+			if (inHeading) {
+				this.text.add(text);
+			}
+		}
+
+		@Override
+		public void endHeading() {
+			inHeading = false;
+		}
+
+		void reset() {
+			text = null;
+			inHeading = false;
+		}
+
+		List<String> getText() {
+			return text;
+		}
 	}
 }
@@ -19,6 +19,7 @@ import org.jsoup.nodes.Document;
 import org.jsoup.nodes.Element;
 import org.jsoup.nodes.Node;
 import org.jsoup.nodes.TextNode;
+import org.xml.sax.ContentHandler;
 
 /**
  * @author David Green
@@ -26,6 +27,21 @@ import org.jsoup.nodes.TextNode;
 public abstract class DocumentProcessor {
 	public abstract void process(Document document);
 
+	/**
+	 * Creates a filter that applies this processor to a stream of SAX events, as produced by the
+	 * {@link StreamingHtmlParser}. Filters see each element and text node once, in document order, and may delay events
+	 * until enough of the document has been seen to process them. The default implementation builds a document from
+	 * the events and passes it to {@link #process(Document)} at the end of the document, so that processors which do
+	 * not override this method can be used with a stream at the cost of holding the whole document in memory.
+	 * 
+	 * @param contentHandler
+	 *            the handler to which the filter passes processed events
+	 * @return the filter
+	 */
+	public ContentHandler createFilter(ContentHandler contentHandler) {
+		return new DocumentProcessorFilter(this, contentHandler);
+	}
+
 	/**
 	 * normalize text node children of the given parent element. Ensures that adjacent text nodes are combined into a
 	 * single text node, and whitespace is normalized.
@@ -0,0 +1,76 @@
+/*******************************************************************************
+ * Copyright (c) 2014 Tasktop Technologies and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     David Green - initial API and implementation
+ *******************************************************************************/
+
+package org.eclipse.mylyn.internal.wikitext.core.parser.html;
+
+import org.jsoup.nodes.Document;
+import org.jsoup.nodes.Element;
+import org.xml.sax.Attributes;
+import org.xml.sax.ContentHandler;
+import org.xml.sax.SAXException;
+import org.xml.sax.helpers.XMLFilterImpl;
+
+/**
+ * A filter that applies a {@link DocumentProcessor} which cannot process a stream of events. Events are collected into
+ * a document, which is processed and passed on at the end of the document.
+ *
+ * @author David Green
+ * @see DocumentProcessor#createFilter(ContentHandler)
+ */
+class DocumentProcessorFilter extends XMLFilterImpl {
+
+	private final DocumentProcessor processor;
+
+	private Document document;
+
+	private Element currentElement;
+
+	DocumentProcessorFilter(DocumentProcessor processor, ContentHandler contentHandler) {
+		this.processor = processor;
+		setContentHandler(contentHandler);
+	}
+
+	@Override
+	public void startDocument() throws SAXException {
+		document = Document.createShell(""); //$NON-NLS-1$
+	}
+
+	@Override
+	public void startElement(String uri, String localName, String qName, Attributes atts) throws SAXException {
+		Element element;
+		if (currentElement == null && localName.equals("body")) { //$NON-NLS-1$
+			element = document.body();
+		} else {
+			element = (currentElement == null ? document.body() : currentElement).appendElement(localName);
+		}
+		for (int x = 0; x < atts.getLength(); ++x) {
+			element.attr(atts.getLocalName(x), atts.getValue(x));
+		}
+		currentElement = element;
+	}
+
+	@Override
+	public void endElement(String uri, String localName, String qName) throws SAXException {
+		currentElement = currentElement == document.body() ? null : currentElement.parent();
+	}
+
+	@Override
+	public void characters(char[] ch, int start, int length) throws SAXException {
+		(currentElement == null ? document.body() : currentElement).appendText(new String(ch, start, length));
+	}
+
+	@Override
+	public void endDocument() throws SAXException {
+		processor.process(document);
+		HtmlParser.emitDocument(document, getContentHandler());
+		document = null;
+	}
+}
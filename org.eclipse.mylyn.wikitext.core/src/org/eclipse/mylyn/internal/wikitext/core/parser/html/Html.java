@@ -15,6 +15,7 @@ import java.util.HashSet;
 import java.util.Set;
 
 import org.jsoup.nodes.Element;
+import org.xml.sax.Attributes;
 
 /**
  * @author David Green
@@ -46,7 +47,14 @@ class Html {
 	 * indicate if this is a span element - in that it's inline content rather than block content.
 	 */
 	public static boolean isSpanElement(Element element) {
-		return spanElements.contains(element.tagName().toLowerCase());
+		return isSpanElement(element.tagName());
+	}
+
+	/**
+	 * indicate if an element having the given name is a span element
+	 */
+	public static boolean isSpanElement(String elementName) {
+		return spanElements.contains(elementName.toLowerCase());
 	}
 
 	public static boolean isWhitespacePreserve(Element element) {
@@ -59,4 +67,16 @@ class Html {
 		return false;
 	}
 
+	/**
+	 * the index of the attribute having the given local name, or -1 if there is no such attribute
+	 */
+	public static int indexOf(Attributes attributes, String name) {
+		for (int x = 0; x < attributes.getLength(); ++x) {
+			if (name.equals(attributes.getLocalName(x))) {
+				return x;
+			}
+		}
+		return -1;
+	}
+
 }
@@ -166,6 +166,13 @@ public class HtmlParser extends AbstractSaxHtmlParser {
 			processor.process(document);
 		}
 
+		emitDocument(document, contentHandler);
+	}
+
+	/**
+	 * Passes the given document to the content handler as SAX events, starting with the body of the document.
+	 */
+	static void emitDocument(Document document, ContentHandler contentHandler) throws SAXException {
 		Stack<NodeHandler> stack = new Stack<NodeHandler>();
 		stack.push(new DocumentHandler(document));
 		while (!stack.isEmpty()) {
@@ -0,0 +1,222 @@
+/*******************************************************************************
+ * Copyright (c) 2014 Tasktop Technologies and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     David Green - initial API and implementation
+ *******************************************************************************/
+
+package org.eclipse.mylyn.internal.wikitext.core.parser.html;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.xml.sax.Attributes;
+import org.xml.sax.ContentHandler;
+import org.xml.sax.SAXException;
+import org.xml.sax.helpers.AttributesImpl;
+import org.xml.sax.helpers.XMLFilterImpl;
+
+/**
+ * A streaming implementation of the {@link RemoveEmptySpansProcessor}. The start of a span is delayed until it has
+ * content other than whitespace, line breaks and spans that are removed, so that a span that only contains such
+ * content is removed when it ends. Line breaks at the end of a span are delayed until the span ends.
+ *
+ * @author David Green
+ */
+class RemoveEmptySpansFilter extends XMLFilterImpl {
+
+	private static final String BR = "br"; //$NON-NLS-1$
+
+	private static class ElementState {
+
+		final String uri;
+
+		final String localName;
+
+		final String qName;
+
+		final Attributes atts;
+
+		final boolean span;
+
+		/**
+		 * indicates if the element is a line break that was already passed on or is delayed
+		 */
+		final boolean lineBreak;
+
+		boolean started;
+
+		/**
+		 * whitespace that is the only content of a span that has not started, not including content of removed spans
+		 */
+		final StringBuilder whitespace = new StringBuilder();
+
+		/**
+		 * line breaks that follow the {@link #whitespace} of a span that has not started, or that are the last children
+		 * of a span
+		 */
+		final List<Attributes> lineBreaks = new ArrayList<Attributes>();
+
+		ElementState(String uri, String localName, String qName, Attributes atts, boolean lineBreak) {
+			this.uri = uri;
+			this.localName = localName;
+			this.qName = qName;
+			this.atts = new AttributesImpl(atts);
+			this.lineBreak = lineBreak;
+			span = !lineBreak && Html.isSpanElement(localName);
+			started = !span;
+		}
+
+		/**
+		 * indicates if the element is a span that has no content yet, such that a line break would be its first child
+		 */
+		boolean isEmptySpan() {
+			return span && !started && whitespace.length() == 0 && lineBreaks.isEmpty();
+		}
+	}
+
+	private final List<ElementState> elements = new ArrayList<ElementState>();
+
+	RemoveEmptySpansFilter(ContentHandler contentHandler) {
+		setContentHandler(contentHandler);
+	}
+
+	@Override
+	public void startElement(String uri, String localName, String qName, Attributes atts) throws SAXException {
+		ElementState parent = currentElement();
+		if (localName.equals(BR) && parent != null && parent.span) {
+			addLineBreak(uri, atts);
+			elements.add(new ElementState(uri, localName, qName, atts, true));
+			return;
+		}
+		ElementState element = new ElementState(uri, localName, qName, atts, false);
+		if (parent != null && element.started) {
+			// a span does not start its parent until it has content itself
+			startContent(parent);
+		}
+		elements.add(element);
+		if (element.started) {
+			super.startElement(uri, localName, qName, atts);
+		}
+	}
+
+	@Override
+	public void endElement(String uri, String localName, String qName) throws SAXException {
+		ElementState element = elements.remove(elements.size() - 1);
+		if (element.lineBreak) {
+			return;
+		}
+		if (element.started) {
+			super.endElement(element.uri, element.localName, element.qName);
+		} else if (element.whitespace.length() > 0) {
+			// a span without content is removed, retaining whitespace
+			ElementState parent = currentElement();
+			if (parent != null && parent.span && !parent.started && parent.lineBreaks.isEmpty()) {
+				parent.whitespace.append(element.whitespace);
+			} else {
+				if (parent != null) {
+					startContent(parent);
+				}
+				emit(element.whitespace.toString());
+			}
+		}
+		// line breaks that are the last children of a span are moved after the span
+		for (Attributes atts : element.lineBreaks) {
+			addLineBreak(element.uri, atts);
+		}
+	}
+
+	@Override
+	public void characters(char[] ch, int start, int length) throws SAXException {
+		ElementState element = currentElement();
+		if (element != null) {
+			if (element.span && !element.started && element.lineBreaks.isEmpty() && isWhitespace(ch, start, length)) {
+				element.whitespace.append(ch, start, length);
+				return;
+			}
+			startContent(element);
+		}
+		super.characters(ch, start, length);
+	}
+
+	private ElementState currentElement() {
+		return elements.isEmpty() ? null : elements.get(elements.size() - 1);
+	}
+
+	/**
+	 * Adds a line break to the current element. A line break that is the first child of a span is moved before the
+	 * span, and a line break that may be the last child of a span is delayed.
+	 */
+	private void addLineBreak(String uri, Attributes atts) throws SAXException {
+		int index = elements.size() - 1;
+		while (index > 0 && elements.get(index).isEmptySpan()) {
+			--index;
+		}
+		ElementState container = elements.get(index);
+		if (container.span && !container.isEmptySpan()) {
+			container.lineBreaks.add(new AttributesImpl(atts));
+		} else {
+			if (container.started) {
+				startContent(container);
+			}
+			lineBreak(uri, BR, BR, atts);
+		}
+	}
+
+	/**
+	 * Prepares the given element for content, passing on its start and the start of its ancestors, as well as delayed
+	 * whitespace and line breaks.
+	 */
+	private void startContent(ElementState element) throws SAXException {
+		int end = elements.lastIndexOf(element);
+		int index = end;
+		while (index > 0 && !elements.get(index - 1).started) {
+			--index;
+		}
+		if (index > 0) {
+			flushLineBreaks(elements.get(index - 1));
+		}
+		for (ElementState state : elements.subList(index, end + 1)) {
+			if (!state.started) {
+				state.started = true;
+				super.startElement(state.uri, state.localName, state.qName, state.atts);
+				if (state.whitespace.length() > 0) {
+					emit(state.whitespace.toString());
+					state.whitespace.setLength(0);
+				}
+			}
+			flushLineBreaks(state);
+		}
+	}
+
+	private void flushLineBreaks(ElementState element) throws SAXException {
+		if (!element.lineBreaks.isEmpty()) {
+			for (Attributes atts : element.lineBreaks) {
+				lineBreak(element.uri, BR, BR, atts);
+			}
+			element.lineBreaks.clear();
+		}
+	}
+
+	private void lineBreak(String uri, String localName, String qName, Attributes atts) throws SAXException {
+		super.startElement(uri, localName, qName, atts);
+		super.endElement(uri, localName, qName);
+	}
+
+	private void emit(String content) throws SAXException {
+		super.characters(content.toCharArray(), 0, content.length());
+	}
+
+	private static boolean isWhitespace(char[] ch, int start, int length) {
+		for (int x = start; x < start + length; ++x) {
+			if (ch[x] > ' ') {
+				return false;
+			}
+		}
+		return true;
+	}
+}
@@ -17,6 +17,7 @@ import org.jsoup.nodes.Document;
 import org.jsoup.nodes.Element;
 import org.jsoup.nodes.Node;
 import org.jsoup.nodes.TextNode;
+import org.xml.sax.ContentHandler;
 
 /**
  * @author David Green
@@ -77,4 +78,8 @@ class RemoveEmptySpansProcessor extends DocumentProcessor {
 		} while (modifiedOne);
 	}
 
+	@Override
+	public ContentHandler createFilter(ContentHandler contentHandler) {
+		return new RemoveEmptySpansFilter(contentHandler);
+	}
 }
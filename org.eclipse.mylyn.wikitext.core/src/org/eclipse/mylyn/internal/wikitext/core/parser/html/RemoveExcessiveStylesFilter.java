@@ -0,0 +1,139 @@
+/*******************************************************************************
+ * Copyright (c) 2014 Tasktop Technologies and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     David Green - initial API and implementation
+ *******************************************************************************/
+
+package org.eclipse.mylyn.internal.wikitext.core.parser.html;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Stack;
+
+import org.eclipse.mylyn.internal.wikitext.core.util.css.CssParser;
+import org.xml.sax.Attributes;
+import org.xml.sax.ContentHandler;
+import org.xml.sax.SAXException;
+import org.xml.sax.helpers.AttributesImpl;
+import org.xml.sax.helpers.XMLFilterImpl;
+
+/**
+ * A streaming implementation of the {@link RemoveExcessiveStylesProcessor}. Text is held until the next element that
+ * is passed on, so that text on either side of a removed element can be combined.
+ *
+ * @author David Green
+ */
+class RemoveExcessiveStylesFilter extends XMLFilterImpl {
+
+	private final CssParser cssParser = new CssParser();
+
+	/**
+	 * the names of the open elements as passed on, or null for elements that were removed
+	 */
+	private final Stack<String> elementNames = new Stack<String>();
+
+	/**
+	 * text that has not been passed on, as received
+	 */
+	private final List<String> text = new ArrayList<String>();
+
+	/**
+	 * indicates if an element was removed between parts of {@link #text}
+	 */
+	private boolean combineText;
+
+	RemoveExcessiveStylesFilter(ContentHandler contentHandler) {
+		setContentHandler(contentHandler);
+	}
+
+	@Override
+	public void startElement(String uri, String localName, String qName, Attributes atts) throws SAXException {
+		int styleIndex = Html.indexOf(atts, "style"); //$NON-NLS-1$
+		boolean font = localName.equals("font"); //$NON-NLS-1$
+		if (styleIndex == -1 && !font && !localName.equals("span")) { //$NON-NLS-1$
+			elementNames.push(localName);
+			flushText();
+			super.startElement(uri, localName, qName, atts);
+			return;
+		}
+		int colorIndex = Html.indexOf(atts, "color"); //$NON-NLS-1$
+		String newStyle = RemoveExcessiveStylesProcessor.computeStyle(cssParser, localName, styleIndex == -1
+				? null
+				: atts.getValue(styleIndex), colorIndex == -1 ? null : atts.getValue(colorIndex));
+
+		AttributesImpl newAtts;
+		if (newStyle.length() > 0) {
+			if (font) {
+				localName = "span"; //$NON-NLS-1$
+				qName = localName;
+				newAtts = new AttributesImpl();
+				newAtts.addAttribute("", "style", "style", "CDATA", newStyle); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$ //$NON-NLS-4$
+			} else {
+				newAtts = new AttributesImpl(atts);
+				if (styleIndex == -1) {
+					newAtts.addAttribute("", "style", "style", "CDATA", newStyle); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$ //$NON-NLS-4$
+				} else {
+					newAtts.setValue(styleIndex, newStyle);
+				}
+			}
+		} else {
+			int classIndex = Html.indexOf(atts, "class"); //$NON-NLS-1$
+			if (font
+					|| (localName.equals("span") && (classIndex == -1 || atts.getValue(classIndex).trim().length() == 0))) { //$NON-NLS-1$
+				elementNames.push(null);
+				combineText = true;
+				return;
+			}
+			newAtts = new AttributesImpl(atts);
+			if (styleIndex != -1) {
+				newAtts.removeAttribute(styleIndex);
+			}
+		}
+		elementNames.push(localName);
+		flushText();
+		super.startElement(uri, localName, qName, newAtts);
+	}
+
+	@Override
+	public void endElement(String uri, String localName, String qName) throws SAXException {
+		String elementName = elementNames.pop();
+		if (elementName != null) {
+			flushText();
+			super.endElement(uri, elementName, elementName);
+		} else {
+			combineText = true;
+		}
+	}
+
+	@Override
+	public void characters(char[] ch, int start, int length) throws SAXException {
+		text.add(new String(ch, start, length));
+	}
+
+	@Override
+	public void endDocument() throws SAXException {
+		flushText();
+		super.endDocument();
+	}
+
+	private void flushText() throws SAXException {
+		if (combineText && text.size() > 1) {
+			StringBuilder combined = new StringBuilder();
+			for (String part : text) {
+				combined.append(part);
+			}
+			text.clear();
+			text.add(combined.toString());
+		}
+		for (String part : text) {
+			super.characters(part.toCharArray(), 0, part.length());
+		}
+		text.clear();
+		combineText = false;
+	}
+}
@@ -21,6 +21,7 @@ import org.jsoup.nodes.Document;
 import org.jsoup.nodes.Element;
 import org.jsoup.nodes.Node;
 import org.jsoup.select.Selector;
+import org.xml.sax.ContentHandler;
 
 /**
  * Removes excessive inline styles from HTML,
@@ -36,48 +37,7 @@ public class RemoveExcessiveStylesProcessor extends DocumentProcessor {
 		CssParser cssParser = new CssParser();
 
 		for (Element element : Selector.select("[style], font, span", body)) { //$NON-NLS-1$
-			String style = element.attr("style"); //$NON-NLS-1$
-
-			String newStyle = ""; //$NON-NLS-1$
-			List<CssRule> rules = null;
-
-			if (style != null && style.length() > 0) {
-				rules = cssParser.parseBlockContent(style);
-
-				Iterator<CssRule> ruleIt = rules.iterator();
-				while (ruleIt.hasNext()) {
-					CssRule rule = ruleIt.next();
-					if ("color".equals(rule.name)) { //$NON-NLS-1$
-						if (!(rule.value.equalsIgnoreCase("black") || rule.value.equals("#010101"))) { //$NON-NLS-1$//$NON-NLS-2$
-							continue;
-						}
-					} else if ("font-weight".equals(rule.name)) { //$NON-NLS-1$
-						if (rule.value.equalsIgnoreCase("bold") || rule.value.equalsIgnoreCase("bolder")) { //$NON-NLS-1$ //$NON-NLS-2$
-							continue;
-						}
-					} else if ("font-style".equals(rule.name)) { //$NON-NLS-1$
-						if (rule.value.equalsIgnoreCase("bold") || rule.value.equalsIgnoreCase("italic")) { //$NON-NLS-1$ //$NON-NLS-2$
-							continue;
-						}
-					}
-					ruleIt.remove();
-				}
-			}
-			if ("font".equalsIgnoreCase(element.nodeName())) { //$NON-NLS-1$
-				String color = element.attr("color"); //$NON-NLS-1$
-				if (color != null && color.trim().length() > 0) {
-					if (rules == null) {
-						rules = new ArrayList<CssRule>(1);
-					}
-					rules.add(new CssRule("color", color.trim(), 0, 0, 0, 0)); //$NON-NLS-1$
-				}
-			}
-
-			if (rules != null) {
-				for (CssRule rule : rules) {
-					newStyle += rule.name + ": " + rule.value + ";"; //$NON-NLS-1$ //$NON-NLS-2$
-				}
-			}
+			String newStyle = computeStyle(cssParser, element.nodeName(), element.attr("style"), element.attr("color")); //$NON-NLS-1$ //$NON-NLS-2$
 
 			if (newStyle.length() > 0) {
 				if ("font".equalsIgnoreCase(element.nodeName())) { //$NON-NLS-1$
@@ -102,6 +62,64 @@ public class RemoveExcessiveStylesProcessor extends DocumentProcessor {
 		}
 	}
 
+	/**
+	 * Computes the style of an element, retaining only rules for colors other than black, bold font weights and italic
+	 * font styles. The color of a {@code font} element is added to its style.
+	 * 
+	 * @param cssParser
+	 *            the parser for the style
+	 * @param elementName
+	 *            the name of the element
+	 * @param style
+	 *            the value of the style attribute of the element, or null
+	 * @param color
+	 *            the value of the color attribute of the element, or null
+	 * @return the new style, which is empty if no rules are retained
+	 */
+	static String computeStyle(CssParser cssParser, String elementName, String style, String color) {
+		String newStyle = ""; //$NON-NLS-1$
+		List<CssRule> rules = null;
+
+		if (style != null && style.length() > 0) {
+			rules = cssParser.parseBlockContent(style);
+
+			Iterator<CssRule> ruleIt = rules.iterator();
+			while (ruleIt.hasNext()) {
+				CssRule rule = ruleIt.next();
+				if ("color".equals(rule.name)) { //$NON-NLS-1$
+					if (!(rule.value.equalsIgnoreCase("black") || rule.value.equals("#010101"))) { //$NON-NLS-1$//$NON-NLS-2$
+						continue;
+					}
+				} else if ("font-weight".equals(rule.name)) { //$NON-NLS-1$
+					if (rule.value.equalsIgnoreCase("bold") || rule.value.equalsIgnoreCase("bolder")) { //$NON-NLS-1$ //$NON-NLS-2$
+						continue;
+					}
+				} else if ("font-style".equals(rule.name)) { //$NON-NLS-1$
+					if (rule.value.equalsIgnoreCase("bold") || rule.value.equalsIgnoreCase("italic")) { //$NON-NLS-1$ //$NON-NLS-2$
+						continue;
+					}
+				}
+				ruleIt.remove();
+			}
+		}
+		if ("font".equalsIgnoreCase(elementName)) { //$NON-NLS-1$
+			if (color != null && color.trim().length() > 0) {
+				if (rules == null) {
+					rules = new ArrayList<CssRule>(1);
+				}
+				rules.add(new CssRule("color", color.trim(), 0, 0, 0, 0)); //$NON-NLS-1$
+			}
+		}
+
+		if (rules != null) {
+			for (CssRule rule : rules) {
+				newStyle += rule.name + ": " + rule.value + ";"; //$NON-NLS-1$ //$NON-NLS-2$
+			}
+		}
+
+		return newStyle;
+	}
+
 	private void removeElementPreserveChildren(Element element) {
 		final Element parent = element.parent();
 		for (Node child : new ArrayList<Node>(element.childNodes())) {
@@ -114,4 +132,9 @@ public class RemoveExcessiveStylesProcessor extends DocumentProcessor {
 			normalizeTextNodes(parent);
 		}
 	}
+
+	@Override
+	public ContentHandler createFilter(ContentHandler contentHandler) {
+		return new RemoveExcessiveStylesFilter(contentHandler);
+	}
 }
@@ -0,0 +1,47 @@
+/*******************************************************************************
+ * Copyright (c) 2014 Tasktop Technologies and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     David Green - initial API and implementation
+ *******************************************************************************/
+
+package org.eclipse.mylyn.internal.wikitext.core.parser.html;
+
+import org.eclipse.mylyn.internal.wikitext.core.util.css.CssParser;
+import org.xml.sax.Attributes;
+import org.xml.sax.ContentHandler;
+import org.xml.sax.SAXException;
+import org.xml.sax.helpers.AttributesImpl;
+import org.xml.sax.helpers.XMLFilterImpl;
+
+/**
+ * A streaming implementation of the {@link RepairBrokenCSSColorStylesProcessor}.
+ *
+ * @author David Green
+ */
+class RepairBrokenCSSColorStylesFilter extends XMLFilterImpl {
+
+	private final CssParser cssParser = new CssParser();
+
+	RepairBrokenCSSColorStylesFilter(ContentHandler contentHandler) {
+		setContentHandler(contentHandler);
+	}
+
+	@Override
+	public void startElement(String uri, String localName, String qName, Attributes atts) throws SAXException {
+		int styleIndex = Html.indexOf(atts, "style"); //$NON-NLS-1$
+		if (styleIndex != -1) {
+			String newStyle = RepairBrokenCSSColorStylesProcessor.repairStyle(cssParser, atts.getValue(styleIndex));
+			if (newStyle != null) {
+				AttributesImpl newAtts = new AttributesImpl(atts);
+				newAtts.setValue(styleIndex, newStyle);
+				atts = newAtts;
+			}
+		}
+		super.startElement(uri, localName, qName, atts);
+	}
+}
@@ -22,6 +22,7 @@ import org.eclipse.mylyn.internal.wikitext.core.util.css.CssRule;
 import org.jsoup.nodes.Document;
 import org.jsoup.nodes.Element;
 import org.jsoup.select.Selector;
+import org.xml.sax.ContentHandler;
 
 /**
  * Repairs missing "#"-prefix in CSS color styles using hex color values
@@ -37,48 +38,68 @@ public class RepairBrokenCSSColorStylesProcessor extends DocumentProcessor {
 		CssParser cssParser = new CssParser();
 
 		for (Element element : Selector.select("[style]", body)) { //$NON-NLS-1$
-			String style = element.attr("style"); //$NON-NLS-1$
+			String newStyle = repairStyle(cssParser, element.attr("style")); //$NON-NLS-1$
+			if (newStyle != null) {
+				element.attr("style", newStyle); //$NON-NLS-1$
+			}
+		}
+	}
 
-			String newStyle = ""; //$NON-NLS-1$
-			List<CssRule> rules = null;
-			CssRule newRule = null;
+	/**
+	 * Repairs CSS color styles having a hex color value without a "#"-prefix.
+	 * 
+	 * @param cssParser
+	 *            the parser for the style
+	 * @param style
+	 *            the value of the style attribute of an element
+	 * @return the repaired style, or null if the style does not need to be repaired
+	 */
+	static String repairStyle(CssParser cssParser, String style) {
+		String newStyle = ""; //$NON-NLS-1$
+		List<CssRule> rules = null;
+		CssRule newRule = null;
 
-			if (style != null && style.length() > 0) {
-				rules = cssParser.parseBlockContent(style);
+		if (style != null && style.length() > 0) {
+			rules = cssParser.parseBlockContent(style);
 
-				Iterator<CssRule> ruleIt = rules.iterator();
-				while (ruleIt.hasNext()) {
-					CssRule rule = ruleIt.next();
-					if ("color".equals(rule.name)) { //$NON-NLS-1$
-						String color = rule.value;
-						// no 3- or 6-character CSS color names are written in hex characters
-						Matcher invalidHexColorMatcher = Pattern.compile(
-								"^\\s*([0-9a-fA-F]{6}|[0-9a-fA-F]{3})(?:\\s+(.+))?\\s*$") //$NON-NLS-1$
-								.matcher(color);
-						if (invalidHexColorMatcher.matches()) {
-							String newColor = "#" + invalidHexColorMatcher.group(1); //$NON-NLS-1$
-							String additionalDeclarations = invalidHexColorMatcher.group(2);
-							if (additionalDeclarations != null) {
-								newColor += " " + additionalDeclarations; //$NON-NLS-1$
-							}
-							ruleIt.remove();
-							newRule = new CssRule("color", newColor.trim(), 0, 0, 0, 0); //$NON-NLS-1$
+			Iterator<CssRule> ruleIt = rules.iterator();
+			while (ruleIt.hasNext()) {
+				CssRule rule = ruleIt.next();
+				if ("color".equals(rule.name)) { //$NON-NLS-1$
+					String color = rule.value;
+					// no 3- or 6-character CSS color names are written in hex characters
+					Matcher invalidHexColorMatcher = Pattern.compile(
+							"^\\s*([0-9a-fA-F]{6}|[0-9a-fA-F]{3})(?:\\s+(.+))?\\s*$") //$NON-NLS-1$
+							.matcher(color);
+					if (invalidHexColorMatcher.matches()) {
+						String newColor = "#" + invalidHexColorMatcher.group(1); //$NON-NLS-1$
+						String additionalDeclarations = invalidHexColorMatcher.group(2);
+						if (additionalDeclarations != null) {
+							newColor += " " + additionalDeclarations; //$NON-NLS-1$
 						}
+						ruleIt.remove();
+						newRule = new CssRule("color", newColor.trim(), 0, 0, 0, 0); //$NON-NLS-1$
 					}
 				}
 			}
+		}
 
-			if (rules != null && newRule != null) {
-				newStyle = addRuleToStyle(newStyle, newRule);
-				for (CssRule rule : rules) {
-					newStyle = addRuleToStyle(newStyle, rule);
-				}
-				element.attr("style", newStyle); //$NON-NLS-1$
+		if (rules != null && newRule != null) {
+			newStyle = addRuleToStyle(newStyle, newRule);
+			for (CssRule rule : rules) {
+				newStyle = addRuleToStyle(newStyle, rule);
 			}
+			return newStyle;
 		}
+		return null;
 	}
 
-	private String addRuleToStyle(String style, CssRule rule) {
+	private static String addRuleToStyle(String style, CssRule rule) {
 		return style += rule.name + ": " + rule.value + ";"; //$NON-NLS-1$ //$NON-NLS-2$
 	}
+
+	@Override
+	public ContentHandler createFilter(ContentHandler contentHandler) {
+		return new RepairBrokenCSSColorStylesFilter(contentHandler);
+	}
 }
@@ -0,0 +1,767 @@
+/*******************************************************************************
+ * Copyright (c) 2014 Tasktop Technologies and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     David Green - initial API and implementation
+ *******************************************************************************/
+
+package org.eclipse.mylyn.internal.wikitext.core.parser.html;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import java.io.BufferedInputStream;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+import org.eclipse.mylyn.wikitext.core.parser.DocumentBuilder;
+import org.jsoup.helper.StringUtil;
+import org.jsoup.nodes.Entities;
+import org.xml.sax.Attributes;
+import org.xml.sax.ContentHandler;
+import org.xml.sax.InputSource;
+import org.xml.sax.SAXException;
+import org.xml.sax.helpers.AttributesImpl;
+import org.xml.sax.helpers.XMLFilterImpl;
+
+import com.google.common.collect.ImmutableSet;
+
+/**
+ * A parser for HTML that reads its input incrementally and emits SAX events as elements are read, without building a
+ * document tree. Malformed HTML is repaired using a subset of the HTML tree construction rules: elements that cannot
+ * contain each other, such as paragraphs and list items, are closed implicitly, and unmatched end tags are ignored.
+ * Only the content of the body is emitted. {@link DocumentProcessor Processors} are applied as
+ * {@link DocumentProcessor#createFilter(ContentHandler) streaming filters}, so memory use is proportional to the
+ * nesting depth of the document rather than to its size, unless a processor does not provide its own filter.
+ *
+ * @author David Green
+ * @see HtmlParser
+ */
+public class StreamingHtmlParser extends AbstractSaxHtmlParser {
+
+	private static final String BODY = "body"; //$NON-NLS-1$
+
+	private static final Set<String> VOID_ELEMENTS = ImmutableSet.of("area", "base", "basefont", "bgsound", "br", //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$ //$NON-NLS-4$ //$NON-NLS-5$
+			"col", "command", "embed", "hr", "img", "input", "keygen", "link", "meta", "param", "source", "track", //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$ //$NON-NLS-4$ //$NON-NLS-5$ //$NON-NLS-6$ //$NON-NLS-7$ //$NON-NLS-8$ //$NON-NLS-9$ //$NON-NLS-10$ //$NON-NLS-11$ //$NON-NLS-12$
+			"wbr"); //$NON-NLS-1$
+
+	/**
+	 * elements whose content is not parsed and not emitted
+	 */
+	private static final Set<String> RAW_TEXT_ELEMENTS = ImmutableSet.of("script", "style"); //$NON-NLS-1$ //$NON-NLS-2$
+
+	/**
+	 * elements whose content is not parsed but emitted as text
+	 */
+	private static final Set<String> RCDATA_ELEMENTS = ImmutableSet.of("textarea", "title"); //$NON-NLS-1$ //$NON-NLS-2$
+
+	/**
+	 * elements that may appear in the head of a document
+	 */
+	private static final Set<String> HEAD_ELEMENTS = ImmutableSet.of("base", "basefont", "bgsound", "command", //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$ //$NON-NLS-4$
+			"link", "meta", "noframes", "script", "style", "title"); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$ //$NON-NLS-4$ //$NON-NLS-5$ //$NON-NLS-6$
+
+	/**
+	 * elements that close an open paragraph
+	 */
+	private static final Set<String> PARAGRAPH_CLOSING_ELEMENTS = ImmutableSet.of("address", "article", "aside", //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+			"blockquote", "center", "details", "dir", "div", "dl", "fieldset", "figcaption", "figure", "footer", //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$ //$NON-NLS-4$ //$NON-NLS-5$ //$NON-NLS-6$ //$NON-NLS-7$ //$NON-NLS-8$ //$NON-NLS-9$ //$NON-NLS-10$
+			"form", "h1", "h2", "h3", "h4", "h5", "h6", "header", "hgroup", "hr", "li", "listing", "menu", "nav", //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$ //$NON-NLS-4$ //$NON-NLS-5$ //$NON-NLS-6$ //$NON-NLS-7$ //$NON-NLS-8$ //$NON-NLS-9$ //$NON-NLS-10$ //$NON-NLS-11$ //$NON-NLS-12$ //$NON-NLS-13$ //$NON-NLS-14$
+			"ol", "p", "plaintext", "pre", "section", "summary", "table", "ul", "dd", "dt", "xmp"); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$ //$NON-NLS-4$ //$NON-NLS-5$ //$NON-NLS-6$ //$NON-NLS-7$ //$NON-NLS-8$ //$NON-NLS-9$ //$NON-NLS-10$ //$NON-NLS-11$
+
+	private static final Set<String> HEADING_ELEMENTS = ImmutableSet.of("h1", "h2", "h3", "h4", "h5", "h6"); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$ //$NON-NLS-4$ //$NON-NLS-5$ //$NON-NLS-6$
+
+	/**
+	 * elements that limit the search for an open element to close, such that for example a list item in a nested list
+	 * does not close a list item of the outer list
+	 */
+	private static final Set<String> SCOPE_ELEMENTS = ImmutableSet.of("applet", "blockquote", "body", "caption", //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$ //$NON-NLS-4$
+			"dl", "html", "marquee", "object", "ol", "table", "tbody", "td", "tfoot", "th", "thead", "tr", "ul"); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$ //$NON-NLS-4$ //$NON-NLS-5$ //$NON-NLS-6$ //$NON-NLS-7$ //$NON-NLS-8$ //$NON-NLS-9$ //$NON-NLS-10$ //$NON-NLS-11$ //$NON-NLS-12$ //$NON-NLS-13$
+
+	/**
+	 * elements that limit the search for an open table row or cell to close
+	 */
+	private static final Set<String> TABLE_SCOPE_ELEMENTS = ImmutableSet.of("body", "html", "table"); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+
+	private static final Set<String> TABLE_SECTION_ELEMENTS = ImmutableSet.of("tbody", "tfoot", "thead"); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+
+	/**
+	 * elements whose end tag is ignored if they are not the innermost open element of the same kind as the end tag
+	 */
+	private static final Set<String> BLOCK_ELEMENTS = ImmutableSet.<String> builder()
+			.addAll(PARAGRAPH_CLOSING_ELEMENTS)
+			.addAll(SCOPE_ELEMENTS)
+			.add("button", "caption", "colgroup", "iframe", "noscript", "select", "textarea") //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$ //$NON-NLS-4$ //$NON-NLS-5$ //$NON-NLS-6$ //$NON-NLS-7$
+			.build();
+
+	/**
+	 * elements that are reopened when an enclosing formatting element is closed
+	 */
+	private static final Set<String> FORMATTING_ELEMENTS = ImmutableSet.of("a", "b", "big", "code", "em", "font", //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$ //$NON-NLS-4$ //$NON-NLS-5$ //$NON-NLS-6$
+			"i", "nobr", "s", "small", "strike", "strong", "tt", "u"); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$ //$NON-NLS-4$ //$NON-NLS-5$ //$NON-NLS-6$ //$NON-NLS-7$ //$NON-NLS-8$
+
+	private static final int MAX_ENTITY_NAME_LENGTH = 32;
+
+	private List<DocumentProcessor> processors = new ArrayList<DocumentProcessor>();
+
+	@Override
+	protected void parse(InputSource input, DocumentBuilder builder, ContentHandler contentHandler) throws IOException,
+			SAXException {
+		ContentHandler handler = new TextNormalizingFilter(contentHandler);
+		for (int x = processors.size() - 1; x >= 0; --x) {
+			handler = processors.get(x).createFilter(handler);
+		}
+		Reader reader = createReader(input);
+		try {
+			new Tokenizer(reader, handler).parse();
+		} finally {
+			reader.close();
+		}
+	}
+
+	public List<DocumentProcessor> getProcessors() {
+		return processors;
+	}
+
+	public void setProcessors(List<DocumentProcessor> processors) {
+		this.processors = checkNotNull(processors);
+	}
+
+	private Reader createReader(InputSource input) throws IOException {
+		Reader reader = input.getCharacterStream();
+		if (reader == null) {
+			InputStream bytes = input.getByteStream();
+			if (bytes == null) {
+				String systemId = input.getSystemId();
+				if (systemId == null) {
+					throw new IllegalArgumentException("input must provide a byte stream, a character stream or a system id"); //$NON-NLS-1$
+				}
+				bytes = new FileInputStream(systemId);
+			}
+			reader = new InputStreamReader(new BufferedInputStream(bytes), input.getEncoding() == null
+					? "utf-8" //$NON-NLS-1$
+					: input.getEncoding());
+		}
+		return reader;
+	}
+
+	/**
+	 * Reads HTML from a reader and emits the corresponding SAX events, repairing the structure of the document.
+	 */
+	private static class Tokenizer {
+
+		private final Reader reader;
+
+		private final ContentHandler handler;
+
+		private final char[] buffer = new char[8192];
+
+		private int position;
+
+		private int limit;
+
+		private final StringBuilder text = new StringBuilder();
+
+		/**
+		 * the names of the open elements, starting with the body
+		 */
+		private final List<String> openElements = new ArrayList<String>();
+
+		/**
+		 * the attributes of the {@link #openElements}
+		 */
+		private final List<Attributes> openElementAttributes = new ArrayList<Attributes>();
+
+		private boolean inHead = true;
+
+		Tokenizer(Reader reader, ContentHandler handler) {
+			this.reader = reader;
+			this.handler = handler;
+		}
+
+		void parse() throws IOException, SAXException {
+			handler.startDocument();
+			push(BODY, new AttributesImpl());
+
+			for (int c = read(); c != -1; c = read()) {
+				if (c == '<') {
+					int next = peek();
+					if (isLetter(next)) {
+						startTag();
+					} else if (next == '/') {
+						read();
+						if (isLetter(peek())) {
+							endTag();
+						} else {
+							skipTo(">"); //$NON-NLS-1$
+						}
+					} else if (next == '!') {
+						read();
+						markupDeclaration();
+					} else if (next == '?') {
+						skipTo(">"); //$NON-NLS-1$
+					} else {
+						appendText('<');
+					}
+				} else if (c == '&') {
+					appendText(readCharacterReference(false));
+				} else {
+					appendText((char) c);
+				}
+			}
+			flushText();
+			popTo(0);
+			handler.endDocument();
+		}
+
+		private void startTag() throws IOException, SAXException {
+			String name = readName();
+			AttributesImpl atts = new AttributesImpl();
+			boolean selfClosing = readAttributes(atts);
+			if (name.equals("image")) { //$NON-NLS-1$
+				name = "img"; //$NON-NLS-1$
+			}
+			if (name.equals("html") || name.equals("head")) { //$NON-NLS-1$ //$NON-NLS-2$
+				return;
+			}
+			if (name.equals(BODY)) {
+				leaveHead();
+				return;
+			}
+			if (inHead && HEAD_ELEMENTS.contains(name)) {
+				skipElement(name, selfClosing);
+				return;
+			}
+			leaveHead();
+			if (RAW_TEXT_ELEMENTS.contains(name)) {
+				handler.startElement("", name, name, atts); //$NON-NLS-1$
+				if (!selfClosing) {
+					readRawText(name, false);
+				}
+				handler.endElement("", name, name); //$NON-NLS-1$
+				return;
+			}
+			closeImpliedElements(name);
+			if (VOID_ELEMENTS.contains(name) || selfClosing) {
+				handler.startElement("", name, name, atts); //$NON-NLS-1$
+				handler.endElement("", name, name); //$NON-NLS-1$
+				return;
+			}
+			push(name, atts);
+			if (RCDATA_ELEMENTS.contains(name)) {
+				readRawText(name, true);
+				flushText();
+				pop();
+			}
+		}
+
+		/**
+		 * Closes open elements that cannot contain an element having the given name.
+		 */
+		private void closeImpliedElements(String name) throws SAXException {
+			if (PARAGRAPH_CLOSING_ELEMENTS.contains(name)) {
+				closeInScope("p", SCOPE_ELEMENTS); //$NON-NLS-1$
+			}
+			if (HEADING_ELEMENTS.contains(name) && HEADING_ELEMENTS.contains(currentElement())) {
+				pop();
+			} else if (name.equals("li")) { //$NON-NLS-1$
+				closeInScope("li", SCOPE_ELEMENTS); //$NON-NLS-1$
+			} else if (name.equals("dd") || name.equals("dt")) { //$NON-NLS-1$ //$NON-NLS-2$
+				closeInScope("dd", SCOPE_ELEMENTS); //$NON-NLS-1$
+				closeInScope("dt", SCOPE_ELEMENTS); //$NON-NLS-1$
+			} else if (name.equals("a")) { //$NON-NLS-1$
+				closeInScope("a", SCOPE_ELEMENTS); //$NON-NLS-1$
+			} else if (name.equals("option")) { //$NON-NLS-1$
+				if (currentElement().equals("option")) { //$NON-NLS-1$
+					pop();
+				}
+			} else if (TABLE_SECTION_ELEMENTS.contains(name)) {
+				closeTableContent(TABLE_SECTION_ELEMENTS);
+			} else if (name.equals("tr")) { //$NON-NLS-1$
+				closeTableContent(ImmutableSet.of("tr")); //$NON-NLS-1$
+				if (currentElement().equals("table")) { //$NON-NLS-1$
+					push("tbody", new AttributesImpl()); //$NON-NLS-1$
+				}
+			} else if (name.equals("td") || name.equals("th")) { //$NON-NLS-1$ //$NON-NLS-2$
+				closeTableContent(ImmutableSet.of("td", "th")); //$NON-NLS-1$ //$NON-NLS-2$
+				if (currentElement().equals("table")) { //$NON-NLS-1$
+					push("tbody", new AttributesImpl()); //$NON-NLS-1$
+				}
+				if (TABLE_SECTION_ELEMENTS.contains(currentElement())) {
+					push("tr", new AttributesImpl()); //$NON-NLS-1$
+				}
+			}
+		}
+
+		/**
+		 * Closes the innermost open element having one of the given names within the current table, along with the
+		 * elements that it contains.
+		 */
+		private void closeTableContent(Set<String> names) throws SAXException {
+			for (int index = openElements.size() - 1; index > 0; --index) {
+				String openElement = openElements.get(index);
+				if (names.contains(openElement)) {
+					popTo(index);
+					return;
+				}
+				if (TABLE_SCOPE_ELEMENTS.contains(openElement)) {
+					return;
+				}
+			}
+		}
+
+		private void endTag() throws IOException, SAXException {
+			String name = readName();
+			readAttributes(new AttributesImpl());
+			if (name.equals("head") || name.equals("html") || name.equals(BODY)) { //$NON-NLS-1$ //$NON-NLS-2$
+				return;
+			}
+			if (inHead && HEAD_ELEMENTS.contains(name)) {
+				return;
+			}
+			leaveHead();
+			if (name.equals("br")) { //$NON-NLS-1$
+				handler.startElement("", name, name, new AttributesImpl()); //$NON-NLS-1$
+				handler.endElement("", name, name); //$NON-NLS-1$
+				return;
+			}
+			if (VOID_ELEMENTS.contains(name)) {
+				return;
+			}
+			if (name.equals("p") && !isInScope(name, SCOPE_ELEMENTS)) { //$NON-NLS-1$
+				handler.startElement("", name, name, new AttributesImpl()); //$NON-NLS-1$
+				handler.endElement("", name, name); //$NON-NLS-1$
+				return;
+			}
+			for (int index = openElements.size() - 1; index > 0; --index) {
+				String openElement = openElements.get(index);
+				if (openElement.equals(name)) {
+					if (FORMATTING_ELEMENTS.contains(name)) {
+						closeFormattingElement(index);
+					} else {
+						popTo(index);
+					}
+					return;
+				}
+				if (BLOCK_ELEMENTS.contains(openElement)
+						&& (!BLOCK_ELEMENTS.contains(name) || SCOPE_ELEMENTS.contains(openElement))) {
+					return;
+				}
+			}
+		}
+
+		/**
+		 * Closes the formatting element at the given index of the open elements, reopening formatting elements that it
+		 * contains such that for example {@code <b>1<i>2</b>3</i>} results in {@code <b>1<i>2</i></b><i>3</i>}.
+		 */
+		private void closeFormattingElement(int index) throws SAXException {
+			List<String> names = new ArrayList<String>();
+			List<Attributes> attributes = new ArrayList<Attributes>();
+			for (int x = index + 1; x < openElements.size(); ++x) {
+				if (FORMATTING_ELEMENTS.contains(openElements.get(x))) {
+					names.add(openElements.get(x));
+					attributes.add(openElementAttributes.get(x));
+				}
+			}
+			popTo(index);
+			for (int x = 0; x < names.size(); ++x) {
+				push(names.get(x), attributes.get(x));
+			}
+		}
+
+		private boolean isInScope(String name, Set<String> scopeElements) {
+			for (int index = openElements.size() - 1; index > 0; --index) {
+				String openElement = openElements.get(index);
+				if (openElement.equals(name)) {
+					return true;
+				}
+				if (scopeElements.contains(openElement)) {
+					return false;
+				}
+			}
+			return false;
+		}
+
+		private void closeInScope(String name, Set<String> scopeElements) throws SAXException {
+			for (int index = openElements.size() - 1; index > 0; --index) {
+				String openElement = openElements.get(index);
+				if (openElement.equals(name)) {
+					popTo(index);
+					return;
+				}
+				if (scopeElements.contains(openElement)) {
+					return;
+				}
+			}
+		}
+
+		private String currentElement() {
+			return openElements.get(openElements.size() - 1);
+		}
+
+		private void push(String name, Attributes atts) throws SAXException {
+			handler.startElement("", name, name, atts); //$NON-NLS-1$
+			openElements.add(name);
+			openElementAttributes.add(atts);
+		}
+
+		private void pop() throws SAXException {
+			String name = openElements.remove(openElements.size() - 1);
+			openElementAttributes.remove(openElementAttributes.size() - 1);
+			handler.endElement("", name, name); //$NON-NLS-1$
+		}
+
+		private void popTo(int index) throws SAXException {
+			while (openElements.size() > index) {
+				pop();
+			}
+		}
+
+		private void markupDeclaration() throws IOException, SAXException {
+			if (peek() == '-') {
+				read();
+				if (peek() == '-') {
+					read();
+					flushText();
+					skipTo("-->"); //$NON-NLS-1$
+					return;
+				}
+			} else if (peek() == '[') {
+				String marker = "[CDATA["; //$NON-NLS-1$
+				int index = 0;
+				while (index < marker.length() && peek() == marker.charAt(index)) {
+					read();
+					++index;
+				}
+				if (index == marker.length()) {
+					for (int c = read(); c != -1; c = read()) {
+						appendText((char) c);
+						if (c == '>' && text.length() >= 3 && text.substring(text.length() - 3).equals("]]>")) { //$NON-NLS-1$
+							text.setLength(text.length() - 3);
+							break;
+						}
+					}
+					return;
+				}
+			}
+			skipTo(">"); //$NON-NLS-1$
+		}
+
+		/**
+		 * Skips an element of the head of the document, including its content.
+		 */
+		private void skipElement(String name, boolean selfClosing) throws IOException {
+			if (!selfClosing && (RAW_TEXT_ELEMENTS.contains(name) || RCDATA_ELEMENTS.contains(name))) {
+				int length = text.length();
+				readRawText(name, false);
+				text.setLength(length);
+			}
+		}
+
+		/**
+		 * Reads the content of an element up to its end tag, which is consumed.
+		 *
+		 * @param decode
+		 *            true if the content should be added to the text, decoding character references
+		 */
+		private void readRawText(String name, boolean decode) throws IOException {
+			for (int c = read(); c != -1; c = read()) {
+				if (c == '<' && peek() == '/') {
+					read();
+					int index = 0;
+					while (index < name.length() && Character.toLowerCase(peek()) == name.charAt(index)) {
+						read();
+						++index;
+					}
+					int next = peek();
+					if (index == name.length() && (next == '>' || next == '/' || isWhitespace(next) || next == -1)) {
+						skipTo(">"); //$NON-NLS-1$
+						return;
+					}
+					if (decode) {
+						text.append("</").append(name, 0, index); //$NON-NLS-1$
+					}
+				} else if (decode) {
+					if (c == '&') {
+						appendText(readCharacterReference(false));
+					} else {
+						appendText((char) c);
+					}
+				}
+			}
+		}
+
+		private String readName() throws IOException {
+			StringBuilder name = new StringBuilder();
+			for (int c = peek(); c != -1 && c != '>' && c != '/' && !isWhitespace(c); c = peek()) {
+				name.append(Character.toLowerCase((char) read()));
+			}
+			return name.toString();
+		}
+
+		/**
+		 * Reads the attributes of a tag up to and including the end of the tag.
+		 *
+		 * @return true if the tag is self-closing
+		 */
+		private boolean readAttributes(AttributesImpl atts) throws IOException {
+			boolean selfClosing = false;
+			for (int c = read(); c != -1 && c != '>'; c = read()) {
+				if (isWhitespace(c)) {
+					continue;
+				}
+				if (c == '/') {
+					selfClosing = peek() == '>';
+					continue;
+				}
+				selfClosing = false;
+				StringBuilder name = new StringBuilder();
+				name.append(Character.toLowerCase((char) c));
+				for (int next = peek(); next != -1 && next != '>' && next != '/' && next != '='
+						&& !isWhitespace(next); next = peek()) {
+					name.append(Character.toLowerCase((char) read()));
+				}
+				skipWhitespace();
+				String value = ""; //$NON-NLS-1$
+				if (peek() == '=') {
+					read();
+					skipWhitespace();
+					value = readAttributeValue();
+				}
+				String attributeName = name.toString();
+				int index = Html.indexOf(atts, attributeName);
+				if (index == -1) {
+					atts.addAttribute("", attributeName, attributeName, "CDATA", value); //$NON-NLS-1$ //$NON-NLS-2$
+				}
+			}
+			return selfClosing;
+		}
+
+		private String readAttributeValue() throws IOException {
+			StringBuilder value = new StringBuilder();
+			int quote = peek();
+			if (quote == '"' || quote == '\'') {
+				read();
+				for (int c = read(); c != -1 && c != quote; c = read()) {
+					if (c == '&') {
+						value.append(readCharacterReference(true));
+					} else {
+						value.append((char) c);
+					}
+				}
+			} else {
+				for (int c = peek(); c != -1 && c != '>' && !isWhitespace(c); c = peek()) {
+					read();
+					if (c == '&') {
+						value.append(readCharacterReference(true));
+					} else {
+						value.append((char) c);
+					}
+				}
+			}
+			return value.toString();
+		}
+
+		/**
+		 * Reads a character reference following an ampersand.
+		 *
+		 * @param inAttribute
+		 *            true if the reference is part of an attribute value
+		 * @return the referenced characters, or the characters that were read if they are not a character reference
+		 */
+		private String readCharacterReference(boolean inAttribute) throws IOException {
+			StringBuilder reference = new StringBuilder();
+			if (peek() == '#') {
+				read();
+				boolean hex = peek() == 'x' || peek() == 'X';
+				if (hex) {
+					reference.append((char) read());
+				}
+				StringBuilder digits = new StringBuilder();
+				for (int c = peek(); c != -1 && Character.digit(c, hex ? 16 : 10) != -1
+						&& digits.length() < MAX_ENTITY_NAME_LENGTH; c = peek()) {
+					digits.append((char) read());
+				}
+				if (digits.length() == 0) {
+					return "&#" + reference; //$NON-NLS-1$
+				}
+				if (peek() == ';') {
+					read();
+				}
+				int codePoint;
+				try {
+					codePoint = Integer.parseInt(digits.toString(), hex ? 16 : 10);
+				} catch (NumberFormatException e) {
+					codePoint = -1;
+				}
+				if (codePoint <= 0 || codePoint > Character.MAX_CODE_POINT
+						|| (codePoint >= Character.MIN_SURROGATE && codePoint <= Character.MAX_SURROGATE)) {
+					return "\uFFFD"; //$NON-NLS-1$
+				}
+				return new String(Character.toChars(codePoint));
+			}
+			for (int c = peek(); c != -1 && Character.isLetterOrDigit(c) && reference.length() < MAX_ENTITY_NAME_LENGTH; c = peek()) {
+				reference.append((char) read());
+			}
+			String name = reference.toString();
+			if (peek() == ';' && Entities.isNamedEntity(name)) {
+				read();
+				return String.valueOf(Entities.getCharacterByName(name));
+			}
+			if (!inAttribute) {
+				// a reference without a terminating semicolon may be a prefix of the name
+				for (int length = name.length(); length > 0; --length) {
+					String prefix = name.substring(0, length);
+					if (Entities.isBaseNamedEntity(prefix)) {
+						return Entities.getCharacterByName(prefix) + name.substring(length);
+					}
+				}
+			}
+			return '&' + name;
+		}
+
+		/**
+		 * Ends the head of the document, passing on text that was read.
+		 */
+		private void leaveHead() throws SAXException {
+			flushText();
+			inHead = false;
+		}
+
+		private void appendText(char c) {
+			text.append(c);
+		}
+
+		private void appendText(String s) {
+			text.append(s);
+		}
+
+		private void flushText() throws SAXException {
+			if (text.length() == 0) {
+				return;
+			}
+			if (inHead) {
+				if (isWhitespace(text)) {
+					text.setLength(0);
+					return;
+				}
+				inHead = false;
+			}
+			char[] characters = new char[text.length()];
+			text.getChars(0, text.length(), characters, 0);
+			text.setLength(0);
+			handler.characters(characters, 0, characters.length);
+		}
+
+		private void skipTo(String terminator) throws IOException {
+			int matched = 0;
+			for (int c = read(); c != -1; c = read()) {
+				if (c == terminator.charAt(matched)) {
+					if (++matched == terminator.length()) {
+						return;
+					}
+				} else {
+					matched = c == terminator.charAt(0) ? 1 : 0;
+				}
+			}
+		}
+
+		private void skipWhitespace() throws IOException {
+			while (isWhitespace(peek())) {
+				read();
+			}
+		}
+
+		private int read() throws IOException {
+			if (position == limit && !fill()) {
+				return -1;
+			}
+			return buffer[position++];
+		}
+
+		private int peek() throws IOException {
+			if (position == limit && !fill()) {
+				return -1;
+			}
+			return buffer[position];
+		}
+
+		private boolean fill() throws IOException {
+			int count = reader.read(buffer);
+			while (count == 0) {
+				count = reader.read(buffer);
+			}
+			if (count == -1) {
+				return false;
+			}
+			position = 0;
+			limit = count;
+			return true;
+		}
+
+		private static boolean isLetter(int c) {
+			return (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z');
+		}
+
+		private static boolean isWhitespace(int c) {
+			return c == ' ' || c == '\t' || c == '\n' || c == '\r' || c == '\f';
+		}
+
+		private static boolean isWhitespace(CharSequence s) {
+			for (int x = 0; x < s.length(); ++x) {
+				if (!isWhitespace(s.charAt(x))) {
+					return false;
+				}
+			}
+			return true;
+		}
+	}
+
+	/**
+	 * Normalizes whitespace of text outside of preformatted elements, in the same way as text nodes of a document tree
+	 * are emitted by the {@link HtmlParser}.
+	 */
+	private static class TextNormalizingFilter extends XMLFilterImpl {
+
+		private int preformattedDepth;
+
+		TextNormalizingFilter(ContentHandler contentHandler) {
+			setContentHandler(contentHandler);
+		}
+
+		@Override
+		public void startElement(String uri, String localName, String qName, Attributes atts) throws SAXException {
+			if (preformattedDepth > 0 || localName.equals("pre")) { //$NON-NLS-1$
+				++preformattedDepth;
+			}
+			super.startElement(uri, localName, qName, atts);
+		}
+
+		@Override
+		public void endElement(String uri, String localName, String qName) throws SAXException {
+			if (preformattedDepth > 0) {
+				--preformattedDepth;
+			}
+			super.endElement(uri, localName, qName);
+		}
+
+		@Override
+		public void characters(char[] ch, int start, int length) throws SAXException {
+			if (preformattedDepth > 0) {
+				super.characters(ch, start, length);
+			} else {
+				String text = StringUtil.normaliseWhitespace(new String(ch, start, length));
+				super.characters(text.toCharArray(), 0, text.length());
+			}
+		}
+	}
+}
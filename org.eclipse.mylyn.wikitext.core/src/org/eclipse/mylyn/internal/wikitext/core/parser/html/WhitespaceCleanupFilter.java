@@ -0,0 +1,279 @@
+/*******************************************************************************
+ * Copyright (c) 2014 Tasktop Technologies and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     David Green - initial API and implementation
+ *******************************************************************************/
+
+package org.eclipse.mylyn.internal.wikitext.core.parser.html;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+import org.xml.sax.Attributes;
+import org.xml.sax.ContentHandler;
+import org.xml.sax.SAXException;
+import org.xml.sax.helpers.AttributesImpl;
+import org.xml.sax.helpers.XMLFilterImpl;
+
+import com.google.common.collect.ImmutableSet;
+
+/**
+ * A streaming implementation of the {@link WhitespaceCleanupProcessor}. The start of an element is delayed until its
+ * first child is seen, so that leading whitespace of the element's text can be moved before the element. Trailing
+ * whitespace is moved after the element when it ends, where it becomes text of the parent element. Adjacent text is
+ * passed on as a single event.
+ *
+ * @author David Green
+ */
+class WhitespaceCleanupFilter extends XMLFilterImpl {
+
+	private static final Set<String> CHILD_TAGS = ImmutableSet.of("li", "th", "tr", "td"); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$ //$NON-NLS-4$
+
+	private static class ElementState {
+
+		final String uri;
+
+		final String localName;
+
+		final String qName;
+
+		final Attributes atts;
+
+		final boolean root;
+
+		final boolean preserveWhitespace;
+
+		/**
+		 * indicates if the element is the first child of its parent
+		 */
+		final boolean firstChild;
+
+		boolean started;
+
+		boolean hasChildren;
+
+		/**
+		 * the name of the last child element, if it is not followed by text
+		 */
+		String lastChildElementName;
+
+		/**
+		 * whitespace moved out of the element, to be added to the text of the parent element when the element ends
+		 */
+		final StringBuilder movedText = new StringBuilder();
+
+		ElementState(ElementState parent, String uri, String localName, String qName, Attributes atts) {
+			this.uri = uri;
+			this.localName = localName;
+			this.qName = qName;
+			this.atts = new AttributesImpl(atts);
+			root = parent == null || localName.equals("body") || localName.equals("html"); //$NON-NLS-1$ //$NON-NLS-2$
+			preserveWhitespace = (parent != null && parent.preserveWhitespace) || localName.equals("pre") //$NON-NLS-1$
+					|| localName.equals("code"); //$NON-NLS-1$
+			firstChild = parent == null || !parent.hasChildren;
+		}
+	}
+
+	private final List<ElementState> elements = new ArrayList<ElementState>();
+
+	/**
+	 * text of the current element that has not been passed on
+	 */
+	private final StringBuilder text = new StringBuilder();
+
+	/**
+	 * the length of the text at the start of {@link #text} that was moved out of the preceding element
+	 */
+	private int movedTextLength;
+
+	/**
+	 * text that was processed and is passed on as a single event before the next element event
+	 */
+	private final StringBuilder outputText = new StringBuilder();
+
+	WhitespaceCleanupFilter(ContentHandler contentHandler) {
+		setContentHandler(contentHandler);
+	}
+
+	@Override
+	public void startElement(String uri, String localName, String qName, Attributes atts) throws SAXException {
+		ElementState parent = currentElement();
+		if (parent != null) {
+			processText(parent, localName, false);
+		}
+		ElementState element = new ElementState(parent, uri, localName, qName, atts);
+		elements.add(element);
+		if (parent != null) {
+			parent.hasChildren = true;
+			parent.lastChildElementName = localName;
+		}
+		if (element.root || element.preserveWhitespace) {
+			start(element);
+		}
+	}
+
+	@Override
+	public void endElement(String uri, String localName, String qName) throws SAXException {
+		ElementState element = currentElement();
+		processText(element, null, true);
+		start(element);
+		flushOutputText();
+		super.endElement(element.uri, element.localName, element.qName);
+		elements.remove(elements.size() - 1);
+
+		if (!element.root) {
+			text.append(element.movedText);
+			movedTextLength = text.length();
+		}
+	}
+
+	@Override
+	public void characters(char[] ch, int start, int length) throws SAXException {
+		text.append(ch, start, length);
+	}
+
+	@Override
+	public void ignorableWhitespace(char[] ch, int start, int length) throws SAXException {
+		text.append(ch, start, length);
+	}
+
+	@Override
+	public void endDocument() throws SAXException {
+		text.setLength(0);
+		movedTextLength = 0;
+		flushOutputText();
+		super.endDocument();
+	}
+
+	private ElementState currentElement() {
+		return elements.isEmpty() ? null : elements.get(elements.size() - 1);
+	}
+
+	/**
+	 * Passes on the text of the given element that was seen since its last child, moving leading or trailing
+	 * whitespace out of the element.
+	 *
+	 * @param element
+	 *            the element containing the text
+	 * @param nextElementName
+	 *            the name of the element following the text, or null if the element is closing
+	 * @param closing
+	 *            true if the element is closing
+	 */
+	private void processText(ElementState element, String nextElementName, boolean closing) throws SAXException {
+		String content = text.toString();
+		int movedLength = movedTextLength;
+		text.setLength(0);
+		movedTextLength = 0;
+		if (content.length() == 0) {
+			return;
+		}
+		if (element.preserveWhitespace) {
+			start(element);
+			emit(content);
+			return;
+		}
+		if (!element.hasChildren) {
+			int nonWhitespaceIndex = firstIndexOfNonWhitespace(content);
+			if (nonWhitespaceIndex == -1) {
+				if (!element.root) {
+					element.movedText.append(content);
+				}
+				return;
+			}
+			if (nonWhitespaceIndex > 0) {
+				if (!element.root && !isFirstContentOfRoot(element)) {
+					// emitted before the elements that have not yet started
+					emit(content.substring(0, nonWhitespaceIndex));
+				}
+				content = content.substring(nonWhitespaceIndex);
+			}
+			element.hasChildren = true;
+		}
+		start(element);
+		if (closing) {
+			int lastNonWhitespaceIndex = lastIndexOfNonWhitespace(content);
+			if (lastNonWhitespaceIndex < content.length() - 1) {
+				element.movedText.append(content.substring(lastNonWhitespaceIndex + 1));
+				content = content.substring(0, lastNonWhitespaceIndex + 1);
+			}
+		} else if (element.lastChildElementName != null && element.lastChildElementName.equals(nextElementName)
+				&& CHILD_TAGS.contains(nextElementName)
+				&& firstIndexOfNonWhitespace(content.substring(movedLength)) == -1) {
+			// whitespace between elements such as list items is removed
+			content = content.substring(0, movedLength);
+		}
+		emit(content);
+		element.lastChildElementName = null;
+	}
+
+	/**
+	 * Indicates if the given element and its ancestors that have not yet started form the first content of a root
+	 * element, in which case whitespace moved before them is removed.
+	 */
+	private boolean isFirstContentOfRoot(ElementState element) {
+		int index = elements.indexOf(element);
+		while (index > 0 && !elements.get(index - 1).started) {
+			--index;
+		}
+		return index > 0 && elements.get(index).firstChild && elements.get(index - 1).root;
+	}
+
+	/**
+	 * Passes on the start of the given element and of its ancestors that have not yet started.
+	 */
+	private void start(ElementState element) throws SAXException {
+		if (element.started) {
+			return;
+		}
+		int index = elements.indexOf(element);
+		while (index > 0 && !elements.get(index - 1).started) {
+			--index;
+		}
+		flushOutputText();
+		for (ElementState state : elements.subList(index, elements.indexOf(element) + 1)) {
+			state.started = true;
+			super.startElement(state.uri, state.localName, state.qName, state.atts);
+		}
+	}
+
+	private void emit(String content) {
+		outputText.append(content);
+	}
+
+	private void flushOutputText() throws SAXException {
+		if (outputText.length() > 0) {
+			String content = outputText.toString();
+			outputText.setLength(0);
+			super.characters(content.toCharArray(), 0, content.length());
+		}
+	}
+
+	private static int lastIndexOfNonWhitespace(String text) {
+		int i = text.length() - 1;
+		while (i > -1) {
+			if (!Character.isWhitespace(text.charAt(i))) {
+				return i;
+			}
+			--i;
+		}
+		return i;
+	}
+
+	private static int firstIndexOfNonWhitespace(String text) {
+		int i = 0;
+		while (i < text.length()) {
+			if (!Character.isWhitespace(text.charAt(i))) {
+				return i;
+			}
+			++i;
+		}
+		return -1;
+	}
+}
@@ -20,6 +20,7 @@ import org.jsoup.nodes.Document;
 import org.jsoup.nodes.Element;
 import org.jsoup.nodes.Node;
 import org.jsoup.nodes.TextNode;
+import org.xml.sax.ContentHandler;
 
 import com.google.common.collect.ImmutableSet;
 import com.google.common.collect.Lists;
@@ -180,4 +181,8 @@ class WhitespaceCleanupProcessor extends DocumentProcessor {
 		return -1;
 	}
 
+	@Override
+	public ContentHandler createFilter(ContentHandler contentHandler) {
+		return new WhitespaceCleanupFilter(contentHandler);
+	}
 }
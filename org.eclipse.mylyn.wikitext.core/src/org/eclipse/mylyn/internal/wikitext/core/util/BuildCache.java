@@ -0,0 +1,280 @@
+/*******************************************************************************
+ * Copyright (c) 2014 Tasktop Technologies and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     David Green - initial API and implementation
+ *******************************************************************************/
+
+package org.eclipse.mylyn.internal.wikitext.core.util;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Properties;
+
+import com.google.common.base.Charsets;
+
+/**
+ * A persistent cache used by incremental documentation builds to determine which outputs are up to date. Each entry
+ * maps the path of a generated output to a key that is {@link #computeKey(String, List) computed} from the content
+ * of its source and the configuration used to generate it, such that an output needs to be regenerated only when
+ * its key changes. The cache is stored as a properties file, typically in the output folder. Instances are safe for
+ * use by multiple threads.
+ *
+ * @author David Green
+ */
+public class BuildCache {
+
+	/**
+	 * the name of the file in which the cache is stored within an output folder
+	 */
+	public static final String FILENAME = ".wikitext-build-cache"; //$NON-NLS-1$
+
+	private static final String KEY_VERSION = "1"; //$NON-NLS-1$
+
+	/**
+	 * the suffix of the entry that lists the additional outputs of an output
+	 */
+	private static final String OUTPUTS_SUFFIX = "#outputs"; //$NON-NLS-1$
+
+	private static final String OUTPUTS_SEPARATOR = "\n"; //$NON-NLS-1$
+
+	private final File file;
+
+	private final Properties entries = new Properties();
+
+	private boolean modified;
+
+	private int hitCount;
+
+	private int missCount;
+
+	/**
+	 * @param file
+	 *            the file in which the cache is stored
+	 */
+	public BuildCache(File file) {
+		if (file == null) {
+			throw new IllegalArgumentException();
+		}
+		this.file = file;
+	}
+
+	/**
+	 * Creates a cache that is stored in the given output folder.
+	 */
+	public static BuildCache forFolder(File outputFolder) {
+		return new BuildCache(new File(outputFolder, FILENAME));
+	}
+
+	public File getFile() {
+		return file;
+	}
+
+	/**
+	 * Loads the cache from its file. Does nothing if the file does not exist.
+	 */
+	public synchronized void load() throws IOException {
+		entries.clear();
+		modified = false;
+		if (file.exists()) {
+			InputStream in = new BufferedInputStream(new FileInputStream(file));
+			try {
+				entries.load(in);
+			} finally {
+				in.close();
+			}
+		}
+	}
+
+	/**
+	 * Saves the cache to its file if it was modified since it was {@link #load() loaded}.
+	 */
+	public synchronized void save() throws IOException {
+		if (!modified) {
+			return;
+		}
+		File parent = file.getAbsoluteFile().getParentFile();
+		if (!parent.exists() && !parent.mkdirs()) {
+			throw new IOException(String.format("Cannot create folder %s", parent)); //$NON-NLS-1$
+		}
+		OutputStream out = new BufferedOutputStream(new FileOutputStream(file));
+		try {
+			entries.store(out, "WikiText build cache"); //$NON-NLS-1$
+		} finally {
+			out.close();
+		}
+		modified = false;
+	}
+
+	/**
+	 * Indicates if the output with the given path is up to date, and counts the lookup as a cache hit or miss.
+	 *
+	 * @param path
+	 *            the path of the output, typically relative to the output folder
+	 * @param key
+	 *            the key that was {@link #computeKey(String, List) computed} for the output
+	 * @return true if the output was last generated with the given key
+	 */
+	public synchronized boolean isCurrent(String path, String key) {
+		if (key.equals(entries.getProperty(path))) {
+			++hitCount;
+			return true;
+		}
+		++missCount;
+		return false;
+	}
+
+	/**
+	 * Records that the output with the given path was generated with the given key.
+	 */
+	public synchronized void put(String path, String key) {
+		if (!key.equals(entries.put(path, key))) {
+			modified = true;
+		}
+	}
+
+	/**
+	 * Records the paths of the additional outputs that were generated along with the output with the given path, such
+	 * as the pages of a document that is split into multiple files.
+	 *
+	 * @param path
+	 *            the path of the output
+	 * @param outputPaths
+	 *            the paths of the additional outputs, typically relative to the output folder
+	 * @see #getOutputs(String)
+	 */
+	public synchronized void putOutputs(String path, Collection<String> outputPaths) {
+		String outputsKey = path + OUTPUTS_SUFFIX;
+		if (outputPaths.isEmpty()) {
+			if (entries.remove(outputsKey) != null) {
+				modified = true;
+			}
+			return;
+		}
+		StringBuilder value = new StringBuilder();
+		for (String outputPath : outputPaths) {
+			if (value.length() > 0) {
+				value.append(OUTPUTS_SEPARATOR);
+			}
+			value.append(outputPath);
+		}
+		if (!value.toString().equals(entries.put(outputsKey, value.toString()))) {
+			modified = true;
+		}
+	}
+
+	/**
+	 * Provides the paths of the additional outputs that were generated along with the output with the given path.
+	 *
+	 * @return the paths, or an empty list if there are none
+	 * @see #putOutputs(String, Collection)
+	 */
+	public synchronized List<String> getOutputs(String path) {
+		String value = entries.getProperty(path + OUTPUTS_SUFFIX);
+		if (value == null) {
+			return Collections.emptyList();
+		}
+		List<String> outputPaths = new ArrayList<String>();
+		for (String outputPath : value.split(OUTPUTS_SEPARATOR)) {
+			outputPaths.add(outputPath);
+		}
+		return outputPaths;
+	}
+
+	/**
+	 * Removes the entry for the output with the given path, including its {@link #getOutputs(String) additional
+	 * outputs}, for example when it could not be generated.
+	 */
+	public synchronized void remove(String path) {
+		if (entries.remove(path) != null) {
+			modified = true;
+		}
+		if (entries.remove(path + OUTPUTS_SUFFIX) != null) {
+			modified = true;
+		}
+	}
+
+	/**
+	 * the number of {@link #isCurrent(String, String) lookups} that found an up to date output
+	 */
+	public synchronized int getHitCount() {
+		return hitCount;
+	}
+
+	/**
+	 * the number of {@link #isCurrent(String, String) lookups} that found a missing or out of date output
+	 */
+	public synchronized int getMissCount() {
+		return missCount;
+	}
+
+	/**
+	 * Computes a cache key from the content of a source and the configuration used to generate its outputs.
+	 *
+	 * @param sourceContent
+	 *            the content of the source
+	 * @param configuration
+	 *            the values of all settings that affect the generated output, such as the markup language and the
+	 *            builder configuration
+	 * @return the key, as a hexadecimal string
+	 */
+	public static String computeKey(String sourceContent, List<String> configuration) {
+		MessageDigest digest = createDigest();
+		update(digest, KEY_VERSION);
+		for (String value : configuration) {
+			update(digest, value);
+		}
+		update(digest, sourceContent);
+		return toHex(digest.digest());
+	}
+
+	private static void update(MessageDigest digest, String value) {
+		if (value == null) {
+			digest.update((byte) 1);
+		} else {
+			digest.update((byte) 0);
+			byte[] bytes = value.getBytes(Charsets.UTF_8);
+			digest.update((byte) (bytes.length >>> 24));
+			digest.update((byte) (bytes.length >>> 16));
+			digest.update((byte) (bytes.length >>> 8));
+			digest.update((byte) bytes.length);
+			digest.update(bytes);
+		}
+	}
+
+	private static MessageDigest createDigest() {
+		try {
+			return MessageDigest.getInstance("SHA-1"); //$NON-NLS-1$
+		} catch (NoSuchAlgorithmException e) {
+			throw new IllegalStateException(e);
+		}
+	}
+
+	private static String toHex(byte[] bytes) {
+		StringBuilder buf = new StringBuilder(bytes.length * 2);
+		for (byte b : bytes) {
+			int value = b & 0xff;
+			if (value < 0x10) {
+				buf.append('0');
+			}
+			buf.append(Integer.toHexString(value));
+		}
+		return buf.toString();
+	}
+}
@@ -26,6 +26,8 @@ import java.util.logging.Logger;
 import javax.xml.parsers.DocumentBuilderFactory;
 import javax.xml.parsers.ParserConfigurationException;
 
+import org.eclipse.mylyn.wikitext.core.parser.markup.MarkupLanguage;
+import org.eclipse.mylyn.wikitext.core.validation.ValidationPass;
 import org.eclipse.mylyn.wikitext.core.validation.ValidationProblem;
 import org.eclipse.mylyn.wikitext.core.validation.ValidationRule;
 import org.w3c.dom.Document;
@@ -113,6 +115,21 @@ public class StandaloneMarkupValidator {
 		return problems;
 	}
 
+	/**
+	 * Creates a pass that validates the given markup with the rules of this validator while parsing the markup at most
+	 * once.
+	 * 
+	 * @param markupLanguage
+	 *            the markup language with which the markup is parsed
+	 * @param markup
+	 *            the content to validate
+	 * @return the validation pass
+	 * @see ValidationPass
+	 */
+	public ValidationPass createValidationPass(MarkupLanguage markupLanguage, String markup) {
+		return new ValidationPass(markupLanguage, rules, markup, 0, markup.length());
+	}
+
 	public List<ValidationRule> getRules() {
 		return rules;
 	}
@@ -0,0 +1,123 @@
+/*******************************************************************************
+ * Copyright (c) 2014 Tasktop Technologies and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     David Green - initial API and implementation
+ *******************************************************************************/
+
+package org.eclipse.mylyn.wikitext.core.parser;
+
+import org.eclipse.mylyn.wikitext.core.parser.DocumentBuilder.BlockType;
+
+import com.google.common.base.Objects;
+
+/**
+ * The region of a document occupied by a top-level block or heading, as provided by a {@link BlockStructure}. The region
+ * starts at the beginning of the line on which the block starts and extends to the start of the next region, or to the
+ * end of the document.
+ * 
+ * @see IncrementalMarkupParser
+ * @author David Green
+ * @since 2.1
+ */
+public final class BlockRegion {
+
+	private final int offset;
+
+	private final int length;
+
+	private final BlockType type;
+
+	private final int headingLevel;
+
+	private final boolean boundary;
+
+	BlockRegion(int offset, int length, BlockType type, int headingLevel, boolean boundary) {
+		this.offset = offset;
+		this.length = length;
+		this.type = type;
+		this.headingLevel = headingLevel;
+		this.boundary = boundary;
+	}
+
+	/**
+	 * the 0-based offset of the region in the document
+	 */
+	public int getOffset() {
+		return offset;
+	}
+
+	/**
+	 * the length of the region in characters
+	 */
+	public int getLength() {
+		return length;
+	}
+
+	/**
+	 * the type of the block, or null if the region is a {@link #isHeading() heading}
+	 */
+	public BlockType getType() {
+		return type;
+	}
+
+	/**
+	 * the level of the heading, or 0 if the region is not a {@link #isHeading() heading}
+	 */
+	public int getHeadingLevel() {
+		return headingLevel;
+	}
+
+	/**
+	 * indicate if the region is a heading
+	 */
+	public boolean isHeading() {
+		return type == null;
+	}
+
+	/**
+	 * indicate if parsing can start at the beginning of the region, which is not the case if the preceding block ends on
+	 * the line on which the region starts
+	 */
+	boolean isBoundary() {
+		return boundary;
+	}
+
+	BlockRegion withOffset(int offset) {
+		return new BlockRegion(offset, length, type, headingLevel, boundary);
+	}
+
+	BlockRegion withLength(int length) {
+		return new BlockRegion(offset, length, type, headingLevel, boundary);
+	}
+
+	boolean isSameKind(BlockRegion other) {
+		return type == other.type && headingLevel == other.headingLevel && boundary == other.boundary;
+	}
+
+	@Override
+	public int hashCode() {
+		return Objects.hashCode(offset, length, type, headingLevel);
+	}
+
+	@Override
+	public boolean equals(Object obj) {
+		if (obj == this) {
+			return true;
+		}
+		if (!(obj instanceof BlockRegion)) {
+			return false;
+		}
+		BlockRegion other = (BlockRegion) obj;
+		return offset == other.offset && length == other.length && isSameKind(other);
+	}
+
+	@Override
+	public String toString() {
+		return String.format("%s[%s,%s]", isHeading() ? "h" + headingLevel : type, offset, length); //$NON-NLS-1$ //$NON-NLS-2$
+	}
+}
@@ -0,0 +1,79 @@
+/*******************************************************************************
+ * Copyright (c) 2014 Tasktop Technologies and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     David Green - initial API and implementation
+ *******************************************************************************/
+
+package org.eclipse.mylyn.wikitext.core.parser;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * The block structure of a document as produced by an {@link IncrementalMarkupParser}: the {@link BlockRegion regions}
+ * of its top-level blocks and headings, together with the region of the document that was parsed to produce it.
+ * Instances are immutable.
+ * 
+ * @see IncrementalMarkupParser
+ * @author David Green
+ * @since 2.1
+ */
+public final class BlockStructure {
+
+	private final String markupContent;
+
+	private final List<BlockRegion> blocks;
+
+	private final int changedOffset;
+
+	private final int changedLength;
+
+	BlockStructure(String markupContent, List<BlockRegion> blocks, int changedOffset, int changedLength) {
+		this.markupContent = markupContent;
+		this.blocks = Collections.unmodifiableList(blocks);
+		this.changedOffset = changedOffset;
+		this.changedLength = changedLength;
+	}
+
+	/**
+	 * the markup content of the document
+	 */
+	public String getMarkupContent() {
+		return markupContent;
+	}
+
+	/**
+	 * the regions of the top-level blocks and headings of the document, in document order
+	 */
+	public List<BlockRegion> getBlocks() {
+		return blocks;
+	}
+
+	/**
+	 * the 0-based offset of the region of the document that was parsed. Blocks outside of the changed region are the
+	 * same as those of the previous structure, moved by the difference in length introduced by the edit if they follow
+	 * it.
+	 */
+	public int getChangedOffset() {
+		return changedOffset;
+	}
+
+	/**
+	 * the length of the region of the document that was parsed
+	 * 
+	 * @see #getChangedOffset()
+	 */
+	public int getChangedLength() {
+		return changedLength;
+	}
+
+	@Override
+	public String toString() {
+		return String.format("BlockStructure%s changed [%s,%s]", blocks, changedOffset, changedLength); //$NON-NLS-1$
+	}
+}
@@ -16,6 +16,7 @@ import java.io.IOException;
 
 import org.eclipse.mylyn.internal.wikitext.core.parser.html.AbstractSaxHtmlParser;
 import org.eclipse.mylyn.internal.wikitext.core.parser.html.HtmlCleaner;
+import org.eclipse.mylyn.internal.wikitext.core.parser.html.StreamingHtmlParser;
 import org.eclipse.mylyn.internal.wikitext.core.parser.html.XHtmlParser;
 import org.xml.sax.InputSource;
 import org.xml.sax.SAXException;
@@ -69,6 +70,32 @@ public class HtmlParser {
 		return new HtmlParser();
 	}
 
+	/**
+	 * Provides a parser instance that reads its input incrementally, without first building a tree of the whole
+	 * document. Streaming parsers use less memory for large documents, but repair malformed HTML using simpler rules
+	 * than the default parser.
+	 * 
+	 * @since 2.1
+	 * @see #streamingInstanceWithHtmlCleanupRules()
+	 */
+	public static HtmlParser streamingInstance() {
+		return new HtmlParser(new StreamingHtmlParser());
+	}
+
+	/**
+	 * Provides a {@link #streamingInstance() streaming parser} instance with cleanup rules that make the result more
+	 * suitable for generating wiki markup.
+	 * 
+	 * @since 2.1
+	 * @see #instanceWithHtmlCleanupRules()
+	 */
+	public static HtmlParser streamingInstanceWithHtmlCleanupRules() {
+		StreamingHtmlParser parser = new StreamingHtmlParser();
+		HtmlCleaner htmlCleaner = new HtmlCleaner();
+		htmlCleaner.configure(parser);
+		return new HtmlParser(parser);
+	}
+
 	AbstractSaxHtmlParser getDelegate() {
 		return delegate;
 	}
@@ -31,6 +31,12 @@ public class IdGenerator {
 
 	private final Set<String> anchorNames = new HashSet<String>();
 
+	/**
+	 * the last suffix appended to each template that produced a duplicate id. Since ids are never released, the
+	 * search for an unused suffix resumes from there.
+	 */
+	private final Map<String, Integer> templateSuffixes = new HashMap<String, Integer>();
+
 	private IdGenerationStrategy generationStrategy = DEFAULT_ID_GENERATION_STRATEGY;
 
 	public IdGenerator() {
@@ -80,10 +86,14 @@ public class IdGenerator {
 		} else {
 			id = type + '-' + current;
 		}
-		String template = id;
-		int suffix = 1;
-		while (!anchorNames.add(id)) {
-			id = template + (++suffix);
+		if (!anchorNames.add(id)) {
+			String template = id;
+			Integer lastSuffix = templateSuffixes.get(template);
+			int suffix = lastSuffix == null ? 1 : lastSuffix;
+			do {
+				id = template + (++suffix);
+			} while (!anchorNames.add(id));
+			templateSuffixes.put(template, suffix);
 		}
 		return id;
 	}
@@ -0,0 +1,299 @@
+/*******************************************************************************
+ * Copyright (c) 2014 Tasktop Technologies and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     David Green - initial API and implementation
+ *******************************************************************************/
+
+package org.eclipse.mylyn.wikitext.core.parser;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.eclipse.mylyn.wikitext.core.parser.builder.NoOpDocumentBuilder;
+import org.eclipse.mylyn.wikitext.core.parser.markup.AbstractMarkupLanguage;
+import org.eclipse.mylyn.wikitext.core.parser.markup.MarkupLanguage;
+
+/**
+ * A parser that maintains the {@link BlockStructure block structure} of a document as it is edited. After an edit only
+ * the part of the document affected by the edit is parsed: parsing restarts at the block boundary preceding the block
+ * containing the edit, and stops once a block boundary following the edit coincides with a boundary of the previous
+ * structure and the block that starts there is unchanged. The resulting structure reports the region that was parsed.
+ * <p>
+ * Only the structure of blocks and headings is computed; document-wide state such as generated ids is not considered.
+ * Instances are not thread-safe.
+ * </p>
+ * 
+ * @author David Green
+ * @since 2.1
+ */
+public class IncrementalMarkupParser {
+
+	private final MarkupLanguage markupLanguage;
+
+	/**
+	 * @param markupLanguage
+	 *            the markup language of the documents to parse, which is not modified
+	 */
+	public IncrementalMarkupParser(MarkupLanguage markupLanguage) {
+		this.markupLanguage = checkNotNull(markupLanguage, "Must provide a markupLanguage").clone(); //$NON-NLS-1$
+		if (this.markupLanguage instanceof AbstractMarkupLanguage) {
+			AbstractMarkupLanguage language = (AbstractMarkupLanguage) this.markupLanguage;
+			language.setFilterGenerativeContents(true);
+			language.setBlocksOnly(true);
+		}
+	}
+
+	/**
+	 * Parse the given document fully.
+	 * 
+	 * @param markupContent
+	 *            the content of the document
+	 * @return the structure of the document, of which the whole document is changed
+	 */
+	public BlockStructure parse(String markupContent) {
+		checkNotNull(markupContent, "Must provide markupContent"); //$NON-NLS-1$
+		List<BlockRegion> blocks = new ArrayList<BlockRegion>();
+		addBlocks(blocks, parseBlocks(markupContent, 0, markupContent.length()), markupContent.length());
+		return new BlockStructure(markupContent, blocks, 0, markupContent.length());
+	}
+
+	/**
+	 * Parse the document resulting from replacing a region of the document of the given structure.
+	 * 
+	 * @param previous
+	 *            the structure of the document before the edit
+	 * @param offset
+	 *            the 0-based offset of the replaced region in the document before the edit
+	 * @param length
+	 *            the length of the replaced region
+	 * @param replacement
+	 *            the text that replaces the region, which may be empty
+	 * @return the structure of the edited document
+	 */
+	public BlockStructure parse(BlockStructure previous, int offset, int length, String replacement) {
+		checkNotNull(previous, "Must provide a previous structure"); //$NON-NLS-1$
+		checkNotNull(replacement, "Must provide a replacement"); //$NON-NLS-1$
+		String previousContent = previous.getMarkupContent();
+		checkArgument(offset >= 0 && length >= 0 && offset + length <= previousContent.length(),
+				"Edit [%s,%s] is outside of the document", offset, length); //$NON-NLS-1$
+
+		String markupContent = previousContent.substring(0, offset) + replacement
+				+ previousContent.substring(offset + length);
+		int delta = replacement.length() - length;
+		List<BlockRegion> previousBlocks = previous.getBlocks();
+
+		int restartIndex = findRestartIndex(previousBlocks, offset);
+		int restartOffset = restartIndex == 0 ? 0 : previousBlocks.get(restartIndex).getOffset();
+		int firstSyncIndex = findFirstBlockAfter(previousBlocks, offset + length);
+		while (firstSyncIndex < previousBlocks.size() && !previousBlocks.get(firstSyncIndex).isBoundary()) {
+			++firstSyncIndex;
+		}
+
+		for (int groupCount = 1;; groupCount *= 2) {
+			int endIndex = firstSyncIndex;
+			for (int x = 0; x < groupCount && endIndex < previousBlocks.size(); ++x) {
+				endIndex = nextGroup(previousBlocks, endIndex);
+			}
+			int endOffset = endIndex < previousBlocks.size()
+					? previousBlocks.get(endIndex).getOffset() + delta
+					: markupContent.length();
+			List<BlockRegion> starts = parseBlocks(markupContent, restartOffset, endOffset);
+
+			for (int syncIndex = firstSyncIndex; syncIndex < endIndex; syncIndex = nextGroup(previousBlocks, syncIndex)) {
+				int startIndex = findSynchronizedStart(starts, previousBlocks, syncIndex, delta);
+				if (startIndex != -1) {
+					int syncOffset = previousBlocks.get(syncIndex).getOffset() + delta;
+					List<BlockRegion> blocks = new ArrayList<BlockRegion>(previousBlocks.size() + starts.size());
+					blocks.addAll(previousBlocks.subList(0, restartIndex));
+					addBlocks(blocks, starts.subList(0, startIndex), syncOffset);
+					for (BlockRegion block : previousBlocks.subList(syncIndex, previousBlocks.size())) {
+						blocks.add(block.withOffset(block.getOffset() + delta));
+					}
+					return new BlockStructure(markupContent, blocks, restartOffset, syncOffset - restartOffset);
+				}
+			}
+			if (endIndex == previousBlocks.size()) {
+				List<BlockRegion> blocks = new ArrayList<BlockRegion>(restartIndex + starts.size());
+				blocks.addAll(previousBlocks.subList(0, restartIndex));
+				addBlocks(blocks, starts, markupContent.length());
+				return new BlockStructure(markupContent, blocks, restartOffset, markupContent.length()
+						- restartOffset);
+			}
+		}
+	}
+
+	/**
+	 * Find the index of the first block in the group of blocks preceding the group that contains the given offset. Since
+	 * an edit may cause the line on which a block starts to continue the preceding block, that block must be parsed
+	 * again.
+	 */
+	private int findRestartIndex(List<BlockRegion> blocks, int offset) {
+		int index = findFirstBlockAfter(blocks, offset) - 1;
+		if (index <= 0) {
+			return 0;
+		}
+		int groupIndex = groupStart(blocks, index);
+		return groupIndex == 0 ? 0 : groupStart(blocks, groupIndex - 1);
+	}
+
+	/**
+	 * Find the index of the first block that starts after the given offset, or the number of blocks if there is none.
+	 */
+	private int findFirstBlockAfter(List<BlockRegion> blocks, int offset) {
+		int low = 0;
+		int high = blocks.size();
+		while (low < high) {
+			int mid = (low + high) >>> 1;
+			if (blocks.get(mid).getOffset() <= offset) {
+				low = mid + 1;
+			} else {
+				high = mid;
+			}
+		}
+		return low;
+	}
+
+	/**
+	 * Find the index of the first block of the group of blocks containing the block at the given index. A group starts
+	 * with a {@link BlockRegion#isBoundary() boundary} and includes the blocks that start on the line on which their
+	 * preceding block ends.
+	 */
+	private int groupStart(List<BlockRegion> blocks, int index) {
+		while (index > 0 && !blocks.get(index).isBoundary()) {
+			--index;
+		}
+		return index;
+	}
+
+	/**
+	 * Find the index of the first block of the group of blocks following the group that starts at the given index.
+	 */
+	private int nextGroup(List<BlockRegion> blocks, int index) {
+		do {
+			++index;
+		} while (index < blocks.size() && !blocks.get(index).isBoundary());
+		return index;
+	}
+
+	/**
+	 * Find the index of the parsed block that starts the group of blocks at the given index of the previous blocks,
+	 * provided that the group was parsed identically.
+	 * 
+	 * @return the index of the parsed block, or -1 if the group was not parsed identically
+	 */
+	private int findSynchronizedStart(List<BlockRegion> starts, List<BlockRegion> previousBlocks, int syncIndex,
+			int delta) {
+		int syncOffset = previousBlocks.get(syncIndex).getOffset() + delta;
+		int startIndex = 0;
+		while (startIndex < starts.size() && starts.get(startIndex).getOffset() < syncOffset) {
+			++startIndex;
+		}
+		int nextIndex = nextGroup(previousBlocks, syncIndex);
+		int nextOffset = nextIndex < previousBlocks.size()
+				? previousBlocks.get(nextIndex).getOffset() + delta
+				: Integer.MAX_VALUE;
+		int index = startIndex;
+		for (int x = syncIndex; x < nextIndex; ++x, ++index) {
+			if (index >= starts.size()) {
+				return -1;
+			}
+			BlockRegion start = starts.get(index);
+			if (start.getOffset() != syncOffset || !start.isSameKind(previousBlocks.get(x))) {
+				return -1;
+			}
+		}
+		if (index < starts.size() && starts.get(index).getOffset() < nextOffset) {
+			return -1;
+		}
+		return startIndex;
+	}
+
+	/**
+	 * Add regions for the given block starts, each extending to the next start or to the given end offset.
+	 */
+	private void addBlocks(List<BlockRegion> blocks, List<BlockRegion> starts, int endOffset) {
+		for (int x = 0; x < starts.size(); ++x) {
+			BlockRegion start = starts.get(x);
+			int nextOffset = x + 1 < starts.size() ? starts.get(x + 1).getOffset() : endOffset;
+			blocks.add(start.withLength(nextOffset - start.getOffset()));
+		}
+	}
+
+	/**
+	 * Parse the given region of the document as if it were a document of its own.
+	 * 
+	 * @return the starts of the top-level blocks and headings of the region, with offsets relative to the whole document
+	 *         and without a length
+	 */
+	private List<BlockRegion> parseBlocks(String markupContent, int offset, int endOffset) {
+		StructureBuilder builder = new StructureBuilder(offset);
+		new MarkupParser(markupLanguage, builder).parse(markupContent.substring(offset, endOffset), false);
+		return builder.starts;
+	}
+
+	private static class StructureBuilder extends NoOpDocumentBuilder {
+
+		private final int offset;
+
+		private final List<BlockRegion> starts = new ArrayList<BlockRegion>();
+
+		private int depth;
+
+		private int endLineOffset = -1;
+
+		StructureBuilder(int offset) {
+			this.offset = offset;
+		}
+
+		@Override
+		public void beginBlock(BlockType type, Attributes attributes) {
+			if (depth++ == 0) {
+				addStart(type, 0);
+			}
+		}
+
+		@Override
+		public void endBlock() {
+			end();
+		}
+
+		@Override
+		public void beginHeading(int level, Attributes attributes) {
+			if (depth++ == 0) {
+				addStart(null, level);
+			}
+		}
+
+		@Override
+		public void endHeading() {
+			end();
+		}
+
+		private void addStart(BlockType type, int headingLevel) {
+			int lineOffset = getLineOffset();
+			if (!starts.isEmpty()) {
+				lineOffset = Math.max(lineOffset, starts.get(starts.size() - 1).getOffset() - offset);
+			}
+			boolean boundary = starts.isEmpty() || lineOffset > endLineOffset;
+			starts.add(new BlockRegion(offset + lineOffset, 0, type, headingLevel, boundary));
+		}
+
+		private void end() {
+			if (--depth == 0) {
+				endLineOffset = getLineOffset();
+			}
+		}
+
+		private int getLineOffset() {
+			return getLocator() == null ? 0 : getLocator().getLineDocumentOffset();
+		}
+	}
+}
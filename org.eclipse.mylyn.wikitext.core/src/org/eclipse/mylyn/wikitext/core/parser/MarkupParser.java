@@ -73,8 +73,15 @@ public class MarkupParser {
 		parse(markupContent, true);
 	}
 
+	/**
+	 * Parse the content provided by the given reader. Markup languages that support it process the content as it is
+	 * read, otherwise the content is read fully before it is processed.
+	 * 
+	 * @see MarkupLanguage#processContent(MarkupParser, Reader, boolean)
+	 */
 	public void parse(Reader markupContent, boolean asDocument) throws IOException {
-		parse(readFully(markupContent), asDocument);
+		checkConfigured();
+		markupLanguage.processContent(this, markupContent, asDocument);
 	}
 
 	public void parse(String markupContent) {
@@ -82,22 +89,17 @@ public class MarkupParser {
 	}
 
 	public void parse(String markupContent, boolean asDocument) {
+		checkConfigured();
+		markupLanguage.processContent(this, markupContent, asDocument);
+	}
+
+	private void checkConfigured() {
 		if (markupLanguage == null) {
 			throw new IllegalStateException("markup language is not set"); //$NON-NLS-1$
 		}
 		if (builder == null) {
 			throw new IllegalStateException("builder is not set"); //$NON-NLS-1$
 		}
-		markupLanguage.processContent(this, markupContent, asDocument);
-	}
-
-	private String readFully(Reader reader) throws IOException {
-		StringWriter writer = new StringWriter();
-		int c;
-		while ((c = reader.read()) != -1) {
-			writer.write(c);
-		}
-		return writer.toString();
 	}
 
 	/**
@@ -0,0 +1,375 @@
+/*******************************************************************************
+ * Copyright (c) 2014 Tasktop Technologies and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     David Green - initial API and implementation
+ *******************************************************************************/
+
+package org.eclipse.mylyn.wikitext.core.parser.builder;
+
+import static org.eclipse.mylyn.wikitext.core.parser.builder.DocumentBuilderRecording.ACRONYM;
+import static org.eclipse.mylyn.wikitext.core.parser.builder.DocumentBuilderRecording.ATTRIBUTES;
+import static org.eclipse.mylyn.wikitext.core.parser.builder.DocumentBuilderRecording.ATTRIBUTES_HEADING;
+import static org.eclipse.mylyn.wikitext.core.parser.builder.DocumentBuilderRecording.ATTRIBUTES_IMAGE;
+import static org.eclipse.mylyn.wikitext.core.parser.builder.DocumentBuilderRecording.ATTRIBUTES_LINK;
+import static org.eclipse.mylyn.wikitext.core.parser.builder.DocumentBuilderRecording.ATTRIBUTES_LIST;
+import static org.eclipse.mylyn.wikitext.core.parser.builder.DocumentBuilderRecording.ATTRIBUTES_QUOTE;
+import static org.eclipse.mylyn.wikitext.core.parser.builder.DocumentBuilderRecording.ATTRIBUTES_TABLE;
+import static org.eclipse.mylyn.wikitext.core.parser.builder.DocumentBuilderRecording.ATTRIBUTES_TABLE_CELL;
+import static org.eclipse.mylyn.wikitext.core.parser.builder.DocumentBuilderRecording.ATTRIBUTES_TABLE_ROW;
+import static org.eclipse.mylyn.wikitext.core.parser.builder.DocumentBuilderRecording.BEGIN_BLOCK;
+import static org.eclipse.mylyn.wikitext.core.parser.builder.DocumentBuilderRecording.BEGIN_DOCUMENT;
+import static org.eclipse.mylyn.wikitext.core.parser.builder.DocumentBuilderRecording.BEGIN_HEADING;
+import static org.eclipse.mylyn.wikitext.core.parser.builder.DocumentBuilderRecording.BEGIN_SPAN;
+import static org.eclipse.mylyn.wikitext.core.parser.builder.DocumentBuilderRecording.CHARACTERS;
+import static org.eclipse.mylyn.wikitext.core.parser.builder.DocumentBuilderRecording.CHARACTERS_UNESCAPED;
+import static org.eclipse.mylyn.wikitext.core.parser.builder.DocumentBuilderRecording.END_BLOCK;
+import static org.eclipse.mylyn.wikitext.core.parser.builder.DocumentBuilderRecording.END_DOCUMENT;
+import static org.eclipse.mylyn.wikitext.core.parser.builder.DocumentBuilderRecording.END_HEADING;
+import static org.eclipse.mylyn.wikitext.core.parser.builder.DocumentBuilderRecording.END_SPAN;
+import static org.eclipse.mylyn.wikitext.core.parser.builder.DocumentBuilderRecording.ENTITY_REFERENCE;
+import static org.eclipse.mylyn.wikitext.core.parser.builder.DocumentBuilderRecording.IMAGE;
+import static org.eclipse.mylyn.wikitext.core.parser.builder.DocumentBuilderRecording.IMAGE_LINK;
+import static org.eclipse.mylyn.wikitext.core.parser.builder.DocumentBuilderRecording.LINE_BREAK;
+import static org.eclipse.mylyn.wikitext.core.parser.builder.DocumentBuilderRecording.LINK;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.eclipse.mylyn.wikitext.core.parser.Attributes;
+import org.eclipse.mylyn.wikitext.core.parser.DocumentBuilder;
+import org.eclipse.mylyn.wikitext.core.parser.HeadingAttributes;
+import org.eclipse.mylyn.wikitext.core.parser.ImageAttributes;
+import org.eclipse.mylyn.wikitext.core.parser.LinkAttributes;
+import org.eclipse.mylyn.wikitext.core.parser.ListAttributes;
+import org.eclipse.mylyn.wikitext.core.parser.QuoteAttributes;
+import org.eclipse.mylyn.wikitext.core.parser.TableAttributes;
+import org.eclipse.mylyn.wikitext.core.parser.TableCellAttributes;
+import org.eclipse.mylyn.wikitext.core.parser.TableRowAttributes;
+
+/**
+ * A {@link DocumentBuilder} that records its events in a compact binary form, which can be
+ * {@link DocumentBuilderRecording#applyTo(DocumentBuilder) replayed} on any other builder. Unlike the
+ * {@link EventDocumentBuilder}, which creates an object for every event, events are encoded into a single buffer:
+ * strings are stored once and referenced by index, and equal attributes are stored once in a table. Recordings are
+ * suitable for caching the result of parsing markup, so that it can be rendered to several outputs without parsing
+ * it again.
+ * <p>
+ * Attributes are recorded using the attribute types defined by WikiText. Attributes of other types are recorded as
+ * {@link Attributes}.
+ * </p>
+ *
+ * @author David Green
+ * @since 2.1
+ * @see DocumentBuilderRecording
+ */
+public class BinaryRecordingDocumentBuilder extends DocumentBuilder {
+
+	private final Encoder events = new Encoder();
+
+	private final Encoder attributeData = new Encoder();
+
+	private final List<String> strings = new ArrayList<String>();
+
+	private final Map<String, Integer> stringIndexes = new HashMap<String, Integer>();
+
+	private final Map<String, Integer> attributeIndexes = new HashMap<String, Integer>();
+
+	private final Encoder attributeEncoder = new Encoder();
+
+	/**
+	 * Provides the events that were recorded by this builder.
+	 *
+	 * @return the recording
+	 */
+	public DocumentBuilderRecording getRecording() {
+		return new DocumentBuilderRecording(strings.toArray(new String[strings.size()]), attributeIndexes.size(),
+				attributeData.toByteArray(), events.toByteArray());
+	}
+
+	@Override
+	public void beginDocument() {
+		events.write(BEGIN_DOCUMENT);
+	}
+
+	@Override
+	public void endDocument() {
+		events.write(END_DOCUMENT);
+	}
+
+	@Override
+	public void beginBlock(BlockType type, Attributes attributes) {
+		events.write(BEGIN_BLOCK);
+		events.writeVarInt(type.ordinal());
+		writeAttributes(attributes);
+	}
+
+	@Override
+	public void endBlock() {
+		events.write(END_BLOCK);
+	}
+
+	@Override
+	public void beginSpan(SpanType type, Attributes attributes) {
+		events.write(BEGIN_SPAN);
+		events.writeVarInt(type.ordinal());
+		writeAttributes(attributes);
+	}
+
+	@Override
+	public void endSpan() {
+		events.write(END_SPAN);
+	}
+
+	@Override
+	public void beginHeading(int level, Attributes attributes) {
+		events.write(BEGIN_HEADING);
+		events.writeVarInt(level);
+		writeAttributes(attributes);
+	}
+
+	@Override
+	public void endHeading() {
+		events.write(END_HEADING);
+	}
+
+	@Override
+	public void characters(String text) {
+		events.write(CHARACTERS);
+		writeString(events, text);
+	}
+
+	@Override
+	public void entityReference(String entity) {
+		events.write(ENTITY_REFERENCE);
+		writeString(events, entity);
+	}
+
+	@Override
+	public void image(Attributes attributes, String url) {
+		events.write(IMAGE);
+		writeAttributes(attributes);
+		writeString(events, url);
+	}
+
+	@Override
+	public void link(Attributes attributes, String hrefOrHashName, String text) {
+		events.write(LINK);
+		writeAttributes(attributes);
+		writeString(events, hrefOrHashName);
+		writeString(events, text);
+	}
+
+	@Override
+	public void imageLink(Attributes linkAttributes, Attributes imageAttributes, String href, String imageUrl) {
+		events.write(IMAGE_LINK);
+		writeAttributes(linkAttributes);
+		writeAttributes(imageAttributes);
+		writeString(events, href);
+		writeString(events, imageUrl);
+	}
+
+	@Override
+	public void acronym(String text, String definition) {
+		events.write(ACRONYM);
+		writeString(events, text);
+		writeString(events, definition);
+	}
+
+	@Override
+	public void lineBreak() {
+		events.write(LINE_BREAK);
+	}
+
+	@Override
+	public void charactersUnescaped(String literal) {
+		events.write(CHARACTERS_UNESCAPED);
+		writeString(events, literal);
+	}
+
+	/**
+	 * Writes a reference to the given string, adding it to the string table if needed. References are offset by one
+	 * so that zero can refer to {@code null}.
+	 */
+	private void writeString(Encoder encoder, String value) {
+		if (value == null) {
+			encoder.writeVarInt(0);
+			return;
+		}
+		Integer index = stringIndexes.get(value);
+		if (index == null) {
+			index = strings.size();
+			strings.add(value);
+			stringIndexes.put(value, index);
+		}
+		encoder.writeVarInt(index + 1);
+	}
+
+	/**
+	 * Writes a reference to the given attributes, adding them to the attribute table if no equal attributes were
+	 * recorded. References are offset by one so that zero can refer to {@code null}.
+	 */
+	private void writeAttributes(Attributes attributes) {
+		if (attributes == null) {
+			events.writeVarInt(0);
+			return;
+		}
+		attributeEncoder.reset();
+		encodeAttributes(attributeEncoder, attributes);
+
+		String key = attributeEncoder.toKey();
+		Integer index = attributeIndexes.get(key);
+		if (index == null) {
+			index = attributeIndexes.size();
+			attributeIndexes.put(key, index);
+			attributeData.write(attributeEncoder);
+		}
+		events.writeVarInt(index + 1);
+	}
+
+	private void encodeAttributes(Encoder encoder, Attributes attributes) {
+		if (attributes instanceof HeadingAttributes) {
+			encoder.write(ATTRIBUTES_HEADING);
+		} else if (attributes instanceof ImageAttributes) {
+			encoder.write(ATTRIBUTES_IMAGE);
+		} else if (attributes instanceof LinkAttributes) {
+			encoder.write(ATTRIBUTES_LINK);
+		} else if (attributes instanceof ListAttributes) {
+			encoder.write(ATTRIBUTES_LIST);
+		} else if (attributes instanceof QuoteAttributes) {
+			encoder.write(ATTRIBUTES_QUOTE);
+		} else if (attributes instanceof TableAttributes) {
+			encoder.write(ATTRIBUTES_TABLE);
+		} else if (attributes instanceof TableCellAttributes) {
+			encoder.write(ATTRIBUTES_TABLE_CELL);
+		} else if (attributes instanceof TableRowAttributes) {
+			encoder.write(ATTRIBUTES_TABLE_ROW);
+		} else {
+			encoder.write(ATTRIBUTES);
+		}
+		writeString(encoder, attributes.getCssClass());
+		writeString(encoder, attributes.getId());
+		writeString(encoder, attributes.getCssStyle());
+		writeString(encoder, attributes.getLanguage());
+		writeString(encoder, attributes.getTitle());
+
+		if (attributes instanceof HeadingAttributes) {
+			encoder.writeVarInt(((HeadingAttributes) attributes).isOmitFromTableOfContents() ? 1 : 0);
+		} else if (attributes instanceof ImageAttributes) {
+			ImageAttributes imageAttributes = (ImageAttributes) attributes;
+			encoder.writeSignedVarInt(imageAttributes.getWidth());
+			encoder.writeVarInt(imageAttributes.isWidthPercentage() ? 1 : 0);
+			encoder.writeSignedVarInt(imageAttributes.getHeight());
+			encoder.writeVarInt(imageAttributes.isHeightPercentage() ? 1 : 0);
+			encoder.writeSignedVarInt(imageAttributes.getBorder());
+			encoder.writeVarInt(imageAttributes.getAlign() == null ? 0 : imageAttributes.getAlign().ordinal() + 1);
+			writeString(encoder, imageAttributes.getAlt());
+		} else if (attributes instanceof LinkAttributes) {
+			LinkAttributes linkAttributes = (LinkAttributes) attributes;
+			writeString(encoder, linkAttributes.getTarget());
+			writeString(encoder, linkAttributes.getRel());
+			writeString(encoder, linkAttributes.getHref());
+		} else if (attributes instanceof ListAttributes) {
+			writeString(encoder, ((ListAttributes) attributes).getStart());
+		} else if (attributes instanceof QuoteAttributes) {
+			writeString(encoder, ((QuoteAttributes) attributes).getCitation());
+		} else if (attributes instanceof TableAttributes) {
+			TableAttributes tableAttributes = (TableAttributes) attributes;
+			writeString(encoder, tableAttributes.getBorder());
+			writeString(encoder, tableAttributes.getSummary());
+			writeString(encoder, tableAttributes.getWidth());
+			writeString(encoder, tableAttributes.getFrame());
+			writeString(encoder, tableAttributes.getRules());
+			writeString(encoder, tableAttributes.getCellspacing());
+			writeString(encoder, tableAttributes.getCellpadding());
+			writeString(encoder, tableAttributes.getBgcolor());
+		} else if (attributes instanceof TableCellAttributes) {
+			TableCellAttributes cellAttributes = (TableCellAttributes) attributes;
+			writeString(encoder, cellAttributes.getBgcolor());
+			writeString(encoder, cellAttributes.getAlign());
+			writeString(encoder, cellAttributes.getValign());
+			writeString(encoder, cellAttributes.getRowspan());
+			writeString(encoder, cellAttributes.getColspan());
+		} else if (attributes instanceof TableRowAttributes) {
+			TableRowAttributes rowAttributes = (TableRowAttributes) attributes;
+			writeString(encoder, rowAttributes.getBgcolor());
+			writeString(encoder, rowAttributes.getAlign());
+			writeString(encoder, rowAttributes.getValign());
+		}
+	}
+
+	/**
+	 * A growable byte buffer with support for variable-length integers.
+	 */
+	static class Encoder {
+
+		private byte[] bytes = new byte[256];
+
+		private int size;
+
+		void write(int b) {
+			ensureCapacity(size + 1);
+			bytes[size++] = (byte) b;
+		}
+
+		void write(Encoder other) {
+			ensureCapacity(size + other.size);
+			System.arraycopy(other.bytes, 0, bytes, size, other.size);
+			size += other.size;
+		}
+
+		/**
+		 * Writes a non-negative integer using seven bits per byte, with the high bit of each byte indicating that more
+		 * bytes follow.
+		 */
+		void writeVarInt(int value) {
+			while ((value & ~0x7F) != 0) {
+				write((value & 0x7F) | 0x80);
+				value >>>= 7;
+			}
+			write(value);
+		}
+
+		/**
+		 * Writes an integer that may be negative, mapping small negative values to small unsigned values.
+		 */
+		void writeSignedVarInt(int value) {
+			writeVarInt((value << 1) ^ (value >> 31));
+		}
+
+		void reset() {
+			size = 0;
+		}
+
+		byte[] toByteArray() {
+			byte[] copy = new byte[size];
+			System.arraycopy(bytes, 0, copy, 0, size);
+			return copy;
+		}
+
+		/**
+		 * Provides a string having one character per byte of this buffer, for use as a key in a map.
+		 */
+		String toKey() {
+			char[] key = new char[size];
+			for (int x = 0; x < size; ++x) {
+				key[x] = (char) (bytes[x] & 0xFF);
+			}
+			return new String(key);
+		}
+
+		private void ensureCapacity(int capacity) {
+			if (capacity > bytes.length) {
+				byte[] newBytes = new byte[Math.max(capacity, bytes.length * 2)];
+				System.arraycopy(bytes, 0, newBytes, 0, size);
+				bytes = newBytes;
+			}
+		}
+	}
+}
@@ -0,0 +1,421 @@
+/*******************************************************************************
+ * Copyright (c) 2014 Tasktop Technologies and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     David Green - initial API and implementation
+ *******************************************************************************/
+
+package org.eclipse.mylyn.wikitext.core.parser.builder;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+
+import org.eclipse.mylyn.wikitext.core.parser.Attributes;
+import org.eclipse.mylyn.wikitext.core.parser.DocumentBuilder;
+import org.eclipse.mylyn.wikitext.core.parser.DocumentBuilder.BlockType;
+import org.eclipse.mylyn.wikitext.core.parser.DocumentBuilder.SpanType;
+import org.eclipse.mylyn.wikitext.core.parser.HeadingAttributes;
+import org.eclipse.mylyn.wikitext.core.parser.ImageAttributes;
+import org.eclipse.mylyn.wikitext.core.parser.ImageAttributes.Align;
+import org.eclipse.mylyn.wikitext.core.parser.LinkAttributes;
+import org.eclipse.mylyn.wikitext.core.parser.ListAttributes;
+import org.eclipse.mylyn.wikitext.core.parser.QuoteAttributes;
+import org.eclipse.mylyn.wikitext.core.parser.TableAttributes;
+import org.eclipse.mylyn.wikitext.core.parser.TableCellAttributes;
+import org.eclipse.mylyn.wikitext.core.parser.TableRowAttributes;
+
+import com.google.common.base.Charsets;
+
+/**
+ * The events recorded by a {@link BinaryRecordingDocumentBuilder}, in a compact binary form. Recordings are immutable
+ * and may be {@link #applyTo(DocumentBuilder) applied} any number of times, from any thread. Recordings can be
+ * {@link #writeTo(OutputStream) written} to a stream and {@link #readFrom(InputStream) read} back, for example to
+ * cache the result of parsing markup on disk.
+ *
+ * @author David Green
+ * @since 2.1
+ * @see BinaryRecordingDocumentBuilder
+ */
+public class DocumentBuilderRecording {
+
+	static final int BEGIN_DOCUMENT = 1;
+
+	static final int END_DOCUMENT = 2;
+
+	static final int BEGIN_BLOCK = 3;
+
+	static final int END_BLOCK = 4;
+
+	static final int BEGIN_SPAN = 5;
+
+	static final int END_SPAN = 6;
+
+	static final int BEGIN_HEADING = 7;
+
+	static final int END_HEADING = 8;
+
+	static final int CHARACTERS = 9;
+
+	static final int ENTITY_REFERENCE = 10;
+
+	static final int IMAGE = 11;
+
+	static final int LINK = 12;
+
+	static final int IMAGE_LINK = 13;
+
+	static final int ACRONYM = 14;
+
+	static final int LINE_BREAK = 15;
+
+	static final int CHARACTERS_UNESCAPED = 16;
+
+	static final int ATTRIBUTES = 0;
+
+	static final int ATTRIBUTES_HEADING = 1;
+
+	static final int ATTRIBUTES_IMAGE = 2;
+
+	static final int ATTRIBUTES_LINK = 3;
+
+	static final int ATTRIBUTES_LIST = 4;
+
+	static final int ATTRIBUTES_QUOTE = 5;
+
+	static final int ATTRIBUTES_TABLE = 6;
+
+	static final int ATTRIBUTES_TABLE_CELL = 7;
+
+	static final int ATTRIBUTES_TABLE_ROW = 8;
+
+	/**
+	 * the version of the format written by {@link #writeTo(OutputStream)}, which must change whenever the encoding of
+	 * events or attributes changes, including when constants are added to {@link BlockType} or {@link SpanType}
+	 */
+	private static final int FORMAT_VERSION = 1;
+
+	private static final BlockType[] BLOCK_TYPES = BlockType.values();
+
+	private static final SpanType[] SPAN_TYPES = SpanType.values();
+
+	private static final Align[] ALIGNS = Align.values();
+
+	private final String[] strings;
+
+	private final byte[] attributeData;
+
+	/**
+	 * the recorded attributes, which are copied before they are passed to a builder
+	 */
+	private final Attributes[] attributes;
+
+	private final byte[] events;
+
+	DocumentBuilderRecording(String[] strings, int attributeCount, byte[] attributeData, byte[] events) {
+		this.strings = strings;
+		this.attributeData = attributeData;
+		this.events = events;
+		this.attributes = new Attributes[attributeCount];
+		Decoder decoder = new Decoder(attributeData);
+		for (int x = 0; x < attributeCount; ++x) {
+			attributes[x] = readAttributes(decoder);
+		}
+		if (!decoder.isAtEnd()) {
+			throw new IllegalArgumentException();
+		}
+	}
+
+	/**
+	 * Invokes the recorded events on the given {@code builder}.
+	 *
+	 * @param builder
+	 *            the builder
+	 */
+	public void applyTo(DocumentBuilder builder) {
+		checkNotNull(builder, "Must provide a builder"); //$NON-NLS-1$
+		Decoder decoder = new Decoder(events);
+		while (!decoder.isAtEnd()) {
+			int event = decoder.read();
+			switch (event) {
+			case BEGIN_DOCUMENT:
+				builder.beginDocument();
+				break;
+			case END_DOCUMENT:
+				builder.endDocument();
+				break;
+			case BEGIN_BLOCK: {
+				BlockType type = BLOCK_TYPES[decoder.readVarInt()];
+				builder.beginBlock(type, attributes(decoder));
+				break;
+			}
+			case END_BLOCK:
+				builder.endBlock();
+				break;
+			case BEGIN_SPAN: {
+				SpanType type = SPAN_TYPES[decoder.readVarInt()];
+				builder.beginSpan(type, attributes(decoder));
+				break;
+			}
+			case END_SPAN:
+				builder.endSpan();
+				break;
+			case BEGIN_HEADING: {
+				int level = decoder.readVarInt();
+				builder.beginHeading(level, attributes(decoder));
+				break;
+			}
+			case END_HEADING:
+				builder.endHeading();
+				break;
+			case CHARACTERS:
+				builder.characters(string(decoder));
+				break;
+			case ENTITY_REFERENCE:
+				builder.entityReference(string(decoder));
+				break;
+			case IMAGE: {
+				Attributes imageAttributes = attributes(decoder);
+				builder.image(imageAttributes, string(decoder));
+				break;
+			}
+			case LINK: {
+				Attributes linkAttributes = attributes(decoder);
+				String hrefOrHashName = string(decoder);
+				builder.link(linkAttributes, hrefOrHashName, string(decoder));
+				break;
+			}
+			case IMAGE_LINK: {
+				Attributes linkAttributes = attributes(decoder);
+				Attributes imageAttributes = attributes(decoder);
+				String href = string(decoder);
+				builder.imageLink(linkAttributes, imageAttributes, href, string(decoder));
+				break;
+			}
+			case ACRONYM: {
+				String text = string(decoder);
+				builder.acronym(text, string(decoder));
+				break;
+			}
+			case LINE_BREAK:
+				builder.lineBreak();
+				break;
+			case CHARACTERS_UNESCAPED:
+				builder.charactersUnescaped(string(decoder));
+				break;
+			default:
+				throw new IllegalStateException(String.valueOf(event));
+			}
+		}
+	}
+
+	/**
+	 * Provides the number of bytes used to encode the events of this recording, excluding strings and attributes.
+	 */
+	public int getEventDataLength() {
+		return events.length;
+	}
+
+	/**
+	 * Writes this recording to the given stream in a form that can be read using {@link #readFrom(InputStream)}. The
+	 * stream is not closed.
+	 *
+	 * @param out
+	 *            the stream to which the recording is written
+	 * @throws IOException
+	 *             if the stream cannot be written
+	 */
+	public void writeTo(OutputStream out) throws IOException {
+		DataOutputStream data = new DataOutputStream(out);
+		data.writeInt(FORMAT_VERSION);
+		data.writeInt(strings.length);
+		for (String string : strings) {
+			byte[] bytes = string.getBytes(Charsets.UTF_8);
+			data.writeInt(bytes.length);
+			data.write(bytes);
+		}
+		data.writeInt(attributes.length);
+		data.writeInt(attributeData.length);
+		data.write(attributeData);
+		data.writeInt(events.length);
+		data.write(events);
+		data.flush();
+	}
+
+	/**
+	 * Reads a recording that was {@link #writeTo(OutputStream) written} to the given stream. The stream is not closed.
+	 *
+	 * @param in
+	 *            the stream from which the recording is read
+	 * @return the recording
+	 * @throws IOException
+	 *             if the stream cannot be read, or if it does not contain a recording written in the format of this
+	 *             version of WikiText
+	 */
+	public static DocumentBuilderRecording readFrom(InputStream in) throws IOException {
+		DataInputStream data = new DataInputStream(in);
+		int version = data.readInt();
+		if (version != FORMAT_VERSION) {
+			throw new IOException(String.format("Unsupported recording format %s", version)); //$NON-NLS-1$
+		}
+		String[] strings = new String[data.readInt()];
+		for (int x = 0; x < strings.length; ++x) {
+			strings[x] = new String(readBytes(data), Charsets.UTF_8);
+		}
+		int attributeCount = data.readInt();
+		byte[] attributeData = readBytes(data);
+		byte[] events = readBytes(data);
+		try {
+			return new DocumentBuilderRecording(strings, attributeCount, attributeData, events);
+		} catch (RuntimeException e) {
+			throw new IOException("Malformed recording", e); //$NON-NLS-1$
+		}
+	}
+
+	private static byte[] readBytes(DataInputStream data) throws IOException {
+		byte[] bytes = new byte[data.readInt()];
+		data.readFully(bytes);
+		return bytes;
+	}
+
+	private Attributes attributes(Decoder decoder) {
+		int index = decoder.readVarInt();
+		return index == 0 ? null : attributes[index - 1].clone();
+	}
+
+	private String string(Decoder decoder) {
+		int index = decoder.readVarInt();
+		return index == 0 ? null : strings[index - 1];
+	}
+
+	private Attributes readAttributes(Decoder decoder) {
+		int type = decoder.read();
+		Attributes attributes;
+		switch (type) {
+		case ATTRIBUTES:
+			attributes = new Attributes();
+			break;
+		case ATTRIBUTES_HEADING:
+			attributes = new HeadingAttributes();
+			break;
+		case ATTRIBUTES_IMAGE:
+			attributes = new ImageAttributes();
+			break;
+		case ATTRIBUTES_LINK:
+			attributes = new LinkAttributes();
+			break;
+		case ATTRIBUTES_LIST:
+			attributes = new ListAttributes();
+			break;
+		case ATTRIBUTES_QUOTE:
+			attributes = new QuoteAttributes();
+			break;
+		case ATTRIBUTES_TABLE:
+			attributes = new TableAttributes();
+			break;
+		case ATTRIBUTES_TABLE_CELL:
+			attributes = new TableCellAttributes();
+			break;
+		case ATTRIBUTES_TABLE_ROW:
+			attributes = new TableRowAttributes();
+			break;
+		default:
+			throw new IllegalStateException(String.valueOf(type));
+		}
+		attributes.setCssClass(string(decoder));
+		attributes.setId(string(decoder));
+		attributes.setCssStyle(string(decoder));
+		attributes.setLanguage(string(decoder));
+		attributes.setTitle(string(decoder));
+
+		if (attributes instanceof HeadingAttributes) {
+			((HeadingAttributes) attributes).setOmitFromTableOfContents(decoder.readVarInt() != 0);
+		} else if (attributes instanceof ImageAttributes) {
+			ImageAttributes imageAttributes = (ImageAttributes) attributes;
+			imageAttributes.setWidth(decoder.readSignedVarInt());
+			imageAttributes.setWidthPercentage(decoder.readVarInt() != 0);
+			imageAttributes.setHeight(decoder.readSignedVarInt());
+			imageAttributes.setHeightPercentage(decoder.readVarInt() != 0);
+			imageAttributes.setBorder(decoder.readSignedVarInt());
+			int align = decoder.readVarInt();
+			imageAttributes.setAlign(align == 0 ? null : ALIGNS[align - 1]);
+			imageAttributes.setAlt(string(decoder));
+		} else if (attributes instanceof LinkAttributes) {
+			LinkAttributes linkAttributes = (LinkAttributes) attributes;
+			linkAttributes.setTarget(string(decoder));
+			linkAttributes.setRel(string(decoder));
+			linkAttributes.setHref(string(decoder));
+		} else if (attributes instanceof ListAttributes) {
+			((ListAttributes) attributes).setStart(string(decoder));
+		} else if (attributes instanceof QuoteAttributes) {
+			((QuoteAttributes) attributes).setCitation(string(decoder));
+		} else if (attributes instanceof TableAttributes) {
+			TableAttributes tableAttributes = (TableAttributes) attributes;
+			tableAttributes.setBorder(string(decoder));
+			tableAttributes.setSummary(string(decoder));
+			tableAttributes.setWidth(string(decoder));
+			tableAttributes.setFrame(string(decoder));
+			tableAttributes.setRules(string(decoder));
+			tableAttributes.setCellspacing(string(decoder));
+			tableAttributes.setCellpadding(string(decoder));
+			tableAttributes.setBgcolor(string(decoder));
+		} else if (attributes instanceof TableCellAttributes) {
+			TableCellAttributes cellAttributes = (TableCellAttributes) attributes;
+			cellAttributes.setBgcolor(string(decoder));
+			cellAttributes.setAlign(string(decoder));
+			cellAttributes.setValign(string(decoder));
+			cellAttributes.setRowspan(string(decoder));
+			cellAttributes.setColspan(string(decoder));
+		} else if (attributes instanceof TableRowAttributes) {
+			TableRowAttributes rowAttributes = (TableRowAttributes) attributes;
+			rowAttributes.setBgcolor(string(decoder));
+			rowAttributes.setAlign(string(decoder));
+			rowAttributes.setValign(string(decoder));
+		}
+		return attributes;
+	}
+
+	private static class Decoder {
+
+		private final byte[] bytes;
+
+		private int position;
+
+		Decoder(byte[] bytes) {
+			this.bytes = bytes;
+		}
+
+		boolean isAtEnd() {
+			return position == bytes.length;
+		}
+
+		int read() {
+			return bytes[position++] & 0xFF;
+		}
+
+		int readVarInt() {
+			int value = 0;
+			int shift = 0;
+			int b;
+			do {
+				b = read();
+				value |= (b & 0x7F) << shift;
+				shift += 7;
+			} while ((b & 0x80) != 0);
+			return value;
+		}
+
+		int readSignedVarInt() {
+			int value = readVarInt();
+			return (value >>> 1) ^ -(value & 1);
+		}
+	}
+}
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2007, 2013 David Green and others.
+ * Copyright (c) 2007, 2014 David Green and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -224,6 +224,8 @@ public class HtmlDocumentBuilder extends AbstractXmlDocumentBuilder {
 
 	private List<Stylesheet> stylesheets = null;
 
+	private StylesheetCache stylesheetCache;
+
 	private boolean useInlineStyles = true;
 
 	private boolean suppressBuiltInStyles = false;
@@ -302,6 +304,7 @@ public class HtmlDocumentBuilder extends AbstractXmlDocumentBuilder {
 			other.stylesheets = new ArrayList<Stylesheet>();
 			other.stylesheets.addAll(stylesheets);
 		}
+		other.setStylesheetCache(stylesheetCache);
 	}
 
 	protected static XmlStreamWriter createFormattingXmlStreamWriter(Writer out) {
@@ -510,6 +513,30 @@ public class HtmlDocumentBuilder extends AbstractXmlDocumentBuilder {
 		stylesheets.add(stylesheet);
 	}
 
+	/**
+	 * the cache from which the content of {@link Stylesheet#Stylesheet(File) stylesheet files} is read, or null if
+	 * stylesheet files are read for every document
+	 * 
+	 * @since 2.1
+	 */
+	public StylesheetCache getStylesheetCache() {
+		return stylesheetCache;
+	}
+
+	/**
+	 * Set the cache from which the content of {@link Stylesheet#Stylesheet(File) stylesheet files} is read, so that a
+	 * stylesheet that is embedded in many documents is read once. Defaults to null, in which case stylesheet files are
+	 * read for every document. A cache should only be shared by builders that {@link #getReader(File) read files} in
+	 * the same way.
+	 * 
+	 * @param stylesheetCache
+	 *            the cache, or null if stylesheet files should be read for every document
+	 * @since 2.1
+	 */
+	public void setStylesheetCache(StylesheetCache stylesheetCache) {
+		this.stylesheetCache = stylesheetCache;
+	}
+
 	protected void checkFileReadable(File file) {
 		if (!file.exists()) {
 			throw new IllegalArgumentException(MessageFormat.format(Messages.getString("HtmlDocumentBuilder.3"), file)); //$NON-NLS-1$
@@ -750,22 +777,23 @@ public class HtmlDocumentBuilder extends AbstractXmlDocumentBuilder {
 				}
 			}
 
-			String css;
 			if (stylesheet.file != null) {
-				try {
-					css = readFully(stylesheet.file);
-				} catch (IOException e) {
-					throw new IllegalStateException(MessageFormat.format(Messages.getString("HtmlDocumentBuilder.4"), //$NON-NLS-1$
-							stylesheet.file), e);
+				StylesheetCache.Content content = readStylesheet(stylesheet.file);
+				if (writer instanceof DefaultXmlStreamWriter) {
+					// unformatted output is the escaped content, which is shared by all documents
+					writer.writeLiteral(content.getEscapedCss());
+				} else {
+					writer.writeCharacters(content.getCss());
 				}
 			} else {
+				String css;
 				try {
 					css = readFully(stylesheet.reader, 1024);
 				} catch (IOException e) {
 					throw new IllegalStateException(Messages.getString("HtmlDocumentBuilder.5"), e); //$NON-NLS-1$
 				}
+				writer.writeCharacters(css);
 			}
-			writer.writeCharacters(css);
 			writer.writeEndElement();
 		}
 	}
@@ -1433,6 +1461,25 @@ public class HtmlDocumentBuilder extends AbstractXmlDocumentBuilder {
 		}
 	}
 
+	/**
+	 * Reads the content of the given stylesheet file, using the {@link #getStylesheetCache() stylesheet cache} if any.
+	 */
+	private StylesheetCache.Content readStylesheet(File file) {
+		StylesheetCache.Key key = stylesheetCache == null ? null : stylesheetCache.createKey(file);
+		StylesheetCache.Content content = key == null ? null : stylesheetCache.get(key);
+		if (content == null) {
+			String css;
+			try {
+				css = readFully(file);
+			} catch (IOException e) {
+				throw new IllegalStateException(MessageFormat.format(Messages.getString("HtmlDocumentBuilder.4"), //$NON-NLS-1$
+						file), e);
+			}
+			content = key == null ? new StylesheetCache.Content(null, css) : stylesheetCache.put(key, css);
+		}
+		return content;
+	}
+
 	private String readFully(File inputFile) throws IOException {
 		int length = (int) inputFile.length();
 		if (length <= 0) {
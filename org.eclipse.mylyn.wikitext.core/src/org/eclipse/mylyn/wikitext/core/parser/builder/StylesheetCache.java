@@ -0,0 +1,196 @@
+/*******************************************************************************
+ * Copyright (c) 2014 Tasktop Technologies and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     David Green - initial API and implementation
+ *******************************************************************************/
+
+package org.eclipse.mylyn.wikitext.core.parser.builder;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.StringWriter;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.eclipse.mylyn.wikitext.core.util.DefaultXmlStreamWriter;
+
+/**
+ * A cache of the content of stylesheet files that are embedded in HTML documents, so that a stylesheet that is
+ * embedded in many documents is read once. Entries are keyed by the canonical path of the file, and are replaced when
+ * the last modified time or length of the file changes. The least recently used entries are discarded once the cache
+ * exceeds its {@link #getMaxEntries() maximum size}. Instances are safe for use by multiple threads, and may be shared
+ * by multiple builders that read stylesheet files in the same way.
+ *
+ * @author David Green
+ * @see HtmlDocumentBuilder#setStylesheetCache(StylesheetCache)
+ * @since 2.1
+ */
+public class StylesheetCache {
+
+	/**
+	 * Identifies a version of a stylesheet file.
+	 */
+	static class Key {
+
+		private final String path;
+
+		private final long lastModified;
+
+		private final long length;
+
+		Key(String path, long lastModified, long length) {
+			this.path = path;
+			this.lastModified = lastModified;
+			this.length = length;
+		}
+
+		@Override
+		public int hashCode() {
+			return path.hashCode() ^ (int) (lastModified ^ (lastModified >>> 32)) ^ (int) length;
+		}
+
+		@Override
+		public boolean equals(Object obj) {
+			if (this == obj) {
+				return true;
+			}
+			if (obj == null || getClass() != obj.getClass()) {
+				return false;
+			}
+			Key other = (Key) obj;
+			return path.equals(other.path) && lastModified == other.lastModified && length == other.length;
+		}
+	}
+
+	/**
+	 * The content of a version of a stylesheet file.
+	 */
+	static class Content {
+
+		private final Key key;
+
+		private final String css;
+
+		private volatile String escapedCss;
+
+		Content(Key key, String css) {
+			this.key = key;
+			this.css = css;
+		}
+
+		/**
+		 * the content of the stylesheet
+		 */
+		String getCss() {
+			return css;
+		}
+
+		/**
+		 * the content of the stylesheet escaped as XML character data, as it is written by
+		 * {@link DefaultXmlStreamWriter#writeCharacters(String)}
+		 */
+		String getEscapedCss() {
+			String escaped = escapedCss;
+			if (escaped == null) {
+				StringWriter out = new StringWriter(css.length() + (css.length() >> 4));
+				DefaultXmlStreamWriter writer = new DefaultXmlStreamWriter(out);
+				writer.writeCharacters(css);
+				writer.close();
+				escapedCss = escaped = out.toString();
+			}
+			return escaped;
+		}
+	}
+
+	private static class LruMap extends LinkedHashMap<String, Content> {
+
+		private static final long serialVersionUID = 1L;
+
+		private final int maxEntries;
+
+		LruMap(int maxEntries) {
+			super(16, 0.75f, true);
+			this.maxEntries = maxEntries;
+		}
+
+		@Override
+		protected boolean removeEldestEntry(Map.Entry<String, Content> eldest) {
+			return size() > maxEntries;
+		}
+	}
+
+	public static final int DEFAULT_MAX_ENTRIES = 20;
+
+	private final Map<String, Content> contentByPath;
+
+	private final int maxEntries;
+
+	public StylesheetCache() {
+		this(DEFAULT_MAX_ENTRIES);
+	}
+
+	/**
+	 * @param maxEntries
+	 *            the maximum number of stylesheet files whose content is kept
+	 */
+	public StylesheetCache(int maxEntries) {
+		if (maxEntries < 1) {
+			throw new IllegalArgumentException();
+		}
+		this.maxEntries = maxEntries;
+		contentByPath = new LruMap(maxEntries);
+	}
+
+	/**
+	 * the maximum number of stylesheet files whose content is kept
+	 */
+	public int getMaxEntries() {
+		return maxEntries;
+	}
+
+	/**
+	 * Creates the key that identifies the current version of the given file.
+	 *
+	 * @return the key, or null if the file cannot be identified, in which case its content should not be cached
+	 */
+	Key createKey(File file) {
+		long lastModified = file.lastModified();
+		if (lastModified == 0L) {
+			return null;
+		}
+		try {
+			return new Key(file.getCanonicalPath(), lastModified, file.length());
+		} catch (IOException e) {
+			return null;
+		}
+	}
+
+	/**
+	 * Gets the content of the given version of a file.
+	 *
+	 * @return the content, or null if it is not cached
+	 */
+	synchronized Content get(Key key) {
+		Content content = contentByPath.get(key.path);
+		if (content != null && content.key.equals(key)) {
+			return content;
+		}
+		return null;
+	}
+
+	/**
+	 * Puts the content of the given version of a file, replacing the content of any other version of the file.
+	 *
+	 * @return the cached content
+	 */
+	synchronized Content put(Key key, String css) {
+		Content content = new Content(key, css);
+		contentByPath.put(key.path, content);
+		return content;
+	}
+}
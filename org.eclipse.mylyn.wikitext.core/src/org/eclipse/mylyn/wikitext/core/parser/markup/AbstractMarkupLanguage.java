@@ -12,6 +12,7 @@
 package org.eclipse.mylyn.wikitext.core.parser.markup;
 
 import java.io.IOException;
+import java.io.Reader;
 import java.io.StringReader;
 import java.text.MessageFormat;
 import java.util.ArrayList;
@@ -82,6 +83,12 @@ public abstract class AbstractMarkupLanguage extends MarkupLanguage {
 			groups.push(new Group());
 		}
 
+		private final List<String> elementRegexes = new ArrayList<String>();
+
+		private LeadingCharacterIndex leadingCharacterIndex;
+
+		private Matcher matcher;
+
 		public PatternBasedSyntax() {
 		}
 
@@ -92,9 +99,9 @@ public abstract class AbstractMarkupLanguage extends MarkupLanguage {
 				patternBuffer.append('|');
 			}
 			++patternGroup;
-			patternBuffer.append('(');
-			patternBuffer.append(element.getPattern(patternGroup));
-			patternBuffer.append(')');
+			String elementRegex = '(' + element.getPattern(patternGroup) + ')';
+			patternBuffer.append(elementRegex);
+			elementRegexes.add(groups.peek().prefix + elementRegex);
 			elementGroup.add(patternGroup);
 			patternGroup += element.getPatternGroupCount();
 		}
@@ -120,7 +127,9 @@ public abstract class AbstractMarkupLanguage extends MarkupLanguage {
 				if (groups.peek().count++ > 0) {
 					patternBuffer.append('|');
 				}
-				groups.push(new Group());
+				Group group = new Group();
+				group.prefix = groups.peek().prefix + "(?:" + regexFragment; //$NON-NLS-1$
+				groups.push(group);
 				patternBuffer.append("(?:"); //$NON-NLS-1$
 			} else {
 				groups.pop();
@@ -133,21 +142,32 @@ public abstract class AbstractMarkupLanguage extends MarkupLanguage {
 		}
 
 		public PatternBasedElementProcessor findPatternBasedElement(String lineText, int offset) {
-			Matcher matcher = getPattern().matcher(lineText);
-			if (offset > 0) {
-				matcher.region(offset, lineText.length());
+			Matcher matcher = getMatcher(lineText);
+			LeadingCharacterIndex index = leadingCharacterIndex;
+			int candidatePosition = index.findCandidatePosition(lineText, offset);
+			if (candidatePosition == -1) {
+				return null;
 			}
+			// the search can start at the first candidate position only if look-behind cannot observe the difference
+			// between the original region and the narrowed region
+			boolean narrowRegion = candidatePosition > offset
+					&& candidatePosition - offset >= index.getMaximumLookBehind();
+			matcher.region(narrowRegion ? candidatePosition : offset, lineText.length());
+			matcher.useTransparentBounds(narrowRegion);
+			matcher.useAnchoringBounds(!narrowRegion);
 			if (matcher.find()) {
-				int size = elementGroup.size();
-				for (int x = 0; x < size; ++x) {
-					int group = elementGroup.get(x);
-					String value = matcher.group(group);
-					if (value != null) {
-						PatternBasedElement element = elements.get(x);
+				int start = matcher.start();
+				int[] candidates = start < lineText.length()
+						? index.getCandidates(lineText.charAt(start))
+						: index.getAllElements();
+				for (int candidate : candidates) {
+					int group = elementGroup.get(candidate);
+					if (matcher.start(group) != -1) {
+						PatternBasedElement element = elements.get(candidate);
 						PatternBasedElementProcessor processor = element.newProcessor();
-						processor.setLineStartOffset(matcher.start());
+						processor.setLineStartOffset(start);
 						processor.setLineEndOffset(matcher.end());
-						processor.setGroup(0, matcher.group(0), matcher.start(0), matcher.end(0));
+						processor.setGroup(0, matcher.group(0), start, matcher.end(0));
 						for (int y = 0; y < element.getPatternGroupCount(); ++y) {
 							final int groupIndex = group + y + 1;
 							processor.setGroup(y + 1, matcher.group(groupIndex), matcher.start(groupIndex),
@@ -162,10 +182,26 @@ public abstract class AbstractMarkupLanguage extends MarkupLanguage {
 			}
 		}
 
+		/**
+		 * Provides a matcher for the given text, reusing the matcher of previous invocations where possible. The
+		 * returned matcher is only valid until the next invocation.
+		 */
+		private Matcher getMatcher(String text) {
+			Pattern pattern = getPattern();
+			if (matcher == null || matcher.pattern() != pattern) {
+				matcher = pattern.matcher(text);
+			} else {
+				matcher.reset(text);
+			}
+			return matcher;
+		}
+
 		public Pattern getPattern() {
 			if (elementPattern == null) {
 				if (patternBuffer.length() > 0) {
-					elementPattern = Pattern.compile(patternBuffer.toString());
+					CompiledSyntax compiledSyntax = CompiledSyntax.get(patternBuffer.toString(), elementRegexes);
+					elementPattern = compiledSyntax.getPattern();
+					leadingCharacterIndex = compiledSyntax.getLeadingCharacterIndex();
 				} else {
 					return null;
 				}
@@ -177,6 +213,9 @@ public abstract class AbstractMarkupLanguage extends MarkupLanguage {
 			elements.clear();
 			elementPattern = null;
 			elementGroup.clear();
+			elementRegexes.clear();
+			leadingCharacterIndex = null;
+			matcher = null;
 			patternBuffer.delete(0, patternBuffer.length());
 			patternGroup = 0;
 			groups.clear();
@@ -227,12 +266,50 @@ public abstract class AbstractMarkupLanguage extends MarkupLanguage {
 		initProcessors();
 		ContentState state = createState();
 		state.setMarkupContent(markupContent);
+		try {
+			processContent(parser, state, new LocationTrackingReader(new StringReader(markupContent)), asDocument);
+		} catch (IOException e) {
+			throw new IllegalStateException(e);
+		}
+	}
+
+	/**
+	 * Process the content provided by the given reader. If {@link #isStreamingSupported() streaming is supported} the
+	 * content is processed line by line as it is read, without retaining the whole document in memory, and
+	 * {@link ContentState#getMarkupContent()} is not available. Otherwise the content is read fully and then
+	 * {@link #processContent(MarkupParser, String, boolean) processed}.
+	 * 
+	 * @since 2.1
+	 */
+	@Override
+	public void processContent(MarkupParser parser, Reader markupContent, boolean asDocument) throws IOException {
+		if (isStreamingSupported()) {
+			initializeSyntax(false);
+			initProcessors();
+			processContent(parser, createState(), new LocationTrackingReader(markupContent), asDocument);
+		} else {
+			super.processContent(parser, markupContent, asDocument);
+		}
+	}
+
+	/**
+	 * Indicate if this markup language can process content as it is read. Markup languages must only return true if
+	 * none of their blocks, phrase modifiers or replacement tokens depend on {@link ContentState#getMarkupContent()
+	 * the whole document}, for example to generate a table of contents or to resolve link definitions, and if they do
+	 * not override {@link #processContent(MarkupParser, String, boolean)}. The default implementation returns false.
+	 * 
+	 * @return true if content can be processed as it is read, otherwise false
+	 * @see #processContent(MarkupParser, Reader, boolean)
+	 * @since 2.1
+	 */
+	protected boolean isStreamingSupported() {
+		return false;
+	}
 
+	private void processContent(MarkupParser parser, ContentState state, LocationTrackingReader reader,
+			boolean asDocument) throws IOException {
 		DocumentBuilder builder = parser.getBuilder();
 		builder.setLocator(state);
-
-		@SuppressWarnings("resource")
-		LocationTrackingReader reader = new LocationTrackingReader(new StringReader(markupContent));
 		try {
 			if (asDocument) {
 				builder.beginDocument();
@@ -241,95 +318,90 @@ public abstract class AbstractMarkupLanguage extends MarkupLanguage {
 			Stack<LineState> lineStates = null;
 			String line;
 			Block currentBlock = null;
-			try {
-				line = reader.readLine();
-				int lineOffset = 0;
-				while (line != null) {
-
-					state.setLineNumber(reader.getLineNumber() + 1);
-					state.setLineOffset(reader.getLineOffset());
-					state.setLineCharacterOffset(lineOffset);
-					state.setLineSegmentEndOffset(0);
-					state.setLineLength(line.length());
-
-					for (;;) {
-						popClosedBlocks(nestedBlocks);
+			line = reader.readLine();
+			int lineOffset = 0;
+			while (line != null) {
+
+				state.setLineNumber(reader.getLineNumber() + 1);
+				state.setLineOffset(reader.getLineOffset());
+				state.setLineCharacterOffset(lineOffset);
+				state.setLineSegmentEndOffset(0);
+				state.setLineLength(line.length());
+
+				for (;;) {
+					popClosedBlocks(nestedBlocks);
+					if (nestedBlocks != null && !nestedBlocks.isEmpty()) {
+						Block nestedParent = nestedBlocks.peek();
+						int closeOffset = nestedParent.findCloseOffset(line, lineOffset);
+						if (closeOffset != -1) {
+							if (closeOffset > lineOffset) {
+								String truncatedLine = line.substring(0, closeOffset);
+								if (lineStates == null) {
+									lineStates = new Stack<LineState>();
+								}
+								lineStates.push(new LineState(line, closeOffset));
+								line = truncatedLine;
+							} else {
+								if (currentBlock != null) {
+									currentBlock.setClosed(true);
+									currentBlock = null;
+								}
+								currentBlock = nestedBlocks.pop();
+								lineOffset = closeOffset;
+								state.setLineCharacterOffset(lineOffset);
+							}
+						}
+					}
+					if (currentBlock == null) {
 						if (nestedBlocks != null && !nestedBlocks.isEmpty()) {
 							Block nestedParent = nestedBlocks.peek();
-							int closeOffset = nestedParent.findCloseOffset(line, lineOffset);
-							if (closeOffset != -1) {
-								if (closeOffset > lineOffset) {
-									String truncatedLine = line.substring(0, closeOffset);
-									if (lineStates == null) {
-										lineStates = new Stack<LineState>();
-									}
-									lineStates.push(new LineState(line, closeOffset));
-									line = truncatedLine;
-								} else {
-									if (currentBlock != null) {
-										currentBlock.setClosed(true);
-										currentBlock = null;
-									}
-									currentBlock = nestedBlocks.pop();
-									lineOffset = closeOffset;
-									state.setLineCharacterOffset(lineOffset);
-								}
+							if (nestedParent.canResume(line, lineOffset)) {
+								currentBlock = nestedParent;
 							}
 						}
 						if (currentBlock == null) {
-							if (nestedBlocks != null && !nestedBlocks.isEmpty()) {
-								Block nestedParent = nestedBlocks.peek();
-								if (nestedParent.canResume(line, lineOffset)) {
-									currentBlock = nestedParent;
-								}
-							}
+							currentBlock = startBlock(line, lineOffset);
 							if (currentBlock == null) {
-								currentBlock = startBlock(line, lineOffset);
-								if (currentBlock == null) {
-									break;
-								}
-								currentBlock.setMarkupLanguage(this);
-								currentBlock.setState(state);
-								currentBlock.setParser(parser);
-							}
-						}
-						lineOffset = currentBlock.processLineContent(line, lineOffset);
-						if (currentBlock.isClosed()) {
-							currentBlock = null;
-						} else if (currentBlock.beginNesting()) {
-							if (nestedBlocks == null) {
-								nestedBlocks = new Stack<Block>();
+								break;
 							}
-							nestedBlocks.push(currentBlock);
-							currentBlock = null;
+							currentBlock.setMarkupLanguage(this);
+							currentBlock.setState(state);
+							currentBlock.setParser(parser);
 						}
-						if (lineOffset < line.length() && lineOffset >= 0) {
-							if (currentBlock != null) {
-								throw new IllegalStateException(
-										String.format(
-												"if a block does not fully process a line then it must be closed, at or near line %s lineOffset %s, block %s", reader.getLineNumber(), lineOffset, currentBlock.getClass().getName())); //$NON-NLS-1$
-							}
-						} else {
-							break;
+					}
+					lineOffset = currentBlock.processLineContent(line, lineOffset);
+					if (currentBlock.isClosed()) {
+						currentBlock = null;
+					} else if (currentBlock.beginNesting()) {
+						if (nestedBlocks == null) {
+							nestedBlocks = new Stack<Block>();
 						}
+						nestedBlocks.push(currentBlock);
+						currentBlock = null;
 					}
-					if (lineStates != null && !lineStates.isEmpty()) {
-						LineState lineState = lineStates.pop();
-						line = lineState.line;
-						lineOffset = lineState.lineOffset;
+					if (lineOffset < line.length() && lineOffset >= 0) {
+						if (currentBlock != null) {
+							throw new IllegalStateException(
+									String.format(
+											"if a block does not fully process a line then it must be closed, at or near line %s lineOffset %s, block %s", reader.getLineNumber(), lineOffset, currentBlock.getClass().getName())); //$NON-NLS-1$
+						}
 					} else {
-						lineOffset = 0;
-						line = reader.readLine();
+						break;
 					}
 				}
-				state.setLineNumber(reader.getLineNumber() + 1);
-				state.setLineOffset(reader.getLineOffset());
-				state.setLineCharacterOffset(0);
-				state.setLineLength(0);
-
-			} catch (IOException e) {
-				throw new IllegalStateException(e);
+				if (lineStates != null && !lineStates.isEmpty()) {
+					LineState lineState = lineStates.pop();
+					line = lineState.line;
+					lineOffset = lineState.lineOffset;
+				} else {
+					lineOffset = 0;
+					line = reader.readLine();
+				}
 			}
+			state.setLineNumber(reader.getLineNumber() + 1);
+			state.setLineOffset(reader.getLineOffset());
+			state.setLineCharacterOffset(0);
+			state.setLineLength(0);
 
 			if (currentBlock != null && !currentBlock.isClosed()) {
 				currentBlock.setClosed(true);
@@ -513,6 +585,8 @@ public abstract class AbstractMarkupLanguage extends MarkupLanguage {
 
 	private static class Group {
 		int count;
+
+		String prefix = ""; //$NON-NLS-1$
 	}
 
 	public List<Block> getBlocks() {
@@ -0,0 +1,80 @@
+/*******************************************************************************
+ * Copyright (c) 2014 Tasktop Technologies and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     David Green - initial API and implementation
+ *******************************************************************************/
+
+package org.eclipse.mylyn.wikitext.core.parser.markup;
+
+import java.util.List;
+import java.util.regex.Pattern;
+
+import com.google.common.base.Throwables;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheLoader;
+import com.google.common.cache.LoadingCache;
+import com.google.common.collect.ImmutableList;
+import com.google.common.util.concurrent.UncheckedExecutionException;
+
+/**
+ * The compiled form of the regular expression of a {@link AbstractMarkupLanguage.PatternBasedSyntax}. Compiled syntax is
+ * immutable and thread-safe, and is cached so that syntaxes having the same regular expression share it. Since the
+ * syntax of a markup language is determined by its type and configuration, instances and clones of a markup language
+ * compile their syntax only once.
+ * 
+ * @author David Green
+ */
+class CompiledSyntax {
+
+	private static final int MAXIMUM_CACHE_SIZE = 100;
+
+	private static final LoadingCache<List<String>, CompiledSyntax> cache = CacheBuilder.newBuilder()
+			.maximumSize(MAXIMUM_CACHE_SIZE)
+			.build(new CacheLoader<List<String>, CompiledSyntax>() {
+				@Override
+				public CompiledSyntax load(List<String> key) {
+					return new CompiledSyntax(key.get(0), key.subList(1, key.size()));
+				}
+			});
+
+	/**
+	 * Provides the compiled form of the given regular expression, compiling it only if it is not already cached.
+	 * 
+	 * @param regex
+	 *            the regular expression that matches any of the elements
+	 * @param elementRegexes
+	 *            for each element, a regular expression that starts at the same position as the overall match of the
+	 *            element
+	 * @see LeadingCharacterIndex
+	 */
+	static CompiledSyntax get(String regex, List<String> elementRegexes) {
+		List<String> key = ImmutableList.<String> builder().add(regex).addAll(elementRegexes).build();
+		try {
+			return cache.getUnchecked(key);
+		} catch (UncheckedExecutionException e) {
+			throw Throwables.propagate(e.getCause());
+		}
+	}
+
+	private final Pattern pattern;
+
+	private final LeadingCharacterIndex leadingCharacterIndex;
+
+	private CompiledSyntax(String regex, List<String> elementRegexes) {
+		pattern = Pattern.compile(regex);
+		leadingCharacterIndex = new LeadingCharacterIndex(regex, elementRegexes);
+	}
+
+	Pattern getPattern() {
+		return pattern;
+	}
+
+	LeadingCharacterIndex getLeadingCharacterIndex() {
+		return leadingCharacterIndex;
+	}
+}
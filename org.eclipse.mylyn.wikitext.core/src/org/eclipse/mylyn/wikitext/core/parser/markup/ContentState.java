@@ -10,11 +10,14 @@
  *******************************************************************************/
 package org.eclipse.mylyn.wikitext.core.parser.markup;
 
+import java.util.Arrays;
 import java.util.HashMap;
 import java.util.Map;
 
 import org.eclipse.mylyn.wikitext.core.parser.IdGenerator;
 import org.eclipse.mylyn.wikitext.core.parser.Locator;
+import org.eclipse.mylyn.wikitext.core.parser.outline.OutlineItem;
+import org.eclipse.mylyn.wikitext.core.parser.outline.OutlineParser;
 
 /**
  * State related to parsing content, propagated to {@link Block blocks} and other {@link Processor processors} during
@@ -32,6 +35,12 @@ public class ContentState implements Locator {
 
 	private final IdGenerator idGenerator = new IdGenerator();
 
+	private OutlineItem outline;
+
+	private int[] lineOffsets;
+
+	private int lineCount;
+
 	private int lineNumber = -1;
 
 	private int lineOffset = -1;
@@ -47,12 +56,120 @@ public class ContentState implements Locator {
 	public ContentState() {
 	}
 
+	/**
+	 * the markup content that is being processed, or null if the content is processed as it is read
+	 * 
+	 * @see AbstractMarkupLanguage#processContent(org.eclipse.mylyn.wikitext.core.parser.MarkupParser, java.io.Reader,
+	 *      boolean)
+	 */
 	public String getMarkupContent() {
 		return markupContent;
 	}
 
 	protected void setMarkupContent(String markupContent) {
 		this.markupContent = markupContent;
+		lineOffsets = null;
+	}
+
+	/**
+	 * Provides a line of the {@link #getMarkupContent() markup content}, for example to look ahead of the
+	 * {@link #getLineNumber() current line}. The offsets of the lines are indexed the first time that a line is
+	 * requested, so that subsequent requests take constant time.
+	 * 
+	 * @param lineNumber
+	 *            the 1-based line number of the line
+	 * @return the line without its line delimiter, or null if there is no such line or if the markup content is not
+	 *         available
+	 * @since 2.1
+	 */
+	public String getLine(int lineNumber) {
+		if (markupContent == null || lineNumber < 1) {
+			return null;
+		}
+		if (lineOffsets == null) {
+			indexLines();
+		}
+		if (lineNumber > lineCount) {
+			return null;
+		}
+		int lineOffset = lineOffsets[lineNumber - 1];
+		int endOffset = markupContent.length();
+		if (lineNumber < lineCount) {
+			endOffset = lineOffsets[lineNumber] - 1;
+			if (markupContent.charAt(endOffset) == '\n' && endOffset > lineOffset
+					&& markupContent.charAt(endOffset - 1) == '\r') {
+				--endOffset;
+			}
+		} else if (endOffset > lineOffset) {
+			char c = markupContent.charAt(endOffset - 1);
+			if (c == '\n') {
+				--endOffset;
+				if (endOffset > lineOffset && markupContent.charAt(endOffset - 1) == '\r') {
+					--endOffset;
+				}
+			} else if (c == '\r') {
+				--endOffset;
+			}
+		}
+		return markupContent.substring(lineOffset, endOffset);
+	}
+
+	/**
+	 * Index the offsets of the lines of the markup content, which are delimited by LF, CR or CRLF as with
+	 * {@link org.eclipse.mylyn.wikitext.core.util.LocationTrackingReader#readLine()}.
+	 */
+	private void indexLines() {
+		int[] offsets = new int[64];
+		int count = 0;
+		int length = markupContent.length();
+		int offset = 0;
+		while (offset < length) {
+			if (count == offsets.length) {
+				offsets = Arrays.copyOf(offsets, count * 2);
+			}
+			offsets[count++] = offset;
+			while (offset < length) {
+				char c = markupContent.charAt(offset++);
+				if (c == '\n') {
+					break;
+				} else if (c == '\r') {
+					if (offset < length && markupContent.charAt(offset) == '\n') {
+						++offset;
+					}
+					break;
+				}
+			}
+		}
+		lineOffsets = offsets;
+		lineCount = count;
+	}
+
+	/**
+	 * Provides the outline of the {@link #getMarkupContent() markup content}. The outline is created using the given
+	 * markup language the first time that it is requested, and is shared by all subsequent requests made while
+	 * processing the same content. Since the markup content has already been preprocessed, the outline is created with
+	 * {@link AbstractMarkupLanguage#setEnableMacros(boolean) macros disabled} so that macros such as templates are not
+	 * expanded a second time.
+	 * 
+	 * @param markupLanguage
+	 *            the markup language with which to create the outline, typically the language that is processing the
+	 *            content
+	 * @return the outline, which is empty if the markup content is not available
+	 * @since 2.1
+	 */
+	public OutlineItem getOutline(MarkupLanguage markupLanguage) {
+		if (outline == null) {
+			if (markupContent == null) {
+				outline = new OutlineParser().createRootItem();
+			} else {
+				MarkupLanguage outlineLanguage = markupLanguage.clone();
+				if (outlineLanguage instanceof AbstractMarkupLanguage) {
+					((AbstractMarkupLanguage) outlineLanguage).setEnableMacros(false);
+				}
+				outline = new OutlineParser(outlineLanguage).parse(markupContent);
+			}
+		}
+		return outline;
 	}
 
 	public String getFootnoteId(String footnote) {
@@ -22,11 +22,37 @@ public class DefaultIdGenerationStrategy extends IdGenerationStrategy {
 
 	@Override
 	public String generateId(String headingText) {
-		String anchor = headingText.replaceAll("[^a-zA-Z0-9.]", ""); //$NON-NLS-1$ //$NON-NLS-2$
-		if (anchor.length() > 0 && Character.isDigit(anchor.charAt(0))) {
-			anchor = 'a' + anchor;
+		int length = headingText.length();
+		StringBuilder anchor = null;
+		for (int x = 0; x < length; ++x) {
+			char c = headingText.charAt(x);
+			if (isIdCharacter(c)) {
+				if (anchor != null) {
+					anchor.append(c);
+				}
+			} else if (anchor == null) {
+				anchor = new StringBuilder(length + 1);
+				anchor.append(headingText, 0, x);
+			}
 		}
-		return anchor;
+		if (anchor == null) {
+			if (length > 0 && isDigit(headingText.charAt(0))) {
+				return 'a' + headingText;
+			}
+			return headingText;
+		}
+		if (anchor.length() > 0 && isDigit(anchor.charAt(0))) {
+			anchor.insert(0, 'a');
+		}
+		return anchor.toString();
+	}
+
+	private static boolean isIdCharacter(char c) {
+		return (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z') || isDigit(c) || c == '.';
+	}
+
+	private static boolean isDigit(char c) {
+		return c >= '0' && c <= '9';
 	}
 
 }
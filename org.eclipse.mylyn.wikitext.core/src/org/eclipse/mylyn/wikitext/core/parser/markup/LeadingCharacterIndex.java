@@ -0,0 +1,124 @@
+/*******************************************************************************
+ * Copyright (c) 2014 Tasktop Technologies and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     David Green - initial API and implementation
+ *******************************************************************************/
+
+package org.eclipse.mylyn.wikitext.core.parser.markup;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+
+/**
+ * An index of the {@link PatternBasedElement elements} of a {@link AbstractMarkupLanguage.PatternBasedSyntax} by the
+ * characters with which they can start. The index is used to skip text that cannot start any element, and to find the
+ * element that matched without examining every element. Since the index is built from a conservative
+ * {@link LeadingCharacters analysis}, elements that cannot be analyzed are considered to start with any character.
+ *
+ * @author David Green
+ */
+class LeadingCharacterIndex {
+
+	private static final int INDEXED_CHARACTERS = 128;
+
+	private final boolean skipEnabled;
+
+	private final int maximumLookBehind;
+
+	private final BitSet leadingCharacters;
+
+	private final int[][] candidatesByCharacter = new int[INDEXED_CHARACTERS][];
+
+	private final int[] allElements;
+
+	/**
+	 * @param regex
+	 *            the regular expression that matches any of the elements
+	 * @param elementRegexes
+	 *            for each element, a regular expression that starts at the same position as the overall match of the
+	 *            element
+	 */
+	LeadingCharacterIndex(String regex, List<String> elementRegexes) {
+		LeadingCharacters analysis = LeadingCharacters.analyze(regex);
+		skipEnabled = analysis.isDeterminate();
+		maximumLookBehind = analysis.getMaximumLookBehind();
+		leadingCharacters = analysis.getCharacters();
+
+		int size = elementRegexes.size();
+		allElements = new int[size];
+		List<LeadingCharacters> elementAnalysis = new ArrayList<LeadingCharacters>(size);
+		for (int x = 0; x < size; ++x) {
+			allElements[x] = x;
+			elementAnalysis.add(LeadingCharacters.analyze(elementRegexes.get(x)));
+		}
+		int[] candidates = new int[size];
+		for (char c = 0; c < INDEXED_CHARACTERS; ++c) {
+			int count = 0;
+			for (int x = 0; x < size; ++x) {
+				LeadingCharacters element = elementAnalysis.get(x);
+				if (element.isNullable() || element.contains(c)) {
+					candidates[count++] = x;
+				}
+			}
+			int[] characterCandidates = new int[count];
+			System.arraycopy(candidates, 0, characterCandidates, 0, count);
+			candidatesByCharacter[c] = characterCandidates;
+		}
+	}
+
+	/**
+	 * indicate if text that cannot start any element can be skipped
+	 */
+	boolean isSkipEnabled() {
+		return skipEnabled;
+	}
+
+	/**
+	 * the maximum number of characters preceding a match that the regular expression may examine
+	 */
+	int getMaximumLookBehind() {
+		return maximumLookBehind;
+	}
+
+	/**
+	 * Provides the first position at or after the given offset at which an element could start.
+	 *
+	 * @return the position, or -1 if no element can start in the remaining text
+	 */
+	int findCandidatePosition(String text, int offset) {
+		if (!skipEnabled) {
+			return offset;
+		}
+		int length = text.length();
+		for (int x = offset; x < length; ++x) {
+			if (leadingCharacters.get(text.charAt(x))) {
+				return x;
+			}
+		}
+		return -1;
+	}
+
+	/**
+	 * Provides the indexes of the elements that could start with the given character, in the order in which they were
+	 * added to the syntax.
+	 */
+	int[] getCandidates(char c) {
+		if (c < INDEXED_CHARACTERS) {
+			return candidatesByCharacter[c];
+		}
+		return allElements;
+	}
+
+	/**
+	 * Provides the indexes of all elements, in the order in which they were added to the syntax.
+	 */
+	int[] getAllElements() {
+		return allElements;
+	}
+}
@@ -0,0 +1,656 @@
+/*******************************************************************************
+ * Copyright (c) 2014 Tasktop Technologies and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     David Green - initial API and implementation
+ *******************************************************************************/
+
+package org.eclipse.mylyn.wikitext.core.parser.markup;
+
+import java.util.BitSet;
+
+/**
+ * A conservative analysis of a {@link java.util.regex.Pattern regular expression} that determines the characters with
+ * which a match can start. The analysis over-approximates: the computed set of characters always includes every
+ * character that can start a match, and any construct that is not understood causes the result to be
+ * {@link #isAnyCharacter() indeterminate}.
+ * <p>
+ * Regular expression fragments that end with unclosed groups are accepted, since {@link PatternBasedSyntax} groups are
+ * provided as separate begin and end fragments.
+ * </p>
+ *
+ * @author David Green
+ */
+class LeadingCharacters {
+
+	/**
+	 * indicates a length that is unbounded or cannot be determined
+	 */
+	static final int UNBOUNDED = Integer.MAX_VALUE;
+
+	private static final LeadingCharacters EMPTY = new LeadingCharacters(new BitSet(), false, true, 0, 0);
+
+	private static final LeadingCharacters UNKNOWN = new LeadingCharacters(new BitSet(), true, true, UNBOUNDED,
+			UNBOUNDED);
+
+	private static final LeadingCharacters BACK_REFERENCE = new LeadingCharacters(new BitSet(), true, true, 0,
+			UNBOUNDED);
+
+	private final BitSet characters;
+
+	private final boolean anyCharacter;
+
+	private final boolean nullable;
+
+	private final int maximumLookBehind;
+
+	private final int maximumLength;
+
+	private LeadingCharacters(BitSet characters, boolean anyCharacter, boolean nullable, int maximumLookBehind,
+			int maximumLength) {
+		this.characters = characters;
+		this.anyCharacter = anyCharacter;
+		this.nullable = nullable;
+		this.maximumLookBehind = maximumLookBehind;
+		this.maximumLength = maximumLength;
+	}
+
+	/**
+	 * Analyzes the given regular expression.
+	 *
+	 * @param regex
+	 *            the regular expression or regular expression fragment
+	 * @return the result of the analysis, which is {@link #isAnyCharacter() indeterminate} if the expression could not
+	 *         be analyzed
+	 */
+	static LeadingCharacters analyze(String regex) {
+		try {
+			Analyzer analyzer = new Analyzer(regex);
+			LeadingCharacters result = analyzer.alternation();
+			while (!analyzer.atEnd()) {
+				// a fragment may contain an unbalanced group end
+				if (analyzer.peek() != ')') {
+					return UNKNOWN;
+				}
+				analyzer.next();
+				result = result.followedBy(analyzer.alternation());
+			}
+			return result;
+		} catch (IndexOutOfBoundsException e) {
+			return UNKNOWN;
+		} catch (IllegalArgumentException e) {
+			return UNKNOWN;
+		}
+	}
+
+	/**
+	 * the characters that can start a match, excluding any that are implied by {@link #isAnyCharacter()}
+	 */
+	BitSet getCharacters() {
+		return characters;
+	}
+
+	/**
+	 * indicate if a match can start with any character, that is the set of leading characters could not be determined
+	 */
+	boolean isAnyCharacter() {
+		return anyCharacter;
+	}
+
+	/**
+	 * indicate if the expression can match the empty string, in which case a match can start anywhere
+	 */
+	boolean isNullable() {
+		return nullable;
+	}
+
+	/**
+	 * indicate if a match can only start with one of the {@link #getCharacters() characters}
+	 */
+	boolean isDeterminate() {
+		return !anyCharacter && !nullable;
+	}
+
+	/**
+	 * the maximum number of characters preceding a match position that can be examined by look-behind or word-boundary
+	 * constructs in the expression, or {@link #UNBOUNDED}
+	 */
+	int getMaximumLookBehind() {
+		return maximumLookBehind;
+	}
+
+	/**
+	 * Indicate if a match can start with the given character.
+	 */
+	boolean contains(char c) {
+		return anyCharacter || characters.get(c);
+	}
+
+	/**
+	 * Provides the result of matching this expression followed by the given expression.
+	 */
+	LeadingCharacters followedBy(LeadingCharacters other) {
+		BitSet union = characters;
+		if (nullable && !other.characters.isEmpty()) {
+			union = (BitSet) characters.clone();
+			union.or(other.characters);
+		}
+		return new LeadingCharacters(union, anyCharacter || (nullable && other.anyCharacter), nullable
+				&& other.nullable, Math.max(maximumLookBehind, other.maximumLookBehind), sum(maximumLength,
+				other.maximumLength));
+	}
+
+	/**
+	 * Provides the result of matching either this expression or the given expression.
+	 */
+	LeadingCharacters or(LeadingCharacters other) {
+		BitSet union = (BitSet) characters.clone();
+		union.or(other.characters);
+		return new LeadingCharacters(union, anyCharacter || other.anyCharacter, nullable || other.nullable, Math.max(
+				maximumLookBehind, other.maximumLookBehind), Math.max(maximumLength, other.maximumLength));
+	}
+
+	private LeadingCharacters repeated(int minimum, int maximum) {
+		int length = maximum == UNBOUNDED ? (maximumLength == 0 ? 0 : UNBOUNDED) : product(maximumLength, maximum);
+		return new LeadingCharacters(characters, anyCharacter, nullable || minimum == 0, maximumLookBehind, length);
+	}
+
+	private static LeadingCharacters zeroWidth(int lookBehind) {
+		return new LeadingCharacters(new BitSet(), false, true, lookBehind, 0);
+	}
+
+	private static LeadingCharacters anyCharacter(int length) {
+		return new LeadingCharacters(new BitSet(), true, false, 0, length);
+	}
+
+	private static LeadingCharacters characters(BitSet characters) {
+		return new LeadingCharacters(characters, false, false, 0, 1);
+	}
+
+	private static int sum(int a, int b) {
+		long value = (long) a + b;
+		return value >= UNBOUNDED ? UNBOUNDED : (int) value;
+	}
+
+	private static int product(int a, int b) {
+		long value = (long) a * b;
+		return value >= UNBOUNDED ? UNBOUNDED : (int) value;
+	}
+
+	/**
+	 * a recursive-descent parser over the subset of {@link java.util.regex.Pattern} syntax that affects leading
+	 * characters
+	 */
+	private static class Analyzer {
+
+		private final String regex;
+
+		private int index;
+
+		private boolean caseInsensitive;
+
+		Analyzer(String regex) {
+			this.regex = regex;
+		}
+
+		boolean atEnd() {
+			return index >= regex.length();
+		}
+
+		char peek() {
+			return regex.charAt(index);
+		}
+
+		char next() {
+			return regex.charAt(index++);
+		}
+
+		private boolean lookingAt(String text) {
+			return regex.startsWith(text, index);
+		}
+
+		LeadingCharacters alternation() {
+			boolean outerCaseInsensitive = caseInsensitive;
+			LeadingCharacters result = sequence();
+			while (!atEnd() && peek() == '|') {
+				next();
+				result = result.or(sequence());
+			}
+			caseInsensitive = outerCaseInsensitive;
+			return result;
+		}
+
+		private LeadingCharacters sequence() {
+			LeadingCharacters result = EMPTY;
+			while (!atEnd() && peek() != '|' && peek() != ')') {
+				result = result.followedBy(quantified());
+			}
+			return result;
+		}
+
+		private LeadingCharacters quantified() {
+			LeadingCharacters atom = atom();
+			if (atEnd()) {
+				return atom;
+			}
+			LeadingCharacters result;
+			switch (peek()) {
+			case '*':
+				next();
+				result = atom.repeated(0, UNBOUNDED);
+				break;
+			case '+':
+				next();
+				result = atom.repeated(1, UNBOUNDED);
+				break;
+			case '?':
+				next();
+				result = atom.repeated(0, 1);
+				break;
+			case '{':
+				next();
+				int minimum = number();
+				int maximum = minimum;
+				if (peek() == ',') {
+					next();
+					maximum = peek() == '}' ? UNBOUNDED : number();
+				}
+				expect('}');
+				result = atom.repeated(minimum, maximum);
+				break;
+			default:
+				return atom;
+			}
+			if (!atEnd() && (peek() == '?' || peek() == '+')) {
+				// reluctant or possessive
+				next();
+			}
+			return result;
+		}
+
+		private int number() {
+			int start = index;
+			while (Character.isDigit(peek())) {
+				next();
+			}
+			if (start == index) {
+				throw new IllegalArgumentException();
+			}
+			String digits = regex.substring(start, index);
+			return digits.length() > 9 ? UNBOUNDED : Integer.parseInt(digits);
+		}
+
+		private void expect(char c) {
+			if (next() != c) {
+				throw new IllegalArgumentException();
+			}
+		}
+
+		private void closeGroup() {
+			// a fragment may end with an unclosed group
+			if (!atEnd()) {
+				expect(')');
+			}
+		}
+
+		private LeadingCharacters atom() {
+			char c = next();
+			switch (c) {
+			case '(':
+				return group();
+			case '[':
+				return characterClass();
+			case '.':
+				return anyCharacter(1);
+			case '^':
+			case '$':
+				return zeroWidth(0);
+			case '\\':
+				return escape();
+			case '*':
+			case '+':
+			case '?':
+			case '{':
+				throw new IllegalArgumentException();
+			default:
+				return literal(c);
+			}
+		}
+
+		private LeadingCharacters group() {
+			if (!lookingAt("?")) { //$NON-NLS-1$
+				return groupContent();
+			}
+			next();
+			if (lookingAt(":") || lookingAt(">")) { //$NON-NLS-1$ //$NON-NLS-2$
+				next();
+				return groupContent();
+			}
+			if (lookingAt("=") || lookingAt("!")) { //$NON-NLS-1$ //$NON-NLS-2$
+				next();
+				LeadingCharacters lookAhead = groupContent();
+				return zeroWidth(lookAhead.maximumLookBehind);
+			}
+			if (lookingAt("<=") || lookingAt("<!")) { //$NON-NLS-1$ //$NON-NLS-2$
+				index += 2;
+				LeadingCharacters lookBehind = groupContent();
+				return zeroWidth(sum(lookBehind.maximumLength, lookBehind.maximumLookBehind));
+			}
+			if (lookingAt("<")) { //$NON-NLS-1$
+				// named capturing group
+				while (next() != '>') {
+					// skip the name
+				}
+				return groupContent();
+			}
+			return flags();
+		}
+
+		private LeadingCharacters groupContent() {
+			LeadingCharacters content = alternation();
+			closeGroup();
+			return content;
+		}
+
+		private LeadingCharacters flags() {
+			boolean enable = true;
+			boolean groupCaseInsensitive = caseInsensitive;
+			int lookBehind = 0;
+			for (;;) {
+				char c = next();
+				switch (c) {
+				case '-':
+					enable = false;
+					break;
+				case 'i':
+					groupCaseInsensitive = enable;
+					break;
+				case 'm':
+					// multi-line anchors examine the preceding character
+					lookBehind = 1;
+					break;
+				case 's':
+				case 'd':
+					break;
+				case ')':
+					// flags apply to the remainder of the enclosing group
+					caseInsensitive = groupCaseInsensitive;
+					return zeroWidth(lookBehind);
+				case ':':
+					boolean outerCaseInsensitive = caseInsensitive;
+					caseInsensitive = groupCaseInsensitive;
+					LeadingCharacters content = groupContent();
+					caseInsensitive = outerCaseInsensitive;
+					return content.followedBy(zeroWidth(lookBehind));
+				default:
+					// comments, unicode case and unknown flags change the meaning of the expression
+					throw new IllegalArgumentException();
+				}
+			}
+		}
+
+		private LeadingCharacters literal(char c) {
+			BitSet characters = new BitSet();
+			add(characters, c);
+			return characters(characters);
+		}
+
+		private void add(BitSet characters, char c) {
+			characters.set(c);
+			if (caseInsensitive) {
+				if (c >= 'a' && c <= 'z') {
+					characters.set(Character.toUpperCase(c));
+				} else if (c >= 'A' && c <= 'Z') {
+					characters.set(Character.toLowerCase(c));
+				}
+			}
+		}
+
+		private LeadingCharacters escape() {
+			char c = next();
+			switch (c) {
+			case 'd':
+			case 's':
+			case 'w': {
+				BitSet characters = new BitSet();
+				addPredefinedClass(characters, c);
+				return characters(characters);
+			}
+			case 'D':
+			case 'S':
+			case 'W':
+			case 'p':
+			case 'P':
+			case 'h':
+			case 'H':
+			case 'v':
+			case 'V':
+			case 'X':
+				skipPropertyName(c);
+				return anyCharacter(1);
+			case 'R':
+				return anyCharacter(2);
+			case 'b':
+			case 'B':
+				return zeroWidth(1);
+			case 'A':
+			case 'z':
+			case 'Z':
+				return zeroWidth(0);
+			case 'G':
+				// depends on the previous match
+				return zeroWidth(UNBOUNDED);
+			case 'Q': {
+				int end = regex.indexOf("\\E", index); //$NON-NLS-1$
+				String quoted = regex.substring(index, end == -1 ? regex.length() : end);
+				index = end == -1 ? regex.length() : end + 2;
+				if (quoted.length() == 0) {
+					return EMPTY;
+				}
+				BitSet characters = new BitSet();
+				add(characters, quoted.charAt(0));
+				return new LeadingCharacters(characters, false, false, 0, quoted.length());
+			}
+			case 'k':
+				// named back-reference
+				while (next() != '>') {
+					// skip the name
+				}
+				return BACK_REFERENCE;
+			default:
+				if (c >= '1' && c <= '9') {
+					// back-reference
+					while (!atEnd() && Character.isDigit(peek())) {
+						next();
+					}
+					return BACK_REFERENCE;
+				}
+				return literal(escapedCharacter(c));
+			}
+		}
+
+		private void skipPropertyName(char c) {
+			if ((c == 'p' || c == 'P') && next() == '{') {
+				while (next() != '}') {
+					// skip the name
+				}
+			}
+		}
+
+		private void addPredefinedClass(BitSet characters, char c) {
+			switch (c) {
+			case 'd':
+				characters.set('0', '9' + 1);
+				break;
+			case 's':
+				characters.set(' ');
+				characters.set('\t');
+				characters.set('\n');
+				characters.set(0x0B);
+				characters.set('\f');
+				characters.set('\r');
+				break;
+			case 'w':
+				characters.set('a', 'z' + 1);
+				characters.set('A', 'Z' + 1);
+				characters.set('0', '9' + 1);
+				characters.set('_');
+				break;
+			default:
+				throw new IllegalArgumentException();
+			}
+		}
+
+		/**
+		 * the character denoted by an escape sequence whose first character (following the backslash) has been
+		 * consumed
+		 */
+		private char escapedCharacter(char c) {
+			switch (c) {
+			case 't':
+				return '\t';
+			case 'n':
+				return '\n';
+			case 'r':
+				return '\r';
+			case 'f':
+				return '\f';
+			case 'a':
+				return '\u0007';
+			case 'e':
+				return '\u001B';
+			case 'c':
+				return (char) (next() ^ 64);
+			case '0': {
+				int value = 0;
+				for (int digits = 0; digits < 3 && !atEnd() && peek() >= '0' && peek() <= '7'; ++digits) {
+					int newValue = value * 8 + (peek() - '0');
+					if (newValue > 0377) {
+						break;
+					}
+					value = newValue;
+					next();
+				}
+				return (char) value;
+			}
+			case 'x': {
+				String hex;
+				if (peek() == '{') {
+					next();
+					int end = regex.indexOf('}', index);
+					hex = regex.substring(index, end);
+					index = end + 1;
+				} else {
+					hex = regex.substring(index, index + 2);
+					index += 2;
+				}
+				return firstChar(Integer.parseInt(hex, 16));
+			}
+			case 'u': {
+				String hex = regex.substring(index, index + 4);
+				index += 4;
+				return (char) Integer.parseInt(hex, 16);
+			}
+			default:
+				if (Character.isLetterOrDigit(c)) {
+					throw new IllegalArgumentException();
+				}
+				return c;
+			}
+		}
+
+		private char firstChar(int codePoint) {
+			return Character.toChars(codePoint)[0];
+		}
+
+		private LeadingCharacters characterClass() {
+			BitSet characters = new BitSet();
+			boolean any = classContent(characters);
+			if (any) {
+				return anyCharacter(1);
+			}
+			return characters(characters);
+		}
+
+		/**
+		 * parse the content of a character class following its opening bracket
+		 *
+		 * @return true if the class may contain any character
+		 */
+		private boolean classContent(BitSet characters) {
+			boolean any = false;
+			if (peek() == '^') {
+				next();
+				any = true;
+			}
+			boolean first = true;
+			for (;;) {
+				char c = next();
+				if (c == ']' && !first) {
+					return any;
+				}
+				first = false;
+				if (c == '[') {
+					any |= classContent(characters);
+					continue;
+				}
+				if (c == '&' && peek() == '&') {
+					// intersections are approximated by the union of their operands
+					next();
+					continue;
+				}
+				char rangeStart;
+				if (c == '\\') {
+					char escaped = next();
+					switch (escaped) {
+					case 'd':
+					case 's':
+					case 'w':
+						addPredefinedClass(characters, escaped);
+						continue;
+					case 'D':
+					case 'S':
+					case 'W':
+					case 'p':
+					case 'P':
+					case 'h':
+					case 'H':
+					case 'v':
+					case 'V':
+						skipPropertyName(escaped);
+						any = true;
+						continue;
+					case 'Q':
+						int end = regex.indexOf("\\E", index); //$NON-NLS-1$
+						for (int x = index; x < end; ++x) {
+							add(characters, regex.charAt(x));
+						}
+						index = end + 2;
+						continue;
+					default:
+						rangeStart = escapedCharacter(escaped);
+					}
+				} else {
+					rangeStart = c;
+				}
+				if (peek() == '-' && regex.charAt(index + 1) != ']' && regex.charAt(index + 1) != '[') {
+					next();
+					char d = next();
+					char rangeEnd = d == '\\' ? escapedCharacter(next()) : d;
+					if (rangeEnd < rangeStart) {
+						throw new IllegalArgumentException();
+					}
+					for (int x = rangeStart; x <= rangeEnd; ++x) {
+						add(characters, (char) x);
+					}
+				} else {
+					add(characters, rangeStart);
+				}
+			}
+		}
+	}
+}
@@ -13,6 +13,8 @@ package org.eclipse.mylyn.wikitext.core.parser.markup;
 import static com.google.common.base.Preconditions.checkArgument;
 import static com.google.common.base.Preconditions.checkNotNull;
 
+import java.io.IOException;
+import java.io.Reader;
 import java.io.Writer;
 import java.util.Collections;
 import java.util.Set;
@@ -63,6 +65,9 @@ public abstract class MarkupLanguage implements Cloneable {
 		}
 		markupLanguage.setName(name);
 		markupLanguage.setExtendsLanguage(extendsLanguage);
+		if (fileExtensions != null) {
+			markupLanguage.fileExtensions = fileExtensions;
+		}
 		return markupLanguage;
 	}
 
@@ -154,6 +159,35 @@ public abstract class MarkupLanguage implements Cloneable {
 
 	public abstract void processContent(MarkupParser parser, String markupContent, boolean asDocument);
 
+	/**
+	 * Process the content provided by the given reader. The default implementation reads the content fully and then
+	 * {@link #processContent(MarkupParser, String, boolean) processes it}. Markup languages that do not require
+	 * look-ahead over the whole document may override this method to process content as it is read.
+	 * 
+	 * @param parser
+	 *            the parser
+	 * @param markupContent
+	 *            the reader that provides the content, which is not closed by this method
+	 * @param asDocument
+	 *            indicate if the content should be processed as a whole document
+	 * @throws IOException
+	 *             if the content cannot be read
+	 * @since 2.1
+	 */
+	public void processContent(MarkupParser parser, Reader markupContent, boolean asDocument) throws IOException {
+		processContent(parser, readFully(markupContent), asDocument);
+	}
+
+	private static String readFully(Reader reader) throws IOException {
+		StringBuilder buffer = new StringBuilder();
+		char[] chars = new char[4096];
+		int length;
+		while ((length = reader.read(chars)) != -1) {
+			buffer.append(chars, 0, length);
+		}
+		return buffer.toString();
+	}
+
 	/**
 	 * Creates a {@link DocumentBuilder} suitable for emitting content in this markup language. Equivalent to
 	 * {@code createDocumentBuilder(out,false)}.
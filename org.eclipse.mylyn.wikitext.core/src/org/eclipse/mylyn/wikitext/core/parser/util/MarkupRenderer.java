@@ -0,0 +1,309 @@
+/*******************************************************************************
+ * Copyright (c) 2014 Tasktop Technologies and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     David Green - initial API and implementation
+ *******************************************************************************/
+
+package org.eclipse.mylyn.wikitext.core.parser.util;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.StringWriter;
+import java.io.Writer;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.eclipse.mylyn.wikitext.core.parser.MarkupParser;
+import org.eclipse.mylyn.wikitext.core.parser.builder.HtmlDocumentBuilder;
+import org.eclipse.mylyn.wikitext.core.parser.markup.MarkupLanguage;
+import org.eclipse.mylyn.wikitext.core.util.ServiceLocator;
+
+/**
+ * A thread-safe facade for rendering markup as HTML. Unlike {@link MarkupParser}, {@link MarkupLanguage} and
+ * {@link HtmlDocumentBuilder}, which must not be used by more than one thread at a time, a single renderer may be
+ * shared by any number of threads. Each render operation uses a {@link MarkupLanguage#clone() clone} of the configured
+ * markup language and an output buffer that are pooled and reused by subsequent render operations.
+ * <p>
+ * The HTML is produced by an {@link HtmlDocumentBuilder} having the settings of the
+ * {@link #MarkupRenderer(MarkupLanguage, HtmlDocumentBuilder) builder configuration}, so by default only the body
+ * content is rendered. To render complete HTML documents, use a builder configuration that
+ * {@link HtmlDocumentBuilder#setEmitAsDocument(boolean) emits a document}.
+ * </p>
+ *
+ * @author David Green
+ * @since 2.1
+ */
+public class MarkupRenderer {
+
+	private static final int BUFFER_SIZE = 8192;
+
+	private static final int MAX_IDLE_CONTEXTS = Runtime.getRuntime().availableProcessors() * 2;
+
+	private final MarkupLanguage markupLanguage;
+
+	private final HtmlDocumentBuilder builderConfiguration;
+
+	private final Queue<RenderContext> idleContexts = new ConcurrentLinkedQueue<RenderContext>();
+
+	private final AtomicInteger idleContextCount = new AtomicInteger();
+
+	/**
+	 * the state used by a single render operation
+	 */
+	private static class RenderContext {
+
+		final MarkupParser parser;
+
+		final OutputBuffer buffer = new OutputBuffer();
+
+		RenderContext(MarkupLanguage markupLanguage) {
+			parser = new MarkupParser(markupLanguage);
+		}
+	}
+
+	/**
+	 * A reusable buffer that writes to a target writer in blocks. Closing the buffer only flushes it, so that the
+	 * target writer remains open.
+	 */
+	private static class OutputBuffer extends Writer {
+
+		private final char[] buffer = new char[BUFFER_SIZE];
+
+		private int count;
+
+		private Writer target;
+
+		void open(Writer target) {
+			this.target = target;
+			count = 0;
+		}
+
+		void release() {
+			target = null;
+			count = 0;
+		}
+
+		@Override
+		public void write(int c) throws IOException {
+			if (count == buffer.length) {
+				flushBuffer();
+			}
+			buffer[count++] = (char) c;
+		}
+
+		@Override
+		public void write(char[] cbuf, int off, int len) throws IOException {
+			if (len >= buffer.length) {
+				flushBuffer();
+				target.write(cbuf, off, len);
+				return;
+			}
+			if (len > buffer.length - count) {
+				flushBuffer();
+			}
+			System.arraycopy(cbuf, off, buffer, count, len);
+			count += len;
+		}
+
+		@Override
+		public void write(String str, int off, int len) throws IOException {
+			if (len >= buffer.length) {
+				flushBuffer();
+				target.write(str, off, len);
+				return;
+			}
+			if (len > buffer.length - count) {
+				flushBuffer();
+			}
+			str.getChars(off, off + len, buffer, count);
+			count += len;
+		}
+
+		@Override
+		public void flush() throws IOException {
+			flushBuffer();
+			target.flush();
+		}
+
+		@Override
+		public void close() throws IOException {
+			flush();
+		}
+
+		private void flushBuffer() throws IOException {
+			if (count > 0) {
+				target.write(buffer, 0, count);
+				count = 0;
+			}
+		}
+	}
+
+	/**
+	 * Creates a renderer with the default builder configuration.
+	 *
+	 * @param markupLanguage
+	 *            the configured markup language, which is cloned and may be modified after the renderer is created
+	 *            without affecting the renderer
+	 */
+	public MarkupRenderer(MarkupLanguage markupLanguage) {
+		this(markupLanguage, null);
+	}
+
+	/**
+	 * Creates a renderer.
+	 *
+	 * @param markupLanguage
+	 *            the configured markup language, which is cloned and may be modified after the renderer is created
+	 *            without affecting the renderer
+	 * @param builderConfiguration
+	 *            the builder whose {@link HtmlDocumentBuilder#copyConfiguration(HtmlDocumentBuilder) configuration} is
+	 *            used for rendering, or null if the default configuration should be used. The configuration is copied,
+	 *            so the builder may be modified after the renderer is created without affecting the renderer.
+	 */
+	public MarkupRenderer(MarkupLanguage markupLanguage, HtmlDocumentBuilder builderConfiguration) {
+		if (markupLanguage == null) {
+			throw new IllegalArgumentException();
+		}
+		this.markupLanguage = markupLanguage.clone();
+		this.builderConfiguration = new HtmlDocumentBuilder(new StringWriter());
+		if (builderConfiguration != null) {
+			builderConfiguration.copyConfiguration(this.builderConfiguration);
+		} else {
+			this.builderConfiguration.setEmitAsDocument(false);
+		}
+	}
+
+	/**
+	 * Creates a renderer for the markup language with the given name, as provided by {@link ServiceLocator}.
+	 *
+	 * @param languageName
+	 *            the {@link MarkupLanguage#getName() name} of the markup language, or the fully qualified name of the
+	 *            class that implements the language
+	 * @throws IllegalArgumentException
+	 *             if the markup language cannot be found
+	 * @see ServiceLocator#getMarkupLanguage(String)
+	 */
+	public static MarkupRenderer forLanguage(String languageName) throws IllegalArgumentException {
+		return new MarkupRenderer(ServiceLocator.getInstance().getMarkupLanguage(languageName));
+	}
+
+	/**
+	 * the name of the markup language that is rendered
+	 */
+	public String getMarkupLanguageName() {
+		return markupLanguage.getName();
+	}
+
+	/**
+	 * Renders the given markup as HTML.
+	 *
+	 * @param markupContent
+	 *            the markup to render
+	 * @return the HTML
+	 */
+	public String render(String markupContent) {
+		StringWriter out = new StringWriter(markupContent.length() + (markupContent.length() >> 1));
+		try {
+			render(markupContent, out);
+		} catch (IOException e) {
+			// cannot happen with a StringWriter
+			throw new IllegalStateException(e);
+		}
+		return out.toString();
+	}
+
+	/**
+	 * Renders the given markup as HTML.
+	 *
+	 * @param markupContent
+	 *            the markup to render
+	 * @param out
+	 *            the writer to which the HTML is written, which is not closed
+	 * @throws IOException
+	 *             if the HTML cannot be written
+	 */
+	public void render(String markupContent, Writer out) throws IOException {
+		RenderContext context = acquire(out);
+		try {
+			context.parser.parse(markupContent);
+		} catch (IllegalStateException e) {
+			throw unwrap(e);
+		}
+		release(context);
+	}
+
+	/**
+	 * Renders the markup provided by the given reader as HTML. Markup languages that support it render the markup as it
+	 * is read.
+	 *
+	 * @param markupContent
+	 *            the reader that provides the markup, which is not closed
+	 * @param out
+	 *            the writer to which the HTML is written, which is not closed
+	 * @throws IOException
+	 *             if the markup cannot be read or the HTML cannot be written
+	 */
+	public void render(Reader markupContent, Writer out) throws IOException {
+		RenderContext context = acquire(out);
+		try {
+			context.parser.parse(markupContent);
+		} catch (IllegalStateException e) {
+			throw unwrap(e);
+		}
+		release(context);
+	}
+
+	private RenderContext acquire(Writer out) {
+		if (out == null) {
+			throw new IllegalArgumentException();
+		}
+		RenderContext context = idleContexts.poll();
+		if (context == null) {
+			context = new RenderContext(cloneMarkupLanguage());
+		} else {
+			idleContextCount.decrementAndGet();
+		}
+		context.buffer.open(out);
+		HtmlDocumentBuilder builder = new HtmlDocumentBuilder(context.buffer);
+		builderConfiguration.copyConfiguration(builder);
+		context.parser.setBuilder(builder);
+		return context;
+	}
+
+	/**
+	 * Returns the context to the pool after a successful render operation. Contexts of failed render operations are
+	 * discarded since their state is unknown.
+	 */
+	private void release(RenderContext context) throws IOException {
+		context.parser.setBuilder(null);
+		try {
+			context.buffer.flush();
+		} finally {
+			context.buffer.release();
+		}
+		if (idleContextCount.incrementAndGet() <= MAX_IDLE_CONTEXTS) {
+			idleContexts.add(context);
+		} else {
+			idleContextCount.decrementAndGet();
+		}
+	}
+
+	private MarkupLanguage cloneMarkupLanguage() {
+		synchronized (markupLanguage) {
+			return markupLanguage.clone();
+		}
+	}
+
+	private IOException unwrap(IllegalStateException e) {
+		if (e.getCause() instanceof IOException) {
+			return (IOException) e.getCause();
+		}
+		throw e;
+	}
+}
@@ -30,7 +30,26 @@ import org.eclipse.mylyn.internal.wikitext.core.util.XML11Char;
  */
 public class DefaultXmlStreamWriter extends XmlStreamWriter {
 
-	private PrintWriter out;
+	/**
+	 * the number of characters for which escaping is determined by lookup
+	 */
+	private static final int ESCAPE_TABLE_SIZE = 128;
+
+	/**
+	 * the escaped form of characters in text, or null for characters that are written as-is
+	 */
+	private static final String[] TEXT_ESCAPES = createEscapeTable(false);
+
+	/**
+	 * the escaped form of characters in attribute values, or null for characters that are written as-is
+	 */
+	private static final String[] ATTRIBUTE_ESCAPES = createEscapeTable(true);
+
+	/**
+	 * the output, which is not a {@link PrintWriter} unless provided by {@link #createUtf8PrintWriter(OutputStream)} so
+	 * that writes avoid its synchronization
+	 */
+	private Writer out;
 
 	private final Map<String, String> prefixToUri = new HashMap<String, String>();
 
@@ -49,11 +68,11 @@ public class DefaultXmlStreamWriter extends XmlStreamWriter {
 	}
 
 	public DefaultXmlStreamWriter(Writer out) {
-		this.out = new PrintWriter(out);
+		this.out = out;
 	}
 
 	public DefaultXmlStreamWriter(Writer out, char xmlHeaderQuoteChar) {
-		this.out = new PrintWriter(out);
+		this.out = out;
 		this.xmlHederQuoteChar = xmlHeaderQuoteChar;
 	}
 
@@ -72,7 +91,11 @@ public class DefaultXmlStreamWriter extends XmlStreamWriter {
 
 	@Override
 	public void flush() {
-		out.flush();
+		try {
+			out.flush();
+		} catch (IOException e) {
+			throw new IllegalStateException(e);
+		}
 	}
 
 	@Override
@@ -97,66 +120,66 @@ public class DefaultXmlStreamWriter extends XmlStreamWriter {
 
 	@Override
 	public void writeAttribute(String localName, String value) {
-		out.write(' ');
-		out.write(localName);
-		out.write("=\""); //$NON-NLS-1$
+		write(' ');
+		write(localName);
+		write("=\""); //$NON-NLS-1$
 		if (value != null) {
 			attrEncode(value);
 		}
-		out.write("\""); //$NON-NLS-1$
+		write("\""); //$NON-NLS-1$
 	}
 
 	@Override
 	public void writeAttribute(String namespaceURI, String localName, String value) {
-		out.write(' ');
+		write(' ');
 		String prefix = uriToPrefix.get(namespaceURI);
 		if (prefix != null && prefix.length() > 0) {
-			out.write(prefix);
-			out.write(':');
+			write(prefix);
+			write(':');
 		}
-		out.write(localName);
-		out.write("=\""); //$NON-NLS-1$
+		write(localName);
+		write("=\""); //$NON-NLS-1$
 		if (value != null) {
 			attrEncode(value);
 		}
-		out.write("\""); //$NON-NLS-1$
+		write("\""); //$NON-NLS-1$
 	}
 
 	@Override
 	public void writeAttribute(String prefix, String namespaceURI, String localName, String value) {
-		out.write(' ');
+		write(' ');
 		if (prefix != null && prefix.length() > 0) {
-			out.write(prefix);
-			out.write(':');
+			write(prefix);
+			write(':');
 		}
-		out.write(localName);
-		out.write("=\""); //$NON-NLS-1$
+		write(localName);
+		write("=\""); //$NON-NLS-1$
 		if (value != null) {
 			attrEncode(value);
 		}
-		out.write("\""); //$NON-NLS-1$
+		write("\""); //$NON-NLS-1$
 	}
 
 	private void attrEncode(String value) {
 		if (value == null) {
 			return;
 		}
-		printEscaped(out, value, true);
+		printEscaped(value, true);
 	}
 
 	private void encode(String text) {
 		if (text == null) {
 			return;
 		}
-		printEscaped(out, text, false);
+		printEscaped(text, false);
 	}
 
 	@Override
 	public void writeCData(String data) {
 		closeElement();
-		out.write("<![CDATA["); //$NON-NLS-1$
-		out.write(data);
-		out.write("]]>"); //$NON-NLS-1$
+		write("<![CDATA["); //$NON-NLS-1$
+		write(data);
+		write("]]>"); //$NON-NLS-1$
 	}
 
 	@Override
@@ -167,7 +190,7 @@ public class DefaultXmlStreamWriter extends XmlStreamWriter {
 
 	public void writeCharactersUnescaped(String text) {
 		closeElement();
-		out.print(text);
+		write(String.valueOf(text));
 	}
 
 	@Override
@@ -178,20 +201,20 @@ public class DefaultXmlStreamWriter extends XmlStreamWriter {
 	@Override
 	public void writeCharacters(char[] text, int start, int len) {
 		closeElement();
-		encode(new String(text, start, len));
+		printEscaped(text, start, start + len, false);
 	}
 
 	@Override
 	public void writeComment(String data) {
 		closeElement();
-		out.write("<!-- "); //$NON-NLS-1$
-		out.write(data);
-		out.write(" -->"); //$NON-NLS-1$
+		write("<!-- "); //$NON-NLS-1$
+		write(data);
+		write(" -->"); //$NON-NLS-1$
 	}
 
 	@Override
 	public void writeDTD(String dtd) {
-		out.write(dtd);
+		write(dtd);
 	}
 
 	@Override
@@ -201,10 +224,10 @@ public class DefaultXmlStreamWriter extends XmlStreamWriter {
 
 	private void closeElement() {
 		if (inEmptyElement) {
-			out.write("/>"); //$NON-NLS-1$
+			write("/>"); //$NON-NLS-1$
 			inEmptyElement = false;
 		} else if (inStartElement) {
-			out.write(">"); //$NON-NLS-1$
+			write(">"); //$NON-NLS-1$
 			inStartElement = false;
 		}
 	}
@@ -213,8 +236,8 @@ public class DefaultXmlStreamWriter extends XmlStreamWriter {
 	public void writeEmptyElement(String localName) {
 		closeElement();
 		inEmptyElement = true;
-		out.write('<');
-		out.write(localName);
+		write('<');
+		write(localName);
 	}
 
 	@Override
@@ -222,24 +245,24 @@ public class DefaultXmlStreamWriter extends XmlStreamWriter {
 		closeElement();
 		inEmptyElement = true;
 		String prefix = uriToPrefix.get(namespaceURI);
-		out.write('<');
+		write('<');
 		if (prefix != null && prefix.length() > 0) {
-			out.write(prefix);
-			out.write(':');
+			write(prefix);
+			write(':');
 		}
-		out.write(localName);
+		write(localName);
 	}
 
 	@Override
 	public void writeEmptyElement(String prefix, String localName, String namespaceURI) {
 		closeElement();
 		inEmptyElement = true;
-		out.write('<');
+		write('<');
 		if (prefix != null && prefix.length() > 0) {
-			out.write(prefix);
-			out.write(':');
+			write(prefix);
+			write(':');
 		}
-		out.write(localName);
+		write(localName);
 	}
 
 	@Override
@@ -256,18 +279,18 @@ public class DefaultXmlStreamWriter extends XmlStreamWriter {
 			throw new IllegalStateException();
 		}
 		String name = elements.pop();
-		out.write('<');
-		out.write('/');
-		out.write(name);
-		out.write('>');
+		write('<');
+		write('/');
+		write(name);
+		write('>');
 	}
 
 	@Override
 	public void writeEntityRef(String name) {
 		closeElement();
-		out.write('&');
-		out.write(name);
-		out.write(';');
+		write('&');
+		write(name);
+		write(';');
 	}
 
 	@Override
@@ -292,17 +315,17 @@ public class DefaultXmlStreamWriter extends XmlStreamWriter {
 
 	@Override
 	public void writeStartDocument() {
-		out.write(processXmlHeader("<?xml version='1.0' ?>")); //$NON-NLS-1$
+		write(processXmlHeader("<?xml version='1.0' ?>")); //$NON-NLS-1$
 	}
 
 	@Override
 	public void writeStartDocument(String version) {
-		out.write(processXmlHeader("<?xml version='" + version + "' ?>")); //$NON-NLS-1$ //$NON-NLS-2$
+		write(processXmlHeader("<?xml version='" + version + "' ?>")); //$NON-NLS-1$ //$NON-NLS-2$
 	}
 
 	@Override
 	public void writeStartDocument(String encoding, String version) {
-		out.write(processXmlHeader("<?xml version='" + version + "' encoding='" + encoding + "' ?>")); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+		write(processXmlHeader("<?xml version='" + version + "' encoding='" + encoding + "' ?>")); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
 	}
 
 	@Override
@@ -310,8 +333,8 @@ public class DefaultXmlStreamWriter extends XmlStreamWriter {
 		closeElement();
 		inStartElement = true;
 		elements.push(localName);
-		out.write('<');
-		out.write(localName);
+		write('<');
+		write(localName);
 	}
 
 	@Override
@@ -319,15 +342,15 @@ public class DefaultXmlStreamWriter extends XmlStreamWriter {
 		closeElement();
 		inStartElement = true;
 		String prefix = uriToPrefix.get(namespaceURI);
-		out.write('<');
+		write('<');
 		if (prefix != null && prefix.length() > 0) {
-			out.write(prefix);
-			out.write(':');
+			write(prefix);
+			write(':');
 			elements.push(prefix + ':' + localName);
 		} else {
 			elements.push(localName);
 		}
-		out.write(localName);
+		write(localName);
 	}
 
 	@Override
@@ -335,12 +358,12 @@ public class DefaultXmlStreamWriter extends XmlStreamWriter {
 		closeElement();
 		inStartElement = true;
 		elements.push(localName);
-		out.write('<');
+		write('<');
 		if (prefix != null && prefix.length() > 0) {
-			out.write(prefix);
-			out.write(':');
+			write(prefix);
+			write(':');
 		}
-		out.write(localName);
+		write(localName);
 	}
 
 	public char getXmlHederQuoteChar() {
@@ -355,52 +378,110 @@ public class DefaultXmlStreamWriter extends XmlStreamWriter {
 		return xmlHederQuoteChar == '\'' ? header : header.replace('\'', xmlHederQuoteChar);
 	}
 
-	private static void printEscaped(PrintWriter writer, CharSequence s, boolean attribute) {
-		int length = s.length();
+	private void write(int c) {
+		try {
+			out.write(c);
+		} catch (IOException e) {
+			throw new IllegalStateException(e);
+		}
+	}
 
+	private void write(String s) {
 		try {
+			out.write(s);
+		} catch (IOException e) {
+			throw new IllegalStateException(e);
+		}
+	}
+
+	/**
+	 * Print text in its escaped form, writing runs of characters that need no escaping as a single slice.
+	 */
+	private void printEscaped(String text, boolean attribute) {
+		String[] escapes = attribute ? ATTRIBUTE_ESCAPES : TEXT_ESCAPES;
+		try {
+			int length = text.length();
+			int runStart = 0;
 			for (int x = 0; x < length; ++x) {
-				char ch = s.charAt(x);
-				printEscaped(writer, ch, attribute);
+				char ch = text.charAt(x);
+				String escaped = ch < ESCAPE_TABLE_SIZE ? escapes[ch] : escape(ch, attribute);
+				if (escaped != null) {
+					if (x > runStart) {
+						out.write(text, runStart, x - runStart);
+					}
+					out.write(escaped);
+					runStart = x + 1;
+				}
 			}
-		} catch (IOException ioe) {
-			throw new IllegalStateException();
+			if (runStart < length) {
+				out.write(text, runStart, length - runStart);
+			}
+		} catch (IOException e) {
+			throw new IllegalStateException(e);
 		}
 	}
 
 	/**
-	 * Print an XML character in its escaped form.
+	 * Print characters in their escaped form, writing runs of characters that need no escaping as a single slice.
 	 * 
-	 * @param writer
-	 *            The writer to which the character should be printed.
-	 * @param ch
-	 *            the character to print.
-	 * @throws IOException
+	 * @see #printEscaped(String, boolean)
 	 */
-	private static void printEscaped(PrintWriter writer, int ch, boolean attribute) throws IOException {
+	private void printEscaped(char[] text, int start, int end, boolean attribute) {
+		String[] escapes = attribute ? ATTRIBUTE_ESCAPES : TEXT_ESCAPES;
+		try {
+			int runStart = start;
+			for (int x = start; x < end; ++x) {
+				char ch = text[x];
+				String escaped = ch < ESCAPE_TABLE_SIZE ? escapes[ch] : escape(ch, attribute);
+				if (escaped != null) {
+					if (x > runStart) {
+						out.write(text, runStart, x - runStart);
+					}
+					out.write(escaped);
+					runStart = x + 1;
+				}
+			}
+			if (runStart < end) {
+				out.write(text, runStart, end - runStart);
+			}
+		} catch (IOException e) {
+			throw new IllegalStateException(e);
+		}
+	}
 
+	private static String[] createEscapeTable(boolean attribute) {
+		String[] escapes = new String[ESCAPE_TABLE_SIZE];
+		for (char ch = 0; ch < ESCAPE_TABLE_SIZE; ++ch) {
+			escapes[ch] = escape(ch, attribute);
+		}
+		return escapes;
+	}
+
+	/**
+	 * Provides the escaped form of an XML character.
+	 * 
+	 * @param ch
+	 *            the character to escape
+	 * @return the escaped form of the character, or null if the character can be written as-is
+	 */
+	private static String escape(char ch, boolean attribute) {
 		String ref = getEntityRef(ch, attribute);
 		if (ref != null) {
-			writer.write('&');
-			writer.write(ref);
-			writer.write(';');
+			return '&' + ref + ';';
 		} else if (ch == '\r' || ch == 0x0085 || ch == 0x2028) {
-			printHex(writer, ch);
-		} else if ((ch >= ' ' && ch != 160 && isUtf8Printable((char) ch) && XML11Char.isXML11ValidLiteral(ch))
-				|| ch == '\t' || ch == '\n' || ch == '\r') {
-			writer.write((char) ch);
-		} else {
-			printHex(writer, ch);
+			return toHex(ch);
+		} else if ((ch >= ' ' && ch != 160 && isUtf8Printable(ch) && XML11Char.isXML11ValidLiteral(ch))
+				|| ch == '\t' || ch == '\n') {
+			return null;
 		}
+		return toHex(ch);
 	}
 
 	/**
 	 * Escapes chars
 	 */
-	final static void printHex(PrintWriter writer, int ch) throws IOException {
-		writer.write("&#x"); //$NON-NLS-1$
-		writer.write(Integer.toHexString(ch));
-		writer.write(';');
+	private static String toHex(int ch) {
+		return "&#x" + Integer.toHexString(ch) + ';'; //$NON-NLS-1$
 	}
 
 	protected static String getEntityRef(int ch, boolean attribute) {
@@ -411,10 +492,8 @@ public class DefaultXmlStreamWriter extends XmlStreamWriter {
 		case '<':
 			return "lt"; //$NON-NLS-1$
 		case '>':
-			if (!attribute) {
-				// bug 302291: text containing CDATA produces invalid HTML
-				return "gt"; //$NON-NLS-1$
-			}
+			// bug 302291: text containing CDATA produces invalid HTML
+			return "gt"; //$NON-NLS-1$
 		case '"':
 			if (attribute) {
 				return "quot"; //$NON-NLS-1$
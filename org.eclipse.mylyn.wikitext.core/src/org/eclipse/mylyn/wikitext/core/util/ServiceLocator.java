@@ -25,6 +25,8 @@ import java.util.HashSet;
 import java.util.List;
 import java.util.ServiceLoader;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 import java.util.regex.Matcher;
@@ -35,6 +37,9 @@ import org.eclipse.mylyn.wikitext.core.parser.markup.MarkupLanguageProvider;
 
 import com.google.common.base.Charsets;
 import com.google.common.base.Strings;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheLoader;
+import com.google.common.cache.LoadingCache;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.Lists;
 import com.google.common.io.Closeables;
@@ -51,6 +56,11 @@ import com.google.common.io.Closeables;
  * <li><tt>services/org.eclipse.mylyn.wikitext.core.parser.markup.MarkupLanguageProvider</tt></li>
  * </ul>
  * </p>
+ * <p>
+ * Discovered markup languages are cached by class loader and service locator type, so that service resources are read
+ * and markup languages are instantiated once. Lookups provide {@link MarkupLanguage#clone() clones} of the discovered
+ * markup languages. The cache can be {@link #clearCache() cleared} when the available markup languages change.
+ * </p>
  * 
  * @author David Green
  * @since 1.0
@@ -67,6 +77,20 @@ public class ServiceLocator {
 
 	private static Pattern CLASS_NAME_PATTERN = Pattern.compile("\\s*([^\\s#]+)?#?.*"); //$NON-NLS-1$
 
+	/**
+	 * the discovered markup languages by class loader and service locator type. Since discovered markup languages
+	 * reference their class loader values are soft, allowing class loaders to be garbage collected.
+	 */
+	private static final LoadingCache<ClassLoader, ConcurrentMap<Class<?>, List<MarkupLanguage>>> discoveredMarkupLanguages = CacheBuilder.newBuilder()
+			.weakKeys()
+			.softValues()
+			.build(new CacheLoader<ClassLoader, ConcurrentMap<Class<?>, List<MarkupLanguage>>>() {
+				@Override
+				public ConcurrentMap<Class<?>, List<MarkupLanguage>> load(ClassLoader key) {
+					return new ConcurrentHashMap<Class<?>, List<MarkupLanguage>>();
+				}
+			});
+
 	protected ServiceLocator(ClassLoader classLoader) {
 		this.classLoader = classLoader;
 	}
@@ -99,7 +123,7 @@ public class ServiceLocator {
 	public static ServiceLocator getInstance() {
 		ClassLoader loader = Thread.currentThread().getContextClassLoader();
 		if (loader == null) {
-			ServiceLocator.class.getClassLoader();
+			loader = ServiceLocator.class.getClassLoader();
 		}
 		return getInstance(loader);
 	}
@@ -116,31 +140,16 @@ public class ServiceLocator {
 	 */
 	public MarkupLanguage getMarkupLanguage(final String languageName) throws IllegalArgumentException {
 		checkArgument(!Strings.isNullOrEmpty(languageName), "Must provide a languageName"); //$NON-NLS-1$
-		Pattern classNamePattern = Pattern.compile("\\s*([^\\s#]+)?#?.*"); //$NON-NLS-1$
 		// first try Java services (jar-based)
-		final List<String> names = Lists.newArrayList();
-		final List<MarkupLanguage> languages = Lists.newArrayList();
-
-		final MarkupLanguage[] result = new MarkupLanguage[1];
-
-		loadMarkupLanguages(new MarkupLanguageVisitor() {
-
-			public boolean accept(MarkupLanguage language) {
-				if (languageName.equals(language.getName())) {
-					result[0] = language;
-					return false;
-				}
-				languages.add(language);
-				names.add(language.getName());
-				return true;
+		List<MarkupLanguage> languages = getDiscoveredMarkupLanguages();
+		for (MarkupLanguage language : languages) {
+			if (languageName.equals(language.getName())) {
+				return language.clone();
 			}
-		});
-		if (result[0] != null) {
-			return result[0];
 		}
 
 		// next attempt to load the markup language as if the language name is a fully qualified name
-		Matcher matcher = classNamePattern.matcher(languageName);
+		Matcher matcher = CLASS_NAME_PATTERN.matcher(languageName);
 		if (matcher.matches()) {
 			String className = matcher.group(1);
 			if (className != null) {
@@ -148,7 +157,7 @@ public class ServiceLocator {
 				//  classloader issues
 				for (MarkupLanguage language : languages) {
 					if (className.equals(language.getClass().getName())) {
-						return language;
+						return language.clone();
 					}
 				}
 				try {
@@ -163,6 +172,10 @@ public class ServiceLocator {
 			}
 		}
 
+		List<String> names = Lists.newArrayList();
+		for (MarkupLanguage language : languages) {
+			names.add(language.getName());
+		}
 		Collections.sort(names);
 
 		// specified language not found.
@@ -187,45 +200,62 @@ public class ServiceLocator {
 	 * @since 1.6
 	 */
 	public Set<MarkupLanguage> getAllMarkupLanguages() {
-		final Set<MarkupLanguage> markupLanguages = new HashSet<MarkupLanguage>();
-		loadMarkupLanguages(new MarkupLanguageVisitor() {
-
-			public boolean accept(MarkupLanguage language) {
-				markupLanguages.add(language);
-				return true;
-			}
-		});
+		Set<MarkupLanguage> markupLanguages = new HashSet<MarkupLanguage>();
+		for (MarkupLanguage language : getDiscoveredMarkupLanguages()) {
+			markupLanguages.add(language.clone());
+		}
 		return markupLanguages;
 	}
 
+	/**
+	 * Clears the cache of discovered markup languages, causing markup languages to be discovered again on subsequent
+	 * lookups. Should be called when the markup languages that are available to a class loader change.
+	 * 
+	 * @since 2.1
+	 */
+	public static void clearCache() {
+		discoveredMarkupLanguages.invalidateAll();
+	}
+
 	public static void setImplementation(Class<? extends ServiceLocator> implementationClass) {
 		synchronized (implementationClassLock) {
 			ServiceLocator.implementationClass = implementationClass;
 		}
 	}
 
-	private interface MarkupLanguageVisitor {
-		public boolean accept(MarkupLanguage language);
+	/**
+	 * Provides the discovered markup languages, discovering them if they are not cached. The returned markup languages
+	 * are shared and must not be modified.
+	 */
+	private List<MarkupLanguage> getDiscoveredMarkupLanguages() {
+		if (classLoader == null) {
+			return discoverMarkupLanguages();
+		}
+		ConcurrentMap<Class<?>, List<MarkupLanguage>> languagesByLocatorType = discoveredMarkupLanguages
+				.getUnchecked(classLoader);
+		List<MarkupLanguage> languages = languagesByLocatorType.get(getClass());
+		if (languages == null) {
+			languages = discoverMarkupLanguages();
+			List<MarkupLanguage> previousLanguages = languagesByLocatorType.putIfAbsent(getClass(), languages);
+			if (previousLanguages != null) {
+				languages = previousLanguages;
+			}
+		}
+		return languages;
 	}
 
-	private void loadMarkupLanguages(MarkupLanguageVisitor visitor) {
+	private List<MarkupLanguage> discoverMarkupLanguages() {
+		List<MarkupLanguage> languages = Lists.newArrayList();
 		for (ResourceDescriptor descriptor : discoverServiceResources()) {
 			List<String> classNames = readServiceClassNames(descriptor.getUrl());
 			for (String className : classNames) {
 				try {
 					Class<?> clazz = loadClass(descriptor, className);
 					if (MarkupLanguage.class.isAssignableFrom(clazz)) {
-						MarkupLanguage instance = (MarkupLanguage) clazz.newInstance();
-						if (!visitor.accept(instance)) {
-							return;
-						}
+						languages.add((MarkupLanguage) clazz.newInstance());
 					} else if (MarkupLanguageProvider.class.isAssignableFrom(clazz)) {
 						MarkupLanguageProvider provider = (MarkupLanguageProvider) clazz.newInstance();
-						for (MarkupLanguage language : provider.getMarkupLanguages()) {
-							if (!visitor.accept(language)) {
-								return;
-							}
-						}
+						languages.addAll(provider.getMarkupLanguages());
 					}
 				} catch (Exception e) {
 					// very unusual, but inform the user in a stand-alone way
@@ -234,6 +264,7 @@ public class ServiceLocator {
 				}
 			}
 		}
+		return ImmutableList.copyOf(languages);
 	}
 
 	/**
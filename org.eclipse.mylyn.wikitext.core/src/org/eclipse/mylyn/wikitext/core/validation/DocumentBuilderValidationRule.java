@@ -0,0 +1,77 @@
+/*******************************************************************************
+ * Copyright (c) 2014 Tasktop Technologies and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     David Green - initial API and implementation
+ *******************************************************************************/
+
+package org.eclipse.mylyn.wikitext.core.validation;
+
+import java.util.List;
+
+import org.eclipse.mylyn.wikitext.core.parser.MarkupParser;
+import org.eclipse.mylyn.wikitext.core.parser.builder.NoOpDocumentBuilder;
+import org.eclipse.mylyn.wikitext.core.parser.markup.AbstractMarkupLanguage;
+import org.eclipse.mylyn.wikitext.core.parser.markup.MarkupLanguage;
+
+/**
+ * A validation rule that finds problems by observing the parse of a document rather than by scanning its markup. Any
+ * number of such rules can share a single parse of a document, which may also be the parse that produces output from
+ * the document: see {@link ValidationPass}. When used on its own, the rule parses the document with the
+ * {@link #createMarkupLanguage() markup language} that it validates.
+ *
+ * @author David Green
+ * @since 2.1
+ */
+public abstract class DocumentBuilderValidationRule extends ValidationRule {
+
+	/**
+	 * A document builder that finds problems as a document is parsed. Problems are available once the document has
+	 * ended.
+	 */
+	public static abstract class ProblemCollector extends NoOpDocumentBuilder {
+
+		/**
+		 * the problems found in the parsed document, or an empty list if there are none
+		 */
+		public abstract List<ValidationProblem> getProblems();
+	}
+
+	/**
+	 * Creates the markup language with which the document is parsed when this rule is used on its own.
+	 */
+	protected abstract MarkupLanguage createMarkupLanguage();
+
+	/**
+	 * Creates a collector that finds problems in the given region of a document as it is parsed.
+	 *
+	 * @param markupLanguage
+	 *            the markup language with which the document is parsed
+	 * @param offset
+	 *            the offset at which to start looking for problems
+	 * @param length
+	 *            the length at which to stop looking for problems
+	 * @return the collector
+	 */
+	public abstract ProblemCollector createProblemCollector(MarkupLanguage markupLanguage, int offset, int length);
+
+	@Override
+	public ValidationProblem findProblem(String markup, int offset, int length) {
+		throw new UnsupportedOperationException();
+	}
+
+	@Override
+	public List<ValidationProblem> findProblems(String markup, int offset, int length) {
+		MarkupLanguage markupLanguage = createMarkupLanguage();
+		if (markupLanguage instanceof AbstractMarkupLanguage) {
+			((AbstractMarkupLanguage) markupLanguage).setFilterGenerativeContents(true);
+		}
+		ProblemCollector collector = createProblemCollector(markupLanguage, offset, length);
+		new MarkupParser(markupLanguage, collector).parse(markup);
+		return collector.getProblems();
+	}
+}
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2007, 2009 David Green and others.
+ * Copyright (c) 2007, 2014 David Green and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -18,13 +18,11 @@ import java.util.List;
 import java.util.Set;
 
 import org.eclipse.mylyn.wikitext.core.parser.Attributes;
-import org.eclipse.mylyn.wikitext.core.parser.DocumentBuilder;
+import org.eclipse.mylyn.wikitext.core.parser.HeadingAttributes;
 import org.eclipse.mylyn.wikitext.core.parser.IdGenerator;
 import org.eclipse.mylyn.wikitext.core.parser.LinkAttributes;
 import org.eclipse.mylyn.wikitext.core.parser.Locator;
 import org.eclipse.mylyn.wikitext.core.parser.markup.MarkupLanguage;
-import org.eclipse.mylyn.wikitext.core.parser.outline.OutlineItem;
-import org.eclipse.mylyn.wikitext.core.parser.outline.OutlineParser;
 import org.eclipse.mylyn.wikitext.core.validation.ValidationProblem.Severity;
 
 /**
@@ -32,7 +30,7 @@ import org.eclipse.mylyn.wikitext.core.validation.ValidationProblem.Severity;
  * 
  * @author David Green
  */
-public abstract class DocumentLocalReferenceValidationRule extends ValidationRule {
+public abstract class DocumentLocalReferenceValidationRule extends DocumentBuilderValidationRule {
 
 	private final class LocalReference {
 		public LocalReference(String name, int offset, int length) {
@@ -50,8 +48,13 @@ public abstract class DocumentLocalReferenceValidationRule extends ValidationRul
 		int offset, length;
 	}
 
-	private final class OutlineParserExtension extends OutlineParser {
-		public IdGenerator idGenerator;
+	/**
+	 * Collects the ids of the document and its local references. Ids of headings that are not specified are generated
+	 * in the same way as by the {@link org.eclipse.mylyn.wikitext.core.parser.outline.OutlineParser outline parser}.
+	 */
+	private final class LocalReferenceCollector extends ProblemCollector {
+
+		private final IdGenerator idGenerator = new IdGenerator();
 
 		private final int offset;
 
@@ -59,52 +62,81 @@ public abstract class DocumentLocalReferenceValidationRule extends ValidationRul
 
 		private List<LocalReference> references;
 
-		private OutlineParserExtension(int offset, int length) {
+		private int headingLevel;
+
+		private Attributes headingAttributes;
+
+		private StringBuilder headingText;
+
+		private LocalReferenceCollector(MarkupLanguage markupLanguage, int offset, int length) {
 			this.offset = offset;
 			this.length = length;
+			idGenerator.setGenerationStrategy(markupLanguage.getIdGenerationStrategy());
 		}
 
-		private final class OutlineBuilderExtension extends OutlineBuilder {
-			private OutlineBuilderExtension(OutlineItem root, int labelMaxLength) {
-				super(root, labelMaxLength);
-				OutlineParserExtension.this.idGenerator = idGenerator;
+		@Override
+		public void beginBlock(BlockType type, Attributes attributes) {
+			idGenerator.reserveId(attributes.getId());
+		}
+
+		@Override
+		public void beginHeading(int level, Attributes attributes) {
+			headingLevel = level;
+			headingAttributes = attributes;
+			headingText = new StringBuilder();
+		}
+
+		@Override
+		public void endHeading() {
+			String id = headingAttributes.getId();
+			if (id != null) {
+				idGenerator.reserveId(id);
+			} else if (!(headingAttributes instanceof HeadingAttributes)
+					|| !((HeadingAttributes) headingAttributes).isOmitFromTableOfContents()) {
+				idGenerator.newId("h" + headingLevel, headingText.toString()); //$NON-NLS-1$
 			}
+			headingAttributes = null;
+			headingText = null;
+		}
 
-			@Override
-			public void beginSpan(SpanType type, Attributes attributes) {
-				super.beginSpan(type, attributes);
-				if (type == SpanType.LINK) {
-					if (attributes instanceof LinkAttributes) {
-						LinkAttributes linkAttributes = (LinkAttributes) attributes;
-						processLink(getLocator(), linkAttributes.getHref());
-					}
-				}
+		@Override
+		public void characters(String text) {
+			if (headingText != null) {
+				// bug 374019: strip HTML tags from text used to generate ID
+				headingText.append(text.replaceAll("</?[a-zA-Z0-9]+.*?>", "")); //$NON-NLS-1$//$NON-NLS-2$
 			}
+		}
 
-			@Override
-			public void link(Attributes attributes, String hrefOrHashName, String text) {
-				super.link(attributes, hrefOrHashName, text);
-				processLink(getLocator(), hrefOrHashName);
+		@Override
+		public void beginSpan(SpanType type, Attributes attributes) {
+			idGenerator.reserveId(attributes.getId());
+			if (type == SpanType.LINK && attributes instanceof LinkAttributes) {
+				processLink(getLocator(), ((LinkAttributes) attributes).getHref());
 			}
+		}
 
-			@Override
-			public void imageLink(Attributes linkAttributes, Attributes ImageAttributes, String href, String imageUrl) {
-				super.imageLink(linkAttributes, ImageAttributes, href, imageUrl);
-				processLink(getLocator(), href);
+		@Override
+		public void link(Attributes attributes, String hrefOrHashName, String text) {
+			idGenerator.reserveId(attributes.getId());
+			if (headingText != null) {
+				headingText.append(text);
 			}
+			processLink(getLocator(), hrefOrHashName);
 		}
 
 		@Override
-		protected boolean isBlocksOnly() {
-			return false;
+		public void image(Attributes attributes, String url) {
+			idGenerator.reserveId(attributes.getId());
 		}
 
 		@Override
-		public DocumentBuilder createOutlineUpdater(OutlineItem rootItem) {
-			return new OutlineBuilderExtension(rootItem, getLabelMaxLength());
+		public void imageLink(Attributes linkAttributes, Attributes imageAttributes, String href, String imageUrl) {
+			idGenerator.reserveId(linkAttributes.getId());
+			idGenerator.reserveId(imageAttributes.getId());
+			processLink(getLocator(), href);
 		}
 
-		public void processLink(Locator locator, String href) {
+		private void processLink(Locator locator, String href) {
 			if ((locator.getDocumentOffset() < offset) || (locator.getDocumentOffset() >= (offset + length))) {
 				return;
 			}
@@ -117,43 +149,37 @@ public abstract class DocumentLocalReferenceValidationRule extends ValidationRul
 				references.add(new LocalReference(name, locator.getDocumentOffset(), length));
 			}
 		}
-	}
-
-	protected abstract MarkupLanguage createMarkupLanguage();
 
-	@Override
-	public ValidationProblem findProblem(String markup, int offset, int length) {
-		throw new UnsupportedOperationException();
-	}
-
-	@Override
-	public List<ValidationProblem> findProblems(String markup, int offset, int length) {
-		MarkupLanguage markupLanguage = createMarkupLanguage();
-
-		OutlineParserExtension outlineParser = new OutlineParserExtension(offset, length);
-		outlineParser.setMarkupLanguage(markupLanguage);
-		outlineParser.parse(markup);
-
-		List<ValidationProblem> problems = null;
-		if (outlineParser.references != null) {
-			Set<String> anchorNames = outlineParser.idGenerator.getAnchorNames();
-			for (LocalReference reference : outlineParser.references) {
-				if (!anchorNames.contains(reference.name)) {
-					if (problems == null) {
-						problems = new ArrayList<ValidationProblem>();
+		@Override
+		public List<ValidationProblem> getProblems() {
+			List<ValidationProblem> problems = null;
+			if (references != null) {
+				Set<String> anchorNames = idGenerator.getAnchorNames();
+				for (LocalReference reference : references) {
+					if (!anchorNames.contains(reference.name)) {
+						if (problems == null) {
+							problems = new ArrayList<ValidationProblem>();
+						}
+						problems.add(new ValidationProblem(
+								Severity.ERROR,
+								MessageFormat.format(
+										Messages.getString("DocumentLocalReferenceValidationRule.0"), reference.name), reference.offset, //$NON-NLS-1$
+								reference.length));
 					}
-					problems.add(new ValidationProblem(
-							Severity.ERROR,
-							MessageFormat.format(
-									Messages.getString("DocumentLocalReferenceValidationRule.0"), reference.name), reference.offset, //$NON-NLS-1$
-							reference.length));
 				}
 			}
+			if (problems == null) {
+				return Collections.emptyList();
+			}
+			return problems;
 		}
-		if (problems == null) {
-			return Collections.emptyList();
-		}
-		return problems;
 	}
 
+	/**
+	 * @since 2.1
+	 */
+	@Override
+	public ProblemCollector createProblemCollector(MarkupLanguage markupLanguage, int offset, int length) {
+		return new LocalReferenceCollector(markupLanguage, offset, length);
+	}
 }
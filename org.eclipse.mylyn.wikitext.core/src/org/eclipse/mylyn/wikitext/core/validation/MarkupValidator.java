@@ -15,6 +15,7 @@ import java.util.Collections;
 import java.util.List;
 
 import org.eclipse.mylyn.internal.wikitext.core.validation.StandaloneMarkupValidator;
+import org.eclipse.mylyn.wikitext.core.parser.markup.MarkupLanguage;
 
 /**
  * Validates markup given a set of rules
@@ -63,6 +64,21 @@ public class MarkupValidator {
 		return problems;
 	}
 
+	/**
+	 * Creates a pass that validates the given markup with the rules of this validator while parsing the markup at most
+	 * once.
+	 * 
+	 * @param markupLanguage
+	 *            the markup language with which the markup is parsed
+	 * @param markup
+	 *            the content to validate
+	 * @return the validation pass
+	 * @since 2.1
+	 */
+	public ValidationPass createValidationPass(MarkupLanguage markupLanguage, String markup) {
+		return new ValidationPass(markupLanguage, rules, markup, 0, markup.length());
+	}
+
 	public List<ValidationRule> getRules() {
 		return rules;
 	}
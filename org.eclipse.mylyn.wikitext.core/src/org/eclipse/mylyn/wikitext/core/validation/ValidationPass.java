@@ -0,0 +1,211 @@
+/*******************************************************************************
+ * Copyright (c) 2014 Tasktop Technologies and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     David Green - initial API and implementation
+ *******************************************************************************/
+
+package org.eclipse.mylyn.wikitext.core.validation;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.FutureTask;
+
+import org.eclipse.mylyn.wikitext.core.parser.DocumentBuilder;
+import org.eclipse.mylyn.wikitext.core.parser.MarkupParser;
+import org.eclipse.mylyn.wikitext.core.parser.builder.MultiplexingDocumentBuilder;
+import org.eclipse.mylyn.wikitext.core.parser.markup.AbstractMarkupLanguage;
+import org.eclipse.mylyn.wikitext.core.parser.markup.MarkupLanguage;
+import org.eclipse.mylyn.wikitext.core.validation.DocumentBuilderValidationRule.ProblemCollector;
+
+/**
+ * Validates a document with a set of rules such that the document is parsed at most once.
+ * {@link DocumentBuilderValidationRule Rules that observe a parse} share a single parse of the document via the
+ * {@link #getDocumentBuilder() document builder} of the pass, which may be combined with the builder that produces
+ * output from the document using a {@link MultiplexingDocumentBuilder}. Other rules scan the markup, and may be
+ * {@link #start(Executor) started} so that they run in parallel with the parse.
+ * <p>
+ * Typical usage:
+ * </p>
+ *
+ * <pre>
+ * ValidationPass pass = validator.createValidationPass(markupLanguage, markup);
+ * pass.start(executor);
+ * new MarkupParser(markupLanguage, new MultiplexingDocumentBuilder(htmlBuilder, pass.getDocumentBuilder())).parse(markup);
+ * List&lt;ValidationProblem&gt; problems = pass.getProblems();
+ * </pre>
+ * <p>
+ * A pass validates a single document once, and must not be used concurrently by more than one thread.
+ * </p>
+ *
+ * @author David Green
+ * @see MarkupValidator#createValidationPass(MarkupLanguage, String)
+ * @since 2.1
+ */
+public class ValidationPass {
+
+	private final MarkupLanguage markupLanguage;
+
+	private final String markup;
+
+	private final int offset;
+
+	private final int length;
+
+	private final List<ValidationRule> markupRules = new ArrayList<ValidationRule>();
+
+	private final List<ProblemCollector> collectors = new ArrayList<ProblemCollector>();
+
+	private final DocumentBuilder documentBuilder;
+
+	private List<FutureTask<List<ValidationProblem>>> tasks;
+
+	/**
+	 * @param markupLanguage
+	 *            the markup language with which the document is parsed
+	 * @param rules
+	 *            the rules with which to validate the document
+	 * @param markup
+	 *            the markup content to validate
+	 * @param offset
+	 *            the 0-based index at which validation should begin
+	 * @param length
+	 *            the length of the content to validate
+	 */
+	public ValidationPass(MarkupLanguage markupLanguage, List<ValidationRule> rules, String markup, int offset,
+			int length) {
+		if (markupLanguage == null || markup == null) {
+			throw new IllegalArgumentException();
+		}
+		this.markupLanguage = markupLanguage;
+		this.markup = markup;
+		this.offset = offset;
+		this.length = length;
+		MultiplexingDocumentBuilder multiplexingBuilder = new MultiplexingDocumentBuilder();
+		if (length > 0) {
+			for (ValidationRule rule : rules) {
+				if (rule instanceof DocumentBuilderValidationRule) {
+					ProblemCollector collector = ((DocumentBuilderValidationRule) rule).createProblemCollector(
+							markupLanguage, offset, length);
+					collectors.add(collector);
+					multiplexingBuilder.addDocumentBuilder(collector);
+				} else {
+					markupRules.add(rule);
+				}
+			}
+		}
+		documentBuilder = multiplexingBuilder;
+	}
+
+	/**
+	 * the builder that must receive the events of the parse of the document before the {@link #getProblems() problems}
+	 * are requested
+	 */
+	public DocumentBuilder getDocumentBuilder() {
+		return documentBuilder;
+	}
+
+	/**
+	 * Indicate if any rule requires the parse of the document. If not, the document need not be parsed.
+	 */
+	public boolean requiresParse() {
+		return !collectors.isEmpty();
+	}
+
+	/**
+	 * Starts the rules that scan the markup, such that each rule runs as a separate task of the given executor. Rules
+	 * that are not started are run when the {@link #getProblems() problems} are requested.
+	 *
+	 * @param executor
+	 *            the executor that runs the rules
+	 */
+	public void start(Executor executor) {
+		if (tasks != null) {
+			throw new IllegalStateException();
+		}
+		tasks = new ArrayList<FutureTask<List<ValidationProblem>>>(markupRules.size());
+		for (final ValidationRule rule : markupRules) {
+			FutureTask<List<ValidationProblem>> task = new FutureTask<List<ValidationProblem>>(
+					new Callable<List<ValidationProblem>>() {
+						public List<ValidationProblem> call() {
+							return rule.findProblems(markup, offset, length);
+						}
+					});
+			tasks.add(task);
+			executor.execute(task);
+		}
+	}
+
+	/**
+	 * Gets the problems found by all rules, waiting for any {@link #start(Executor) started} rules to complete.
+	 *
+	 * @return the problems sorted by offset, or an empty list if there are none
+	 */
+	public List<ValidationProblem> getProblems() {
+		List<ValidationProblem> problems = new ArrayList<ValidationProblem>();
+		for (ProblemCollector collector : collectors) {
+			problems.addAll(collector.getProblems());
+		}
+		if (tasks == null) {
+			for (ValidationRule rule : markupRules) {
+				problems.addAll(rule.findProblems(markup, offset, length));
+			}
+		} else {
+			for (FutureTask<List<ValidationProblem>> task : tasks) {
+				problems.addAll(getResult(task));
+			}
+		}
+		if (problems.isEmpty()) {
+			return Collections.emptyList();
+		}
+		Collections.sort(problems);
+		return problems;
+	}
+
+	/**
+	 * Validates the document with a single parse of its markup.
+	 *
+	 * @param executor
+	 *            the executor with which rules that scan the markup run in parallel with the parse, or null if they
+	 *            should run on the calling thread
+	 * @return the problems sorted by offset, or an empty list if there are none
+	 */
+	public List<ValidationProblem> validate(Executor executor) {
+		if (executor != null) {
+			start(executor);
+		}
+		if (requiresParse()) {
+			MarkupLanguage language = markupLanguage.clone();
+			if (language instanceof AbstractMarkupLanguage) {
+				((AbstractMarkupLanguage) language).setFilterGenerativeContents(true);
+			}
+			new MarkupParser(language, documentBuilder).parse(markup);
+		}
+		return getProblems();
+	}
+
+	private List<ValidationProblem> getResult(FutureTask<List<ValidationProblem>> task) {
+		try {
+			return task.get();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IllegalStateException(e);
+		} catch (ExecutionException e) {
+			Throwable cause = e.getCause();
+			if (cause instanceof RuntimeException) {
+				throw (RuntimeException) cause;
+			} else if (cause instanceof Error) {
+				throw (Error) cause;
+			}
+			throw new IllegalStateException(cause);
+		}
+	}
+}
@@ -109,6 +109,14 @@ public class CreoleLanguage extends AbstractMarkupLanguage {
 		tokenSyntax.add(new ImpliedHyperlinkReplacementToken());
 	}
 
+	/**
+	 * Creole markup has no constructs that depend on the whole document, so content can be processed as it is read.
+	 */
+	@Override
+	protected boolean isStreamingSupported() {
+		return true;
+	}
+
 	@Override
 	protected Block createParagraphBlock() {
 		return new ParagraphBlock();
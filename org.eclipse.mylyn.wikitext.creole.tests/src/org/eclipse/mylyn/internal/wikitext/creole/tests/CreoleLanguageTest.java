@@ -11,10 +11,18 @@
 
 package org.eclipse.mylyn.internal.wikitext.creole.tests;
 
+import java.io.IOException;
+import java.io.Reader;
+import java.io.StringReader;
+import java.io.StringWriter;
+
 import junit.framework.TestCase;
 
 import org.eclipse.mylyn.wikitext.core.osgi.OsgiServiceLocator;
+import org.eclipse.mylyn.wikitext.core.parser.Attributes;
 import org.eclipse.mylyn.wikitext.core.parser.MarkupParser;
+import org.eclipse.mylyn.wikitext.core.parser.builder.HtmlDocumentBuilder;
+import org.eclipse.mylyn.wikitext.core.parser.builder.NoOpDocumentBuilder;
 import org.eclipse.mylyn.wikitext.core.parser.markup.MarkupLanguage;
 import org.eclipse.mylyn.wikitext.creole.core.CreoleLanguage;
 import org.eclipse.mylyn.wikitext.tests.TestUtil;
@@ -206,6 +214,65 @@ public class CreoleLanguageTest extends TestCase {
 				content(html));
 	}
 
+	public void testParseReader() throws IOException {
+		String markup = "= heading =\n\na **bold** paragraph\\\\\nwith [[Link]]\n\n* item\n** nested\n\n|=a|=b|\n|x|y|\n\n{{{\nnowiki\n}}}";
+		String expected = parser.parseToHtml(markup);
+
+		StringWriter out = new StringWriter();
+		parser.setBuilder(new HtmlDocumentBuilder(out));
+		parser.parse(new StringReader(markup));
+		assertEquals(expected, out.toString());
+	}
+
+	public void testParseReaderStreamsContent() throws IOException {
+		final int sectionCount = 10000;
+		final CountingReader reader = new CountingReader("= heading =\n\na **bold** paragraph\n\n", sectionCount);
+		final int[] charactersReadAtFirstHeading = new int[] { -1 };
+		parser.setBuilder(new NoOpDocumentBuilder() {
+			@Override
+			public void beginHeading(int level, Attributes attributes) {
+				if (charactersReadAtFirstHeading[0] == -1) {
+					charactersReadAtFirstHeading[0] = reader.charactersRead;
+				}
+			}
+		});
+		parser.parse(reader);
+
+		assertTrue(charactersReadAtFirstHeading[0] > 0);
+		assertTrue(charactersReadAtFirstHeading[0] < reader.section.length() * sectionCount / 100);
+		assertEquals(reader.section.length() * sectionCount, reader.charactersRead);
+	}
+
+	private static class CountingReader extends Reader {
+
+		private final String section;
+
+		private final int length;
+
+		private int charactersRead;
+
+		CountingReader(String section, int sectionCount) {
+			this.section = section;
+			this.length = section.length() * sectionCount;
+		}
+
+		@Override
+		public int read(char[] cbuf, int off, int len) throws IOException {
+			if (charactersRead == length) {
+				return -1;
+			}
+			int count = Math.min(len, length - charactersRead);
+			for (int x = 0; x < count; ++x) {
+				cbuf[off + x] = section.charAt(charactersRead++ % section.length());
+			}
+			return count;
+		}
+
+		@Override
+		public void close() throws IOException {
+		}
+	}
+
 	private String repeat(int i, String string) {
 		StringBuilder buf = new StringBuilder(string.length() * i);
 		for (int x = 0; x < i; ++x) {
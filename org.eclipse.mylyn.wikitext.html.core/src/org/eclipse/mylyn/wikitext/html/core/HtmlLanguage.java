@@ -11,7 +11,9 @@
 
 package org.eclipse.mylyn.wikitext.html.core;
 
+import java.io.FilterReader;
 import java.io.IOException;
+import java.io.Reader;
 import java.io.StringReader;
 import java.io.Writer;
 
@@ -86,6 +88,8 @@ public class HtmlLanguage extends MarkupLanguage {
 
 	private boolean parseCleansHtml = true;
 
+	private boolean parseStreaming;
+
 	public HtmlLanguage() {
 		setName(NAME_HTML);
 	}
@@ -113,6 +117,33 @@ public class HtmlLanguage extends MarkupLanguage {
 		this.parseCleansHtml = parseCleansHtml;
 	}
 
+	/**
+	 * Indicates if {@link #processContent(MarkupParser, Reader, boolean) parsing} reads HTML incrementally, without
+	 * first building a tree of the whole document. Defaults to {@code false}. When streaming, content provided by a
+	 * reader is parsed as it is read, without first reading the whole document.
+	 * 
+	 * @return true if parsing is streaming, otherwise false
+	 * @see HtmlParser#streamingInstance()
+	 * @since 2.1
+	 */
+	public boolean isParseStreaming() {
+		return parseStreaming;
+	}
+
+	/**
+	 * Set whether {@link #processContent(MarkupParser, Reader, boolean) parsing} reads HTML incrementally, without
+	 * first building a tree of the whole document.
+	 * 
+	 * @param parseStreaming
+	 *            true if parsing is streaming, otherwise false
+	 * @see #isParseStreaming()
+	 * @see HtmlParser#streamingInstance()
+	 * @since 2.1
+	 */
+	public void setParseStreaming(boolean parseStreaming) {
+		this.parseStreaming = parseStreaming;
+	}
+
 	@Override
 	public void processContent(MarkupParser parser, String markupContent, boolean asDocument) {
 		HtmlParser htmlParser = createHtmlParser();
@@ -126,7 +157,38 @@ public class HtmlLanguage extends MarkupLanguage {
 		}
 	}
 
+	/**
+	 * Process the content provided by the given reader. When {@link #isParseStreaming() streaming}, the content is
+	 * parsed as it is read, otherwise it is read fully before it is parsed.
+	 * 
+	 * @since 2.1
+	 */
+	@Override
+	public void processContent(MarkupParser parser, Reader markupContent, boolean asDocument) throws IOException {
+		if (!parseStreaming) {
+			super.processContent(parser, markupContent, asDocument);
+			return;
+		}
+		HtmlParser htmlParser = createHtmlParser();
+		InputSource source = new InputSource(new FilterReader(markupContent) {
+			@Override
+			public void close() {
+				// the caller is responsible for closing the reader
+			}
+		});
+		try {
+			htmlParser.parse(source, parser.getBuilder(), asDocument);
+		} catch (SAXException e) {
+			throw Throwables.propagate(e);
+		}
+	}
+
 	HtmlParser createHtmlParser() {
+		if (parseStreaming) {
+			return parseCleansHtml
+					? HtmlParser.streamingInstanceWithHtmlCleanupRules()
+					: HtmlParser.streamingInstance();
+		}
 		return parseCleansHtml ? HtmlParser.instanceWithHtmlCleanupRules() : new HtmlParser();
 	}
 
@@ -148,6 +210,7 @@ public class HtmlLanguage extends MarkupLanguage {
 	public HtmlLanguage clone() {
 		HtmlLanguage copy = (HtmlLanguage) super.clone();
 		copy.setParseCleansHtml(parseCleansHtml);
+		copy.setParseStreaming(parseStreaming);
 		return copy;
 	}
 
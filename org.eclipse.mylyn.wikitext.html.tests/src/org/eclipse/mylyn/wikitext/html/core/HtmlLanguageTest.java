@@ -17,6 +17,7 @@ import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertTrue;
 
 import java.io.IOException;
+import java.io.StringReader;
 import java.io.StringWriter;
 import java.io.Writer;
 import java.net.URL;
@@ -159,6 +160,69 @@ public class HtmlLanguageTest {
 				false, false);
 	}
 
+	@Test
+	public void parseStreamingDefaultsToFalse() {
+		assertFalse(new HtmlLanguage().isParseStreaming());
+	}
+
+	@Test
+	public void parseStreamingSetOnClone() {
+		HtmlLanguage htmlLanguage = new HtmlLanguage();
+		htmlLanguage.setParseStreaming(true);
+		assertTrue(htmlLanguage.clone().isParseStreaming());
+		htmlLanguage.setParseStreaming(false);
+		assertFalse(htmlLanguage.clone().isParseStreaming());
+	}
+
+	@Test
+	public void parseStreaming() {
+		assertProcessContent("test <span class=\"test\">one</span> two", "test<span class=\"test\"> one </span>two",
+				false, true, true);
+		assertProcessContent("test<span class=\"test\"> one </span>two", "test<span class=\"test\"> one </span>two",
+				false, false, true);
+	}
+
+	@Test
+	public void parseStreamingMalformed() {
+		assertProcessContent(loadResourceContent("parseMalformed_expected.xml"),
+				loadResourceContent("parseMalformed_input.html"), true, true, true);
+	}
+
+	@Test
+	public void parseStreamingFromReader() throws IOException {
+		StringBuilder sourceHtml = new StringBuilder();
+		for (int x = 0; x < 2000; ++x) {
+			sourceHtml.append("<p>paragraph ").append(x).append("</p>");
+		}
+		final StringWriter out = new StringWriter();
+		final StringBuilder outputBeforeEndOfInput = new StringBuilder();
+		final boolean[] closed = new boolean[1];
+		StringReader reader = new StringReader(sourceHtml.toString()) {
+			@Override
+			public int read(char[] cbuf, int off, int len) throws IOException {
+				int count = super.read(cbuf, off, len);
+				if (count == -1 && outputBeforeEndOfInput.length() == 0) {
+					outputBeforeEndOfInput.append(out.toString());
+				}
+				return count;
+			}
+
+			@Override
+			public void close() {
+				closed[0] = true;
+				super.close();
+			}
+		};
+
+		HtmlLanguage language = new HtmlLanguage();
+		language.setParseStreaming(true);
+		new MarkupParser(language, new HtmlDocumentBuilder(out)).parse(reader, false);
+
+		assertTrue(outputBeforeEndOfInput.toString().startsWith("<p>paragraph 0</p><p>paragraph 1</p>"));
+		assertTrue(out.toString().endsWith("<p>paragraph 1999</p>"));
+		assertFalse(closed[0]);
+	}
+
 	private String loadResourceContent(String resourceName) {
 		try {
 			String fileName = HtmlLanguageTest.class.getSimpleName() + '_' + resourceName;
@@ -171,11 +235,17 @@ public class HtmlLanguageTest {
 
 	protected void assertProcessContent(String expectedHtml, String sourceHtml, boolean asDocument,
 			boolean parseCleansHtml) {
+		assertProcessContent(expectedHtml, sourceHtml, asDocument, parseCleansHtml, false);
+	}
+
+	protected void assertProcessContent(String expectedHtml, String sourceHtml, boolean asDocument,
+			boolean parseCleansHtml, boolean parseStreaming) {
 		Writer out = new StringWriter();
 		HtmlDocumentBuilder builder = new HtmlDocumentBuilder(out);
 
 		HtmlLanguage language = new HtmlLanguage();
 		language.setParseCleansHtml(parseCleansHtml);
+		language.setParseStreaming(parseStreaming);
 		MarkupParser markupParser = new MarkupParser(language, builder);
 		markupParser.parse(sourceHtml, asDocument);
 
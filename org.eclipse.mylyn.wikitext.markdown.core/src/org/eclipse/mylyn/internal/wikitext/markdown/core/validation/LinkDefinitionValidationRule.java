@@ -13,14 +13,15 @@ package org.eclipse.mylyn.internal.wikitext.markdown.core.validation;
 
 import java.text.MessageFormat;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 
 import org.eclipse.mylyn.internal.wikitext.markdown.core.LinkDefinitionUsageTracker;
 import org.eclipse.mylyn.internal.wikitext.markdown.core.LinkDefinitionUsageTracker.Position;
 import org.eclipse.mylyn.internal.wikitext.markdown.core.MarkdownContentState;
 import org.eclipse.mylyn.wikitext.core.parser.Locator;
-import org.eclipse.mylyn.wikitext.core.parser.MarkupParser;
-import org.eclipse.mylyn.wikitext.core.parser.builder.NoOpDocumentBuilder;
+import org.eclipse.mylyn.wikitext.core.parser.markup.MarkupLanguage;
+import org.eclipse.mylyn.wikitext.core.validation.DocumentBuilderValidationRule;
 import org.eclipse.mylyn.wikitext.core.validation.ValidationProblem;
 import org.eclipse.mylyn.wikitext.core.validation.ValidationProblem.Severity;
 import org.eclipse.mylyn.wikitext.core.validation.ValidationRule;
@@ -31,56 +32,58 @@ import org.eclipse.mylyn.wikitext.markdown.core.MarkdownLanguage;
  * 
  * @author Stefan Seelmann
  */
-public class LinkDefinitionValidationRule extends ValidationRule {
+public class LinkDefinitionValidationRule extends DocumentBuilderValidationRule {
 
 	@Override
-	public ValidationProblem findProblem(String markup, int offset, int length) {
-		throw new UnsupportedOperationException();
+	protected MarkupLanguage createMarkupLanguage() {
+		return new MarkdownLanguage();
 	}
 
 	@Override
-	public List<ValidationProblem> findProblems(String markup, int offset, int length) {
-
-		MarkupParser parser = new MarkupParser(new MarkdownLanguage());
-		MarkdownContentStateDocumentBuilder builder = new MarkdownContentStateDocumentBuilder();
-		parser.setBuilder(builder);
-		parser.parse(markup);
-
-		MarkdownContentState markdownContentState = builder.markdownContentState;
-		LinkDefinitionUsageTracker linkDefinitionUsageTracker = markdownContentState.getLinkDefinitionUsageTracker();
-
-		List<ValidationProblem> problems = new ArrayList<ValidationProblem>();
-
-		List<Position> missingLinkDefinitionPositions = linkDefinitionUsageTracker.getMissingLinkDefinitionPositions();
-		for (Position position : missingLinkDefinitionPositions) {
-			problems.add(new ValidationProblem(Severity.ERROR, MessageFormat.format(
-					Messages.getString("LinkDefinitionValidationRule.missing"), //$NON-NLS-1$
-					position.getId()), position.getOffset(), position.getLength()));
-		}
-
-		List<Position> unusedLinkDefinitionPositions = linkDefinitionUsageTracker.getUnusedLinkDefinitionPositions();
-		for (Position position : unusedLinkDefinitionPositions) {
-			problems.add(new ValidationProblem(Severity.WARNING, MessageFormat.format(
-					Messages.getString("LinkDefinitionValidationRule.unused"),//$NON-NLS-1$
-					position.getId()), position.getOffset(), position.getLength()));
-		}
-
-		return problems;
+	public ProblemCollector createProblemCollector(MarkupLanguage markupLanguage, int offset, int length) {
+		return new LinkDefinitionProblemCollector();
 	}
 
 	/**
-	 * Document builder that keeps a reference to the set {@link MarkdownContentState}.
+	 * Collector that keeps a reference to the set {@link MarkdownContentState} and reports the missing and unused link
+	 * definitions that it tracked. Finds no problems if the document is not parsed as Markdown.
 	 */
-	private class MarkdownContentStateDocumentBuilder extends NoOpDocumentBuilder {
+	private static class LinkDefinitionProblemCollector extends ProblemCollector {
 
 		MarkdownContentState markdownContentState;
 
 		@Override
 		public void setLocator(Locator locator) {
-			if (locator != null) {
+			if (locator instanceof MarkdownContentState) {
 				markdownContentState = (MarkdownContentState) locator;
 			}
 			super.setLocator(locator);
 		}
+
+		@Override
+		public List<ValidationProblem> getProblems() {
+			if (markdownContentState == null) {
+				return Collections.emptyList();
+			}
+			LinkDefinitionUsageTracker linkDefinitionUsageTracker = markdownContentState.getLinkDefinitionUsageTracker();
+
+			List<ValidationProblem> problems = new ArrayList<ValidationProblem>();
+
+			List<Position> missingLinkDefinitionPositions = linkDefinitionUsageTracker.getMissingLinkDefinitionPositions();
+			for (Position position : missingLinkDefinitionPositions) {
+				problems.add(new ValidationProblem(Severity.ERROR, MessageFormat.format(
+						Messages.getString("LinkDefinitionValidationRule.missing"), //$NON-NLS-1$
+						position.getId()), position.getOffset(), position.getLength()));
+			}
+
+			List<Position> unusedLinkDefinitionPositions = linkDefinitionUsageTracker.getUnusedLinkDefinitionPositions();
+			for (Position position : unusedLinkDefinitionPositions) {
+				problems.add(new ValidationProblem(Severity.WARNING, MessageFormat.format(
+						Messages.getString("LinkDefinitionValidationRule.unused"),//$NON-NLS-1$
+						position.getId()), position.getOffset(), position.getLength()));
+			}
+
+			return problems;
+		}
 	}
 }
@@ -136,6 +136,17 @@ public class MarkdownHeadingTest extends AbstractMarkupGenerationTest<MarkdownLa
 		assertMarkup("<h2 id=\"ThisisanH2\">This is an H2</h2>", "This is an H2\n- ");
 	}
 
+	@Test
+	public void testUnderlinedHeadersWithCarriageReturns() {
+		assertMarkup("<h1 id=\"One\">One</h1><p>text</p><h2 id=\"Two\">Two</h2><p>more</p>",
+				"One\r\n===\r\n\r\ntext\r\n\r\nTwo\r-\r\rmore");
+	}
+
+	@Test
+	public void testUnderlinedHeadersFollowingParagraphs() {
+		assertMarkup("<p>a</p><h1 id=\"b\">b</h1><p>c</p><h2 id=\"d\">d</h2><p>e</p>", "a\n\nb\n=\n\nc\n\nd\n-\n\ne\n");
+	}
+
 	@Override
 	protected MarkdownLanguage createMarkupLanguage() {
 		return new MarkdownLanguage();
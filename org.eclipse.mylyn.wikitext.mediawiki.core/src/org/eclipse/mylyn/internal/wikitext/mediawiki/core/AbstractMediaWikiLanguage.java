@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2010, 2012 David Green and others.
+ * Copyright (c) 2010, 2014 David Green and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -14,12 +14,15 @@ package org.eclipse.mylyn.internal.wikitext.mediawiki.core;
 import java.io.UnsupportedEncodingException;
 import java.net.URLEncoder;
 import java.text.MessageFormat;
+import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.Executor;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
@@ -43,6 +46,8 @@ public abstract class AbstractMediaWikiLanguage extends AbstractMarkupLanguage {
 
 	private Map<String, String> imageMapping;
 
+	private volatile TemplateCache templateCache;
+
 	protected String mapPageNameToHref(String pageName) {
 		if (pageMapping != null) {
 			String mapping = pageMapping.mapPageNameToHref(pageName);
@@ -101,7 +106,40 @@ public abstract class AbstractMediaWikiLanguage extends AbstractMarkupLanguage {
 	 * preprocess content, which involves template substitution.
 	 */
 	private String preprocessContent(String markupContent) {
-		return new TemplateProcessor(this).processTemplates(markupContent);
+		return new TemplateProcessor(getTemplateCache()).processTemplates(markupContent);
+	}
+
+	/**
+	 * Resolves the templates that are used by the given markup concurrently, so that processing the markup with this
+	 * language or its {@link #clone() clones} need not resolve templates one at a time. Has no effect if macros are
+	 * not {@link #isEnableMacros() enabled}.
+	 *
+	 * @param markupContents
+	 *            the markup of the documents that are to be processed
+	 * @param executor
+	 *            the executor that resolves the templates
+	 */
+	public void prefetchTemplates(Collection<String> markupContents, Executor executor) {
+		if (isEnableMacros()) {
+			Set<String> templateNames = new LinkedHashSet<String>();
+			for (String markupContent : markupContents) {
+				templateNames.addAll(TemplateProcessor.findTemplateNames(markupContent));
+			}
+			getTemplateCache().prefetch(templateNames, executor);
+		}
+	}
+
+	/**
+	 * Provides the cache of resolved templates, which is shared with {@link #clone() clones} of this language for as
+	 * long as their templates, template providers and template excludes are unchanged.
+	 */
+	TemplateCache getTemplateCache() {
+		TemplateCache cache = templateCache;
+		if (cache == null || !cache.isValidFor(this)) {
+			cache = new TemplateCache(this);
+			templateCache = cache;
+		}
+		return cache;
 	}
 
 	public abstract List<Template> getTemplates();
@@ -141,6 +179,7 @@ public abstract class AbstractMediaWikiLanguage extends AbstractMarkupLanguage {
 		AbstractMediaWikiLanguage copy = (AbstractMediaWikiLanguage) super.clone();
 		copy.imageMapping = this.imageMapping;
 		copy.pageMapping = this.pageMapping;
+		copy.templateCache = getTemplateCache();
 		return copy;
 	}
 }
@@ -0,0 +1,233 @@
+/*******************************************************************************
+ * Copyright (c) 2014 Tasktop Technologies and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     David Green - initial API and implementation
+ *******************************************************************************/
+
+package org.eclipse.mylyn.internal.wikitext.mediawiki.core;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.FutureTask;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.eclipse.mylyn.wikitext.mediawiki.core.Template;
+import org.eclipse.mylyn.wikitext.mediawiki.core.TemplateResolver;
+
+/**
+ * The normalized templates of a MediaWiki markup language, shared by all documents that are processed with the
+ * language and its clones, such as the pages of a conversion run, so that each template is resolved and normalized at
+ * most once. A cache is {@link #isValidFor(AbstractMediaWikiLanguage) valid} for as long as the templates, template
+ * providers and template excludes of the language are unchanged. Templates whose content depends on the time at which
+ * they are expanded, such as the built-in date and time templates, are not cached. Instances are safe for use by
+ * multiple threads.
+ *
+ * @author David Green
+ */
+public class TemplateCache {
+
+	private static final Pattern includeOnlyPattern = Pattern.compile(".*?<includeonly>(.*?)</includeonly>.*", //$NON-NLS-1$
+			Pattern.DOTALL);
+
+	private static final Pattern noIncludePattern = Pattern.compile("<noinclude>(.*?)</noinclude>", Pattern.DOTALL); //$NON-NLS-1$
+
+	/**
+	 * the value cached for templates that are excluded
+	 */
+	private static final Template EXCLUDED = new Template();
+
+	private final List<String> templateSpecifications;
+
+	private final List<TemplateResolver> templateProviders;
+
+	private final String templateExcludes;
+
+	private final List<Pattern> excludePatterns = new ArrayList<Pattern>();
+
+	private final ConcurrentMap<String, Template> templateByName = new ConcurrentHashMap<String, Template>();
+
+	public TemplateCache(AbstractMediaWikiLanguage mediaWikiLanguage) {
+		templateProviders = new ArrayList<TemplateResolver>(mediaWikiLanguage.getTemplateProviders());
+		templateExcludes = mediaWikiLanguage.getTemplateExcludes();
+		if (templateExcludes != null) {
+			String[] split = templateExcludes.split("\\s*,\\s*"); //$NON-NLS-1$
+			for (String exclude : split) {
+				String pattern = exclude.replaceAll("([^a-zA-Z:\\*])", "\\\\$1").replaceAll("\\*", ".*?"); //$NON-NLS-1$//$NON-NLS-2$ //$NON-NLS-3$ //$NON-NLS-4$
+				excludePatterns.add(Pattern.compile(pattern, Pattern.CASE_INSENSITIVE));
+			}
+		}
+		List<Template> templates = mediaWikiLanguage.getTemplates();
+		templateSpecifications = new ArrayList<String>(templates.size() * 2);
+		for (Template template : templates) {
+			templateSpecifications.add(template.getName());
+			templateSpecifications.add(template.getTemplateMarkup());
+			templateByName.put(template.getName(), isExcluded(template.getName()) ? EXCLUDED : normalize(template));
+		}
+	}
+
+	/**
+	 * Indicate if this cache may be used for the given language, which is the case if the language has the same
+	 * templates, template providers and template excludes as the language for which the cache was created.
+	 */
+	public boolean isValidFor(AbstractMediaWikiLanguage mediaWikiLanguage) {
+		if (!templateProviders.equals(mediaWikiLanguage.getTemplateProviders())) {
+			return false;
+		}
+		String otherExcludes = mediaWikiLanguage.getTemplateExcludes();
+		if (templateExcludes == null ? otherExcludes != null : !templateExcludes.equals(otherExcludes)) {
+			return false;
+		}
+		List<Template> templates = mediaWikiLanguage.getTemplates();
+		if (templates.size() * 2 != templateSpecifications.size()) {
+			return false;
+		}
+		int index = 0;
+		for (Template template : templates) {
+			if (!equals(templateSpecifications.get(index++), template.getName())
+					|| !equals(templateSpecifications.get(index++), template.getTemplateMarkup())) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Resolves the template with the given name, using the templates of the language and its template providers.
+	 *
+	 * @return the normalized template, or null if the template is excluded. Templates that cannot be resolved are
+	 *         empty.
+	 */
+	public Template resolveTemplate(String templateName) {
+		Template template = templateByName.get(templateName);
+		if (template == null) {
+			if (isExcluded(templateName)) {
+				template = EXCLUDED;
+				templateByName.put(templateName, template);
+			} else {
+				boolean cacheable = true;
+				for (TemplateResolver resolver : templateProviders) {
+					template = resolver.resolveTemplate(templateName);
+					if (template != null) {
+						cacheable = !(template instanceof DateTimeTemplate);
+						template = normalize(template);
+						break;
+					}
+				}
+				if (template == null) {
+					template = new Template();
+					template.setName(templateName);
+					template.setTemplateMarkup(""); //$NON-NLS-1$
+				}
+				if (cacheable) {
+					templateByName.put(templateName, template);
+				}
+			}
+		}
+		return template == EXCLUDED ? null : template;
+	}
+
+	/**
+	 * Resolves the given templates and the templates that they use, such that templates that are not yet cached are
+	 * resolved concurrently. Template providers that fetch templates, such as {@link WikiTemplateResolver}, are slow
+	 * to resolve templates one at a time, as is done when templates are first used by markup.
+	 *
+	 * @param templateNames
+	 *            the names of the templates to resolve
+	 * @param executor
+	 *            the executor that resolves the templates, which determines how many templates are resolved at a
+	 *            time
+	 */
+	public void prefetch(Collection<String> templateNames, Executor executor) {
+		Set<String> seenNames = new HashSet<String>();
+		List<String> pendingNames = new ArrayList<String>();
+		for (String templateName : templateNames) {
+			if (seenNames.add(templateName) && !templateByName.containsKey(templateName)) {
+				pendingNames.add(templateName);
+			}
+		}
+		while (!pendingNames.isEmpty()) {
+			List<FutureTask<Template>> tasks = new ArrayList<FutureTask<Template>>(pendingNames.size());
+			for (final String templateName : pendingNames) {
+				FutureTask<Template> task = new FutureTask<Template>(new Callable<Template>() {
+					public Template call() {
+						return resolveTemplate(templateName);
+					}
+				});
+				tasks.add(task);
+				executor.execute(task);
+			}
+			pendingNames = new ArrayList<String>();
+			for (FutureTask<Template> task : tasks) {
+				Template template = getResult(task);
+				if (template != null) {
+					for (String templateName : TemplateProcessor.findTemplateNames(template.getTemplateMarkup())) {
+						if (seenNames.add(templateName) && !templateByName.containsKey(templateName)) {
+							pendingNames.add(templateName);
+						}
+					}
+				}
+			}
+		}
+	}
+
+	private Template getResult(FutureTask<Template> task) {
+		try {
+			return task.get();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IllegalStateException(e);
+		} catch (ExecutionException e) {
+			Throwable cause = e.getCause();
+			if (cause instanceof RuntimeException) {
+				throw (RuntimeException) cause;
+			} else if (cause instanceof Error) {
+				throw (Error) cause;
+			}
+			throw new IllegalStateException(cause);
+		}
+	}
+
+	private boolean isExcluded(String templateName) {
+		for (Pattern p : excludePatterns) {
+			if (p.matcher(templateName).matches()) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	private static Template normalize(Template template) {
+		Template normalizedTemplate = new Template();
+		normalizedTemplate.setName(template.getName());
+		normalizedTemplate.setTemplateMarkup(normalizeTemplateMarkup(template.getTemplateContent()));
+
+		return normalizedTemplate;
+	}
+
+	private static String normalizeTemplateMarkup(String templateMarkup) {
+		Matcher matcher = includeOnlyPattern.matcher(templateMarkup);
+		if (matcher.matches()) {
+			return matcher.group(1);
+		}
+		matcher = noIncludePattern.matcher(templateMarkup);
+		return matcher.replaceAll(""); //$NON-NLS-1$
+	}
+
+	private static boolean equals(String a, String b) {
+		return a == null ? b == null : a.equals(b);
+	}
+}
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2010, 2012 David Green and others.
+ * Copyright (c) 2010, 2014 David Green and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -17,6 +17,7 @@ import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
@@ -24,8 +25,14 @@ import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
 import org.eclipse.mylyn.wikitext.mediawiki.core.Template;
-import org.eclipse.mylyn.wikitext.mediawiki.core.TemplateResolver;
 
+/**
+ * Expands the templates of MediaWiki markup. Each distinct template invocation, that is a template with its parameters,
+ * is expanded at most once by a processor: subsequent invocations reuse the expansion unless the expansion would differ
+ * due to loop detection. Templates are resolved using a {@link TemplateCache}, which may be shared by processors.
+ *
+ * @author David Green
+ */
 public class TemplateProcessor {
 
 	private static final Pattern templatePattern = Pattern.compile("(?:^|(?<!\\{))(\\{\\{(#?[a-zA-Z0-9_ :\\.\\-]+)\\s*(\\|[^\\}]*)?\\}\\})"); //$NON-NLS-1$
@@ -34,38 +41,49 @@ public class TemplateProcessor {
 
 	private static final Pattern parameterSpec = Pattern.compile("\\|\\s*([^\\|=]+)(?:\\s*=\\s*(([^|]*)))?"); //$NON-NLS-1$
 
-	private static final Pattern includeOnlyPattern = Pattern.compile(".*?<includeonly>(.*?)</includeonly>.*", //$NON-NLS-1$
-			Pattern.DOTALL);
-
-	private static final Pattern noIncludePattern = Pattern.compile("<noinclude>(.*?)</noinclude>", Pattern.DOTALL); //$NON-NLS-1$
-
-	private final AbstractMediaWikiLanguage mediaWikiLanguage;
-
-	private final Map<String, Template> templateByName = new HashMap<String, Template>();
+	private final TemplateCache templateCache;
 
-	private final List<Pattern> excludePatterns = new ArrayList<Pattern>();
+	private final Map<String, Expansion> expansionByInvocation = new HashMap<String, Expansion>();
 
 	public TemplateProcessor(AbstractMediaWikiLanguage abstractMediaWikiLanguage) {
-		this.mediaWikiLanguage = abstractMediaWikiLanguage;
+		this(new TemplateCache(abstractMediaWikiLanguage));
+	}
 
-		for (Template template : mediaWikiLanguage.getTemplates()) {
-			templateByName.put(template.getName(), normalize(template));
-		}
-		String templateExcludes = abstractMediaWikiLanguage.getTemplateExcludes();
-		if (templateExcludes != null) {
-			String[] split = templateExcludes.split("\\s*,\\s*"); //$NON-NLS-1$
-			for (String exclude : split) {
-				String pattern = exclude.replaceAll("([^a-zA-Z:\\*])", "\\\\$1").replaceAll("\\*", ".*?"); //$NON-NLS-1$//$NON-NLS-2$ //$NON-NLS-3$ //$NON-NLS-4$
-				excludePatterns.add(Pattern.compile(pattern, Pattern.CASE_INSENSITIVE));
-			}
-		}
+	/**
+	 * @param templateCache
+	 *            the cache with which templates are resolved
+	 */
+	public TemplateProcessor(TemplateCache templateCache) {
+		this.templateCache = templateCache;
 	}
 
 	public String processTemplates(String markupContent) {
-		return processTemplates(markupContent, Collections.<String> emptySet());
+		return processTemplates(markupContent, Collections.<String> emptySet(), new HashSet<String>());
 	}
 
-	private String processTemplates(String markupContent, Set<String> usedTemplates) {
+	/**
+	 * Finds the names of the templates that are used by the given markup, not including templates that are only used
+	 * by those templates.
+	 *
+	 * @return the template names, in the order in which they are first used
+	 */
+	public static Set<String> findTemplateNames(String markupContent) {
+		Set<String> templateNames = new LinkedHashSet<String>();
+		Matcher matcher = templatePattern.matcher(markupContent);
+		while (matcher.find()) {
+			templateNames.add(matcher.group(2));
+		}
+		return templateNames;
+	}
+
+	/**
+	 * @param usedTemplates
+	 *            the names of the templates that are being expanded, which must not be expanded again
+	 * @param encounteredTemplates
+	 *            the set to which the names of all templates that are encountered, including those within expansions,
+	 *            are added
+	 */
+	private String processTemplates(String markupContent, Set<String> usedTemplates, Set<String> encounteredTemplates) {
 		StringBuilder processedMarkup = new StringBuilder();
 
 		int lastIndex = 0;
@@ -76,8 +94,9 @@ public class TemplateProcessor {
 				processedMarkup.append(markupContent.substring(lastIndex, start));
 			}
 			String templateName = matcher.group(2);
-			Template template = resolveTemplate(templateName);
+			Template template = templateCache.resolveTemplate(templateName);
 			if (template != null) {
+				encounteredTemplates.add(templateName);
 				String replacementText;
 				if (usedTemplates.contains(templateName)) {
 					StringBuilder sb = new StringBuilder();
@@ -88,13 +107,25 @@ public class TemplateProcessor {
 					replacementText = sb.toString();
 				} else {
 					String parameters = matcher.group(3);
-					replacementText = processTemplate(template, parameters);
-					//The replacementText might contain other templates. Add the current template to the set of used template and call recursively this function again:
-					Set<String> templates = new HashSet<String>(usedTemplates);
-					templates.add(templateName);
-					replacementText = processTemplates(replacementText, templates);
+					String invocation = parameters == null ? templateName : templateName + parameters;
+					Expansion expansion = expansionByInvocation.get(invocation);
+					if (expansion == null || !Collections.disjoint(expansion.templateNames, usedTemplates)) {
+						replacementText = processTemplate(template, parameters);
+						//The replacementText might contain other templates. Add the current template to the set of used template and call recursively this function again:
+						Set<String> templates = new HashSet<String>(usedTemplates);
+						templates.add(templateName);
+						Set<String> templateNames = new HashSet<String>();
+						replacementText = processTemplates(replacementText, templates, templateNames);
+						// the expansion only depends on the used templates that it encounters, since those are expanded as loops
+						if (Collections.disjoint(templateNames, usedTemplates)) {
+							expansionByInvocation.put(invocation, new Expansion(replacementText, templateNames));
+						}
+						encounteredTemplates.addAll(templateNames);
+					} else {
+						replacementText = expansion.text;
+						encounteredTemplates.addAll(expansion.templateNames);
+					}
 				}
-				replacementText = processTemplates(replacementText);
 				processedMarkup.append(replacementText);
 			}
 			lastIndex = matcher.end();
@@ -174,53 +205,20 @@ public class TemplateProcessor {
 		return parameters;
 	}
 
-	private Template resolveTemplate(String templateName) {
-		if (!excludePatterns.isEmpty()) {
-			for (Pattern p : excludePatterns) {
-				if (p.matcher(templateName).matches()) {
-					return null;
-				}
-			}
-		}
-		Template template = templateByName.get(templateName);
-		if (template == null) {
-			for (TemplateResolver resolver : mediaWikiLanguage.getTemplateProviders()) {
-				template = resolver.resolveTemplate(templateName);
-				if (template != null) {
-					template = normalize(template);
-					break;
-				}
-			}
-			if (template == null) {
-				template = new Template();
-				template.setName(templateName);
-				template.setTemplateMarkup(""); //$NON-NLS-1$
-			}
-			templateByName.put(template.getName(), template);
-		}
-		return template;
-	}
-
-	private Template normalize(Template template) {
-		Template normalizedTemplate = new Template();
-		normalizedTemplate.setName(template.getName());
-		normalizedTemplate.setTemplateMarkup(normalizeTemplateMarkup(template.getTemplateContent()));
+	private static class Parameter {
+		String name;
 
-		return normalizedTemplate;
+		String value;
 	}
 
-	private String normalizeTemplateMarkup(String templateMarkup) {
-		Matcher matcher = includeOnlyPattern.matcher(templateMarkup);
-		if (matcher.matches()) {
-			return matcher.group(1);
-		}
-		matcher = noIncludePattern.matcher(templateMarkup);
-		return matcher.replaceAll(""); //$NON-NLS-1$
-	}
+	private static class Expansion {
+		final String text;
 
-	private static class Parameter {
-		String name;
+		final Set<String> templateNames;
 
-		String value;
+		Expansion(String text, Set<String> templateNames) {
+			this.text = text;
+			this.templateNames = templateNames;
+		}
 	}
 }
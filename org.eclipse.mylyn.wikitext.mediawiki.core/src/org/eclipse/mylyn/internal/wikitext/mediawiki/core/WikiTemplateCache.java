@@ -0,0 +1,296 @@
+/*******************************************************************************
+ * Copyright (c) 2014 Tasktop Technologies and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     David Green - initial API and implementation
+ *******************************************************************************/
+
+package org.eclipse.mylyn.internal.wikitext.mediawiki.core;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UnsupportedEncodingException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.text.MessageFormat;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Properties;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * A cache of the raw content of wiki templates, used by a {@link WikiTemplateResolver} to avoid fetching a template
+ * more than once. Entries are kept in memory, where the least recently used entries are discarded once the cache
+ * exceeds its {@link #getMaxEntries() maximum size}. If a {@link #setDirectory(File) directory} is specified, entries
+ * are also stored on disk so that they are available to subsequent conversions. Entries older than the
+ * {@link #setTimeToLive(long) time to live} are stale: the resolver revalidates them with a conditional request using
+ * the entity tag of the entry, if any. Instances are safe for use by multiple threads, and may be shared by multiple
+ * resolvers.
+ *
+ * @author David Green
+ * @see WikiTemplateResolver#setTemplateCache(WikiTemplateCache)
+ */
+public class WikiTemplateCache {
+
+	/**
+	 * A cached template.
+	 */
+	public static class Entry {
+
+		private final String content;
+
+		private final String entityTag;
+
+		private final long fetchedTime;
+
+		/**
+		 * @param content
+		 *            the raw content of the template, or null if the template does not exist
+		 * @param entityTag
+		 *            the entity tag of the content, or null if there is none
+		 * @param fetchedTime
+		 *            the time at which the content was fetched or revalidated, in milliseconds since the epoch
+		 */
+		public Entry(String content, String entityTag, long fetchedTime) {
+			this.content = content;
+			this.entityTag = entityTag;
+			this.fetchedTime = fetchedTime;
+		}
+
+		/**
+		 * the raw content of the template, or null if the template does not exist
+		 */
+		public String getContent() {
+			return content;
+		}
+
+		/**
+		 * the entity tag with which the content can be revalidated, or null if there is none
+		 */
+		public String getEntityTag() {
+			return entityTag;
+		}
+
+		/**
+		 * the time at which the content was fetched or last revalidated, in milliseconds since the epoch
+		 */
+		public long getFetchedTime() {
+			return fetchedTime;
+		}
+	}
+
+	private static class LruMap extends LinkedHashMap<String, WikiTemplateCache.Entry> {
+
+		private static final long serialVersionUID = 1L;
+
+		private final int maxEntries;
+
+		LruMap(int maxEntries) {
+			super(16, 0.75f, true);
+			this.maxEntries = maxEntries;
+		}
+
+		@Override
+		protected boolean removeEldestEntry(Map.Entry<String, WikiTemplateCache.Entry> eldest) {
+			return size() > maxEntries;
+		}
+	}
+
+	public static final int DEFAULT_MAX_ENTRIES = 500;
+
+	public static final long DEFAULT_TIME_TO_LIVE = 24L * 60L * 60L * 1000L;
+
+	private static final String PROPERTY_CONTENT = "content"; //$NON-NLS-1$
+
+	private static final String PROPERTY_ENTITY_TAG = "etag"; //$NON-NLS-1$
+
+	private static final String PROPERTY_FETCHED_TIME = "fetched"; //$NON-NLS-1$
+
+	private final int maxEntries;
+
+	private final Map<String, Entry> entryByKey;
+
+	private File directory;
+
+	private long timeToLive = DEFAULT_TIME_TO_LIVE;
+
+	public WikiTemplateCache() {
+		this(DEFAULT_MAX_ENTRIES);
+	}
+
+	/**
+	 * @param maxEntries
+	 *            the maximum number of entries that are kept in memory
+	 */
+	public WikiTemplateCache(int maxEntries) {
+		if (maxEntries < 1) {
+			throw new IllegalArgumentException();
+		}
+		this.maxEntries = maxEntries;
+		entryByKey = new LruMap(maxEntries);
+	}
+
+	/**
+	 * the maximum number of entries that are kept in memory
+	 */
+	public int getMaxEntries() {
+		return maxEntries;
+	}
+
+	/**
+	 * the directory in which entries are stored, or null if entries are only kept in memory
+	 */
+	public synchronized File getDirectory() {
+		return directory;
+	}
+
+	/**
+	 * the directory in which entries are stored, or null if entries should only be kept in memory
+	 */
+	public synchronized void setDirectory(File directory) {
+		this.directory = directory;
+	}
+
+	/**
+	 * the time in milliseconds after which an entry must be revalidated
+	 */
+	public synchronized long getTimeToLive() {
+		return timeToLive;
+	}
+
+	/**
+	 * the time in milliseconds after which an entry must be revalidated
+	 */
+	public synchronized void setTimeToLive(long timeToLive) {
+		if (timeToLive < 0) {
+			throw new IllegalArgumentException();
+		}
+		this.timeToLive = timeToLive;
+	}
+
+	/**
+	 * Gets the entry for the given key, loading it from the {@link #getDirectory() directory} if it's not in memory.
+	 *
+	 * @param key
+	 *            the key of the template, typically its URL
+	 * @return the entry, or null if there is none
+	 */
+	public synchronized Entry get(String key) {
+		Entry entry = entryByKey.get(key);
+		if (entry == null && directory != null) {
+			entry = read(computeFile(key));
+			if (entry != null) {
+				entryByKey.put(key, entry);
+			}
+		}
+		return entry;
+	}
+
+	/**
+	 * Puts the entry for the given key, storing it in the {@link #getDirectory() directory} unless it is an entry for a
+	 * template that does not exist.
+	 *
+	 * @param key
+	 *            the key of the template, typically its URL
+	 * @param entry
+	 *            the entry
+	 */
+	public synchronized void put(String key, Entry entry) {
+		if (key == null || entry == null) {
+			throw new IllegalArgumentException();
+		}
+		entryByKey.put(key, entry);
+		if (directory != null && entry.getContent() != null) {
+			write(computeFile(key), entry);
+		}
+	}
+
+	/**
+	 * Indicate if the given entry can be used without revalidation.
+	 */
+	public synchronized boolean isFresh(Entry entry) {
+		return System.currentTimeMillis() - entry.getFetchedTime() < timeToLive;
+	}
+
+	private Entry read(File file) {
+		if (!file.exists()) {
+			return null;
+		}
+		try {
+			Properties properties = new Properties();
+			InputStream in = new BufferedInputStream(new FileInputStream(file));
+			try {
+				properties.load(in);
+			} finally {
+				in.close();
+			}
+			String content = properties.getProperty(PROPERTY_CONTENT);
+			String fetchedTime = properties.getProperty(PROPERTY_FETCHED_TIME);
+			if (content == null || fetchedTime == null) {
+				return null;
+			}
+			return new Entry(content, properties.getProperty(PROPERTY_ENTITY_TAG), Long.parseLong(fetchedTime));
+		} catch (IOException e) {
+			log(file, e);
+		} catch (NumberFormatException e) {
+			log(file, e);
+		}
+		return null;
+	}
+
+	private void write(File file, Entry entry) {
+		Properties properties = new Properties();
+		properties.setProperty(PROPERTY_CONTENT, entry.getContent());
+		if (entry.getEntityTag() != null) {
+			properties.setProperty(PROPERTY_ENTITY_TAG, entry.getEntityTag());
+		}
+		properties.setProperty(PROPERTY_FETCHED_TIME, Long.toString(entry.getFetchedTime()));
+		try {
+			if (!directory.exists() && !directory.mkdirs()) {
+				throw new IOException(MessageFormat.format("Cannot create folder: {0}", directory)); //$NON-NLS-1$
+			}
+			OutputStream out = new BufferedOutputStream(new FileOutputStream(file));
+			try {
+				properties.store(out, null);
+			} finally {
+				out.close();
+			}
+		} catch (IOException e) {
+			log(file, e);
+		}
+	}
+
+	private void log(File file, Exception e) {
+		Logger.getLogger(WikiTemplateCache.class.getName()).log(Level.WARNING,
+				MessageFormat.format("Cannot access template cache file {0}: {1}", file, e.getMessage()), e); //$NON-NLS-1$
+	}
+
+	private File computeFile(String key) {
+		try {
+			MessageDigest digest = MessageDigest.getInstance("SHA-1"); //$NON-NLS-1$
+			byte[] hash = digest.digest(key.getBytes("UTF-8")); //$NON-NLS-1$
+			StringBuilder name = new StringBuilder(hash.length * 2 + 11);
+			for (byte b : hash) {
+				name.append(Character.forDigit((b >> 4) & 0xf, 16));
+				name.append(Character.forDigit(b & 0xf, 16));
+			}
+			name.append(".properties"); //$NON-NLS-1$
+			return new File(directory, name.toString());
+		} catch (NoSuchAlgorithmException e) {
+			throw new IllegalStateException(e);
+		} catch (UnsupportedEncodingException e) {
+			throw new IllegalStateException(e);
+		}
+	}
+}
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2010 David Green and others.
+ * Copyright (c) 2010, 2014 David Green and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -12,11 +12,14 @@
 package org.eclipse.mylyn.internal.wikitext.mediawiki.core;
 
 import java.io.BufferedInputStream;
+import java.io.FileNotFoundException;
 import java.io.IOException;
 import java.io.InputStreamReader;
 import java.io.Reader;
 import java.io.StringWriter;
+import java.net.HttpURLConnection;
 import java.net.URL;
+import java.net.URLConnection;
 import java.net.URLEncoder;
 import java.text.MessageFormat;
 import java.util.logging.Level;
@@ -26,14 +29,22 @@ import org.eclipse.mylyn.wikitext.mediawiki.core.Template;
 import org.eclipse.mylyn.wikitext.mediawiki.core.TemplateResolver;
 
 /**
- * compute the contents of a template based on
+ * compute the contents of a template based on the raw content of the template page of a wiki. Templates are fetched
+ * from the wiki each time that they are resolved, unless a {@link #setTemplateCache(WikiTemplateCache) template cache}
+ * is specified. Instances are safe for use by multiple threads, such that templates can be fetched concurrently.
  * 
  * @author dgreen
  */
 public class WikiTemplateResolver extends TemplateResolver {
 
+	private static final String HEADER_ETAG = "ETag"; //$NON-NLS-1$
+
+	private static final String HEADER_IF_NONE_MATCH = "If-None-Match"; //$NON-NLS-1$
+
 	private String wikiBaseUrl;
 
+	private WikiTemplateCache templateCache;
+
 	public String getWikiBaseUrl() {
 		return wikiBaseUrl;
 	}
@@ -42,6 +53,20 @@ public class WikiTemplateResolver extends TemplateResolver {
 		this.wikiBaseUrl = wikiBaseUrl;
 	}
 
+	/**
+	 * the cache of fetched templates, or null if templates are not cached
+	 */
+	public WikiTemplateCache getTemplateCache() {
+		return templateCache;
+	}
+
+	/**
+	 * the cache of fetched templates, or null if templates should not be cached
+	 */
+	public void setTemplateCache(WikiTemplateCache templateCache) {
+		this.templateCache = templateCache;
+	}
+
 	@Override
 	public Template resolveTemplate(String templateName) {
 		if (wikiBaseUrl != null) {
@@ -53,28 +78,67 @@ public class WikiTemplateResolver extends TemplateResolver {
 			}
 			URL url = computeRawUrl(templateName);
 			if (url != null) {
-				Reader input;
-				try {
-					input = new InputStreamReader(new BufferedInputStream(url.openStream()), "UTF-8"); //$NON-NLS-1$
-					try {
-						String content = readFully(input);
-						Template template = new Template();
-						String basicName = templateName.toLowerCase().startsWith("template:") ? templateName.substring(templateName.lastIndexOf(':') + 1) : templateName; //$NON-NLS-1$
-						template.setName(basicName);
-						template.setTemplateMarkup(content);
-						return template;
-					} finally {
-						input.close();
-					}
-				} catch (final IOException e) {
-					final String message = MessageFormat.format("Cannot read from {0}: {1}", url, e.getMessage()); //$NON-NLS-1$
-					Logger.getLogger(WikiTemplateResolver.class.getName()).log(Level.WARNING, message, e);
+				String content = fetchContent(url);
+				if (content != null) {
+					Template template = new Template();
+					String basicName = templateName.toLowerCase().startsWith("template:") ? templateName.substring(templateName.lastIndexOf(':') + 1) : templateName; //$NON-NLS-1$
+					template.setName(basicName);
+					template.setTemplateMarkup(content);
+					return template;
 				}
 			}
 		}
 		return null;
 	}
 
+	private String fetchContent(URL url) {
+		WikiTemplateCache cache = templateCache;
+		String key = url.toString();
+		WikiTemplateCache.Entry entry = cache == null ? null : cache.get(key);
+		if (entry != null && cache.isFresh(entry)) {
+			return entry.getContent();
+		}
+		try {
+			URLConnection connection = url.openConnection();
+			if (connection instanceof HttpURLConnection) {
+				HttpURLConnection httpConnection = (HttpURLConnection) connection;
+				if (entry != null && entry.getContent() != null && entry.getEntityTag() != null) {
+					httpConnection.setRequestProperty(HEADER_IF_NONE_MATCH, entry.getEntityTag());
+				}
+				int responseCode = httpConnection.getResponseCode();
+				if (responseCode == HttpURLConnection.HTTP_NOT_MODIFIED && entry != null) {
+					httpConnection.disconnect();
+					cache.put(key, new WikiTemplateCache.Entry(entry.getContent(), entry.getEntityTag(),
+							System.currentTimeMillis()));
+					return entry.getContent();
+				}
+			}
+			Reader input = new InputStreamReader(new BufferedInputStream(connection.getInputStream()), "UTF-8"); //$NON-NLS-1$
+			try {
+				String content = readFully(input);
+				if (cache != null) {
+					cache.put(key, new WikiTemplateCache.Entry(content, connection.getHeaderField(HEADER_ETAG),
+							System.currentTimeMillis()));
+				}
+				return content;
+			} finally {
+				input.close();
+			}
+		} catch (final IOException e) {
+			if (cache != null && e instanceof FileNotFoundException) {
+				cache.put(key, new WikiTemplateCache.Entry(null, null, System.currentTimeMillis()));
+			} else if (entry != null && entry.getContent() != null) {
+				final String message = MessageFormat.format(
+						"Cannot read from {0}, using cached content: {1}", url, e.getMessage()); //$NON-NLS-1$
+				Logger.getLogger(WikiTemplateResolver.class.getName()).log(Level.WARNING, message, e);
+				return entry.getContent();
+			}
+			final String message = MessageFormat.format("Cannot read from {0}: {1}", url, e.getMessage()); //$NON-NLS-1$
+			Logger.getLogger(WikiTemplateResolver.class.getName()).log(Level.WARNING, message, e);
+		}
+		return null;
+	}
+
 	private String readFully(Reader input) throws IOException {
 		StringWriter content = new StringWriter(1024);
 		int i;
@@ -29,8 +29,6 @@ import org.eclipse.mylyn.wikitext.core.parser.markup.Block;
  */
 public class TableBlock extends Block {
 
-	private static final Pattern rowCellSplitter = Pattern.compile("\\s*(\\|\\||!!)\\s*"); //$NON-NLS-1$
-
 	private static final Pattern startPattern = Pattern.compile("\\s*\\{\\|\\s*(.+)?"); //$NON-NLS-1$
 
 	private static final Pattern optionsPattern = Pattern.compile("([a-zA-Z]+)=\"([^\"]*)\""); //$NON-NLS-1$
@@ -39,8 +37,6 @@ public class TableBlock extends Block {
 
 	private static final Pattern cellPattern = Pattern.compile("\\s*(\\||!)\\s*(.+)?"); //$NON-NLS-1$
 
-	private static final Pattern cellSplitterPattern = Pattern.compile("\\s*(?:([^\\|\\[]+)?\\|)?\\s*(.+)?"); //$NON-NLS-1$
-
 	private static final Pattern endPattern = Pattern.compile("\\s*\\|\\}\\s*(.+)?"); //$NON-NLS-1$
 
 	private int blockLineCount;
@@ -155,11 +151,20 @@ public class TableBlock extends Block {
 		}
 	}
 
+	/**
+	 * Emits the cells of a line, which are separated by <code>||</code> or <code>!!</code> and optional whitespace.
+	 * Cells are found with a linear scan, since splitting with a regular expression that starts with optional
+	 * whitespace takes quadratic time on long runs of whitespace.
+	 */
 	private void emitCells(int contentsStart, BlockType type, String contents) {
+		int length = contents.length();
 		int lastEnd = 0;
-		Matcher matcher = rowCellSplitter.matcher(contents);
-		while (matcher.find()) {
-			int found = matcher.start();
+		int separator = findCellSeparator(contents, 0);
+		while (separator != -1) {
+			int found = separator;
+			while (found > lastEnd && isWhitespace(contents.charAt(found - 1))) {
+				--found;
+			}
 			String cell;
 			if (found > lastEnd) {
 				cell = contents.substring(lastEnd, found);
@@ -170,26 +175,71 @@ public class TableBlock extends Block {
 
 			// Depending on the cell splitter the next cell is either a
 			// header or normal cell.
-			String splitterSpec = matcher.group(1);
-			if ("!!".equals(splitterSpec)) { //$NON-NLS-1$
+			if (contents.charAt(separator) == '!') {
 				type = BlockType.TABLE_CELL_HEADER;
 			} else {
 				type = BlockType.TABLE_CELL_NORMAL;
 			}
 
-			lastEnd = matcher.end();
+			lastEnd = separator + 2;
+			while (lastEnd < length && isWhitespace(contents.charAt(lastEnd))) {
+				++lastEnd;
+			}
+			separator = findCellSeparator(contents, lastEnd);
 		}
 		if (lastEnd < contents.length()) {
 			emitCell(lastEnd + contentsStart, type, contents.substring(lastEnd));
 		}
 	}
 
+	/**
+	 * Finds the next cell separator, which is either <code>||</code> or <code>!!</code>.
+	 * 
+	 * @return the index of the separator, or -1 if there is none
+	 */
+	private static int findCellSeparator(String contents, int fromIndex) {
+		int lastIndex = contents.length() - 1;
+		for (int index = fromIndex; index < lastIndex; ++index) {
+			char c = contents.charAt(index);
+			if ((c == '|' || c == '!') && contents.charAt(index + 1) == c) {
+				return index;
+			}
+		}
+		return -1;
+	}
+
+	/**
+	 * Indicates if the character matches the <code>\s</code> regular expression character class.
+	 */
+	private static boolean isWhitespace(char c) {
+		return c == ' ' || c == '\t' || c == '\n' || c == '\u000B' || c == '\f' || c == '\r';
+	}
+
+	/**
+	 * Emits a cell having the form <code>options | contents</code>, where the options and their delimiter are
+	 * optional. Options end at the first '|' of the cell and must not contain '['.
+	 */
 	private void emitCell(int lineCharacterOffset, BlockType type, String cell) {
-		Matcher cellSplitterMatcher = cellSplitterPattern.matcher(cell);
-		if (!cellSplitterMatcher.matches()) {
-			throw new IllegalStateException();
+		int length = cell.length();
+		int optionsStart = 0;
+		while (optionsStart < length && isWhitespace(cell.charAt(optionsStart))) {
+			++optionsStart;
+		}
+		int contentsStart = optionsStart;
+		String cellOptions = null;
+		int optionsEnd = optionsStart;
+		while (optionsEnd < length && cell.charAt(optionsEnd) != '|' && cell.charAt(optionsEnd) != '[') {
+			++optionsEnd;
+		}
+		if (optionsEnd < length && cell.charAt(optionsEnd) == '|') {
+			if (optionsEnd > optionsStart) {
+				cellOptions = cell.substring(optionsStart, optionsEnd);
+			}
+			contentsStart = optionsEnd + 1;
+		}
+		while (contentsStart < length && isWhitespace(cell.charAt(contentsStart))) {
+			++contentsStart;
 		}
-		String cellOptions = cellSplitterMatcher.group(1);
 
 		TableCellAttributes attributes = new TableCellAttributes();
 
@@ -220,14 +270,13 @@ public class TableBlock extends Block {
 			}
 		}
 
-		String cellContents = cellSplitterMatcher.group(2);
-		if (cellContents == null) {
+		if (contentsStart == length) {
 			//cell was opened, no content on this line
-			openCell(lineCharacterOffset + cellSplitterMatcher.end(), type, attributes);
+			openCell(lineCharacterOffset + length, type, attributes);
 		} else {
-			int contentsStart = cellSplitterMatcher.start(2);
 			openCell(lineCharacterOffset, type, attributes);
-			markupLanguage.emitMarkupLine(parser, state, lineCharacterOffset + contentsStart, cellContents, 0);
+			markupLanguage.emitMarkupLine(parser, state, lineCharacterOffset + contentsStart,
+					cell.substring(contentsStart), 0);
 		}
 	}
 
@@ -14,8 +14,6 @@ import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
 import org.eclipse.mylyn.wikitext.core.parser.outline.OutlineItem;
-import org.eclipse.mylyn.wikitext.core.parser.outline.OutlineParser;
-import org.eclipse.mylyn.wikitext.mediawiki.core.MediaWikiLanguage;
 
 /**
  * @author David Green
@@ -36,8 +34,7 @@ public class TableOfContentsBlock extends AbstractTableOfContentsBlock {
 		}
 
 		if (!getMarkupLanguage().isFilterGenerativeContents()) {
-			OutlineParser outlineParser = new OutlineParser(new MediaWikiLanguage());
-			OutlineItem rootItem = outlineParser.parse(state.getMarkupContent());
+			OutlineItem rootItem = state.getOutline(getMarkupLanguage());
 
 			emitToc(rootItem);
 		}
@@ -0,0 +1,257 @@
+/*******************************************************************************
+ * Copyright (c) 2014 Tasktop Technologies and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     David Green - initial API and implementation
+ *******************************************************************************/
+
+package org.eclipse.mylyn.internal.wikitext.mediawiki.core.tasks;
+
+import java.io.BufferedInputStream;
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.Reader;
+import java.io.StringWriter;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.net.URLConnection;
+import java.text.MessageFormat;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.apache.tools.ant.BuildException;
+import org.apache.tools.ant.Project;
+import org.apache.tools.ant.Task;
+
+/**
+ * Fetches resources from a wiki concurrently, using a bounded number of threads. Fetches that fail are retried, unless
+ * the resource does not exist. Content is always read fully so that HTTP connections are kept alive and reused by
+ * subsequent fetches.
+ *
+ * @author David Green
+ */
+class ConcurrentFetcher {
+
+	/**
+	 * A fetch of a resource, which may be retried.
+	 */
+	interface Fetch<T> {
+
+		T fetch() throws IOException;
+	}
+
+	private static final long RETRY_DELAY = 250L;
+
+	private final Task task;
+
+	private final int retries;
+
+	private final ExecutorService executorService;
+
+	/**
+	 * @param task
+	 *            the task on behalf of which resources are fetched
+	 * @param threads
+	 *            the maximum number of resources that are fetched at the same time
+	 * @param retries
+	 *            the number of times that a failed fetch is retried
+	 */
+	public ConcurrentFetcher(Task task, int threads, int retries) {
+		this.task = task;
+		this.retries = retries;
+		executorService = Executors.newFixedThreadPool(threads);
+	}
+
+	/**
+	 * Submits the given fetch, which is retried if it fails.
+	 *
+	 * @param description
+	 *            the description of the fetched resource, used in log messages
+	 * @return the future result of the fetch, which is available via {@link #getResult(Future)}
+	 */
+	public <T> Future<T> submit(final String description, final Fetch<T> fetch) {
+		return executorService.submit(new Callable<T>() {
+			public T call() throws IOException {
+				return fetch(description, fetch);
+			}
+		});
+	}
+
+	/**
+	 * Gets the result of a {@link #submit(String, Fetch) submitted} fetch, waiting for the fetch to complete if
+	 * necessary.
+	 *
+	 * @throws BuildException
+	 *             if the fetch failed
+	 */
+	public <T> T getResult(Future<T> future) {
+		try {
+			return future.get();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new BuildException(e);
+		} catch (ExecutionException e) {
+			Throwable cause = e.getCause();
+			if (cause instanceof BuildException) {
+				throw (BuildException) cause;
+			} else if (cause instanceof Error) {
+				throw (Error) cause;
+			}
+			throw new BuildException(cause.getMessage(), cause);
+		}
+	}
+
+	/**
+	 * Performs the given fetch on the calling thread, retrying it if it fails.
+	 *
+	 * @param description
+	 *            the description of the fetched resource, used in log messages
+	 */
+	public <T> T fetch(String description, Fetch<T> fetch) throws IOException {
+		for (int attempt = 0;; ++attempt) {
+			try {
+				return fetch.fetch();
+			} catch (FileNotFoundException e) {
+				throw e;
+			} catch (IOException e) {
+				if (attempt >= retries) {
+					throw e;
+				}
+				task.log(MessageFormat.format(Messages.getString("ConcurrentFetcher_retrying"), description, //$NON-NLS-1$
+						e.getMessage()), Project.MSG_WARN);
+				try {
+					Thread.sleep(RETRY_DELAY * (attempt + 1));
+				} catch (InterruptedException e1) {
+					Thread.currentThread().interrupt();
+					throw e;
+				}
+			}
+		}
+	}
+
+	/**
+	 * Reads the content of the given URL.
+	 *
+	 * @throws FileNotFoundException
+	 *             if the resource does not exist
+	 * @throws IOException
+	 *             if the resource cannot be read
+	 */
+	public static String readContent(URL url) throws IOException {
+		URLConnection connection = url.openConnection();
+		if (connection instanceof HttpURLConnection) {
+			checkResponse((HttpURLConnection) connection, url);
+		}
+		Reader input = new InputStreamReader(new BufferedInputStream(connection.getInputStream()), "UTF-8"); //$NON-NLS-1$
+		try {
+			StringWriter content = new StringWriter(1024 * 8);
+			char[] buffer = new char[1024 * 8];
+			int length;
+			while ((length = input.read(buffer)) != -1) {
+				content.write(buffer, 0, length);
+			}
+			return content.toString();
+		} finally {
+			input.close();
+		}
+	}
+
+	/**
+	 * Copies the content of the given URL to the given file. If the file exists, the content is only copied if it was
+	 * modified since the file was last modified. The file is given the last modified date of the content.
+	 *
+	 * @throws FileNotFoundException
+	 *             if the resource does not exist
+	 * @throws IOException
+	 *             if the resource cannot be read or the file cannot be written
+	 */
+	public static void copyContent(URL url, File file) throws IOException {
+		URLConnection connection = url.openConnection();
+		if (file.exists()) {
+			connection.setIfModifiedSince(file.lastModified());
+		}
+		if (connection instanceof HttpURLConnection) {
+			HttpURLConnection httpConnection = (HttpURLConnection) connection;
+			if (httpConnection.getResponseCode() == HttpURLConnection.HTTP_NOT_MODIFIED) {
+				consume(httpConnection.getErrorStream());
+				return;
+			}
+			checkResponse(httpConnection, url);
+		}
+		// write to a temporary file so that a failed copy does not leave a partial file behind
+		File partFile = new File(file.getPath() + ".part"); //$NON-NLS-1$
+		InputStream input = new BufferedInputStream(connection.getInputStream());
+		try {
+			OutputStream output = new FileOutputStream(partFile);
+			try {
+				byte[] buffer = new byte[1024 * 8];
+				int length;
+				while ((length = input.read(buffer)) != -1) {
+					output.write(buffer, 0, length);
+				}
+			} finally {
+				output.close();
+			}
+		} finally {
+			input.close();
+		}
+		if (!partFile.renameTo(file) && !(file.delete() && partFile.renameTo(file))) {
+			partFile.delete();
+			throw new IOException(MessageFormat.format("Cannot write {0}", file)); //$NON-NLS-1$
+		}
+		long lastModified = connection.getLastModified();
+		if (lastModified > 0) {
+			file.setLastModified(lastModified);
+		}
+	}
+
+	/**
+	 * @throws FileNotFoundException
+	 *             if the response indicates that the resource does not exist
+	 * @throws IOException
+	 *             if the response is not successful
+	 */
+	private static void checkResponse(HttpURLConnection connection, URL url) throws IOException {
+		int responseCode = connection.getResponseCode();
+		if (responseCode != HttpURLConnection.HTTP_OK) {
+			consume(connection.getErrorStream());
+			if (responseCode == HttpURLConnection.HTTP_NOT_FOUND || responseCode == HttpURLConnection.HTTP_GONE) {
+				throw new FileNotFoundException(url.toString());
+			}
+			throw new IOException(MessageFormat.format("Server returned HTTP response code {0} for {1}", //$NON-NLS-1$
+					responseCode, url));
+		}
+	}
+
+	private static void consume(InputStream errorStream) throws IOException {
+		if (errorStream != null) {
+			try {
+				byte[] buffer = new byte[1024];
+				while (errorStream.read(buffer) != -1) {
+					// discard so that the connection can be reused
+				}
+			} finally {
+				errorStream.close();
+			}
+		}
+	}
+
+	/**
+	 * Stops the threads of this fetcher once all submitted fetches have completed.
+	 */
+	public void shutdown() {
+		executorService.shutdown();
+	}
+}
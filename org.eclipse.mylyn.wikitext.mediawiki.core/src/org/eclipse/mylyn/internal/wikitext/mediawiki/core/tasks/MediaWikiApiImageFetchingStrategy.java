@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2007, 2012 David Green and others.
+ * Copyright (c) 2007, 2014 David Green and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -11,17 +11,17 @@
 
 package org.eclipse.mylyn.internal.wikitext.mediawiki.core.tasks;
 
-import java.io.BufferedInputStream;
 import java.io.File;
+import java.io.FileNotFoundException;
 import java.io.IOException;
-import java.io.InputStreamReader;
-import java.io.Reader;
+import java.io.StringReader;
 import java.net.MalformedURLException;
 import java.net.URISyntaxException;
 import java.net.URL;
 import java.net.URLEncoder;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.Map;
 import java.util.Set;
 import java.util.regex.Matcher;
@@ -33,7 +33,6 @@ import javax.xml.parsers.SAXParserFactory;
 
 import org.apache.tools.ant.BuildException;
 import org.apache.tools.ant.Project;
-import org.apache.tools.ant.taskdefs.Get;
 import org.eclipse.mylyn.wikitext.core.util.IgnoreDtdEntityResolver;
 import org.xml.sax.Attributes;
 import org.xml.sax.ContentHandler;
@@ -50,8 +49,27 @@ class MediaWikiApiImageFetchingStrategy extends ImageFetchingStrategy {
 
 	private String pageName;
 
+	private ConcurrentFetcher fetcher;
+
 	@Override
 	public Set<String> fetchImages() {
+		Map<String, URL> images = listImages();
+		Set<String> filenames = new HashSet<String>();
+		for (Map.Entry<String, URL> image : images.entrySet()) {
+			fetchImage(image.getKey(), image.getValue());
+			filenames.add(image.getKey());
+		}
+		log("Fetched " + filenames.size() + " image files for " + pageName, Project.MSG_INFO); //$NON-NLS-1$ //$NON-NLS-2$
+
+		return filenames;
+	}
+
+	/**
+	 * Lists the images of the page using the MediaWiki API.
+	 *
+	 * @return the URL of each image by its file name
+	 */
+	public Map<String, URL> listImages() {
 		if (pageName == null || pageName.length() == 0) {
 			throw new BuildException("please specify @pageName"); //$NON-NLS-1$
 		}
@@ -71,7 +89,6 @@ class MediaWikiApiImageFetchingStrategy extends ImageFetchingStrategy {
 
 		ImageFetchingContentHandler contentHandler = new ImageFetchingContentHandler();
 		String gimcontinue = null;
-		Set<String> filenames = new HashSet<String>();
 		final SAXParserFactory parserFactory = SAXParserFactory.newInstance();
 		parserFactory.setNamespaceAware(true);
 		parserFactory.setValidating(false);
@@ -88,12 +105,12 @@ class MediaWikiApiImageFetchingStrategy extends ImageFetchingStrategy {
 				throw new BuildException("Cannot compose API URL", e); //$NON-NLS-1$
 			}
 
-			Reader input;
+			String content;
 			try {
 
 				log("Fetching " + apiUrl, Project.MSG_VERBOSE); //$NON-NLS-1$
 
-				input = new InputStreamReader(new BufferedInputStream(apiUrl.openStream()), "UTF-8"); //$NON-NLS-1$
+				content = readContent(apiUrl);
 			} catch (IOException e) {
 				throw new BuildException(String.format("Cannot contact %s: %s", apiUrl, e.getMessage()), e); //$NON-NLS-1$
 			}
@@ -106,16 +123,10 @@ class MediaWikiApiImageFetchingStrategy extends ImageFetchingStrategy {
 				xmlReader.setContentHandler(contentHandler);
 
 				try {
-					xmlReader.parse(new InputSource(input));
+					xmlReader.parse(new InputSource(new StringReader(content)));
 					gimcontinue = contentHandler.getGimcontinue();
 				} catch (IOException e) {
 					throw new BuildException(String.format("Unexpected exception retrieving data from %s", apiUrl), e); //$NON-NLS-1$
-				} finally {
-					try {
-						input.close();
-					} catch (IOException e) {
-						// ignore
-					}
 				}
 			} catch (SAXException e) {
 				throw new BuildException("Unexpected error in XML content", e); //$NON-NLS-1$
@@ -124,7 +135,7 @@ class MediaWikiApiImageFetchingStrategy extends ImageFetchingStrategy {
 			}
 
 		} while (gimcontinue != null && maxloop-- > 0);
-		int fileCount = 0;
+		Map<String, URL> images = new LinkedHashMap<String, URL>();
 		for (Map.Entry<String, String> ent : contentHandler.imageTitleToUrl.entrySet()) {
 			String title = ent.getKey();
 			String imageUrl = ent.getValue();
@@ -143,28 +154,57 @@ class MediaWikiApiImageFetchingStrategy extends ImageFetchingStrategy {
 					}
 				}
 
-				log("Fetching " + qualifiedUrl, Project.MSG_INFO); //$NON-NLS-1$
-				Get get = new Get();
-				get.setProject(getProject());
-				get.setLocation(getLocation());
 				try {
-					get.setSrc(new URL(qualifiedUrl));
+					images.put(name, new URL(qualifiedUrl));
 				} catch (MalformedURLException e) {
 					log("Skipping " + url + ": " + e.getMessage(), Project.MSG_WARN); //$NON-NLS-1$ //$NON-NLS-2$
-					continue;
 				}
-				get.setDest(new File(dest, name));
-				get.execute();
-
-				filenames.add(name);
-				++fileCount;
 			} else {
 				log(String.format("Unexpected title format: %s", title), Project.MSG_WARN); //$NON-NLS-1$
 			}
 		}
-		log("Fetched " + fileCount + " image files for " + pageName, Project.MSG_INFO); //$NON-NLS-1$ //$NON-NLS-2$
+		return images;
+	}
 
-		return filenames;
+	/**
+	 * Fetches an image into the {@link #getDest() destination folder}. An image that was already fetched is only
+	 * fetched again if it was modified since. Images that do not exist on the wiki are not retried.
+	 *
+	 * @param name
+	 *            the file name of the image
+	 * @param imageUrl
+	 *            the URL of the image
+	 */
+	public void fetchImage(String name, final URL imageUrl) {
+		log("Fetching " + imageUrl, Project.MSG_INFO); //$NON-NLS-1$
+		final File file = new File(dest, name);
+		try {
+			if (fetcher == null) {
+				ConcurrentFetcher.copyContent(imageUrl, file);
+			} else {
+				fetcher.fetch(imageUrl.toString(), new ConcurrentFetcher.Fetch<Object>() {
+					public Object fetch() throws IOException {
+						ConcurrentFetcher.copyContent(imageUrl, file);
+						return null;
+					}
+				});
+			}
+		} catch (FileNotFoundException e) {
+			throw new BuildException(String.format("Image not found: %s", imageUrl), e); //$NON-NLS-1$
+		} catch (IOException e) {
+			throw new BuildException(String.format("Cannot fetch %s: %s", imageUrl, e.getMessage()), e); //$NON-NLS-1$
+		}
+	}
+
+	private String readContent(final URL apiUrl) throws IOException {
+		if (fetcher == null) {
+			return ConcurrentFetcher.readContent(apiUrl);
+		}
+		return fetcher.fetch(apiUrl.toString(), new ConcurrentFetcher.Fetch<String>() {
+			public String fetch() throws IOException {
+				return ConcurrentFetcher.readContent(apiUrl);
+			}
+		});
 	}
 
 	public URL getUrl() {
@@ -183,6 +223,13 @@ class MediaWikiApiImageFetchingStrategy extends ImageFetchingStrategy {
 		this.pageName = pageName;
 	}
 
+	/**
+	 * the fetcher with which failed requests are retried, or null if requests should not be retried
+	 */
+	public void setFetcher(ConcurrentFetcher fetcher) {
+		this.fetcher = fetcher;
+	}
+
 	private class ImageFetchingContentHandler implements ContentHandler {
 
 		private final Map<String, String> imageTitleToUrl = new HashMap<String, String>();
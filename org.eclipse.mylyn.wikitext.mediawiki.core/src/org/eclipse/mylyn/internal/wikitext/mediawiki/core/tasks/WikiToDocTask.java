@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2010 David Green and others.
+ * Copyright (c) 2010, 2014 David Green and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -11,15 +11,11 @@
 
 package org.eclipse.mylyn.internal.wikitext.mediawiki.core.tasks;
 
-import java.io.BufferedInputStream;
 import java.io.BufferedOutputStream;
 import java.io.File;
 import java.io.FileOutputStream;
 import java.io.IOException;
-import java.io.InputStreamReader;
 import java.io.OutputStreamWriter;
-import java.io.Reader;
-import java.io.StringWriter;
 import java.io.Writer;
 import java.net.MalformedURLException;
 import java.net.URL;
@@ -31,6 +27,9 @@ import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
@@ -46,6 +45,7 @@ import org.eclipse.mylyn.internal.wikitext.core.parser.builder.SplittingOutlineP
 import org.eclipse.mylyn.internal.wikitext.core.parser.builder.SplittingStrategy;
 import org.eclipse.mylyn.internal.wikitext.core.validation.StandaloneMarkupValidator;
 import org.eclipse.mylyn.internal.wikitext.mediawiki.core.PageMapping;
+import org.eclipse.mylyn.internal.wikitext.mediawiki.core.WikiTemplateCache;
 import org.eclipse.mylyn.internal.wikitext.mediawiki.core.WikiTemplateResolver;
 import org.eclipse.mylyn.wikitext.core.parser.MarkupParser;
 import org.eclipse.mylyn.wikitext.core.parser.builder.HtmlDocumentBuilder;
@@ -134,6 +134,16 @@ public class WikiToDocTask extends MarkupTask {
 
 	private boolean titleParameter;
 
+	private File templateCacheDir;
+
+	private long templateCacheTimeToLive = WikiTemplateCache.DEFAULT_TIME_TO_LIVE / 1000L;
+
+	private int templateFetchThreads = 4;
+
+	private int fetchThreads = 4;
+
+	private int fetchRetries = 2;
+
 	public WikiToDocTask() {
 	}
 
@@ -148,6 +158,15 @@ public class WikiToDocTask extends MarkupTask {
 		if (paths.isEmpty()) {
 			throw new ConfigurationException(Messages.getString("WikiToDocTask_specify_paths")); //$NON-NLS-1$
 		}
+		if (fetchThreads < 1) {
+			throw new ConfigurationException(Messages.getString("WikiToDocTask_fetchThreads_positive")); //$NON-NLS-1$
+		}
+		if (fetchRetries < 0) {
+			throw new ConfigurationException(Messages.getString("WikiToDocTask_fetchRetries_not_negative")); //$NON-NLS-1$
+		}
+		if (templateFetchThreads < 1) {
+			throw new ConfigurationException(Messages.getString("WikiToDocTask_templateFetchThreads_positive")); //$NON-NLS-1$
+		}
 		if (getInternalLinkPattern() == null) {
 			setInternalLinkPattern(computeDefaultInternalLinkPattern());
 		}
@@ -182,6 +201,7 @@ public class WikiToDocTask extends MarkupTask {
 		MediaWikiLanguage markupLanguage = (MediaWikiLanguage) createMarkupLanguage();
 		WikiTemplateResolver templateResolver = new WikiTemplateResolver();
 		templateResolver.setWikiBaseUrl(wikiBaseUrl);
+		templateResolver.setTemplateCache(createTemplateCache());
 		markupLanguage.getTemplateProviders().add(templateResolver);
 		markupLanguage.setTemplateExcludes(templateExcludes);
 
@@ -219,49 +239,44 @@ public class WikiToDocTask extends MarkupTask {
 			tocFile = new File(dest, "toc.xml"); //$NON-NLS-1$
 		}
 
-		Map<String, String> pathNameToContent = new HashMap<String, String>();
+		Map<String, String> pathNameToContent = fetchContent();
 		Map<String, SplitOutlineItem> pathNameToOutline = new HashMap<String, SplitOutlineItem>();
+		prefetchTemplates(markupLanguage, pathNameToContent);
 		for (Path path : paths) {
-			getProject().log(
-					MessageFormat.format(Messages.getString("WikiToDocTask_fetching_content_for_page"), path.name), Project.MSG_VERBOSE); //$NON-NLS-1$
-			URL pathUrl = computeRawUrl(path.name);
-			Reader input;
+			File dest = computeDestDir(path);
+			String fileName = computeHtmlFilename(path.name);
+			final File targetFile = new File(dest, fileName);
+			SplitOutlineItem outline = computeOutline(path, markupLanguage, targetFile,
+					pathNameToContent.get(path.name));
+			outline.setResourcePath(targetFile.getAbsolutePath());
+			pathNameToOutline.put(path.name, outline);
+		}
+		if (isValidate()) {
+			// validate all pages before fetching images, so that invalid markup fails the build early
+			startValidation();
 			try {
-				input = new InputStreamReader(new BufferedInputStream(pathUrl.openStream()), "UTF-8"); //$NON-NLS-1$
-				try {
-					String content = readFully(input);
-					content = preprocessMarkup(path, content);
-					pathNameToContent.put(path.name, content);
-					File dest = computeDestDir(path);
-					String fileName = computeHtmlFilename(path.name);
-					final File targetFile = new File(dest, fileName);
-					SplitOutlineItem outline = computeOutline(path, markupLanguage, targetFile, content);
-					outline.setResourcePath(targetFile.getAbsolutePath());
-					pathNameToOutline.put(path.name, outline);
-				} finally {
-					input.close();
+				for (Path path : paths) {
+					performValidation(markupLanguage, path, pathNameToContent.get(path.name));
 				}
-			} catch (final IOException e) {
-				final String message = MessageFormat.format("Cannot read from {0}: {1}", pathUrl, e.getMessage()); //$NON-NLS-1$
-				throw new BuildException(message, e);
+			} finally {
+				finishValidation();
 			}
-
+		}
+		Map<String, Set<String>> pathNameToImageFilenames = null;
+		if (!fetchImages) {
+			getProject().log(Messages.getString("WikiToDocTask_skipping_images"), Project.MSG_WARN); //$NON-NLS-1$
+		} else {
+			pathNameToImageFilenames = fetchImages();
 		}
 		for (Path path : paths) {
 			getProject().log(
 					MessageFormat.format(Messages.getString("WikiToDocTask_processing_page"), path.name), Project.MSG_DEBUG); //$NON-NLS-1$
 
 			String markupContent = pathNameToContent.get(path.name);
-			if (isValidate()) {
-				performValidation(markupLanguage, path, markupContent);
-			}
 
-			Set<String> imageFilenames = null;
-			if (!fetchImages) {
-				getProject().log(Messages.getString("WikiToDocTask_skipping_images"), Project.MSG_WARN); //$NON-NLS-1$
-			} else {
-				imageFilenames = fetchImages(markupLanguage, path);
-			}
+			Set<String> imageFilenames = pathNameToImageFilenames == null
+					? null
+					: pathNameToImageFilenames.get(path.name);
 
 			markupToDoc(markupLanguage, path, markupContent, pathNameToOutline, imageFilenames);
 
@@ -275,12 +290,124 @@ public class WikiToDocTask extends MarkupTask {
 		}
 	}
 
+	/**
+	 * fetch the content of all pages concurrently
+	 */
+	private Map<String, String> fetchContent() {
+		ConcurrentFetcher fetcher = new ConcurrentFetcher(this, fetchThreads, fetchRetries);
+		try {
+			Map<String, Future<String>> pathNameToFuture = new HashMap<String, Future<String>>();
+			for (Path path : paths) {
+				getProject().log(
+						MessageFormat.format(Messages.getString("WikiToDocTask_fetching_content_for_page"), path.name), Project.MSG_VERBOSE); //$NON-NLS-1$
+				final URL pathUrl = computeRawUrl(path.name);
+				pathNameToFuture.put(path.name, fetcher.submit(path.name, new ConcurrentFetcher.Fetch<String>() {
+					public String fetch() throws IOException {
+						return ConcurrentFetcher.readContent(pathUrl);
+					}
+				}));
+			}
+			Map<String, String> pathNameToContent = new HashMap<String, String>();
+			for (Path path : paths) {
+				String content;
+				try {
+					content = fetcher.getResult(pathNameToFuture.get(path.name));
+				} catch (BuildException e) {
+					final String message = MessageFormat.format(
+							"Cannot read from {0}: {1}", computeRawUrl(path.name), e.getMessage()); //$NON-NLS-1$
+					throw new BuildException(message, e);
+				}
+				pathNameToContent.put(path.name, preprocessMarkup(path, content));
+			}
+			return pathNameToContent;
+		} finally {
+			fetcher.shutdown();
+		}
+	}
+
+	/**
+	 * fetch the images of all pages concurrently, where images used by more than one page are fetched once for each
+	 * destination folder
+	 * 
+	 * @return the file names of the images of each page
+	 */
+	private Map<String, Set<String>> fetchImages() {
+		ConcurrentFetcher fetcher = new ConcurrentFetcher(this, fetchThreads, fetchRetries);
+		try {
+			Map<String, MediaWikiApiImageFetchingStrategy> pathNameToStrategy =
+					new HashMap<String, MediaWikiApiImageFetchingStrategy>();
+			Map<String, Future<Map<String, URL>>> pathNameToImages = new HashMap<String, Future<Map<String, URL>>>();
+			for (Path path : paths) {
+				final MediaWikiApiImageFetchingStrategy imageFetchingStrategy = createImageFetchingStrategy(path,
+						fetcher);
+				pathNameToStrategy.put(path.name, imageFetchingStrategy);
+				pathNameToImages.put(path.name, fetcher.submit(path.name, new ConcurrentFetcher.Fetch<Map<String, URL>>() {
+					public Map<String, URL> fetch() {
+						return imageFetchingStrategy.listImages();
+					}
+				}));
+			}
+			Map<String, Set<String>> pathNameToImageFilenames = new HashMap<String, Set<String>>();
+			Map<File, Future<Object>> imageFileToFuture = new HashMap<File, Future<Object>>();
+			for (Path path : paths) {
+				final MediaWikiApiImageFetchingStrategy imageFetchingStrategy = pathNameToStrategy.get(path.name);
+				Map<String, URL> images = fetcher.getResult(pathNameToImages.get(path.name));
+				for (final Map.Entry<String, URL> image : images.entrySet()) {
+					File imageFile = new File(imageFetchingStrategy.getDest(), image.getKey()).getAbsoluteFile();
+					if (!imageFileToFuture.containsKey(imageFile)) {
+						imageFileToFuture.put(imageFile,
+								fetcher.submit(image.getValue().toString(), new ConcurrentFetcher.Fetch<Object>() {
+									public Object fetch() {
+										imageFetchingStrategy.fetchImage(image.getKey(), image.getValue());
+										return null;
+									}
+								}));
+					}
+				}
+				pathNameToImageFilenames.put(path.name, images.keySet());
+			}
+			for (Future<Object> future : imageFileToFuture.values()) {
+				fetcher.getResult(future);
+			}
+			for (Path path : paths) {
+				getProject().log(
+						MessageFormat.format(Messages.getString("WikiToDocTask_fetched_images_for_page"), //$NON-NLS-1$
+								pathNameToImageFilenames.get(path.name).size(), path.name), Project.MSG_INFO);
+			}
+			return pathNameToImageFilenames;
+		} finally {
+			fetcher.shutdown();
+		}
+	}
+
+	private WikiTemplateCache createTemplateCache() {
+		WikiTemplateCache templateCache = new WikiTemplateCache();
+		templateCache.setDirectory(templateCacheDir);
+		templateCache.setTimeToLive(templateCacheTimeToLive * 1000L);
+		return templateCache;
+	}
+
+	/**
+	 * fetch the templates used by all pages with bounded parallelism, so that templates are not fetched one at a time
+	 * as the pages are processed
+	 */
+	private void prefetchTemplates(MediaWikiLanguage markupLanguage, Map<String, String> pathNameToContent) {
+		getProject().log(
+				MessageFormat.format(Messages.getString("WikiToDocTask_prefetching_templates"), templateFetchThreads), Project.MSG_VERBOSE); //$NON-NLS-1$
+		ExecutorService executorService = Executors.newFixedThreadPool(templateFetchThreads);
+		try {
+			markupLanguage.prefetchTemplates(pathNameToContent.values(), executorService);
+		} finally {
+			executorService.shutdown();
+		}
+	}
+
 	protected void performValidation(MarkupLanguage markupLanguage, Path path, String markupContent) {
 		getProject().log(MessageFormat.format("Validating {0}", path.name), Project.MSG_VERBOSE); //$NON-NLS-1$
 
 		StandaloneMarkupValidator markupValidator = StandaloneMarkupValidator.getValidator(markupLanguage.getName());
 
-		List<ValidationProblem> problems = markupValidator.validate(markupContent);
+		List<ValidationProblem> problems = findValidationProblems(markupValidator, markupLanguage, markupContent);
 
 		int errorCount = 0;
 		int warningCount = 0;
@@ -449,7 +576,7 @@ public class WikiToDocTask extends MarkupTask {
 		return internalLinkPattern;
 	}
 
-	private Set<String> fetchImages(MarkupLanguage markupLanguage, Path path) {
+	private MediaWikiApiImageFetchingStrategy createImageFetchingStrategy(Path path, ConcurrentFetcher fetcher) {
 		File dest = computeDestDir(path);
 		if (prependImagePrefix != null) {
 			dest = new File(dest, prependImagePrefix);
@@ -466,12 +593,13 @@ public class WikiToDocTask extends MarkupTask {
 		imageFetchingStrategy.setTask(this);
 		imageFetchingStrategy.setDest(dest);
 		imageFetchingStrategy.setPageName(path.name);
+		imageFetchingStrategy.setFetcher(fetcher);
 		try {
 			imageFetchingStrategy.setUrl(new URL(wikiBaseUrl));
 		} catch (MalformedURLException e) {
 			throw new BuildException(e);
 		}
-		return imageFetchingStrategy.fetchImages();
+		return imageFetchingStrategy;
 	}
 
 	private String preprocessMarkup(Path path, String content) {
@@ -618,15 +746,6 @@ public class WikiToDocTask extends MarkupTask {
 		return dest;
 	}
 
-	private String readFully(Reader input) throws IOException {
-		StringWriter content = new StringWriter(1024 * 8);
-		int i;
-		while ((i = input.read()) != -1) {
-			content.write(i);
-		}
-		return content.toString();
-	}
-
 	private URL computeRawUrl(String path) {
 		try {
 			String qualifiedUrl = wikiBaseUrl;
@@ -1075,6 +1194,100 @@ public class WikiToDocTask extends MarkupTask {
 		this.templateExcludes = templateExcludes;
 	}
 
+	/**
+	 * the maximum number of pages and images that are fetched concurrently. Defaults to 4.
+	 * 
+	 * @since 2.1
+	 */
+	public int getFetchThreads() {
+		return fetchThreads;
+	}
+
+	/**
+	 * the maximum number of pages and images that are fetched concurrently. Defaults to 4.
+	 * 
+	 * @since 2.1
+	 */
+	public void setFetchThreads(int fetchThreads) {
+		this.fetchThreads = fetchThreads;
+	}
+
+	/**
+	 * the number of times that a failed request for a page, the images of a page or an image is retried. Defaults to
+	 * 2.
+	 * 
+	 * @since 2.1
+	 */
+	public int getFetchRetries() {
+		return fetchRetries;
+	}
+
+	/**
+	 * the number of times that a failed request for a page, the images of a page or an image is retried. Defaults to
+	 * 2.
+	 * 
+	 * @since 2.1
+	 */
+	public void setFetchRetries(int fetchRetries) {
+		this.fetchRetries = fetchRetries;
+	}
+
+	/**
+	 * the directory in which fetched templates are cached across conversions, or null if templates are only cached for
+	 * the current conversion
+	 * 
+	 * @since 2.1
+	 */
+	public File getTemplateCacheDir() {
+		return templateCacheDir;
+	}
+
+	/**
+	 * the directory in which fetched templates are cached across conversions, or null if templates are only cached for
+	 * the current conversion
+	 * 
+	 * @since 2.1
+	 */
+	public void setTemplateCacheDir(File templateCacheDir) {
+		this.templateCacheDir = templateCacheDir;
+	}
+
+	/**
+	 * the time in seconds after which a cached template is revalidated with the wiki. Defaults to one day.
+	 * 
+	 * @since 2.1
+	 */
+	public long getTemplateCacheTimeToLive() {
+		return templateCacheTimeToLive;
+	}
+
+	/**
+	 * the time in seconds after which a cached template is revalidated with the wiki. Defaults to one day.
+	 * 
+	 * @since 2.1
+	 */
+	public void setTemplateCacheTimeToLive(long templateCacheTimeToLive) {
+		this.templateCacheTimeToLive = templateCacheTimeToLive;
+	}
+
+	/**
+	 * the maximum number of templates that are fetched concurrently. Defaults to 4.
+	 * 
+	 * @since 2.1
+	 */
+	public int getTemplateFetchThreads() {
+		return templateFetchThreads;
+	}
+
+	/**
+	 * the maximum number of templates that are fetched concurrently. Defaults to 4.
+	 * 
+	 * @since 2.1
+	 */
+	public void setTemplateFetchThreads(int templateFetchThreads) {
+		this.templateFetchThreads = templateFetchThreads;
+	}
+
 	/**
 	 * indicates if the title should be provided as an HTTP parameter, for example <code>index.php?title=Main</code>
 	 * 
@@ -16,6 +16,8 @@ import java.io.FileWriter;
 import java.io.IOException;
 import java.io.PrintWriter;
 
+import org.apache.tools.ant.Project;
+import org.apache.tools.ant.types.FileSet;
 import org.eclipse.mylyn.wikitext.tests.TestUtil;
 
 public class MarkupToDitaTaskTest extends AbstractTestAntTask {
@@ -354,6 +356,35 @@ public class MarkupToDitaTaskTest extends AbstractTestAntTask {
 		assertTrue(firstTopicContent.contains("<p>some content</p>"));
 	}
 
+	public void testFilesetWithSameTopicsWritesTopicsInOrder() throws IOException {
+		for (int x = 0; x < 8; ++x) {
+			File markupFile = new File(tempFolder, String.format("doc%02d.textile", x));
+			PrintWriter writer = new PrintWriter(new FileWriter(markupFile));
+			try {
+				writer.println("h1. Same Heading");
+				writer.println();
+				writer.println("content of document " + x);
+			} finally {
+				writer.close();
+			}
+		}
+		FileSet fileSet = new FileSet();
+		fileSet.setDir(tempFolder);
+		fileSet.setIncludes("*.textile");
+		ditaTask.setProject(new Project());
+		ditaTask.addFileset(fileSet);
+		ditaTask.setThreadCount(4);
+
+		ditaTask.execute();
+
+		// files that write the same topic are converted in the order of the file set, so the last file wins
+		String topicContent = getContent(new File(topicsFolder, "SameHeading.dita"));
+		assertTrue(topicContent, topicContent.contains("<p>content of document 7</p>"));
+		for (int x = 0; x < 8; ++x) {
+			assertTrue(new File(tempFolder, String.format("doc%02d.ditamap", x)).exists());
+		}
+	}
+
 	public void testTaskdef() {
 		assertEquals(MarkupToDitaTask.class.getName(), loadTaskdefBundle().getString("wikitext-to-dita"));
 	}
@@ -17,6 +17,8 @@ import java.io.IOException;
 import java.io.PrintWriter;
 import java.util.regex.Pattern;
 
+import org.apache.tools.ant.BuildException;
+
 
 public class MarkupToDocbookTaskTest extends AbstractTestAntTask {
 
@@ -105,6 +107,29 @@ public class MarkupToDocbookTaskTest extends AbstractTestAntTask {
 		return markupFile;
 	}
 
+	public void testSingleParseValidationFailure() throws IOException {
+		File markupFile = new File(tempFolder, "invalid.textile");
+		PrintWriter writer = new PrintWriter(new FileWriter(markupFile));
+		try {
+			writer.println("h1. Title");
+			writer.println();
+			writer.println("\"a link\":#Title and \"a bad link\":#Missing");
+		} finally {
+			writer.close();
+		}
+		task.setFile(markupFile);
+		// validation rules are registered for the name of the markup language
+		task.setMarkupLanguage("Textile");
+		task.setSingleParseValidation(true);
+		try {
+			task.execute();
+			fail("Expected failure");
+		} catch (BuildException e) {
+			assertEquals("Validation: 1 errors and 0 warnings on file '" + markupFile + "'", e.getMessage());
+		}
+		assertFalse(new File(tempFolder, "invalid.xml").exists());
+	}
+
 	public void testTaskdef() {
 		assertEquals(MarkupToDocbookTask.class.getName(), loadTaskdefBundle().getString("wikitext-to-docbook"));
 	}
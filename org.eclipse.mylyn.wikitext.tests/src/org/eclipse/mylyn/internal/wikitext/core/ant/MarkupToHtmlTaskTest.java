@@ -18,8 +18,15 @@ import java.io.IOException;
 import java.io.PrintWriter;
 import java.io.StringWriter;
 import java.io.Writer;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.regex.Pattern;
 
+import org.apache.tools.ant.BuildEvent;
+import org.apache.tools.ant.BuildException;
+import org.apache.tools.ant.BuildListener;
+import org.apache.tools.ant.Project;
+import org.apache.tools.ant.types.FileSet;
 import org.eclipse.mylyn.wikitext.tests.TestUtil;
 
 /**
@@ -138,6 +145,28 @@ public class MarkupToHtmlTaskTest extends AbstractTestAntTask {
 		assertTrue(Pattern.compile("<td[^>]*>First Heading</td>").matcher(content2).find());
 	}
 
+	public void testMultipleFilesHeadingWithMarkup() throws IOException {
+		File markup = createTextileMarkupFile("h1. First *Heading*\n\nsome content\n\nh1. Second _Heading_\n\nmore content\n");
+		task.setFile(markup);
+		task.setMultipleOutputFiles(true);
+		task.execute();
+
+		listFiles();
+
+		// labels and file names are created from the markup of headings, as with a separate outline parse
+		String content = getContent(new File(markup.getParentFile(), "markup.html"));
+		assertTrue(content.contains("<a href=\"Second-Heading-.html\" title=\"Second _Heading_\">Next</a>"));
+		assertTrue(Pattern.compile("<td[^>]*>Second _Heading_</td>").matcher(content).find());
+
+		File htmlFile2 = new File(markup.getParentFile(), "Second-Heading-.html");
+		assertTrue(htmlFile2.exists());
+
+		String content2 = getContent(htmlFile2);
+		assertTrue(content2.contains("<title>markup - Second _Heading_</title>"));
+		assertTrue(content2.contains("<a href=\"markup.html\" title=\"First *Heading*\">Previous</a>"));
+		assertTrue(Pattern.compile("<td[^>]*>First \\*Heading\\*</td>").matcher(content2).find());
+	}
+
 	public void testMultipleFilesWithCrossReferences() throws IOException {
 		File markup = createTextileMarkupFile("h1. Heading One\n\n\"link to two\":#HeadingTwo\n\n\"link to two point one\":#HeadingTwoPointOne\n\nh1. Heading Two\n\nh2. Heading Two Point One\n\n\"link to one\":#HeadingOne\n");
 		task.setFile(markup);
@@ -279,4 +308,223 @@ public class MarkupToHtmlTaskTest extends AbstractTestAntTask {
 		assertTrue(content2.contains("<a href=\"foo.html#bar\">a link</a>"));
 	}
 
+	public void testFilesetConcurrently() throws IOException {
+		List<File> markupFiles = createFileset(12);
+		List<String> messages = executeFileset(4);
+
+		List<String> expectedMessages = new ArrayList<String>();
+		for (File markupFile : markupFiles) {
+			expectedMessages.add("Processing file '" + markupFile + "'");
+			File htmlFile = new File(markupFile.getParentFile(), markupFile.getName().replace(".textile", ".html"));
+			assertTrue(htmlFile.exists());
+			assertTrue(getContent(htmlFile).contains("<h1 id=\"" + markupFile.getName().replace(".textile", "") + "\""));
+		}
+		List<String> processingMessages = new ArrayList<String>();
+		for (String message : messages) {
+			if (message.startsWith("Processing file")) {
+				processingMessages.add(message);
+			}
+		}
+		assertEquals(expectedMessages, processingMessages);
+	}
+
+	public void testFilesetConcurrentlyMatchesSequential() throws IOException {
+		List<File> markupFiles = createFileset(6);
+
+		executeFileset(1);
+		List<String> sequentialContent = new ArrayList<String>();
+		for (File markupFile : markupFiles) {
+			sequentialContent.add(getContent(new File(markupFile.getParentFile(), markupFile.getName().replace(
+					".textile", ".html"))));
+		}
+		task = createTask();
+		task.setFormatOutput(true);
+		task.setMarkupLanguage(languageName);
+		executeFileset(3);
+		for (int x = 0; x < markupFiles.size(); ++x) {
+			File markupFile = markupFiles.get(x);
+			assertEquals(sequentialContent.get(x), getContent(new File(markupFile.getParentFile(), markupFile.getName()
+					.replace(".textile", ".html"))));
+		}
+	}
+
+	public void testFilesetConcurrentlyReportsFirstFailure() throws IOException {
+		List<File> markupFiles = createFileset(8);
+		// cause the output of two files to fail by occupying their output file with a folder
+		File firstFailure = new File(tempFolder, "doc02.html");
+		firstFailure.mkdirs();
+		new File(tempFolder, "doc05.html").mkdirs();
+		try {
+			executeFileset(4);
+			fail("Expected failure");
+		} catch (BuildException e) {
+			assertTrue(e.getMessage(), e.getMessage().contains(firstFailure.getName()));
+		}
+		assertTrue(new File(tempFolder, "doc01.html").isFile());
+		assertEquals(8, markupFiles.size());
+	}
+
+	public void testInvalidThreadCount() {
+		try {
+			task.setThreadCount(0);
+			fail("Expected failure");
+		} catch (BuildException e) {
+			assertEquals("threadCount must be at least 1 but was 0", e.getMessage());
+		}
+	}
+
+	public void testBuildCache() throws IOException {
+		List<File> markupFiles = createFileset(4);
+		task.setBuildCache(true);
+		List<String> messages = executeFileset(2);
+		assertTrue(messages.toString(), messages.contains("Build cache: 0 of 4 files up to date (0% hit rate)"));
+		assertTrue(new File(tempFolder, ".wikitext-build-cache").isFile());
+
+		File unchangedHtmlFile = computeHtmlFile(markupFiles.get(0));
+		writeFile(unchangedHtmlFile, "unchanged");
+		writeFile(markupFiles.get(1), "h1. Changed");
+		File deletedHtmlFile = computeHtmlFile(markupFiles.get(2));
+		assertTrue(deletedHtmlFile.delete());
+
+		task = createTask();
+		task.setFormatOutput(true);
+		task.setMarkupLanguage(languageName);
+		task.setBuildCache(true);
+		messages = executeFileset(2);
+		assertTrue(messages.toString(), messages.contains("Build cache: 2 of 4 files up to date (50% hit rate)"));
+		assertEquals("unchanged", getContent(unchangedHtmlFile));
+		assertTrue(getContent(computeHtmlFile(markupFiles.get(1))).contains("Changed</h1>"));
+		assertTrue(deletedHtmlFile.isFile());
+	}
+
+	public void testBuildCacheConfigurationChanged() throws IOException {
+		List<File> markupFiles = createFileset(2);
+		task.setBuildCache(true);
+		executeFileset(1);
+
+		task = createTask();
+		task.setFormatOutput(true);
+		task.setMarkupLanguage(languageName);
+		task.setBuildCache(true);
+		task.setTitle("Changed Title");
+		List<String> messages = executeFileset(1);
+		assertTrue(messages.toString(), messages.contains("Build cache: 0 of 2 files up to date (0% hit rate)"));
+		for (File markupFile : markupFiles) {
+			assertTrue(getContent(computeHtmlFile(markupFile)).contains("<title>Changed Title</title>"));
+		}
+	}
+
+	public void testBuildCacheMultipleOutputFiles() throws IOException {
+		File markup = createSimpleTextileMarkup();
+		File htmlFile = new File(markup.getParentFile(), "markup.html");
+		File splitHtmlFile = new File(markup.getParentFile(), "Second-Heading.html");
+		executeWithBuildCacheAndMultipleOutputFiles(markup);
+		assertTrue(splitHtmlFile.delete());
+
+		executeWithBuildCacheAndMultipleOutputFiles(markup);
+		assertTrue(splitHtmlFile.isFile());
+
+		writeFile(htmlFile, "unchanged");
+		executeWithBuildCacheAndMultipleOutputFiles(markup);
+		assertEquals("unchanged", getContent(htmlFile));
+	}
+
+	private void executeWithBuildCacheAndMultipleOutputFiles(File markup) {
+		task = createTask();
+		task.setFormatOutput(true);
+		task.setMarkupLanguage(languageName);
+		task.setFile(markup);
+		task.setMultipleOutputFiles(true);
+		task.setBuildCache(true);
+		task.execute();
+	}
+
+	public void testSingleParseValidation() throws IOException {
+		List<File> markupFiles = createFileset(4);
+		task.setSingleParseValidation(true);
+		executeFileset(2);
+		for (File markupFile : markupFiles) {
+			assertTrue(getContent(computeHtmlFile(markupFile)).contains("Section</h2>"));
+		}
+	}
+
+	public void testSingleParseValidationFailure() throws IOException {
+		File markupFile = new File(tempFolder, "invalid.textile");
+		writeFile(markupFile, "h1. Title\n\n\"a link\":#Title and \"a bad link\":#Missing");
+		task.setFile(markupFile);
+		// validation rules are registered for the name of the markup language
+		task.setMarkupLanguage("Textile");
+		task.setSingleParseValidation(true);
+		try {
+			task.execute();
+			fail("Expected failure");
+		} catch (BuildException e) {
+			assertEquals("Validation: 1 errors and 0 warnings on file '" + markupFile + "'", e.getMessage());
+		}
+		assertFalse(computeHtmlFile(markupFile).exists());
+	}
+
+	private File computeHtmlFile(File markupFile) {
+		return new File(markupFile.getParentFile(), markupFile.getName().replace(".textile", ".html"));
+	}
+
+	private List<File> createFileset(int count) throws IOException {
+		List<File> markupFiles = new ArrayList<File>();
+		for (int x = 0; x < count; ++x) {
+			// names are zero-padded so that the order of the file set is the numeric order
+			String name = String.format("doc%02d", x);
+			File markupFile = new File(tempFolder, name + ".textile");
+			writeFile(markupFile, "h1. " + name + "\n\nsome *content* in document " + x + "\n\nh2. Section\n\nmore");
+			markupFiles.add(markupFile);
+		}
+		return markupFiles;
+	}
+
+	private List<String> executeFileset(int threadCount) {
+		Project project = new Project();
+		final List<String> messages = new ArrayList<String>();
+		project.addBuildListener(new BuildListener() {
+
+			public void buildStarted(BuildEvent event) {
+			}
+
+			public void buildFinished(BuildEvent event) {
+			}
+
+			public void targetStarted(BuildEvent event) {
+			}
+
+			public void targetFinished(BuildEvent event) {
+			}
+
+			public void taskStarted(BuildEvent event) {
+			}
+
+			public void taskFinished(BuildEvent event) {
+			}
+
+			public void messageLogged(BuildEvent event) {
+				messages.add(event.getMessage());
+			}
+		});
+		task.setProject(project);
+		task.setThreadCount(threadCount);
+		FileSet fileSet = new FileSet();
+		fileSet.setProject(project);
+		fileSet.setDir(tempFolder);
+		fileSet.setIncludes("*.textile");
+		task.addFileset(fileSet);
+		task.execute();
+		return messages;
+	}
+
+	private void writeFile(File file, String content) throws IOException {
+		PrintWriter writer = new PrintWriter(new FileWriter(file));
+		try {
+			writer.print(content);
+		} finally {
+			writer.close();
+		}
+	}
+
 }
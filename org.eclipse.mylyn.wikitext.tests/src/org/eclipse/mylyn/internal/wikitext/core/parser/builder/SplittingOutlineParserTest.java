@@ -0,0 +1,153 @@
+/*******************************************************************************
+ * Copyright (c) 2014 Tasktop Technologies and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     David Green - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.mylyn.internal.wikitext.core.parser.builder;
+
+import java.util.List;
+
+import junit.framework.TestCase;
+
+import org.eclipse.mylyn.wikitext.confluence.core.ConfluenceLanguage;
+import org.eclipse.mylyn.wikitext.core.parser.MarkupParser;
+import org.eclipse.mylyn.wikitext.core.parser.builder.EventDocumentBuilder;
+import org.eclipse.mylyn.wikitext.core.parser.markup.MarkupLanguage;
+import org.eclipse.mylyn.wikitext.core.parser.outline.OutlineItem;
+import org.eclipse.mylyn.wikitext.markdown.core.MarkdownLanguage;
+import org.eclipse.mylyn.wikitext.mediawiki.core.MediaWikiLanguage;
+import org.eclipse.mylyn.wikitext.mediawiki.core.Template;
+import org.eclipse.mylyn.wikitext.textile.core.TextileLanguage;
+
+/**
+ * @author David Green
+ */
+public class SplittingOutlineParserTest extends TestCase {
+
+	private static final String MARKUP = "h1. First Heading\n\nsome *text*\n\nh2. First L2\n\nmore text\n\n"
+			+ "h1(#second). Second Heading\n\nh2. Second L2\n\nh1. Third Heading\n\n|a|table|\n";
+
+	public void testParseWithBuilderCreatesSameOutline() {
+		SplitOutlineItem expected = createOutlineParser().parse(MARKUP);
+		SplitOutlineItem outline = createOutlineParser().parse(MARKUP, new EventDocumentBuilder());
+
+		assertOutlineEquals(expected, outline);
+	}
+
+	public void testParseWithBuilderProvidesDocument() {
+		EventDocumentBuilder expected = new EventDocumentBuilder();
+		new MarkupParser(new TextileLanguage(), expected).parse(MARKUP);
+
+		EventDocumentBuilder builder = new EventDocumentBuilder();
+		createOutlineParser().parse(MARKUP, builder);
+
+		assertEquals(expected.getDocumentBuilderEvents().getEvents(), builder.getDocumentBuilderEvents().getEvents());
+	}
+
+	public void testParseWithBuilderHeadingWithMarkup() {
+		String markup = "h1. Don't *panic*\n\ntext\n\nh1. Tom &amp; Jerry &#169;\n\nh1. Second _Heading_\n\nh2. Sub @heading@\n";
+		SplitOutlineItem outline = createOutlineParser().parse(markup, new EventDocumentBuilder());
+
+		assertOutlineEquals(createOutlineParser().parse(markup), outline);
+
+		SplitOutlineItem second = (SplitOutlineItem) outline.getChildren().get(1);
+		SplitOutlineItem third = (SplitOutlineItem) outline.getChildren().get(2);
+		assertEquals("Don't *panic*", outline.getLabel());
+		assertEquals("Tom &amp; Jerry &#169;", second.getLabel());
+		assertEquals("Second _Heading_", third.getLabel());
+		assertEquals("Sub @heading@", third.getChildren().get(0).getLabel());
+		assertEquals("Second-Heading-.html", third.getSplitTarget());
+	}
+
+	public void testParseWithBuilderMultipleLineHeading() {
+		assertParseWithBuilderSameOutline(new TextileLanguage(),
+				"h1. First *line*\nsecond line\nh2. Next &amp; _last_\n\ntext\n\nh1. Last\nline");
+	}
+
+	public void testParseWithBuilderMarkdownHeadings() {
+		assertParseWithBuilderSameOutline(new MarkdownLanguage(),
+				"# One *emphasis* #\n\ntext\n\nTwo `code` &amp; more\n====\n\nThree _x_\n---\n");
+	}
+
+	public void testParseWithBuilderConfluenceHeadings() {
+		assertParseWithBuilderSameOutline(new ConfluenceLanguage(),
+				"h1. One *strong*\n\ntext\n\nh2. Two {{code}} &amp; [link|http://example.com]\n");
+	}
+
+	public void testParseWithBuilderMediaWikiHeadings() {
+		MediaWikiLanguage markupLanguage = new MediaWikiLanguage();
+		Template template = new Template();
+		template.setName("name");
+		template.setTemplateMarkup("''Template''");
+		markupLanguage.getTemplates().add(template);
+		assertParseWithBuilderSameOutline(markupLanguage,
+				"= One '''bold''' =\n\ntext\n\n== Two {{name}} &amp; [[Page|link]] ==\n\n=== Three ===\n");
+	}
+
+	public void testParseWithBuilderSetsRootLength() {
+		SplitOutlineItem outline = createOutlineParser().parse(MARKUP, new EventDocumentBuilder());
+
+		assertEquals(MARKUP.length(), outline.getLength());
+		assertEquals(createOutlineParser().parse(MARKUP).getLength(), outline.getLength());
+	}
+
+	public void testParseWithBuilderEmptyMarkup() {
+		EventDocumentBuilder builder = new EventDocumentBuilder();
+		SplitOutlineItem outline = createOutlineParser().parse("", builder);
+
+		assertTrue(outline.getChildren().isEmpty());
+		assertFalse(builder.getDocumentBuilderEvents().getEvents().isEmpty());
+	}
+
+	public void testParseWithBuilderWithoutMarkupLanguage() {
+		SplittingOutlineParser outlineParser = new SplittingOutlineParser();
+		outlineParser.setSplittingStrategy(new DefaultSplittingStrategy());
+		try {
+			outlineParser.parse(MARKUP, new EventDocumentBuilder());
+			fail();
+		} catch (IllegalStateException e) {
+			// expected
+		}
+	}
+
+	private void assertParseWithBuilderSameOutline(MarkupLanguage markupLanguage, String markup) {
+		SplitOutlineItem expected = createOutlineParser(markupLanguage).parse(markup);
+		SplitOutlineItem outline = createOutlineParser(markupLanguage).parse(markup, new EventDocumentBuilder());
+
+		assertFalse(expected.getChildren().isEmpty());
+		assertOutlineEquals(expected, outline);
+	}
+
+	private SplittingOutlineParser createOutlineParser() {
+		return createOutlineParser(new TextileLanguage());
+	}
+
+	private SplittingOutlineParser createOutlineParser(MarkupLanguage markupLanguage) {
+		SplittingOutlineParser outlineParser = new SplittingOutlineParser();
+		outlineParser.setMarkupLanguage(markupLanguage);
+		outlineParser.setSplittingStrategy(new DefaultSplittingStrategy());
+		return outlineParser;
+	}
+
+	private void assertOutlineEquals(SplitOutlineItem expected, SplitOutlineItem actual) {
+		assertEquals(expected.getId(), actual.getId());
+		assertEquals(expected.getLabel(), actual.getLabel());
+		assertEquals(expected.getLevel(), actual.getLevel());
+		assertEquals(expected.getSplitTarget(), actual.getSplitTarget());
+		assertEquals(expected.getOffset(), actual.getOffset());
+		assertEquals(expected.getLength(), actual.getLength());
+		assertEquals(expected.getTooltip(), actual.getTooltip());
+
+		List<OutlineItem> expectedChildren = expected.getChildren();
+		List<OutlineItem> children = actual.getChildren();
+		assertEquals(expectedChildren.size(), children.size());
+		for (int x = 0; x < children.size(); ++x) {
+			assertOutlineEquals((SplitOutlineItem) expectedChildren.get(x), (SplitOutlineItem) children.get(x));
+		}
+	}
+}
@@ -0,0 +1,293 @@
+/*******************************************************************************
+ * Copyright (c) 2014 Tasktop Technologies and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     David Green - initial API and implementation
+ *******************************************************************************/
+
+package org.eclipse.mylyn.internal.wikitext.mediawiki.core;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UnsupportedEncodingException;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.text.ParseException;
+import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TimeZone;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+
+/**
+ * A local stand-in for a MediaWiki server that serves the raw content of pages, as requested by
+ * {@code index.php?title=<title>&action=raw}, the images of pages as listed by {@code api.php}, and image files.
+ * Pages are served with an entity tag and images with a last modified date, and conditional requests are answered with
+ * {@code 304 Not Modified} when the resource is unchanged.
+ *
+ * @author David Green
+ */
+public class MockWikiServer {
+
+	/**
+	 * the last modified date of all images
+	 */
+	private static final long IMAGE_LAST_MODIFIED = 1000000000000L;
+
+	private final HttpServer server;
+
+	private final ExecutorService executorService;
+
+	private final Map<String, String> contentByTitle = new ConcurrentHashMap<String, String>();
+
+	private final Map<String, Map<String, byte[]>> imagesByTitle = new ConcurrentHashMap<String, Map<String, byte[]>>();
+
+	private final Map<String, byte[]> imageByName = new ConcurrentHashMap<String, byte[]>();
+
+	private final List<String> requestedTitles = Collections.synchronizedList(new ArrayList<String>());
+
+	private final List<String> requestedImages = Collections.synchronizedList(new ArrayList<String>());
+
+	private final AtomicInteger failureCount = new AtomicInteger();
+
+	private final AtomicInteger notModifiedCount = new AtomicInteger();
+
+	private final AtomicInteger activeRequests = new AtomicInteger();
+
+	private final AtomicInteger maxActiveRequests = new AtomicInteger();
+
+	private volatile long responseDelay;
+
+	public MockWikiServer() throws IOException {
+		server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+		server.createContext("/", new HttpHandler() {
+			public void handle(HttpExchange exchange) throws IOException {
+				int active = activeRequests.incrementAndGet();
+				try {
+					synchronized (maxActiveRequests) {
+						maxActiveRequests.set(Math.max(maxActiveRequests.get(), active));
+					}
+					delay();
+					handleRequest(exchange);
+				} finally {
+					activeRequests.decrementAndGet();
+					exchange.close();
+				}
+			}
+		});
+		executorService = Executors.newCachedThreadPool();
+		server.setExecutor(executorService);
+		server.start();
+	}
+
+	public String getBaseUrl() {
+		return "http://127.0.0.1:" + server.getAddress().getPort() + "/";
+	}
+
+	public void addPage(String title, String content) {
+		contentByTitle.put(title, content);
+	}
+
+	/**
+	 * adds an image to the page with the given title
+	 */
+	public void addImage(String title, String imageName, byte[] content) {
+		Map<String, byte[]> images = imagesByTitle.get(title);
+		if (images == null) {
+			images = Collections.synchronizedMap(new LinkedHashMap<String, byte[]>());
+			imagesByTitle.put(title, images);
+		}
+		images.put(imageName, content);
+		if (content != null) {
+			imageByName.put(imageName.replace(' ', '_'), content);
+		}
+	}
+
+	/**
+	 * adds an image to the page with the given title that is listed by {@code api.php} but cannot be fetched
+	 */
+	public void addMissingImage(String title, String imageName) {
+		addImage(title, imageName, null);
+	}
+
+	/**
+	 * causes the given number of subsequent requests to fail with {@code 503 Service Unavailable}
+	 */
+	public void failRequests(int count) {
+		failureCount.set(count);
+	}
+
+	/**
+	 * the titles of all requested pages, in the order in which they were requested
+	 */
+	public List<String> getRequestedTitles() {
+		synchronized (requestedTitles) {
+			return new ArrayList<String>(requestedTitles);
+		}
+	}
+
+	/**
+	 * the names of all requested image files, in the order in which they were requested, not including requests that
+	 * were answered with {@code 304 Not Modified}
+	 */
+	public List<String> getRequestedImages() {
+		synchronized (requestedImages) {
+			return new ArrayList<String>(requestedImages);
+		}
+	}
+
+	public int getNotModifiedCount() {
+		return notModifiedCount.get();
+	}
+
+	/**
+	 * the maximum number of requests that were handled at the same time
+	 */
+	public int getMaxActiveRequests() {
+		return maxActiveRequests.get();
+	}
+
+	/**
+	 * the time in milliseconds that the server waits before responding to a request
+	 */
+	public void setResponseDelay(long responseDelay) {
+		this.responseDelay = responseDelay;
+	}
+
+	public void stop() {
+		server.stop(0);
+		executorService.shutdown();
+	}
+
+	private void handleRequest(HttpExchange exchange) throws IOException {
+		if (failureCount.getAndDecrement() > 0) {
+			exchange.sendResponseHeaders(503, -1);
+			return;
+		}
+		String path = exchange.getRequestURI().getPath();
+		if (path.startsWith("/images/")) {
+			handleImageRequest(exchange, path.substring("/images/".length()));
+		} else if (path.equals("/api.php")) {
+			handleApiRequest(exchange);
+		} else {
+			handlePageRequest(exchange);
+		}
+	}
+
+	private void handleImageRequest(HttpExchange exchange, String imageName) throws IOException {
+		byte[] content = imageByName.get(imageName);
+		if (content == null) {
+			requestedImages.add(imageName);
+			exchange.sendResponseHeaders(404, -1);
+			return;
+		}
+		String ifModifiedSince = exchange.getRequestHeaders().getFirst("If-Modified-Since");
+		if (ifModifiedSince != null) {
+			try {
+				if (createDateFormat().parse(ifModifiedSince).getTime() >= IMAGE_LAST_MODIFIED) {
+					notModifiedCount.incrementAndGet();
+					exchange.sendResponseHeaders(304, -1);
+					return;
+				}
+			} catch (ParseException e) {
+				// ignore and send the image
+			}
+		}
+		requestedImages.add(imageName);
+		exchange.getResponseHeaders().set("Last-Modified", createDateFormat().format(new Date(IMAGE_LAST_MODIFIED)));
+		exchange.getResponseHeaders().set("Content-Type", "image/png");
+		sendContent(exchange, content);
+	}
+
+	private void handleApiRequest(HttpExchange exchange) throws IOException {
+		String title = getParameter(exchange.getRequestURI().getRawQuery(), "titles");
+		StringBuilder xml = new StringBuilder();
+		xml.append("<?xml version=\"1.0\"?><api><query><pages>");
+		Map<String, byte[]> images = title == null ? null : imagesByTitle.get(title);
+		if (images != null) {
+			synchronized (images) {
+				for (String imageName : images.keySet()) {
+					xml.append("<page title=\"File:").append(imageName).append("\"><imageinfo><ii url=\"");
+					xml.append(getBaseUrl()).append("images/").append(imageName.replace(' ', '_'));
+					xml.append("\"/></imageinfo></page>");
+				}
+			}
+		}
+		xml.append("</pages></query></api>");
+		exchange.getResponseHeaders().set("Content-Type", "text/xml; charset=UTF-8");
+		sendContent(exchange, xml.toString().getBytes("UTF-8"));
+	}
+
+	private void handlePageRequest(HttpExchange exchange) throws IOException {
+		String title = getParameter(exchange.getRequestURI().getRawQuery(), "title");
+		requestedTitles.add(title);
+		String content = title == null ? null : contentByTitle.get(title);
+		if (content == null) {
+			exchange.sendResponseHeaders(404, -1);
+			return;
+		}
+		String entityTag = "\"" + Integer.toHexString(content.hashCode()) + "\"";
+		if (entityTag.equals(exchange.getRequestHeaders().getFirst("If-None-Match"))) {
+			notModifiedCount.incrementAndGet();
+			exchange.sendResponseHeaders(304, -1);
+			return;
+		}
+		exchange.getResponseHeaders().set("ETag", entityTag);
+		exchange.getResponseHeaders().set("Content-Type", "text/x-wiki; charset=UTF-8");
+		sendContent(exchange, content.getBytes("UTF-8"));
+	}
+
+	private void sendContent(HttpExchange exchange, byte[] bytes) throws IOException {
+		exchange.sendResponseHeaders(200, bytes.length);
+		OutputStream out = exchange.getResponseBody();
+		try {
+			out.write(bytes);
+		} finally {
+			out.close();
+		}
+	}
+
+	private SimpleDateFormat createDateFormat() {
+		SimpleDateFormat format = new SimpleDateFormat("EEE, dd MMM yyyy HH:mm:ss zzz", Locale.US);
+		format.setTimeZone(TimeZone.getTimeZone("GMT"));
+		return format;
+	}
+
+	private void delay() {
+		if (responseDelay > 0) {
+			try {
+				Thread.sleep(responseDelay);
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+		}
+	}
+
+	private String getParameter(String query, String name) throws UnsupportedEncodingException {
+		if (query != null) {
+			for (String parameter : query.split("&")) {
+				int indexOfEquals = parameter.indexOf('=');
+				if (indexOfEquals != -1 && parameter.substring(0, indexOfEquals).equals(name)) {
+					return URLDecoder.decode(parameter.substring(indexOfEquals + 1), "UTF-8");
+				}
+			}
+		}
+		return null;
+	}
+}
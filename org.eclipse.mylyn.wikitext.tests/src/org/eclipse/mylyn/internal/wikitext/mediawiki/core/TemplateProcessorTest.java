@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2007, 2010, 2012 David Green and others.
+ * Copyright (c) 2007, 2010, 2014 David Green and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -12,11 +12,15 @@
 
 package org.eclipse.mylyn.internal.wikitext.mediawiki.core;
 
+import java.util.ArrayList;
 import java.util.HashSet;
+import java.util.List;
 import java.util.Set;
 
 import junit.framework.TestCase;
 
+import org.eclipse.mylyn.wikitext.core.parser.MarkupParser;
+import org.eclipse.mylyn.wikitext.core.parser.markup.MarkupLanguage;
 import org.eclipse.mylyn.wikitext.mediawiki.core.MediaWikiLanguage;
 import org.eclipse.mylyn.wikitext.mediawiki.core.Template;
 import org.eclipse.mylyn.wikitext.mediawiki.core.TemplateResolver;
@@ -346,6 +350,71 @@ public class TemplateProcessorTest extends TestCase {
 		assertEquals("one _expandedfirstandsecond_ two", markup);
 	}
 
+	public void testRepeatedInvocationExpandedOnce() {
+		final List<String> resolvedNames = new ArrayList<String>();
+		markupLanguage.getTemplateProviders().add(0, new TemplateResolver() {
+
+			@Override
+			public Template resolveTemplate(String templateName) {
+				resolvedNames.add(templateName);
+				return new Template(templateName, templateName.equals("outer") ? "[{{inner|{{{1}}}}}]" : "({{{1}}})");
+			}
+		});
+
+		TemplateProcessor templateProcessor = new TemplateProcessor(markupLanguage);
+
+		String markup = templateProcessor.processTemplates("{{outer|a}} {{outer|b}} {{outer|a}} {{inner|a}}");
+		assertEquals("[(a)] [(b)] [(a)] (a)", markup);
+		assertEquals(2, resolvedNames.size());
+	}
+
+	public void testRepeatedInvocationLoopDetection() {
+		markupLanguage.getTemplates().add(new Template("loop_a", "{{loop_b}}"));
+		markupLanguage.getTemplates().add(new Template("loop_b", "{{loop_a}}b"));
+
+		TemplateProcessor templateProcessor = new TemplateProcessor(markupLanguage);
+
+		String markup = templateProcessor.processTemplates("{{loop_b}} {{loop_a}} {{loop_b}}");
+		assertEquals("<span class=\"error\">Template loop detected:loop_b</span>b "
+				+ "<span class=\"error\">Template loop detected:loop_a</span>b "
+				+ "<span class=\"error\">Template loop detected:loop_b</span>b", markup);
+	}
+
+	public void testTemplateCacheSharedWithClones() {
+		final List<String> resolvedNames = new ArrayList<String>();
+		markupLanguage.getTemplateProviders().add(0, new TemplateResolver() {
+
+			@Override
+			public Template resolveTemplate(String templateName) {
+				resolvedNames.add(templateName);
+				return new Template(templateName, "_expanded_");
+			}
+		});
+
+		assertTrue(new MarkupParser(markupLanguage.clone()).parseToHtml("one {{test}}").contains("one _expanded_"));
+		assertTrue(new MarkupParser(markupLanguage.clone()).parseToHtml("two {{test}}").contains("two _expanded_"));
+		assertEquals(1, resolvedNames.size());
+		assertSame(templateCache(markupLanguage), templateCache(markupLanguage.clone()));
+
+		MediaWikiLanguage copy = (MediaWikiLanguage) markupLanguage.clone();
+		copy.setTemplateExcludes("other");
+		assertTrue(new MarkupParser(copy).parseToHtml("three {{test}}").contains("three _expanded_"));
+		assertEquals(2, resolvedNames.size());
+		assertNotSame(templateCache(markupLanguage), templateCache(copy));
+	}
+
+	public void testTemplateCacheChangedTemplates() {
+		markupLanguage.getTemplates().add(new Template("test", "_expanded_"));
+		assertEquals("_expanded_", new TemplateProcessor(templateCache(markupLanguage)).processTemplates("{{test}}"));
+
+		markupLanguage.getTemplates().get(0).setTemplateMarkup("_changed_");
+		assertEquals("_changed_", new TemplateProcessor(templateCache(markupLanguage)).processTemplates("{{test}}"));
+	}
+
+	private TemplateCache templateCache(MarkupLanguage language) {
+		return ((AbstractMediaWikiLanguage) language).getTemplateCache();
+	}
+
 	private void assertContains(Set<String> strings, String string) {
 		assertTrue(String.format("Expected %s but got %s", string, strings), strings.contains(string));
 	}
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2007, 2008 David Green and others.
+ * Copyright (c) 2007, 2014 David Green and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -11,20 +11,44 @@
 
 package org.eclipse.mylyn.internal.wikitext.mediawiki.core;
 
+import java.io.File;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
 import junit.framework.TestCase;
 
+import org.eclipse.mylyn.wikitext.core.parser.MarkupParser;
+import org.eclipse.mylyn.wikitext.mediawiki.core.MediaWikiLanguage;
 import org.eclipse.mylyn.wikitext.mediawiki.core.Template;
 
 public class WikiTemplateResolverTest extends TestCase {
 
 	private WikiTemplateResolver resolver;
 
+	private MockWikiServer server;
+
+	private WikiTemplateResolver localResolver;
+
 	@Override
 	protected void setUp() throws Exception {
 		super.setUp();
 
 		resolver = new WikiTemplateResolver();
 		resolver.setWikiBaseUrl("http://wiki.eclipse.org");
+
+		server = new MockWikiServer();
+		server.addPage("Template:Navbox", "navigation {{{1}}}");
+		localResolver = new WikiTemplateResolver();
+		localResolver.setWikiBaseUrl(server.getBaseUrl());
+	}
+
+	@Override
+	protected void tearDown() throws Exception {
+		server.stop();
+		super.tearDown();
 	}
 
 	public void testResolveTemplate() {
@@ -33,4 +57,108 @@ public class WikiTemplateResolverTest extends TestCase {
 		assertTrue(template.getName().equalsIgnoreCase("bug"));
 		assertTrue(template.getTemplateMarkup().trim().length() > 0);
 	}
+
+	public void testResolveTemplateFromLocalServer() {
+		Template template = localResolver.resolveTemplate("Navbox");
+		assertNotNull(template);
+		assertEquals("Navbox", template.getName());
+		assertEquals("navigation {{{1}}}", template.getTemplateMarkup());
+
+		assertNotNull(localResolver.resolveTemplate("Navbox"));
+		assertEquals(Arrays.asList("Template:Navbox", "Template:Navbox"), server.getRequestedTitles());
+	}
+
+	public void testResolveMissingTemplate() {
+		assertNull(localResolver.resolveTemplate("Missing"));
+		assertEquals(Arrays.asList("Template:Missing"), server.getRequestedTitles());
+	}
+
+	public void testCachedTemplateNotFetchedAgain() {
+		localResolver.setTemplateCache(new WikiTemplateCache());
+
+		assertEquals("navigation {{{1}}}", localResolver.resolveTemplate("Navbox").getTemplateMarkup());
+		assertEquals("navigation {{{1}}}", localResolver.resolveTemplate("Navbox").getTemplateMarkup());
+		assertNull(localResolver.resolveTemplate("Missing"));
+		assertNull(localResolver.resolveTemplate("Missing"));
+		assertEquals(Arrays.asList("Template:Navbox", "Template:Missing"), server.getRequestedTitles());
+	}
+
+	public void testStaleTemplateRevalidated() {
+		WikiTemplateCache templateCache = new WikiTemplateCache();
+		templateCache.setTimeToLive(0);
+		localResolver.setTemplateCache(templateCache);
+
+		assertEquals("navigation {{{1}}}", localResolver.resolveTemplate("Navbox").getTemplateMarkup());
+		assertEquals("navigation {{{1}}}", localResolver.resolveTemplate("Navbox").getTemplateMarkup());
+		assertEquals(2, server.getRequestedTitles().size());
+		assertEquals(1, server.getNotModifiedCount());
+
+		server.addPage("Template:Navbox", "changed");
+		assertEquals("changed", localResolver.resolveTemplate("Navbox").getTemplateMarkup());
+		assertEquals(1, server.getNotModifiedCount());
+	}
+
+	public void testLeastRecentlyUsedTemplateDiscarded() {
+		server.addPage("Template:Other", "other");
+		localResolver.setTemplateCache(new WikiTemplateCache(1));
+
+		localResolver.resolveTemplate("Navbox");
+		localResolver.resolveTemplate("Other");
+		localResolver.resolveTemplate("Other");
+		localResolver.resolveTemplate("Navbox");
+		assertEquals(Arrays.asList("Template:Navbox", "Template:Other", "Template:Navbox"),
+				server.getRequestedTitles());
+	}
+
+	public void testTemplateCacheDirectory() throws IOException {
+		File directory = File.createTempFile(WikiTemplateResolverTest.class.getSimpleName(), ".tmp");
+		assertTrue(directory.delete());
+		try {
+			WikiTemplateCache templateCache = new WikiTemplateCache();
+			templateCache.setDirectory(directory);
+			localResolver.setTemplateCache(templateCache);
+			assertNotNull(localResolver.resolveTemplate("Navbox"));
+
+			WikiTemplateCache persistentCache = new WikiTemplateCache();
+			persistentCache.setDirectory(directory);
+			WikiTemplateResolver otherResolver = new WikiTemplateResolver();
+			otherResolver.setWikiBaseUrl(server.getBaseUrl());
+			otherResolver.setTemplateCache(persistentCache);
+			assertEquals("navigation {{{1}}}", otherResolver.resolveTemplate("Navbox").getTemplateMarkup());
+			assertEquals(1, server.getRequestedTitles().size());
+		} finally {
+			for (File file : directory.listFiles()) {
+				file.delete();
+			}
+			directory.delete();
+		}
+	}
+
+	public void testPrefetchTemplates() throws IOException {
+		server.addPage("Template:Header", "header {{Nested}}");
+		server.addPage("Template:Nested", "nested");
+		server.setResponseDelay(50);
+		localResolver.setTemplateCache(new WikiTemplateCache());
+
+		MediaWikiLanguage markupLanguage = new MediaWikiLanguage();
+		markupLanguage.getTemplateProviders().add(localResolver);
+		markupLanguage.getTemplates().add(new Template("Local", "local"));
+		markupLanguage.setTemplateExcludes("Excluded");
+
+		String markup = "{{Header}} {{Navbox|a}} {{Local}} {{mdash}} {{Excluded}}";
+		ExecutorService executorService = Executors.newFixedThreadPool(2);
+		try {
+			markupLanguage.prefetchTemplates(Collections.singleton(markup), executorService);
+		} finally {
+			executorService.shutdown();
+		}
+		assertEquals(3, server.getRequestedTitles().size());
+		assertTrue(server.getRequestedTitles().containsAll(
+				Arrays.asList("Template:Header", "Template:Navbox", "Template:Nested")));
+		assertTrue(server.getMaxActiveRequests() <= 2);
+
+		String html = new MarkupParser(markupLanguage.clone()).parseToHtml(markup);
+		assertTrue(html, html.contains("header nested navigation a local"));
+		assertEquals(3, server.getRequestedTitles().size());
+	}
 }
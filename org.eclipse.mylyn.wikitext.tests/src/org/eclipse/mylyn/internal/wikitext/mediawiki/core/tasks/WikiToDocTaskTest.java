@@ -0,0 +1,172 @@
+/*******************************************************************************
+ * Copyright (c) 2014 Tasktop Technologies and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     David Green - initial API and implementation
+ *******************************************************************************/
+
+package org.eclipse.mylyn.internal.wikitext.mediawiki.core.tasks;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Collections;
+
+import org.apache.tools.ant.BuildException;
+import org.apache.tools.ant.Project;
+import org.eclipse.mylyn.internal.wikitext.core.ant.AbstractTestAntTask;
+import org.eclipse.mylyn.internal.wikitext.mediawiki.core.MockWikiServer;
+import org.eclipse.mylyn.internal.wikitext.mediawiki.core.tasks.WikiToDocTask.Path;
+
+/**
+ * @author David Green
+ */
+public class WikiToDocTaskTest extends AbstractTestAntTask {
+
+	private MockWikiServer server;
+
+	private WikiToDocTask task;
+
+	@Override
+	protected void setUp() throws Exception {
+		super.setUp();
+		server = new MockWikiServer();
+		server.addPage("Guide/One", "= One =\n\n[[Image:Logo.png]] see [[Guide/Two]]");
+		server.addPage("Guide/Two", "= Two =\n\n[[Image:Diagram one.png]]");
+		server.addImage("Guide/One", "Logo.png", new byte[] { 1, 2, 3 });
+		server.addImage("Guide/Two", "Diagram one.png", new byte[] { 4, 5 });
+
+		task = new WikiToDocTask();
+		task.setProject(new Project());
+		task.setWikiBaseUrl(server.getBaseUrl());
+		task.setDest(tempFolder);
+		task.setValidate(false);
+		task.addPath(createPath("Guide/One"));
+		task.addPath(createPath("Guide/Two"));
+	}
+
+	@Override
+	protected void tearDown() throws Exception {
+		server.stop();
+		super.tearDown();
+	}
+
+	public void testFetchPagesAndImages() throws IOException {
+		task.setFetchThreads(2);
+		task.execute();
+
+		assertTrue(server.getRequestedTitles().containsAll(Arrays.asList("Guide/One", "Guide/Two")));
+		assertEquals(2, server.getRequestedImages().size());
+
+		assertEquals(3, new File(tempFolder, "Guide/One/images/Logo.png").length());
+		assertEquals(2, new File(tempFolder, "Guide/Two/images/Diagram_one.png").length());
+		String html = getContent(new File(tempFolder, "Guide/One/One.html"));
+		assertTrue(html, html.contains("src=\"images/Logo.png\""));
+		assertTrue(html, html.contains("href=\"../../Guide/Two/Two.html\""));
+	}
+
+	public void testUnmodifiedImagesNotFetchedAgain() {
+		task.execute();
+		assertEquals(2, server.getRequestedImages().size());
+
+		task.execute();
+		assertEquals(2, server.getRequestedImages().size());
+		assertEquals(2, server.getNotModifiedCount());
+	}
+
+	public void testFailedRequestsRetried() {
+		task.setFetchThreads(1);
+		task.setFetchRetries(2);
+		server.failRequests(2);
+		task.execute();
+
+		assertTrue(new File(tempFolder, "Guide/One/One.html").exists());
+		assertTrue(new File(tempFolder, "Guide/Two/images/Diagram_one.png").exists());
+	}
+
+	public void testFailedRequestsNotRetried() {
+		task.setFetchThreads(1);
+		task.setFetchRetries(0);
+		server.failRequests(1);
+		try {
+			task.execute();
+			fail();
+		} catch (BuildException e) {
+			assertTrue(e.getMessage(), e.getMessage().contains("Cannot read from"));
+		}
+	}
+
+	public void testMissingImageNotRetried() {
+		server.addMissingImage("Guide/One", "Missing.png");
+		task.setFetchThreads(1);
+		task.setFetchRetries(3);
+		try {
+			task.execute();
+			fail();
+		} catch (BuildException e) {
+			assertTrue(e.getMessage(), e.getMessage().contains("Image not found"));
+		}
+		assertEquals(1, Collections.frequency(server.getRequestedImages(), "Missing.png"));
+	}
+
+	public void testValidationBeforeImagesFetched() {
+		server.addPage("Guide/Two", "= Two =\n\n<!--- malformed comment -->\n\n[[Image:Diagram one.png]]");
+		task.setValidate(true);
+		task.setFailOnValidationWarning(true);
+		try {
+			task.execute();
+			fail();
+		} catch (BuildException e) {
+			assertTrue(e.getMessage(), e.getMessage().contains("Validation failed"));
+		}
+		assertTrue(server.getRequestedImages().isEmpty());
+	}
+
+	public void testSingleParseValidationBeforeImagesFetched() {
+		server.addPage("Guide/Two", "= Two =\n\n<!--- malformed comment -->\n\n[[Image:Diagram one.png]]");
+		task.setValidate(true);
+		task.setSingleParseValidation(true);
+		task.setFailOnValidationWarning(true);
+		try {
+			task.execute();
+			fail();
+		} catch (BuildException e) {
+			assertTrue(e.getMessage(), e.getMessage().contains("Validation failed"));
+		}
+		assertTrue(server.getRequestedImages().isEmpty());
+	}
+
+	public void testConcurrentFetchesBounded() {
+		for (int x = 0; x < 6; ++x) {
+			String name = "Guide/Page" + x;
+			server.addPage(name, "= Page " + x + " =\n\ntext");
+			task.addPath(createPath(name));
+		}
+		server.setResponseDelay(100);
+		task.setFetchThreads(3);
+		task.execute();
+
+		assertTrue(server.getMaxActiveRequests() > 1);
+		assertTrue(server.getMaxActiveRequests() <= 3);
+	}
+
+	public void testInvalidFetchThreads() {
+		task.setFetchThreads(0);
+		try {
+			task.execute();
+			fail();
+		} catch (ConfigurationException e) {
+			// expected
+		}
+	}
+
+	private Path createPath(String name) {
+		Path path = new Path();
+		path.setName(name);
+		return path;
+	}
+}
@@ -665,6 +665,30 @@ public class ConfluenceLanguageTest extends AbstractMarkupGenerationTest<Conflue
 		assertTrue(html.contains("<body><table><tr><td> <a href=\"https://textile-j.dev.java.net/\">Website</a> </td><td> another cell </td><td> <a href=\"http://www.eclipse.org\">Eclipse</a> </td></tr></table></body>"));
 	}
 
+	@Test
+	public void testTableLongRowWithLinks() {
+		StringBuilder markup = new StringBuilder();
+		StringBuilder expected = new StringBuilder();
+		for (int x = 0; x < 2000; ++x) {
+			markup.append("| [a|http://example.com/").append(x).append("] text ");
+			expected.append("<td> <a href=\"http://example.com/").append(x).append("\">a</a> text </td>");
+		}
+		markup.append("|");
+		String html = parser.parseToHtml(markup.toString());
+		assertTrue(html.contains("<body><table><tr>" + expected + "</tr></table></body>"));
+	}
+
+	@Test
+	public void testTableRowWithUnclosedLinks() {
+		StringBuilder markup = new StringBuilder("|");
+		for (int x = 0; x < 20000; ++x) {
+			markup.append("a [b ");
+		}
+		markup.append("|c|");
+		String html = parser.parseToHtml(markup.toString());
+		assertTrue(html.contains("<td>a </td><td>c</td></tr></table>"));
+	}
+
 	@Test
 	public void testPreformattedExtended() {
 		String html = parser.parseToHtml("{noformat}\na multiline\n\tpreformatted\n\nwith two paras\n{noformat}\nanother para");
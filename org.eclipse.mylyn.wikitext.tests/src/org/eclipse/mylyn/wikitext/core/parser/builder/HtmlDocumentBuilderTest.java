@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2007, 2013 David Green and others.
+ * Copyright (c) 2007, 2014 David Green and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -13,10 +13,12 @@ package org.eclipse.mylyn.wikitext.core.parser.builder;
 
 import java.io.File;
 import java.io.FileNotFoundException;
+import java.io.FileWriter;
 import java.io.IOException;
 import java.io.InputStreamReader;
 import java.io.Reader;
 import java.io.StringWriter;
+import java.io.Writer;
 import java.net.URI;
 import java.net.URISyntaxException;
 import java.net.URL;
@@ -48,6 +50,8 @@ public class HtmlDocumentBuilderTest extends TestCase {
 
 	private final Map<File, URL> fileToUrl = new HashMap<File, URL>();
 
+	private int stylesheetReadCount;
+
 	@Override
 	public void setUp() {
 		parser = new MarkupParser();
@@ -231,6 +235,118 @@ public class HtmlDocumentBuilderTest extends TestCase {
 				.find());
 	}
 
+	public void testCssStylesheetEmbeddedReadOnce() throws IOException {
+		StylesheetCache cache = new StylesheetCache();
+		File cssFile = createCssFile("body { color: black; }");
+		try {
+			assertTrue(emitCssStylesheet(cssFile, false, cache).contains(">body { color: black; }</style>"));
+			assertTrue(emitCssStylesheet(cssFile, false, cache).contains(">body { color: black; }</style>"));
+			assertTrue(emitCssStylesheet(cssFile, true, cache).contains(">body { color: black; }</style>"));
+			assertEquals(1, stylesheetReadCount);
+		} finally {
+			cssFile.delete();
+		}
+	}
+
+	public void testCssStylesheetEmbeddedWithoutCache() throws IOException {
+		File cssFile = createCssFile("body { color: black; }");
+		try {
+			assertNull(new HtmlDocumentBuilder(new StringWriter()).getStylesheetCache());
+			assertTrue(emitCssStylesheet(cssFile, false, null).contains(">body { color: black; }</style>"));
+			assertTrue(emitCssStylesheet(cssFile, false, null).contains(">body { color: black; }</style>"));
+			assertEquals(2, stylesheetReadCount);
+		} finally {
+			cssFile.delete();
+		}
+	}
+
+	public void testCssStylesheetCacheBounded() throws IOException {
+		StylesheetCache cache = new StylesheetCache(1);
+		File cssFile = createCssFile("body { color: black; }");
+		File otherCssFile = createCssFile("p { color: red; }");
+		try {
+			emitCssStylesheet(cssFile, false, cache);
+			emitCssStylesheet(otherCssFile, false, cache);
+			emitCssStylesheet(otherCssFile, false, cache);
+			assertEquals(2, stylesheetReadCount);
+
+			assertTrue(emitCssStylesheet(cssFile, false, cache).contains(">body { color: black; }</style>"));
+			assertEquals(3, stylesheetReadCount);
+		} finally {
+			cssFile.delete();
+			otherCssFile.delete();
+		}
+	}
+
+	public void testCssStylesheetCacheCopied() {
+		StylesheetCache cache = new StylesheetCache();
+		builder.setStylesheetCache(cache);
+		HtmlDocumentBuilder other = new HtmlDocumentBuilder(new StringWriter());
+		builder.copyConfiguration(other);
+		assertSame(cache, other.getStylesheetCache());
+	}
+
+	public void testCssStylesheetEmbeddedModified() throws IOException {
+		StylesheetCache cache = new StylesheetCache();
+		File cssFile = createCssFile("body { color: black; }");
+		try {
+			assertTrue(emitCssStylesheet(cssFile, false, cache).contains(">body { color: black; }</style>"));
+
+			long lastModified = cssFile.lastModified();
+			writeCssFile(cssFile, "p { color: red; }");
+			assertTrue(cssFile.setLastModified(lastModified + 2000L));
+
+			assertTrue(emitCssStylesheet(cssFile, false, cache).contains(">p { color: red; }</style>"));
+			assertEquals(2, stylesheetReadCount);
+		} finally {
+			cssFile.delete();
+		}
+	}
+
+	public void testCssStylesheetEmbeddedEscaped() throws IOException {
+		StylesheetCache cache = new StylesheetCache();
+		File cssFile = createCssFile("body > p:after { content: \"&\"; }");
+		try {
+			String expected = ">body &gt; p:after { content: \"&amp;\"; }</style>";
+			assertTrue(emitCssStylesheet(cssFile, false, cache).contains(expected));
+			assertTrue(emitCssStylesheet(cssFile, false, cache).contains(expected));
+			assertTrue(emitCssStylesheet(cssFile, true, cache).contains(expected));
+		} finally {
+			cssFile.delete();
+		}
+	}
+
+	private String emitCssStylesheet(File cssFile, boolean formatting, StylesheetCache cache) {
+		StringWriter out = new StringWriter();
+		HtmlDocumentBuilder builder = new HtmlDocumentBuilder(out, formatting) {
+			@Override
+			protected Reader getReader(File inputFile) throws FileNotFoundException {
+				++stylesheetReadCount;
+				return super.getReader(inputFile);
+			}
+		};
+		builder.setStylesheetCache(cache);
+		builder.addCssStylesheet(new Stylesheet(cssFile));
+		builder.beginDocument();
+		builder.endDocument();
+		return out.toString();
+	}
+
+	private File createCssFile(String content) throws IOException {
+		File cssFile = File.createTempFile("test", ".css");
+		writeCssFile(cssFile, content);
+		return cssFile;
+	}
+
+	private void writeCssFile(File cssFile, String content) throws IOException {
+		Writer writer = new FileWriter(cssFile);
+		try {
+			writer.write(content);
+		} finally {
+			writer.close();
+		}
+	}
+
 	public void testDefaultTargetForExternalLinks() throws Exception {
 		builder.setDefaultAbsoluteLinkTarget("_external");
 		builder.beginDocument();
@@ -0,0 +1,148 @@
+/*******************************************************************************
+ * Copyright (c) 2014 Tasktop Technologies and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     David Green - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.mylyn.wikitext.core.parser.util;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import junit.framework.TestCase;
+
+import org.eclipse.mylyn.wikitext.core.parser.MarkupParser;
+import org.eclipse.mylyn.wikitext.core.parser.builder.HtmlDocumentBuilder;
+import org.eclipse.mylyn.wikitext.textile.core.TextileLanguage;
+
+/**
+ * @author David Green
+ */
+public class MarkupRendererTest extends TestCase {
+
+	private final MarkupRenderer renderer = new MarkupRenderer(new TextileLanguage());
+
+	public void testRender() {
+		assertEquals("<h1 id=\"Title\">Title</h1><p>some <strong>bold</strong> text</p>",
+				renderer.render("h1. Title\n\nsome *bold* text"));
+	}
+
+	public void testRenderToWriter() throws IOException {
+		StringWriter out = new StringWriter();
+		out.write("<div>");
+		renderer.render("some _text_", out);
+		renderer.render(new StringReader("more text"), out);
+		out.write("</div>");
+		assertEquals("<div><p>some <em>text</em></p><p>more text</p></div>", out.toString());
+	}
+
+	public void testRenderLargeContent() {
+		StringBuilder markup = new StringBuilder();
+		for (int x = 0; x < 2000; ++x) {
+			markup.append("para ").append(x).append(" with *bold* text\n\n");
+		}
+		assertEquals(toHtml(markup.toString()), renderer.render(markup.toString()));
+	}
+
+	public void testBuilderConfiguration() {
+		HtmlDocumentBuilder builderConfiguration = new HtmlDocumentBuilder(new StringWriter());
+		builderConfiguration.setTitle("Test Title");
+		MarkupRenderer documentRenderer = new MarkupRenderer(new TextileLanguage(), builderConfiguration);
+		builderConfiguration.setTitle("Changed");
+
+		String html = documentRenderer.render("text");
+		assertTrue(html, html.contains("<title>Test Title</title>"));
+		assertTrue(html, html.contains("<body><p>text</p></body>"));
+	}
+
+	public void testForLanguage() {
+		MarkupRenderer textileRenderer = MarkupRenderer.forLanguage("Textile");
+		assertEquals("Textile", textileRenderer.getMarkupLanguageName());
+		assertEquals("<p><strong>bold</strong></p>", textileRenderer.render("*bold*"));
+	}
+
+	public void testForLanguageUnknown() {
+		try {
+			MarkupRenderer.forLanguage("Unknown Language");
+			fail("Expected exception");
+		} catch (IllegalArgumentException e) {
+			// expected
+		}
+	}
+
+	public void testWriteFailure() {
+		final IOException failure = new IOException("test failure");
+		try {
+			renderer.render("some text", new Writer() {
+
+				@Override
+				public void write(char[] cbuf, int off, int len) throws IOException {
+					throw failure;
+				}
+
+				@Override
+				public void flush() throws IOException {
+				}
+
+				@Override
+				public void close() throws IOException {
+				}
+			});
+			fail("Expected exception");
+		} catch (IOException e) {
+			assertSame(failure, e);
+		}
+		assertEquals("<p>text</p>", renderer.render("text"));
+	}
+
+	public void testRenderConcurrently() throws Exception {
+		final List<String> markup = new ArrayList<String>();
+		final List<String> expectedHtml = new ArrayList<String>();
+		for (int x = 0; x < 20; ++x) {
+			String content = "h1. Heading " + x + "\n\n* item *" + x + "*\n* item " + x + "\n\n|a|" + x + "|";
+			markup.add(content);
+			expectedHtml.add(toHtml(content));
+		}
+		ExecutorService executorService = Executors.newFixedThreadPool(4);
+		try {
+			List<Future<Boolean>> results = new ArrayList<Future<Boolean>>();
+			for (int thread = 0; thread < 8; ++thread) {
+				final int offset = thread;
+				results.add(executorService.submit(new Callable<Boolean>() {
+					public Boolean call() throws Exception {
+						for (int x = 0; x < 200; ++x) {
+							int index = (x + offset) % markup.size();
+							assertEquals(expectedHtml.get(index), renderer.render(markup.get(index)));
+						}
+						return true;
+					}
+				}));
+			}
+			for (Future<Boolean> result : results) {
+				assertTrue(result.get());
+			}
+		} finally {
+			executorService.shutdown();
+		}
+	}
+
+	private String toHtml(String markup) {
+		StringWriter out = new StringWriter();
+		HtmlDocumentBuilder builder = new HtmlDocumentBuilder(out);
+		builder.setEmitAsDocument(false);
+		new MarkupParser(new TextileLanguage(), builder).parse(markup);
+		return out.toString();
+	}
+}
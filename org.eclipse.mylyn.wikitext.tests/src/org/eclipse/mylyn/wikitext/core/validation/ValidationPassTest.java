@@ -0,0 +1,108 @@
+/*******************************************************************************
+ * Copyright (c) 2014 Tasktop Technologies and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     David Green - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.mylyn.wikitext.core.validation;
+
+import java.io.StringWriter;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import junit.framework.TestCase;
+
+import org.eclipse.mylyn.internal.wikitext.textile.core.validation.BlockWhitespaceRule;
+import org.eclipse.mylyn.internal.wikitext.textile.core.validation.TextileReferenceValidationRule;
+import org.eclipse.mylyn.wikitext.core.parser.MarkupParser;
+import org.eclipse.mylyn.wikitext.core.parser.builder.HtmlDocumentBuilder;
+import org.eclipse.mylyn.wikitext.core.parser.builder.MultiplexingDocumentBuilder;
+import org.eclipse.mylyn.wikitext.textile.core.TextileLanguage;
+
+/**
+ * @author David Green
+ */
+public class ValidationPassTest extends TestCase {
+
+	private static final String MARKUP = "h1. Title\n\nsome text \"a link\":#BADTitle and \"another\":#Title\n\n"
+			+ "bc.code\n\nh2(#explicit). Second\n\n\"link\":#explicit \"bad\":#Second2";
+
+	private MarkupValidator validator;
+
+	@Override
+	protected void setUp() throws Exception {
+		super.setUp();
+		validator = new MarkupValidator();
+		validator.getRules().add(new TextileReferenceValidationRule());
+		validator.getRules().add(new BlockWhitespaceRule());
+	}
+
+	public void testValidate() {
+		List<ValidationProblem> expected = validator.validate(MARKUP);
+		assertEquals(3, expected.size());
+
+		List<ValidationProblem> problems = validator.createValidationPass(new TextileLanguage(), MARKUP).validate(null);
+		assertProblemsEqual(expected, problems);
+	}
+
+	public void testValidateInParallel() {
+		ExecutorService executorService = Executors.newFixedThreadPool(2);
+		try {
+			List<ValidationProblem> problems = validator.createValidationPass(new TextileLanguage(), MARKUP).validate(
+					executorService);
+			assertProblemsEqual(validator.validate(MARKUP), problems);
+		} finally {
+			executorService.shutdown();
+		}
+	}
+
+	public void testValidateWithOutputParse() {
+		TextileLanguage markupLanguage = new TextileLanguage();
+		ValidationPass pass = validator.createValidationPass(markupLanguage, MARKUP);
+		assertTrue(pass.requiresParse());
+
+		StringWriter out = new StringWriter();
+		HtmlDocumentBuilder htmlBuilder = new HtmlDocumentBuilder(out);
+		new MarkupParser(markupLanguage, new MultiplexingDocumentBuilder(htmlBuilder, pass.getDocumentBuilder())).parse(MARKUP);
+
+		assertTrue(out.toString().contains("<h1 id=\"Title\">Title</h1>"));
+		assertProblemsEqual(validator.validate(MARKUP), pass.getProblems());
+	}
+
+	public void testValidateRegion() {
+		int offset = MARKUP.indexOf("h2(");
+		List<ValidationProblem> problems = new ValidationPass(new TextileLanguage(), validator.getRules(), MARKUP,
+				offset, MARKUP.length() - offset).validate(null);
+		assertProblemsEqual(validator.validate(MARKUP, offset, MARKUP.length() - offset), problems);
+		assertEquals(1, problems.size());
+	}
+
+	public void testNoParseRequired() {
+		MarkupValidator markupValidator = new MarkupValidator();
+		markupValidator.getRules().add(new BlockWhitespaceRule());
+		ValidationPass pass = markupValidator.createValidationPass(new TextileLanguage(), MARKUP);
+		assertFalse(pass.requiresParse());
+		assertEquals(1, pass.validate(null).size());
+	}
+
+	public void testEmptyMarkup() {
+		assertTrue(validator.createValidationPass(new TextileLanguage(), "").validate(null).isEmpty());
+	}
+
+	private void assertProblemsEqual(List<ValidationProblem> expected, List<ValidationProblem> actual) {
+		assertEquals(expected.size(), actual.size());
+		for (int x = 0; x < expected.size(); ++x) {
+			ValidationProblem expectedProblem = expected.get(x);
+			ValidationProblem problem = actual.get(x);
+			assertEquals(expectedProblem.getSeverity(), problem.getSeverity());
+			assertEquals(expectedProblem.getMessage(), problem.getMessage());
+			assertEquals(expectedProblem.getOffset(), problem.getOffset());
+			assertEquals(expectedProblem.getLength(), problem.getLength());
+		}
+	}
+}
@@ -1017,6 +1017,26 @@ public class MediaWikiLanguageTest extends TestCase {
 		assertTrue(html.contains(expected));
 	}
 
+	public void testTableCellsSeparatedByLongWhitespace() {
+		StringBuilder sb = new StringBuilder();
+		sb.append("{|\n");
+		sb.append("| a");
+		for (int x = 0; x < 50000; ++x) {
+			sb.append(' ');
+		}
+		sb.append("b || c");
+		for (int x = 0; x < 50000; ++x) {
+			sb.append('\t');
+		}
+		sb.append("!! d\n");
+		sb.append("|}\n");
+
+		String html = parser.parseToHtml(sb.toString());
+
+		assertTrue(html.contains("</td><th>d</th></tr></table>"));
+		assertTrue(html.contains("<td>c</td>"));
+	}
+
 	public void testEntityReference() {
 		String tests = "&Agrave; &Aacute; &Acirc; &Atilde; &Auml; &Aring; &AElig; &Ccedil; &Egrave; &Eacute; &Ecirc; &Euml; &Igrave; &Iacute; &Icirc; &Iuml; &Ntilde; &Ograve; &Oacute; &Ocirc; &Otilde; &Ouml; &Oslash; &Ugrave; &Uacute; &Ucirc; &Uuml; &szlig; &agrave; &aacute; &acirc; &atilde; &auml; &aring; &aelig; &ccedil; &egrave; &eacute; &ecirc; &euml; &igrave; &iacute; &icirc; &iuml; &ntilde; &ograve; &oacute; &ocirc; &oelig; &otilde; &ouml; &oslash; &ugrave; &uacute; &ucirc; &uuml; &yuml; &iquest; &iexcl; &sect; &para; &dagger; &Dagger; &bull; &ndash; &mdash; &lsaquo; &rsaquo; &laquo; &raquo; &lsquo; &rsquo; &ldquo; &rdquo; &trade; &copy; &reg; &cent; &euro; &yen; &pound; &curren; &#8304; &sup1; &sup2; &sup3; &#8308; &int; &sum; &prod; &radic; &minus; &plusmn; &infin; &asymp; &prop; &equiv; &ne; &le; &ge; &times; &middot; &divide; &part; &prime; &Prime; &nabla; &permil; &deg; &there4; &alefsym; &oslash; &isin; &notin; &cap; &cup; &sub; &sup; &sube; &supe; &not; &and; &or; &exist; &forall;  &rArr; &lArr; &dArr; &uArr; &hArr; &rarr; &darr; &uarr; &larr; &harr; &mdash; &ndash;";
 		final String[] allEntities = tests.split("\\s+");
@@ -1244,6 +1264,17 @@ public class MediaWikiLanguageTest extends TestCase {
 		assertTrue(html.contains("<h3 id=\"Subhead_4\">"));
 	}
 
+	public void testTableOfContents_TemplatesExpandedOnce() throws IOException {
+		markupLanguage.setTemplates(Arrays.asList(new Template("open", "{{"), new Template("expanded", "Twice")));
+		String html = parser.parseToHtml("__TOC__\n\n= Heading {{open}}expanded}} =\n\ntext");
+
+		TestUtil.println("HTML: \n" + html);
+
+		assertTrue(html.contains("<h1 id=\"Heading_.7B.7Bexpanded.7D.7D\">Heading {{expanded}}</h1>"));
+		assertTrue(html.contains("<a href=\"#Heading_.7B.7Bexpanded.7D.7D\">Heading {{expanded}}</a>"));
+		assertFalse(html.contains("Twice"));
+	}
+
 	public void testComment_SingleLine() throws IOException {
 		String html = parser.parseToHtml("<!-- comment -->");
 		TestUtil.println("HTML: \n" + html);
@@ -1285,6 +1285,19 @@ public class TextileLanguageTest extends TestCase {
 		assertTrue(html.contains("<ol style=\"list-style: none;\">"));
 	}
 
+	public void testTableOfContentsMultiple() throws IOException {
+		String html = parser.parseToHtml("{toc}\n\nh1. Top Header\n\nsome text\n\nh2. Subhead\n\n{toc:maxLevel=1}\n\nh1. Top Header 2\n\n{toc}");
+
+		TestUtil.println("HTML: \n" + html);
+
+		String toc = "<ol class=\"toc\" style=\"list-style: none;\"><li><a href=\"#TopHeader\">Top Header</a>"
+				+ "<ol style=\"list-style: none;\"><li><a href=\"#Subhead\">Subhead</a></li></ol></li>"
+				+ "<li><a href=\"#TopHeader2\">Top Header 2</a></li></ol>";
+		assertTrue(html.contains("<body>" + toc + "<h1 id=\"TopHeader\">"));
+		assertTrue(html.contains("<h2 id=\"Subhead\">Subhead</h2><ol class=\"toc\" style=\"list-style: none;\"><li><a href=\"#TopHeader\">Top Header</a></li><li><a href=\"#TopHeader2\">Top Header 2</a></li></ol>"));
+		assertTrue(html.contains("<h1 id=\"TopHeader2\">Top Header 2</h1>" + toc + "</body>"));
+	}
+
 	public void testTableOfContentsWithMaxLevel() throws IOException {
 		String html = parser.parseToHtml("h1. Table Of Contents\n\n{toc:maxLevel=2}\n\nh1. Top Header\n\nsome text\n\nh2. Subhead\n\nh2. Subhead2\n\nh1. Top Header 2\n\nh2. Subhead 3\n\nh3. Subhead 4");
 
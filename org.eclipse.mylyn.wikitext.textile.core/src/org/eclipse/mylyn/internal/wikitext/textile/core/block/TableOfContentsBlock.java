@@ -14,8 +14,6 @@ import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
 import org.eclipse.mylyn.wikitext.core.parser.outline.OutlineItem;
-import org.eclipse.mylyn.wikitext.core.parser.outline.OutlineParser;
-import org.eclipse.mylyn.wikitext.textile.core.TextileLanguage;
 
 /**
  * @author David Green
@@ -65,8 +63,7 @@ public class TableOfContentsBlock extends AbstractTableOfContentsBlock {
 				}
 			}
 
-			OutlineParser outlineParser = new OutlineParser(new TextileLanguage());
-			OutlineItem rootItem = outlineParser.parse(state.getMarkupContent());
+			OutlineItem rootItem = state.getOutline(getMarkupLanguage());
 
 			emitToc(rootItem);
 		}
@@ -300,6 +300,14 @@ public class TracWikiLanguage extends AbstractMarkupLanguage {
 		tokenSyntax.endGroup(")(?=\\W|$)", 0); //$NON-NLS-1$
 	}
 
+	/**
+	 * TracWiki markup has no constructs that depend on the whole document, so content can be processed as it is read.
+	 */
+	@Override
+	protected boolean isStreamingSupported() {
+		return true;
+	}
+
 	@Override
 	protected Block createParagraphBlock() {
 		return new ParagraphBlock();
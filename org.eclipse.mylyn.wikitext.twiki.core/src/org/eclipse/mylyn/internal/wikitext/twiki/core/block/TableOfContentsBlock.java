@@ -17,8 +17,6 @@ import org.eclipse.mylyn.wikitext.core.parser.Attributes;
 import org.eclipse.mylyn.wikitext.core.parser.DocumentBuilder.BlockType;
 import org.eclipse.mylyn.wikitext.core.parser.markup.Block;
 import org.eclipse.mylyn.wikitext.core.parser.outline.OutlineItem;
-import org.eclipse.mylyn.wikitext.core.parser.outline.OutlineParser;
-import org.eclipse.mylyn.wikitext.twiki.core.TWikiLanguage;
 
 /**
  * implements the %TOC% variable of TWiki syntax
@@ -42,8 +40,7 @@ public class TableOfContentsBlock extends Block {
 
 		if (!getMarkupLanguage().isFilterGenerativeContents()) {
 
-			OutlineParser outlineParser = new OutlineParser(new TWikiLanguage());
-			OutlineItem rootItem = outlineParser.parse(state.getMarkupContent());
+			OutlineItem rootItem = state.getOutline(getMarkupLanguage());
 
 			emitToc(rootItem);
 		}